@@ -0,0 +1,204 @@
+// ExecutionStats.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * The breakdown of the time of an execution of a SQL.
+ *
+ * <p>
+ * The time is divided into the following phases in nanoseconds.
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>Phases</span></caption>
+ *   <tr><th>Phase</th><th>Content</th></tr>
+ *   <tr><td>connectionWait</td><td>The time to get the connection in the transaction (common to the SQLs in the transaction)</td></tr>
+ *   <tr><td>generate</td><td>The time to generate the SQL including the conversion of the values in the expressions</td></tr>
+ *   <tr><td>bind</td><td>The time to set the parameters to the statement</td></tr>
+ *   <tr><td>execute</td><td>The time to execute the statement</td></tr>
+ *   <tr><td>fetch</td><td>The time for the JDBC driver to fetch the rows</td></tr>
+ *   <tr><td>mapping</td><td>The time to create the entities from the rows</td></tr>
+ *   <tr><td>consumer</td><td>The time spent in the consumers of the entities</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Sql#lastExecutionStats()
+ * @see Sql#addExecutionStatsListener(java.util.function.Consumer)
+ */
+public class ExecutionStats {
+    private final String sql;
+    private final int rowCount;
+    private final long estimatedBytes;
+    private final long connectionWaitNanos;
+    private final long generateNanos;
+    private final long bindNanos;
+    private final long executeNanos;
+    private final long fetchNanos;
+    private final long mappingNanos;
+    private final long consumerNanos;
+
+    /**
+     * Constructs a new <b>ExecutionStats</b>.
+     *
+     * @param sql the SQL
+     * @param rowCount the number of the fetched or affected rows
+     * @param estimatedBytes the estimated size of the fetched column values (bytes)
+     * @param connectionWaitNanos the time to get the connection (nanoseconds), -1 if unknown
+     * @param generateNanos the time to generate the SQL (nanoseconds)
+     * @param bindNanos the time to set the parameters (nanoseconds)
+     * @param executeNanos the time to execute the statement (nanoseconds)
+     * @param fetchNanos the time for the JDBC driver to fetch the rows (nanoseconds)
+     * @param mappingNanos the time to create the entities (nanoseconds)
+     * @param consumerNanos the time spent in the consumers (nanoseconds)
+     */
+    public ExecutionStats(String sql, int rowCount, long estimatedBytes,
+        long connectionWaitNanos, long generateNanos, long bindNanos,
+        long executeNanos, long fetchNanos, long mappingNanos, long consumerNanos) {
+        this.sql                 = sql;
+        this.rowCount            = rowCount;
+        this.estimatedBytes      = estimatedBytes;
+        this.connectionWaitNanos = connectionWaitNanos;
+        this.generateNanos       = generateNanos;
+        this.bindNanos           = bindNanos;
+        this.executeNanos        = executeNanos;
+        this.fetchNanos          = fetchNanos;
+        this.mappingNanos        = mappingNanos;
+        this.consumerNanos       = consumerNanos;
+    }
+
+    /**
+     * Returns the SQL.
+     *
+     * @return the SQL
+     */
+    public String sql() {
+        return sql;
+    }
+
+    /**
+     * Returns the number of the fetched or affected rows.
+     *
+     * @return the number of the rows
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the estimated size of the fetched column values.
+     *
+     * @return the estimated size (bytes)
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns the time to get the connection in the transaction.
+     *
+     * @return the time (nanoseconds), -1 if unknown
+     */
+    public long connectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+
+    /**
+     * Returns the time to generate the SQL.
+     *
+     * @return the time (nanoseconds)
+     */
+    public long generateNanos() {
+        return generateNanos;
+    }
+
+    /**
+     * Returns the time to set the parameters to the statement.
+     *
+     * @return the time (nanoseconds)
+     */
+    public long bindNanos() {
+        return bindNanos;
+    }
+
+    /**
+     * Returns the time to execute the statement.
+     *
+     * @return the time (nanoseconds)
+     */
+    public long executeNanos() {
+        return executeNanos;
+    }
+
+    /**
+     * Returns the time for the JDBC driver to fetch the rows.
+     *
+     * @return the time (nanoseconds)
+     */
+    public long fetchNanos() {
+        return fetchNanos;
+    }
+
+    /**
+     * Returns the time to create the entities from the rows.
+     *
+     * @return the time (nanoseconds)
+     */
+    public long mappingNanos() {
+        return mappingNanos;
+    }
+
+    /**
+     * Returns the time spent in the consumers of the entities.
+     *
+     * @return the time (nanoseconds)
+     */
+    public long consumerNanos() {
+        return consumerNanos;
+    }
+
+    /**
+     * Returns the time spent in Lightsleep,
+     * which is the sum of <b>generate</b>, <b>bind</b> and <b>mapping</b>.
+     *
+     * @return the time (nanoseconds)
+     */
+    public long libraryNanos() {
+        return generateNanos + bindNanos + mappingNanos;
+    }
+
+    /**
+     * Returns the time spent in the database and the JDBC driver,
+     * which is the sum of <b>execute</b> and <b>fetch</b>.
+     *
+     * @return the time (nanoseconds)
+     */
+    public long databaseNanos() {
+        return executeNanos + fetchNanos;
+    }
+
+    /**
+     * Returns the estimated size of the value.
+     *
+     * @param value the value
+     * @return the estimated size (bytes)
+     */
+    static long estimateBytes(Object value) {
+        if (value == null)
+            return 0L;
+        if (value instanceof CharSequence)
+            return 40L + ((CharSequence)value).length() * 2L;
+        if (value instanceof byte[])
+            return 16L + ((byte[])value).length;
+        return 16L;
+    }
+
+    @Override
+    public String toString() {
+        return "rows: " + rowCount + ", bytes: " + estimatedBytes
+            + ", connectionWait: " + connectionWaitNanos + "ns, generate: " + generateNanos
+            + "ns, bind: " + bindNanos + "ns, execute: " + executeNanos + "ns, fetch: " + fetchNanos
+            + "ns, mapping: " + mappingNanos + "ns, consumer: " + consumerNanos + "ns, sql: " + sql;
+    }
+}
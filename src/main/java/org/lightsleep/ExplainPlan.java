@@ -0,0 +1,116 @@
+// ExplainPlan.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The execution plan of a SQL returned by the database.
+ *
+ * <p>
+ * The plan is the rows returned by the SQL of
+ * {@link org.lightsleep.database.Database#explainSqls(CharSequence)},
+ * for example a JSON document in a row for PostgreSQL and MySQL,
+ * the rows of <b>EXPLAIN QUERY PLAN</b> for SQLite
+ * and the lines of <b>DBMS_XPLAN.DISPLAY</b> for Oracle.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Sql#explain()
+ * @see SlowQueryLog
+ */
+public class ExplainPlan {
+    // The patterns of the full table scans in the plans of the databases
+    private static final Pattern fullScanPattern = Pattern.compile(
+          "\"Node Type\"\\s*:\\s*\"Seq Scan\""         // PostgreSQL
+        + "|\"access_type\"\\s*:\\s*\"ALL\""           // MySQL, MariaDB
+        + "|(^|\\s)SCAN( TABLE)?+ \\w++(?! USING)"     // SQLite
+        + "|TABLE ACCESS FULL"                         // Oracle
+        + "|\\btableScan\\b"                           // H2
+    );
+
+    private final String sql;
+    private final List<Map<String, Object>> rows;
+    private final Instant capturedTime;
+
+    /**
+     * Constructs a new <b>ExplainPlan</b>.
+     *
+     * @param sql the explained SQL
+     * @param rows the rows of the plan, each of which is a map of key: column label and value: column value
+     * @param capturedTime the time when the plan was captured
+     */
+    public ExplainPlan(String sql, List<Map<String, Object>> rows, Instant capturedTime) {
+        this.sql = sql;
+        this.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+        this.capturedTime = capturedTime;
+    }
+
+    /**
+     * Returns the explained SQL.
+     *
+     * @return the explained SQL
+     */
+    public String sql() {
+        return sql;
+    }
+
+    /**
+     * Returns the rows of the plan.
+     *
+     * @return the unmodifiable list of the rows, each of which is a map of key: column label and value: column value
+     */
+    public List<Map<String, Object>> rows() {
+        return rows;
+    }
+
+    /**
+     * Returns the time when the plan was captured.
+     *
+     * @return the time when the plan was captured
+     */
+    public Instant capturedTime() {
+        return capturedTime;
+    }
+
+    /**
+     * Returns the plan as a text.
+     *
+     * <p>
+     * Each row is a line of the column values separated by tabs.
+     * </p>
+     *
+     * @return the plan as a text
+     */
+    public String text() {
+        return rows.stream()
+            .map(row -> row.values().stream().map(String::valueOf).collect(Collectors.joining("\t")))
+            .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Returns whether the plan includes a full table scan.
+     *
+     * <p>
+     * Determines from the notations of PostgreSQL, MySQL, MariaDB, SQLite, Oracle and H2.
+     * </p>
+     *
+     * @return <b>true</b> if the plan includes a full table scan, <b>false</b> otherwise
+     */
+    public boolean hasFullScan() {
+        return fullScanPattern.matcher(text()).find();
+    }
+
+    @Override
+    public String toString() {
+        return "sql: " + sql + ", plan:\n" + text();
+    }
+}
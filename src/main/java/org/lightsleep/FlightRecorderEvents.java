@@ -0,0 +1,331 @@
+// FlightRecorderEvents.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.lightsleep.helper.Resource;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * Emits the Java Flight Recorder events of Lightsleep.
+ *
+ * <p>
+ * The events are emitted only while a flight recording is running,
+ * so there is no overhead other than checking a flag when no recording is running.
+ * The events are defined with <b>jdk.jfr.EventFactory</b> at runtime
+ * and do nothing if the Java runtime does not have <b>jdk.jfr</b> module.
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>Events</span></caption>
+ *   <tr><th>Event Name</th><th>Duration</th><th>Fields</th></tr>
+ *   <tr><td>org.lightsleep.StatementExecute</td><td>From the preparation to the end of the fetch</td>
+ *     <td>connection, fingerprint, rowCount, executeTime, fetchTime, succeeded</td></tr>
+ *   <tr><td>org.lightsleep.BatchFlush</td><td>The execution of the batch</td>
+ *     <td>connection, fingerprint, statementCount, rowCount, succeeded</td></tr>
+ *   <tr><td>org.lightsleep.Transaction</td><td>From the begin to the commit or rollback</td>
+ *     <td>connectionSupplier, outcome (commit or rollback)</td></tr>
+ *   <tr><td>org.lightsleep.ConnectionAcquire</td><td>The acquisition from the data source</td>
+ *     <td>connectionSupplier</td></tr>
+ *   <tr><td>org.lightsleep.ConnectionClose</td><td>The close of the connection</td>
+ *     <td>connection, heldTime</td></tr>
+ * </table>
+ *
+ * <table class="additional">
+ *   <caption><span>Related lightsleep.properties</span></caption>
+ *   <tr><th>Property Name</th><th>Content</th></tr>
+ *   <tr><td>flightRecorderEvents</td><td>Whether to emit the events (default: true)</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public final class FlightRecorderEvents {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderEvents.class);
+
+    /** The type of the event emitted for each execution of a statement */
+    public static final Type STATEMENT_EXECUTE = new Type("StatementExecute", "SQL Statement Execute",
+        "Execution of a SQL statement including the fetch of the rows",
+        new Field("connection"    , String.class , "Connection"     , false),
+        new Field("fingerprint"   , String.class , "Fingerprint"    , false),
+        new Field("rowCount"      , int.class    , "Row Count"      , false),
+        new Field("executeTime"   , long.class   , "Execute Time"   , true ),
+        new Field("fetchTime"     , long.class   , "Fetch Time"     , true ),
+        new Field("succeeded"     , boolean.class, "Succeeded"      , false));
+
+    /** The type of the event emitted for each execution of a batch */
+    public static final Type BATCH_FLUSH = new Type("BatchFlush", "SQL Batch Flush",
+        "Execution of a batch of SQL statements",
+        new Field("connection"    , String.class , "Connection"     , false),
+        new Field("fingerprint"   , String.class , "Fingerprint"    , false),
+        new Field("statementCount", int.class    , "Statement Count", false),
+        new Field("rowCount"      , int.class    , "Row Count"      , false),
+        new Field("succeeded"     , boolean.class, "Succeeded"      , false));
+
+    /** The type of the event emitted for each transaction */
+    public static final Type TRANSACTION = new Type("Transaction", "Transaction",
+        "Transaction from the begin to the commit or rollback",
+        new Field("connectionSupplier", String.class, "Connection Supplier", false),
+        new Field("outcome"           , String.class, "Outcome"            , false));
+
+    /** The type of the event emitted for each acquisition of a connection */
+    public static final Type CONNECTION_ACQUIRE = new Type("ConnectionAcquire", "Connection Acquire",
+        "Acquisition of a connection from the data source",
+        new Field("connectionSupplier", String.class, "Connection Supplier", false));
+
+    /** The type of the event emitted for each close of a connection */
+    public static final Type CONNECTION_CLOSE = new Type("ConnectionClose", "Connection Close",
+        "Close of a connection",
+        new Field("connection", String.class, "Connection" , false),
+        new Field("heldTime"  , long.class  , "Held Time"  , true ));
+
+    // The methods of jdk.jfr.Event, null if jdk.jfr is not available
+    private static final Method beginMethod;
+    private static final Method endMethod;
+    private static final Method setMethod;
+    private static final Method commitMethod;
+
+    // Whether a flight recording is running
+    private static volatile boolean recording;
+
+    static {
+        Method begin = null, end = null, set = null, commit = null;
+        if (Resource.getGlobal().getValue("flightRecorderEvents", Boolean::valueOf, true)) {
+            try {
+                Class<?> eventClass = Class.forName("jdk.jfr.Event");
+                begin  = eventClass.getMethod("begin");
+                end    = eventClass.getMethod("end");
+                set    = eventClass.getMethod("set", int.class, Object.class);
+                commit = eventClass.getMethod("commit");
+                for (Type type : Arrays.asList(STATEMENT_EXECUTE, BATCH_FLUSH, TRANSACTION, CONNECTION_ACQUIRE, CONNECTION_CLOSE))
+                    type.register();
+                addRecorderListener();
+            }
+            catch (ClassNotFoundException e) {
+                logger.debug(() -> "FlightRecorderEvents: jdk.jfr is not available");
+                begin = end = set = commit = null;
+            }
+            catch (Exception | LinkageError e) {
+                logger.warn("FlightRecorderEvents: " + e);
+                begin = end = set = commit = null;
+            }
+        }
+        beginMethod  = begin;
+        endMethod    = end;
+        setMethod    = set;
+        commitMethod = commit;
+    }
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * Returns whether a flight recording is running and the events are emitted.
+     *
+     * @return <b>true</b> if a flight recording is running, <b>false</b> otherwise
+     */
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Begins an event if a flight recording is running.
+     *
+     * @param type the type of the event
+     * @return the event object which is passed to {@link #commit(Object, Object...)}, <b>null</b> if no recording is running
+     */
+    public static Object begin(Type type) {
+        if (!recording || type.factory == null)
+            return null;
+        try {
+            Object event = type.newEventMethod.invoke(type.factory);
+            beginMethod.invoke(event);
+            return event;
+        }
+        catch (Exception e) {
+            logger.debug(() -> "FlightRecorderEvents.begin: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Ends the event, sets the field values and commits it.
+     * Does nothing if <b>event</b> is <b>null</b>.
+     *
+     * @param event the event object returned by {@link #begin(Type)}
+     * @param values the field values in the order of the fields of the event type
+     */
+    public static void commit(Object event, Object... values) {
+        if (event == null)
+            return;
+        try {
+            endMethod.invoke(event);
+            for (int index = 0; index < values.length; ++index)
+                setMethod.invoke(event, index, values[index]);
+            commitMethod.invoke(event);
+        }
+        catch (Exception e) {
+            logger.debug(() -> "FlightRecorderEvents.commit: " + e);
+        }
+    }
+
+    /**
+     * Adds a listener to <b>jdk.jfr.FlightRecorder</b> which updates the recording flag.
+     *
+     * @throws ReflectiveOperationException if a reflective operation fails
+     */
+    private static void addRecorderListener() throws ReflectiveOperationException {
+        Class<?> recorderClass = Class.forName("jdk.jfr.FlightRecorder");
+        Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+        Object listener = Proxy.newProxyInstance(FlightRecorderEvents.class.getClassLoader(),
+            new Class<?>[] {listenerClass},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                case "recordingStateChanged":
+                case "recorderInitialized":
+                    updateRecording(recorderClass);
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return FlightRecorderEvents.class.getSimpleName();
+                default:
+                    return null;
+                }
+            });
+        recorderClass.getMethod("addListener", listenerClass).invoke(null, listener);
+        if ((Boolean)recorderClass.getMethod("isInitialized").invoke(null))
+            updateRecording(recorderClass);
+    }
+
+    /**
+     * Updates the recording flag with the states of the recordings.
+     *
+     * @param recorderClass <b>jdk.jfr.FlightRecorder</b> class
+     */
+    private static void updateRecording(Class<?> recorderClass) {
+        boolean running = false;
+        try {
+            Object recorder = recorderClass.getMethod("getFlightRecorder").invoke(null);
+            List<?> recordings = (List<?>)recorderClass.getMethod("getRecordings").invoke(recorder);
+            for (Object recording : recordings) {
+                Object state = recording.getClass().getMethod("getState").invoke(recording);
+                if ("RUNNING".equals(state.toString())) {
+                    running = true;
+                    break;
+                }
+            }
+        }
+        catch (Exception e) {
+            logger.debug(() -> "FlightRecorderEvents.updateRecording: " + e);
+        }
+        recording = running;
+        logger.debug(() -> "FlightRecorderEvents: recording: " + recording);
+    }
+
+    /**
+     * A field of an event type.
+     *
+     * @since 4.1.0
+     */
+    private static class Field {
+        private final String name;
+        private final Class<?> type;
+        private final String label;
+        private final boolean timespan;
+
+        private Field(String name, Class<?> type, String label, boolean timespan) {
+            this.name = name;
+            this.type = type;
+            this.label = label;
+            this.timespan = timespan;
+        }
+    }
+
+    /**
+     * A type of the events.
+     *
+     * @since 4.1.0
+     */
+    public static final class Type {
+        private final String name;
+        private final String label;
+        private final String description;
+        private final List<Field> fields;
+
+        // jdk.jfr.EventFactory and its newEvent method, null if not registered
+        private Object factory;
+        private Method newEventMethod;
+
+        private Type(String name, String label, String description, Field... fields) {
+            this.name = "org.lightsleep." + name;
+            this.label = label;
+            this.description = description;
+            this.fields = Collections.unmodifiableList(Arrays.asList(fields));
+        }
+
+        /**
+         * Returns the name of the event.
+         *
+         * @return the name of the event
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Registers the event type with <b>jdk.jfr.EventFactory</b>.
+         *
+         * @throws ReflectiveOperationException if a reflective operation fails
+         */
+        @SuppressWarnings("unchecked")
+        private void register() throws ReflectiveOperationException {
+            Class<?> elementClass    = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> descriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+            Class<?> factoryClass    = Class.forName("jdk.jfr.EventFactory");
+            Constructor<?> elementConstructor = elementClass.getConstructor(Class.class, Object.class);
+            Constructor<?> descriptorConstructor = descriptorClass.getConstructor(Class.class, String.class, List.class);
+            Class<? extends Annotation> nameClass     = (Class<? extends Annotation>)Class.forName("jdk.jfr.Name");
+            Class<? extends Annotation> labelClass    = (Class<? extends Annotation>)Class.forName("jdk.jfr.Label");
+            Class<? extends Annotation> descClass     = (Class<? extends Annotation>)Class.forName("jdk.jfr.Description");
+            Class<? extends Annotation> categoryClass = (Class<? extends Annotation>)Class.forName("jdk.jfr.Category");
+            Class<? extends Annotation> timespanClass = (Class<? extends Annotation>)Class.forName("jdk.jfr.Timespan");
+
+            List<Object> annotations = new ArrayList<>();
+            annotations.add(elementConstructor.newInstance(nameClass, name));
+            annotations.add(elementConstructor.newInstance(labelClass, label));
+            annotations.add(elementConstructor.newInstance(descClass, description));
+            annotations.add(elementConstructor.newInstance(categoryClass, new String[] {"Lightsleep"}));
+
+            List<Object> descriptors = new ArrayList<>();
+            for (Field field : fields) {
+                List<Object> fieldAnnotations = new ArrayList<>();
+                fieldAnnotations.add(elementConstructor.newInstance(labelClass, field.label));
+                if (field.timespan)
+                    fieldAnnotations.add(elementConstructor.newInstance(timespanClass, "NANOSECONDS"));
+                descriptors.add(descriptorConstructor.newInstance(field.type, field.name, fieldAnnotations));
+            }
+
+            factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, descriptors);
+            newEventMethod = factoryClass.getMethod("newEvent");
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
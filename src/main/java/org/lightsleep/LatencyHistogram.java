@@ -0,0 +1,257 @@
+// LatencyHistogram.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds.
+ *
+ * <p>
+ * Each power of 2 range of the latencies is divided into 16 linear buckets,
+ * so the relative error of the percentiles is at most 1/16.
+ * Recording does not lock and can be called from multiple threads concurrently.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see SqlMetrics
+ */
+public class LatencyHistogram {
+    // The number of bits of the linear buckets in each power of 2 range
+    private static final int SUB_BUCKET_BITS = 4;
+
+    // The number of the linear buckets in each power of 2 range
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // The number of the buckets
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    // The counts of the buckets
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    // The number of the recorded latencies
+    private final LongAdder count = new LongAdder();
+
+    // The sum of the recorded latencies
+    private final LongAdder sum = new LongAdder();
+
+    // The maximum of the recorded latencies
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency (nanoseconds), treated as 0 if negative
+     */
+    public void record(long nanos) {
+        if (nanos < 0L) nanos = 0L;
+        counts.incrementAndGet(bucketIndex(nanos));
+        count.increment();
+        sum.add(nanos);
+        if (nanos > max.get())
+            max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Returns the number of the recorded latencies.
+     *
+     * @return the number of the recorded latencies
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean of the recorded latencies.
+     *
+     * @return the mean (nanoseconds), 0 if nothing has been recorded
+     */
+    public double mean() {
+        long count = this.count.sum();
+        return count == 0L ? 0.0 : (double)sum.sum() / count;
+    }
+
+    /**
+     * Returns the maximum of the recorded latencies.
+     *
+     * @return the maximum (nanoseconds)
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the latency at the percentile.
+     *
+     * @param percentile the percentile (0.0 - 100.0)
+     * @return the highest latency of the bucket of the percentile (nanoseconds), 0 if nothing has been recorded
+     *
+     * @throws IllegalArgumentException if <b>percentile</b> is out of range
+     */
+    public long percentile(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0))
+            throw new IllegalArgumentException("percentile: " + percentile);
+
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0L;
+        for (int index = 0; index < BUCKET_COUNT; ++index) {
+            counts[index] = this.counts.get(index);
+            total += counts[index];
+        }
+        if (total == 0L)
+            return 0L;
+
+        long rank = Math.max((long)Math.ceil(total * percentile / 100.0), 1L);
+        long cumulative = 0L;
+        for (int index = 0; index < BUCKET_COUNT; ++index) {
+            cumulative += counts[index];
+            if (cumulative >= rank)
+                return Math.min(highestValue(index), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears the recorded latencies.
+     */
+    public void reset() {
+        for (int index = 0; index < BUCKET_COUNT; ++index)
+            counts.set(index, 0L);
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    /**
+     * Returns the statistics of the recorded latencies.
+     *
+     * @return the statistics
+     */
+    public Statistics statistics() {
+        return new Statistics(count(), mean(), percentile(50.0), percentile(90.0), percentile(99.0), max());
+    }
+
+    /**
+     * Returns the index of the bucket of the value.
+     *
+     * @param value the value (&gt;= 0)
+     * @return the index of the bucket
+     */
+    private static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT)
+            return (int)value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int)(value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * Returns the highest value of the bucket.
+     *
+     * @param index the index of the bucket
+     * @return the highest value of the bucket
+     */
+    private static long highestValue(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT)
+            return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * The statistics of the recorded latencies in milliseconds.
+     *
+     * @since 4.1.0
+     */
+    public static class Statistics {
+        private final long count;
+        private final double mean;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double max;
+
+        /**
+         * Constructs a new <b>Statistics</b>.
+         *
+         * @param count the number of the recorded latencies
+         * @param meanNanos the mean (nanoseconds)
+         * @param p50Nanos the 50th percentile (nanoseconds)
+         * @param p90Nanos the 90th percentile (nanoseconds)
+         * @param p99Nanos the 99th percentile (nanoseconds)
+         * @param maxNanos the maximum (nanoseconds)
+         */
+        public Statistics(long count, double meanNanos, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+            this.count = count;
+            mean = meanNanos / 1_000_000.0;
+            p50  = p50Nanos  / 1_000_000.0;
+            p90  = p90Nanos  / 1_000_000.0;
+            p99  = p99Nanos  / 1_000_000.0;
+            max  = maxNanos  / 1_000_000.0;
+        }
+
+        /**
+         * Returns the number of the recorded latencies.
+         *
+         * @return the number of the recorded latencies
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the mean.
+         *
+         * @return the mean (milliseconds)
+         */
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * Returns the 50th percentile.
+         *
+         * @return the 50th percentile (milliseconds)
+         */
+        public double getP50() {
+            return p50;
+        }
+
+        /**
+         * Returns the 90th percentile.
+         *
+         * @return the 90th percentile (milliseconds)
+         */
+        public double getP90() {
+            return p90;
+        }
+
+        /**
+         * Returns the 99th percentile.
+         *
+         * @return the 99th percentile (milliseconds)
+         */
+        public double getP99() {
+            return p99;
+        }
+
+        /**
+         * Returns the maximum.
+         *
+         * @return the maximum (milliseconds)
+         */
+        public double getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count: " + count + ", mean: " + mean + "ms, p50: " + p50
+                + "ms, p90: " + p90 + "ms, p99: " + p99 + "ms, max: " + max + "ms";
+        }
+    }
+}
@@ -0,0 +1,185 @@
+// NPlusOneDetector.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.Resource;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * A detector of the N+1 queries, which reports to the logger named <b>org.lightsleep.NPlusOneDetector</b>.
+ *
+ * <p>
+ * Counts the executions of the SQLs for each fingerprint (see {@link SqlMetrics#fingerprint(CharSequence)})
+ * in a transaction executed by {@link Transaction#execute(Transaction)} methods,
+ * and reports when the SQLs of a fingerprint are executed more than the threshold times.
+ * The report is output once for each fingerprint in a transaction at the WARN level,
+ * or thrown as a {@link NPlusOneException} if the throwing is enabled (for example in tests).
+ * The report includes the calling site outside Lightsleep
+ * and suggests getting the rows of the keys at once instead of one by one.
+ * </p>
+ *
+ * <p>
+ * The counts are discarded when the transaction is committed or rolled back
+ * or when the connection is closed.
+ * Nothing is counted if the threshold is negative.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * NPlusOneDetector.instance.<b>setThreshold(10)</b>;
+ * NPlusOneDetector.instance.<b>setThrowing(true)</b>;
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * NPlusOneDetector.instance.<b>threshold = 10</b>
+ * NPlusOneDetector.instance.<b>throwing = true</b>
+ * </pre></div>
+ *
+ * <p>
+ * The default values are specified in lightsleep.properties as follows.
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>lightsleep.properties</span></caption>
+ *   <tr><th>Property Name</th><th>Content</th><th>Default</th></tr>
+ *   <tr><td>nPlusOneThreshold</td><td>The maximum number of the executions of the same fingerprint in a transaction</td><td>-1 (not detected)</td></tr>
+ *   <tr><td>nPlusOneThrow</td><td>Whether to throw a <b>NPlusOneException</b> instead of logging</td><td>false</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class NPlusOneDetector {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(NPlusOneDetector.class);
+
+    /** The N+1 query detector used by <b>Transaction</b> and <b>Sql</b> */
+    public static final NPlusOneDetector instance = new NPlusOneDetector();
+
+    // The maximum number of the executions of the same fingerprint in a transaction, negative if not detected
+    private volatile int threshold = Resource.getGlobal().getInt("nPlusOneThreshold", -1);
+
+    // Whether to throw a NPlusOneException instead of logging
+    private volatile boolean throwing = Resource.getGlobal().getValue("nPlusOneThrow", Boolean::valueOf, false);
+
+    // The map of key: connection wrapper and value: map of key: fingerprint and value: execution count
+    private final Map<ConnectionWrapper, Map<String, int[]>> countsMap = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the maximum number of the executions of the same fingerprint in a transaction.
+     *
+     * @param threshold the maximum number of the executions, negative if not detected
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns the maximum number of the executions of the same fingerprint in a transaction.
+     *
+     * @return the maximum number of the executions, negative if not detected
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets whether to throw a <b>NPlusOneException</b> instead of logging.
+     *
+     * @param throwing <b>true</b> to throw an exception, <b>false</b> to log
+     */
+    public void setThrowing(boolean throwing) {
+        this.throwing = throwing;
+    }
+
+    /**
+     * Returns whether to throw a <b>NPlusOneException</b> instead of logging.
+     *
+     * @return <b>true</b> to throw an exception, <b>false</b> to log
+     */
+    public boolean isThrowing() {
+        return throwing;
+    }
+
+    /**
+     * Starts counting the executions of the SQLs on the connection
+     * until the transaction is completed or the connection is closed.
+     *
+     * @param connection the connection wrapper
+     */
+    void begin(ConnectionWrapper connection) {
+        if (threshold < 0)
+            return;
+        countsMap.put(connection, new HashMap<>());
+        connection.addCompletionAction(() -> countsMap.remove(connection));
+    }
+
+    /**
+     * Returns whether the executions of the SQLs on the connection are being counted.
+     *
+     * @param connection the connection wrapper
+     * @return <b>true</b> if being counted, <b>false</b> otherwise
+     */
+    boolean isCounting(ConnectionWrapper connection) {
+        return !countsMap.isEmpty() && countsMap.containsKey(connection);
+    }
+
+    /**
+     * Counts an execution of the SQL and reports if the count exceeds the threshold.
+     *
+     * @param connection the connection wrapper
+     * @param entityClass the entity class
+     * @param sql the SQL
+     *
+     * @throws NPlusOneException if the count exceeds the threshold and the throwing is enabled
+     */
+    void record(ConnectionWrapper connection, Class<?> entityClass, CharSequence sql) {
+        record(connection, entityClass, sql, null);
+    }
+
+    /**
+     * Counts an execution of the SQL of which fingerprint is already computed.
+     *
+     * @param connection the connection wrapper
+     * @param entityClass the entity class
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL, <b>null</b> if not computed yet
+     *
+     * @throws NPlusOneException if the count exceeds the threshold and the throwing is enabled
+     */
+    void record(ConnectionWrapper connection, Class<?> entityClass, CharSequence sql, String fingerprint) {
+        if (countsMap.isEmpty())
+            return;
+        Map<String, int[]> counts = countsMap.get(connection);
+        if (counts == null)
+            return;
+
+        if (fingerprint == null)
+            fingerprint = SqlMetrics.fingerprint(sql);
+        int count = ++counts.computeIfAbsent(fingerprint, key -> new int[1])[0];
+        int threshold = this.threshold;
+        if (threshold < 0 || count != threshold + 1)
+            return;
+
+        String message = "N+1 query: executed more than " + threshold + " times in a transaction"
+            + ", entity: " + entityClass.getName()
+            + ", connection: " + connection
+                + '@' + Integer.toHexString(System.identityHashCode(connection))
+            + ", caller: " + SlowQueryLog.callingSite()
+            + ", sql: " + fingerprint
+            + (SlowQueryLog.isSelect(sql)
+                ? ", suggestion: select the rows of all keys at once (e.g. where(\"{key} IN {}\", keys)) instead of one by one"
+                : ", suggestion: execute the SQLs at once in a batch (e.g. insert(entities), update(entities)) instead of one by one");
+        if (throwing)
+            throw new NPlusOneException(message);
+        logger.warn(message);
+    }
+}
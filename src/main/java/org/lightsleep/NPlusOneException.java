@@ -0,0 +1,23 @@
+// NPlusOneException.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * This exception is thrown by {@link NPlusOneDetector}
+ * if SQLs of the same fingerprint are executed more than the threshold times in a transaction.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+@SuppressWarnings("serial")
+public class NPlusOneException extends RuntimeException {
+    /**
+     * Constructs a new <b>NPlusOneException</b> with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public NPlusOneException(String message) {
+        super(message);
+    }
+}
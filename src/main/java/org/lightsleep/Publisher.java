@@ -0,0 +1,82 @@
+// Publisher.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * A publisher of entities which emits them as subscribers request.
+ *
+ * <p>
+ * The shape of this interface is the same as <b>org.reactivestreams.Publisher</b>
+ * and <b>java.util.concurrent.Flow.Publisher</b> (Java 9 or later),
+ * so that it can be adapted to them with method references.
+ * </p>
+ *
+ * @param <T> the type of the entities
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Sql#publish()
+ * @see Sql#publishAs(Class)
+ */
+@FunctionalInterface
+public interface Publisher<T> {
+    /**
+     * Requests this publisher to start emitting entities to the subscriber.
+     *
+     * @param subscriber the subscriber
+     *
+     * @throws NullPointerException if <b>subscriber</b> is <b>null</b>
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+
+    /**
+     * A receiver of entities.
+     *
+     * @param <T> the type of the entities
+     */
+    interface Subscriber<T> {
+        /**
+         * Called before any other method of this subscriber is called.
+         *
+         * @param subscription the subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with the next entity.
+         *
+         * @param item the entity
+         */
+        void onNext(T item);
+
+        /**
+         * Called when an error occurred.
+         *
+         * @param throwable the error
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called when all entities have been emitted.
+         */
+        void onComplete();
+    }
+
+    /**
+     * A link between a publisher and a subscriber.
+     */
+    interface Subscription {
+        /**
+         * Adds <b>n</b> to the number of entities requested.
+         *
+         * @param n the number of entities (if not positive, <b>onError</b> is called with <b>IllegalArgumentException</b>)
+         */
+        void request(long n);
+
+        /**
+         * Requests the publisher to stop emitting entities.
+         */
+        void cancel();
+    }
+}
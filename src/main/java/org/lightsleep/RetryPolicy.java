@@ -0,0 +1,240 @@
+// RetryPolicy.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.lightsleep.database.Database;
+import org.lightsleep.helper.Resource;
+
+/**
+ * A policy to retry the transactions failed with retryable exceptions such as deadlocks and serialization failures.
+ *
+ * <p>
+ * {@link Transaction#execute(org.lightsleep.connection.ConnectionSupplier, RetryPolicy, Transaction)} rolls back the transaction,
+ * closes the connection, waits for the backoff time and executes the whole transaction again
+ * if the exception thrown in the transaction or any of its causes is a <b>SQLException</b>
+ * judged retryable by {@link Database#isRetryable(SQLException)} of the database handler.
+ * </p>
+ *
+ * <p>
+ * The backoff time is a random time (full jitter)
+ * between zero and <i>initialBackoff</i> &times; 2<sup><i>retries</i></sup> capped at <i>maxBackoff</i>.
+ * The retries are limited by the budget shared by the transactions using this policy,
+ * which earns <i>budgetRatio</i> for each transaction, spends 1 for each retry
+ * and holds up to {@value #MAX_BUDGET}, so that retries do not multiply the load under heavy contention.
+ * </p>
+ *
+ * <p>
+ * <span class="simpleTagLabel">Caution:</span>
+ * The transaction body is executed again from the beginning,
+ * so it must not have side effects outside the transaction.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * var retryPolicy = new <b>RetryPolicy(3, Duration.ofMillis(10), Duration.ofSeconds(1), 0.1)</b>;
+ * Transaction.execute(ConnectionSupplier.find(), <b>retryPolicy</b>, conn -&gt; {
+ *     ...
+ * });
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * def retryPolicy = new <b>RetryPolicy(3, Duration.ofMillis(10), Duration.ofSeconds(1), 0.1)</b>
+ * Transaction.execute(ConnectionSupplier.find(), <b>retryPolicy</b>) {
+ *     ...
+ * }
+ * </pre></div>
+ *
+ * <p>
+ * The default policy used by the other <b>Transaction.execute</b> methods
+ * is specified in lightsleep.properties as follows.
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>lightsleep.properties</span></caption>
+ *   <tr><th>Property Name</th><th>Content</th><th>Default</th></tr>
+ *   <tr><td>transactionMaxAttempts</td><td>The maximum number of the attempts including the first</td><td>1 (not retried)</td></tr>
+ *   <tr><td>transactionRetryInitialBackoffMillis</td><td>The initial backoff time (ms)</td><td>10</td></tr>
+ *   <tr><td>transactionRetryMaxBackoffMillis</td><td>The maximum backoff time (ms)</td><td>1000</td></tr>
+ *   <tr><td>transactionRetryBudgetRatio</td><td>The budget of the retries earned for each transaction</td><td>0.1</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see SqlMetrics.SupplierStatistics#getRetryCount()
+ */
+public class RetryPolicy {
+    /** The maximum budget of the retries */
+    public static final int MAX_BUDGET = 10;
+
+    /** The policy not to retry */
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 0.0);
+
+    // The default policy
+    private static volatile RetryPolicy defaultPolicy = new RetryPolicy(
+        Resource.getGlobal().getInt("transactionMaxAttempts", 1),
+        Duration.ofMillis(Resource.getGlobal().getValue("transactionRetryInitialBackoffMillis", Long::valueOf, 10L)),
+        Duration.ofMillis(Resource.getGlobal().getValue("transactionRetryMaxBackoffMillis", Long::valueOf, 1000L)),
+        Resource.getGlobal().getValue("transactionRetryBudgetRatio", Double::valueOf, 0.1));
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double budgetRatio;
+
+    // The remaining budget of the retries
+    private double budget = MAX_BUDGET;
+
+    /**
+     * Constructs a new <b>RetryPolicy</b>.
+     *
+     * @param maxAttempts the maximum number of the attempts including the first
+     * @param initialBackoff the initial backoff time
+     * @param maxBackoff the maximum backoff time
+     * @param budgetRatio the budget of the retries earned for each transaction
+     *
+     * @throws NullPointerException if <b>initialBackoff</b> or <b>maxBackoff</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>maxAttempts</b> &lt; 1, a backoff time is negative or <b>budgetRatio</b> &lt; 0
+     */
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double budgetRatio) {
+        Objects.requireNonNull(initialBackoff, "initialBackoff is null");
+        Objects.requireNonNull(maxBackoff, "maxBackoff is null");
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("maxAttempts: " + maxAttempts);
+        if (initialBackoff.isNegative() || maxBackoff.isNegative())
+            throw new IllegalArgumentException("initialBackoff: " + initialBackoff + ", maxBackoff: " + maxBackoff);
+        if (!(budgetRatio >= 0.0))
+            throw new IllegalArgumentException("budgetRatio: " + budgetRatio);
+
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * Returns the default policy.
+     *
+     * @return the default policy
+     */
+    public static RetryPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Sets the default policy.
+     *
+     * @param retryPolicy the default policy
+     *
+     * @throws NullPointerException if <b>retryPolicy</b> is <b>null</b>
+     */
+    public static void setDefault(RetryPolicy retryPolicy) {
+        defaultPolicy = Objects.requireNonNull(retryPolicy, "retryPolicy is null");
+    }
+
+    /**
+     * Returns the maximum number of the attempts including the first.
+     *
+     * @return the maximum number of the attempts
+     */
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns the initial backoff time.
+     *
+     * @return the initial backoff time
+     */
+    public Duration initialBackoff() {
+        return Duration.ofNanos(initialBackoffNanos);
+    }
+
+    /**
+     * Returns the maximum backoff time.
+     *
+     * @return the maximum backoff time
+     */
+    public Duration maxBackoff() {
+        return Duration.ofNanos(maxBackoffNanos);
+    }
+
+    /**
+     * Returns the budget of the retries earned for each transaction.
+     *
+     * @return the budget ratio
+     */
+    public double budgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * Returns whether the exception or any of its causes is a <b>SQLException</b>
+     * judged retryable by the database handler.
+     *
+     * @param database the database handler
+     * @param exception the exception
+     * @return <b>true</b> if retryable, <b>false</b> otherwise
+     *
+     * @throws NullPointerException if <b>database</b> or <b>exception</b> is <b>null</b>
+     */
+    public static boolean isRetryable(Database database, Throwable exception) {
+        Objects.requireNonNull(database, "database is null");
+        Objects.requireNonNull(exception, "exception is null");
+        for (Throwable cause = exception; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof SQLException && database.isRetryable((SQLException)cause))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Earns the budget for a transaction.
+     * Called once for each transaction.
+     */
+    void earnBudget() {
+        if (maxAttempts <= 1 || budgetRatio == 0.0)
+            return;
+        synchronized (this) {
+            budget = Math.min(budget + budgetRatio, MAX_BUDGET);
+        }
+    }
+
+    /**
+     * Spends the budget for a retry if the budget remains.
+     *
+     * @return <b>true</b> if spent, <b>false</b> if the budget is exhausted
+     */
+    synchronized boolean spendBudget() {
+        if (budget < 1.0)
+            return false;
+        budget -= 1.0;
+        return true;
+    }
+
+    /**
+     * Returns a random backoff time before the retry.
+     *
+     * @param retries the number of the retries so far (0, 1, ...)
+     * @return the backoff time (nanoseconds)
+     */
+    long backoffNanos(int retries) {
+        long ceiling = initialBackoffNanos;
+        for (int count = 0; count < retries && ceiling < maxBackoffNanos; ++count)
+            ceiling = ceiling > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : ceiling * 2;
+        ceiling = Math.min(ceiling, maxBackoffNanos);
+        return ceiling <= 0L ? 0L : ThreadLocalRandom.current().nextLong(ceiling);
+    }
+
+    @Override
+    public String toString() {
+        return "maxAttempts: " + maxAttempts + ", initialBackoff: " + initialBackoff()
+            + ", maxBackoff: " + maxBackoff() + ", budgetRatio: " + budgetRatio;
+    }
+}
@@ -0,0 +1,132 @@
+// RowSubscription.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A subscription of <b>Publisher</b> returned by <b>Sql.publish</b>.
+ *
+ * <p>
+ * The thread reading rows waits in <b>awaitDemand</b> until the subscriber requests.
+ * All signals to the subscriber are sent from the thread reading rows.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+class RowSubscription<T> implements Publisher.Subscription {
+    // The subscriber
+    private final Publisher.Subscriber<? super T> subscriber;
+
+    // The lock and the condition of demand
+    private final Lock lock = new ReentrantLock();
+    private final Condition demandCondition = lock.newCondition();
+
+    // The number of entities requested and not emitted
+    private long demand;
+
+    // true if cancelled or terminated
+    private volatile boolean cancelled;
+
+    // The error caused by the subscriber
+    private volatile Throwable requestError;
+
+    RowSubscription(Publisher.Subscriber<? super T> subscriber) {
+        this.subscriber = Objects.requireNonNull(subscriber, "subscriber is null");
+    }
+
+    @Override
+    public void request(long n) {
+        lock.lock();
+        try {
+            if (cancelled)
+                return;
+            if (n <= 0L) {
+                requestError = new IllegalArgumentException("n: " + n);
+                cancelled = true;
+            } else {
+                demand += n;
+                if (demand < 0L)
+                    demand = Long.MAX_VALUE;
+            }
+            demandCondition.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            demandCondition.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether cancelled.
+     *
+     * @return <b>true</b> if cancelled, <b>false</b> otherwise
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Waits until an entity is requested and emits the entity to the subscriber.
+     *
+     * @param entity the entity
+     */
+    void emit(T entity) {
+        lock.lock();
+        try {
+            while (demand == 0L && !cancelled)
+                demandCondition.await();
+            if (cancelled)
+                return;
+            --demand;
+        }
+        catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+            return;
+        }
+        finally {
+            lock.unlock();
+        }
+
+        subscriber.onNext(entity);
+    }
+
+    /**
+     * Signals the completion to the subscriber.
+     */
+    void complete() {
+        if (requestError != null)
+            subscriber.onError(requestError);
+        else if (!cancelled)
+            subscriber.onComplete();
+        cancelled = true;
+    }
+
+    /**
+     * Signals the error to the subscriber.
+     *
+     * @param throwable the error
+     */
+    void error(Throwable throwable) {
+        if (!cancelled || requestError != null)
+            subscriber.onError(requestError != null ? requestError : throwable);
+        cancelled = true;
+    }
+}
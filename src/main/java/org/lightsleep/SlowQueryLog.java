@@ -0,0 +1,500 @@
+// SlowQueryLog.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.Resource;
+import org.lightsleep.helper.Utils;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * A log of the slow SQLs, which is output to the logger named <b>org.lightsleep.SlowQueryLog</b>.
+ *
+ * <p>
+ * The SQLs exceeding any of the thresholds of the execution time, the time to fetch the rows
+ * and the total time are logged at the WARN level,
+ * and the other SQLs are logged at the INFO level at the sampling rate.
+ * The thresholds can be specified for each entity class and each fingerprint of the SQL
+ * (see {@link SqlMetrics#fingerprint(CharSequence)}),
+ * which take precedence over the default thresholds in that order.
+ * </p>
+ *
+ * <p>
+ * Each entry includes the SQL, the parameters, the number of the rows,
+ * the connection and the calling site outside Lightsleep.
+ * The parameters are masked to the types and lengths,
+ * and the literals in the SQL are masked by logging the fingerprint instead of the SQL,
+ * unless <b>slowQueryLogParameters</b> of lightsleep.properties is <b>true</b>.
+ * Nothing is created for the SQLs which are not logged.
+ * </p>
+ *
+ * <p>
+ * If the capture of the execution plans is enabled,
+ * the plan of a slow <i>SELECT</i> SQL is got in the same way as {@link Sql#explain()}
+ * on the same connection, appended to the entry and kept for each fingerprint (see {@link #getPlan(String)}).
+ * The plan is got within a savepoint if the connection is not auto-commit,
+ * so that a failure does not abort the transaction.
+ * </p>
+ *
+ * <p>
+ * The default values are specified in lightsleep.properties as follows.
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>lightsleep.properties</span></caption>
+ *   <tr><th>Property Name</th><th>Content</th><th>Default</th></tr>
+ *   <tr><td>slowQueryExecuteMillis</td><td>The threshold of the execution time (ms)</td><td>-1 (none)</td></tr>
+ *   <tr><td>slowQueryFetchMillis</td><td>The threshold of the time to fetch the rows (ms)</td><td>-1 (none)</td></tr>
+ *   <tr><td>slowQueryTotalMillis</td><td>The threshold of the total time (ms)</td><td>1000</td></tr>
+ *   <tr><td>slowQuerySampleRate</td><td>The sampling rate of the other SQLs (0.0 - 1.0)</td><td>0.0</td></tr>
+ *   <tr><td>slowQueryLogParameters</td><td>Whether to log the parameter values</td><td>false</td></tr>
+ *   <tr><td>slowQueryExplain</td><td>Whether to capture the execution plans of the slow <i>SELECT</i> SQLs</td><td>false</td></tr>
+ *   <tr><td>slowQueryExplainIntervalMillis</td><td>The minimum interval to capture the plan of the same fingerprint again (ms)</td><td>60000</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class SlowQueryLog {
+    /** The slow query log used by <b>Sql</b> */
+    public static final SlowQueryLog instance = new SlowQueryLog();
+
+    // The packages of Lightsleep skipped to find the calling site
+    private static final Set<String> libraryPackages = new HashSet<>(Arrays.asList(
+        "org.lightsleep",
+        "org.lightsleep.component",
+        "org.lightsleep.connection",
+        "org.lightsleep.database",
+        "org.lightsleep.entity",
+        "org.lightsleep.helper",
+        "org.lightsleep.logger"
+    ));
+
+    // The default thresholds
+    private volatile Thresholds thresholds = new Thresholds(
+        millis(Resource.getGlobal().getValue("slowQueryExecuteMillis", Long::valueOf, -1L)),
+        millis(Resource.getGlobal().getValue("slowQueryFetchMillis"  , Long::valueOf, -1L)),
+        millis(Resource.getGlobal().getValue("slowQueryTotalMillis"  , Long::valueOf, 1000L)));
+
+    // The map of key: entity class and value: thresholds
+    private final Map<Class<?>, Thresholds> entityThresholdsMap = new ConcurrentHashMap<>();
+
+    // The map of key: fingerprint and value: thresholds
+    private final Map<String, Thresholds> fingerprintThresholdsMap = new ConcurrentHashMap<>();
+
+    // The sampling rate of the other SQLs
+    private volatile double sampleRate = Resource.getGlobal().getValue("slowQuerySampleRate", Double::valueOf, 0.0);
+
+    // Whether to log the parameter values
+    private volatile boolean logParameters = Resource.getGlobal().getValue("slowQueryLogParameters", Boolean::valueOf, false);
+
+    // Whether to capture the execution plans of the slow SELECT SQLs
+    private volatile boolean explain = Resource.getGlobal().getValue("slowQueryExplain", Boolean::valueOf, false);
+
+    // The minimum interval to capture the plan of the same fingerprint again (ms)
+    private volatile long explainIntervalMillis = Resource.getGlobal().getValue("slowQueryExplainIntervalMillis", Long::valueOf, 60_000L);
+
+    // The maximum number of the kept plans
+    private static final int MAX_PLANS = 100;
+
+    // The maximum number of the fingerprints of which the time of capture is kept
+    private static final int MAX_EXPLAIN_TIMES = 1000;
+
+    // The map of key: fingerprint and value: latest captured plan (least recently captured first)
+    private final Map<String, ExplainPlan> planMap = new LinkedHashMap<String, ExplainPlan>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ExplainPlan> eldest) {
+            return size() > MAX_PLANS;
+        }
+    };
+
+    // The map of key: fingerprint and value: time when the plan was tried to capture last (ms)
+    private final Map<String, Long> explainTimeMap = new ConcurrentHashMap<>();
+
+    // The logger
+    private final Logger logger;
+
+    /**
+     * The thresholds of the times of a SQL.
+     *
+     * @since 4.1.0
+     */
+    public static class Thresholds {
+        private final long executeNanos;
+        private final long fetchNanos;
+        private final long totalNanos;
+
+        /**
+         * Constructs a new <b>Thresholds</b>.
+         *
+         * @param execute the threshold of the execution time, <b>null</b> if none
+         * @param fetch the threshold of the time to fetch the rows, <b>null</b> if none
+         * @param total the threshold of the total time, <b>null</b> if none
+         */
+        public Thresholds(Duration execute, Duration fetch, Duration total) {
+            executeNanos = execute == null ? Long.MAX_VALUE : execute.toNanos();
+            fetchNanos   = fetch   == null ? Long.MAX_VALUE : fetch  .toNanos();
+            totalNanos   = total   == null ? Long.MAX_VALUE : total  .toNanos();
+        }
+
+        /**
+         * Returns whether any of the times exceeds the threshold.
+         *
+         * @param executeNanos the execution time (nanoseconds)
+         * @param fetchNanos the time to fetch the rows (nanoseconds)
+         * @return <b>true</b> if any of the times exceeds the threshold, <b>false</b> otherwise
+         */
+        boolean exceeds(long executeNanos, long fetchNanos) {
+            return executeNanos >= this.executeNanos
+                || fetchNanos >= this.fetchNanos
+                || executeNanos + fetchNanos >= totalNanos;
+        }
+    }
+
+    /**
+     * Constructs a new <b>SlowQueryLog</b>
+     * which outputs to the logger named <b>org.lightsleep.SlowQueryLog</b>.
+     */
+    public SlowQueryLog() {
+        this(LoggerFactory.getLogger(SlowQueryLog.class));
+    }
+
+    /**
+     * Constructs a new <b>SlowQueryLog</b> which outputs to the logger.
+     *
+     * @param logger the logger
+     *
+     * @throws NullPointerException if <b>logger</b> is <b>null</b>
+     */
+    SlowQueryLog(Logger logger) {
+        this.logger = Objects.requireNonNull(logger, "logger is null");
+    }
+
+    /**
+     * Sets the default thresholds.
+     *
+     * @param thresholds the thresholds
+     *
+     * @throws NullPointerException if <b>thresholds</b> is <b>null</b>
+     */
+    public void setThresholds(Thresholds thresholds) {
+        this.thresholds = Objects.requireNonNull(thresholds, "thresholds is null");
+    }
+
+    /**
+     * Sets the thresholds of the SQLs of the entity class.
+     *
+     * @param entityClass the entity class
+     * @param thresholds the thresholds, <b>null</b> to remove
+     *
+     * @throws NullPointerException if <b>entityClass</b> is <b>null</b>
+     */
+    public void setThresholds(Class<?> entityClass, Thresholds thresholds) {
+        Objects.requireNonNull(entityClass, "entityClass is null");
+        if (thresholds == null)
+            entityThresholdsMap.remove(entityClass);
+        else
+            entityThresholdsMap.put(entityClass, thresholds);
+    }
+
+    /**
+     * Sets the thresholds of the SQLs of the same fingerprint as the SQL.
+     *
+     * @param sql the SQL or the fingerprint
+     * @param thresholds the thresholds, <b>null</b> to remove
+     *
+     * @throws NullPointerException if <b>sql</b> is <b>null</b>
+     */
+    public void setThresholds(String sql, Thresholds thresholds) {
+        String fingerprint = SqlMetrics.fingerprint(sql);
+        if (thresholds == null)
+            fingerprintThresholdsMap.remove(fingerprint);
+        else
+            fingerprintThresholdsMap.put(fingerprint, thresholds);
+    }
+
+    /**
+     * Sets the sampling rate of the SQLs which do not exceed the thresholds.
+     *
+     * @param sampleRate the sampling rate (0.0 - 1.0)
+     *
+     * @throws IllegalArgumentException if <b>sampleRate</b> is out of range
+     */
+    public void setSampleRate(double sampleRate) {
+        if (!(sampleRate >= 0.0 && sampleRate <= 1.0))
+            throw new IllegalArgumentException("sampleRate: " + sampleRate);
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Sets whether to log the parameter values.
+     *
+     * @param logParameters <b>true</b> to log the parameter values and the SQL,
+     *     <b>false</b> to log the types and lengths of the parameters and the fingerprint of the SQL
+     */
+    public void setLogParameters(boolean logParameters) {
+        this.logParameters = logParameters;
+    }
+
+    /**
+     * Sets whether to capture the execution plans of the slow <i>SELECT</i> SQLs.
+     *
+     * @param explain <b>true</b> to capture the execution plans, <b>false</b> otherwise
+     */
+    public void setExplain(boolean explain) {
+        this.explain = explain;
+    }
+
+    /**
+     * Sets the minimum interval to capture the plan of the same fingerprint again.
+     *
+     * @param interval the interval
+     *
+     * @throws NullPointerException if <b>interval</b> is <b>null</b>
+     */
+    public void setExplainInterval(Duration interval) {
+        explainIntervalMillis = Objects.requireNonNull(interval, "interval is null").toMillis();
+    }
+
+    /**
+     * Returns the latest captured execution plan of the SQLs of the same fingerprint as the SQL.
+     *
+     * @param sql the SQL or the fingerprint
+     * @return the execution plan, <b>null</b> if not captured
+     *
+     * @throws NullPointerException if <b>sql</b> is <b>null</b>
+     */
+    public ExplainPlan getPlan(String sql) {
+        String fingerprint = SqlMetrics.fingerprint(sql);
+        synchronized (planMap) {
+            return planMap.get(fingerprint);
+        }
+    }
+
+    /**
+     * Logs the SQL if it is slow or sampled.
+     *
+     * @param connection the connection wrapper
+     * @param entityClass the entity class
+     * @param sql the SQL
+     * @param parameters the parameters of the SQL
+     * @param executeNanos the execution time (nanoseconds)
+     * @param fetchNanos the time to fetch the rows (nanoseconds), negative if the SQL returns no rows
+     * @param rowCount the number of the fetched or affected rows
+     */
+    public void log(ConnectionWrapper connection, Class<?> entityClass, CharSequence sql, List<Object> parameters,
+        long executeNanos, long fetchNanos, int rowCount) {
+        log(connection, entityClass, sql, null, parameters, executeNanos, fetchNanos, rowCount);
+    }
+
+    /**
+     * Logs the SQL of which fingerprint may be already computed if it is slow or sampled.<br>
+     * The fingerprint is computed only if used and not computed yet.
+     *
+     * @param connection the connection wrapper
+     * @param entityClass the entity class
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL, <b>null</b> if not computed yet
+     * @param parameters the parameters of the SQL
+     * @param executeNanos the execution time (nanoseconds)
+     * @param fetchNanos the time to fetch the rows (nanoseconds), negative if the SQL returns no rows
+     * @param rowCount the number of the fetched or affected rows
+     */
+    void log(ConnectionWrapper connection, Class<?> entityClass, CharSequence sql, String fingerprint,
+        List<Object> parameters, long executeNanos, long fetchNanos, int rowCount) {
+        long fetch = Math.max(fetchNanos, 0L);
+
+        Thresholds thresholds = null;
+        if (!fingerprintThresholdsMap.isEmpty()) {
+            if (fingerprint == null)
+                fingerprint = SqlMetrics.fingerprint(sql);
+            thresholds = fingerprintThresholdsMap.get(fingerprint);
+        }
+        if (thresholds == null && !entityThresholdsMap.isEmpty())
+            thresholds = entityThresholdsMap.get(entityClass);
+        if (thresholds == null)
+            thresholds = this.thresholds;
+
+        if (thresholds.exceeds(executeNanos, fetch)) {
+            ExplainPlan plan = null;
+            if (explain && isSelect(sql)) {
+                if (fingerprint == null)
+                    fingerprint = SqlMetrics.fingerprint(sql);
+                plan = capturePlan(connection, sql, fingerprint, parameters);
+            }
+            if (logger.isWarnEnabled()) {
+                String entry = entry("slow query", connection, sql, fingerprint, parameters, executeNanos, fetchNanos, rowCount);
+                logger.warn(plan == null ? entry : entry + "\n  plan:\n" + plan.text());
+            }
+        } else {
+            double sampleRate = this.sampleRate;
+            if (sampleRate > 0.0 && logger.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate)
+                logger.info(entry("sampled query", connection, sql, fingerprint, parameters, executeNanos, fetchNanos, rowCount));
+        }
+    }
+
+    /**
+     * Captures the execution plan of the SQL
+     * unless the plan of the same fingerprint was tried to capture within the interval.
+     *
+     * @param connection the connection wrapper
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL
+     * @param parameters the parameters of the SQL
+     * @return the execution plan, <b>null</b> if not captured
+     */
+    private ExplainPlan capturePlan(ConnectionWrapper connection, CharSequence sql, String fingerprint, List<Object> parameters) {
+        long now = System.currentTimeMillis();
+        Long lastTime = explainTimeMap.get(fingerprint);
+        if (lastTime != null && now - lastTime < explainIntervalMillis)
+            return null;
+        if (explainTimeMap.size() >= MAX_EXPLAIN_TIMES)
+            explainTimeMap.clear();
+        explainTimeMap.put(fingerprint, now);
+
+        Savepoint savepoint = null;
+        try {
+            if (!connection.getAutoCommit())
+                savepoint = connection.setSavepoint();
+            ExplainPlan plan = Sql.explain(connection, sql, parameters);
+            if (savepoint != null)
+                connection.releaseSavepoint(savepoint);
+            synchronized (planMap) {
+                planMap.remove(fingerprint);
+                planMap.put(fingerprint, plan);
+            }
+            return plan;
+        }
+        catch (SQLException | RuntimeException e) {
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                }
+                catch (SQLException e2) {
+                    logger.debug(() -> "SlowQueryLog.capturePlan: " + e2);
+                }
+            }
+            logger.debug(() -> "SlowQueryLog.capturePlan: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the SQL is a <i>SELECT</i> SQL.
+     *
+     * @param sql the SQL
+     * @return <b>true</b> if the SQL is a <i>SELECT</i> SQL, <b>false</b> otherwise
+     */
+    static boolean isSelect(CharSequence sql) {
+        String head = sql.subSequence(0, Math.min(sql.length(), 7)).toString().trim().toUpperCase(Locale.ROOT);
+        return head.startsWith("SELECT") || head.startsWith("WITH");
+    }
+
+    /**
+     * Returns the log entry.
+     *
+     * @param title the title of the entry
+     * @param connection the connection wrapper
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL, <b>null</b> if not computed yet
+     * @param parameters the parameters of the SQL
+     * @param executeNanos the execution time (nanoseconds)
+     * @param fetchNanos the time to fetch the rows (nanoseconds), negative if the SQL returns no rows
+     * @param rowCount the number of the fetched or affected rows
+     * @return the log entry
+     */
+    private String entry(String title, ConnectionWrapper connection, CharSequence sql, String fingerprint,
+        List<Object> parameters, long executeNanos, long fetchNanos, int rowCount) {
+        boolean logParameters = this.logParameters;
+        StringBuilder buff = new StringBuilder(title)
+            .append(": exec: ").append(millisString(executeNanos));
+        if (fetchNanos >= 0L)
+            buff.append(", get: ").append(millisString(fetchNanos));
+        buff.append(", total: ").append(millisString(executeNanos + Math.max(fetchNanos, 0L)))
+            .append(", rows: ").append(rowCount)
+            .append(", connection: ").append(connection)
+                .append('@').append(Integer.toHexString(System.identityHashCode(connection)))
+            .append(", caller: ").append(callingSite())
+            .append(", sql: ").append(logParameters ? sql
+                : fingerprint != null ? fingerprint : SqlMetrics.fingerprint(sql)); // masks the literals
+
+        if (!parameters.isEmpty()) {
+            buff.append(", parameters: [");
+            for (int index = 0; index < parameters.size(); ++index) {
+                if (index > 0) buff.append(", ");
+                Object parameter = parameters.get(index);
+                buff.append(logParameters ? Utils.toLogString(parameter) : maskedString(parameter));
+            }
+            buff.append(']');
+        }
+        return buff.toString();
+    }
+
+    /**
+     * Returns the string representation of the first stack frame outside Lightsleep.
+     *
+     * @return the string representation of the calling site
+     */
+    static String callingSite() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            int dotIndex = className.lastIndexOf('.');
+            if (dotIndex < 0 || !libraryPackages.contains(className.substring(0, dotIndex)))
+                return element.toString();
+        }
+        return "unknown";
+    }
+
+    /**
+     * Returns the masked string representation of the parameter.
+     *
+     * @param parameter the parameter
+     * @return the type and the length of the parameter
+     */
+    private static String maskedString(Object parameter) {
+        if (parameter == null)
+            return "null";
+        String typeName = parameter.getClass().getSimpleName();
+        if (parameter instanceof CharSequence)
+            return typeName + '(' + ((CharSequence)parameter).length() + ')';
+        if (parameter instanceof byte[])
+            return typeName + '(' + ((byte[])parameter).length + ')';
+        return typeName;
+    }
+
+    /**
+     * Returns the string representation of the time in milliseconds.
+     *
+     * @param nanos the time (nanoseconds)
+     * @return the string representation of the time
+     */
+    private static String millisString(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Returns the <b>Duration</b> of the milliseconds.
+     *
+     * @param millis the milliseconds, negative if none
+     * @return the <b>Duration</b>, <b>null</b> if <b>millis</b> is negative
+     */
+    private static Duration millis(long millis) {
+        return millis < 0L ? null : Duration.ofMillis(millis);
+    }
+}
@@ -4,25 +4,48 @@
 package org.lightsleep;
 
 import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.ResultSetMetaData;
+import java.sql.Ref;
+import java.sql.RowId;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Struct;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -31,8 +54,12 @@ import org.lightsleep.component.EntityCondition;
 import org.lightsleep.component.Expression;
 import org.lightsleep.component.GroupBy;
 import org.lightsleep.component.OrderBy;
+import org.lightsleep.component.SqlArray;
 import org.lightsleep.component.SubqueryCondition;
+import org.lightsleep.connection.ConcurrencyLimiter;
+import org.lightsleep.connection.ConnectionSupplier;
 import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.connection.ReplicaRouter;
 import org.lightsleep.entity.PostDelete;
 import org.lightsleep.entity.PostInsert;
 import org.lightsleep.entity.PostSelect;
@@ -43,8 +70,11 @@ import org.lightsleep.entity.PreUpdate;
 import org.lightsleep.helper.Accessor;
 import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.ConvertException;
+import org.lightsleep.helper.DefaultExecutor;
+import org.lightsleep.helper.EntityCache;
 import org.lightsleep.helper.EntityInfo;
 import org.lightsleep.helper.JoinInfo;
+import org.lightsleep.helper.QueryCache;
 import org.lightsleep.helper.Resource;
 import org.lightsleep.helper.SqlColumnInfo;
 import org.lightsleep.helper.SqlEntityInfo;
@@ -132,7 +162,11 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     // The entity information map
     private static final Map<Class<?>, EntityInfo<?>> entityInfoMap = new ConcurrentHashMap<>();
 
-    private static int sqlNo = 1;
+    // The sequence number of the executed SQLs for the log (AtomicInteger since 4.1.0)
+    private static final AtomicInteger sqlNo = new AtomicInteger(1);
+
+    // The maximum number of SQLs executed in a batch, shared with Database.bulkInsert (since 4.1.0)
+    private static final int batchSize = Math.max(Resource.getGlobal().getInt("bulkInsertBatchSize", 1000), 1);
 
     // The entity information
     private transient final EntityInfo<E> entityInfo;
@@ -224,6 +258,43 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     // For storing doIf method condition @since 3.0.0
     private transient Boolean doIfCondition;
 
+    // The fetch size of the statement, 0 if not specified @since 4.1.0
+    private int fetchSize = 0;
+
+    // The condition to stop reading rows @since 4.1.0
+    private transient BooleanSupplier stopCondition;
+
+    // The time to live of the results in the query cache, null if not cached @since 4.1.0
+    private Duration cacheTimeToLive;
+
+    // Whether to store the snapshots of the selected entities @since 4.1.0
+    private boolean trackChanges;
+
+    // The actions to invalidate the query cache by the table name @since 4.1.0
+    private static final Map<String, Runnable> queryCacheInvalidations = new ConcurrentHashMap<>();
+
+    // Whether to record the execution statistics @since 4.1.0
+    private static final boolean executionStatsEnabled = Resource.getGlobal().getValue("executionStats", Boolean::valueOf, false);
+
+    // The execution statistics of the last SQL executed in each thread @since 4.1.0
+    private static final ThreadLocal<ExecutionStats> lastExecutionStats = new ThreadLocal<>();
+
+    // The listeners of the execution statistics @since 4.1.0
+    private static final List<Consumer<? super ExecutionStats>> executionStatsListeners = new CopyOnWriteArrayList<>();
+
+    // The statement listeners registered globally @since 4.1.0
+    private static volatile StatementListener[] statementListeners = new StatementListener[0];
+
+    // The map of key: URL of the connection supplier and value: statement listeners @since 4.1.0
+    private static final Map<String, StatementListener[]> supplierStatementListeners = new ConcurrentHashMap<>();
+
+    // The time to generate the SQL to be executed next (not cloned) @since 4.1.0
+    private long generateNanos;
+
+    // The time spent in the consumers and the estimated size of the column values in the current execution (not cloned) @since 4.1.0
+    private long consumerNanos;
+    private long fetchedBytes;
+
     /**
      * Returns the entity information related to the specified entity class.
      *
@@ -240,6 +311,163 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return (EntityInfo<E>)entityInfoMap.computeIfAbsent(entityClass, key -> new EntityInfo<>(key));
     }
 
+    /**
+     * Returns the execution statistics of the last SQL executed in the current thread.
+     *
+     * <p>
+     * The statistics are recorded if <b>executionStats</b> of lightsleep.properties is <b>true</b> (default: <b>false</b>).
+     * The SQLs whose results are found in the query cache are not recorded.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var contacts = new ArrayList&lt;Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class).connection(conn).select(contacts::add));
+     * <b>ExecutionStats stats = Sql.lastExecutionStats();</b>
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Contact&gt; contacts = []
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact).connection(it).select({contacts &lt;&lt; it})
+     * }
+     * <b>def stats = Sql.lastExecutionStats()</b>
+     * </pre></div>
+     *
+     * @return the execution statistics,
+     *     <b>null</b> if no SQL has been executed in the current thread or the statistics are not recorded
+     *
+     * @since 4.1.0
+     */
+    public static ExecutionStats lastExecutionStats() {
+        return lastExecutionStats.get();
+    }
+
+    /**
+     * Adds a listener which is called with the execution statistics after each execution of a SQL
+     * in the thread that executed the SQL, if the statistics are recorded.
+     *
+     * @param listener the listener
+     *
+     * @throws NullPointerException if <b>listener</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     * @see #lastExecutionStats()
+     */
+    public static void addExecutionStatsListener(Consumer<? super ExecutionStats> listener) {
+        executionStatsListeners.add(Objects.requireNonNull(listener, "listener is null"));
+    }
+
+    /**
+     * Removes the listener added by {@link #addExecutionStatsListener(Consumer)}.
+     *
+     * @param listener the listener
+     *
+     * @since 4.1.0
+     */
+    public static void removeExecutionStatsListener(Consumer<? super ExecutionStats> listener) {
+        executionStatsListeners.remove(listener);
+    }
+
+    /**
+     * Adds a statement listener called around each execution of a SQL.
+     *
+     * @param listener the statement listener
+     *
+     * @throws NullPointerException if <b>listener</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     * @see StatementListener
+     */
+    public static synchronized void addStatementListener(StatementListener listener) {
+        Objects.requireNonNull(listener, "listener is null");
+        statementListeners = added(statementListeners, listener);
+    }
+
+    /**
+     * Adds a statement listener called around each execution of a SQL
+     * with the connection wrappers got from the connection supplier.
+     *
+     * <p>
+     * The listener is called for the connection wrappers of the same URL as the connection supplier.
+     * If the connection supplier is a <b>ConcurrencyLimiter</b>, the URL of the limited connection supplier is used,
+     * and if it is a <b>ReplicaRouter</b>, the URLs of the primary and the replicas are used.
+     * </p>
+     *
+     * @param connectionSupplier the connection supplier
+     * @param listener the statement listener
+     *
+     * @throws NullPointerException if <b>connectionSupplier</b> or <b>listener</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     * @see StatementListener
+     */
+    public static synchronized void addStatementListener(ConnectionSupplier connectionSupplier, StatementListener listener) {
+        Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+        Objects.requireNonNull(listener, "listener is null");
+        urlsOf(connectionSupplier).forEach(url -> supplierStatementListeners.put(url,
+            added(supplierStatementListeners.getOrDefault(url, new StatementListener[0]), listener)));
+    }
+
+    /**
+     * Returns the URLs of the connection suppliers wrapped by the connection supplier.
+     *
+     * @param connectionSupplier the connection supplier
+     * @return the set of the URLs
+     *
+     * @since 4.1.0
+     */
+    private static Set<String> urlsOf(ConnectionSupplier connectionSupplier) {
+        Set<String> urls = new LinkedHashSet<>();
+        if (connectionSupplier instanceof ConcurrencyLimiter)
+            urls.addAll(urlsOf(((ConcurrencyLimiter)connectionSupplier).getSupplier()));
+        else if (connectionSupplier instanceof ReplicaRouter) {
+            urls.addAll(urlsOf(((ReplicaRouter)connectionSupplier).getPrimary()));
+            ((ReplicaRouter)connectionSupplier).getReplicas().forEach(replica -> urls.addAll(urlsOf(replica)));
+        } else
+            urls.add(String.valueOf(connectionSupplier.getUrl()));
+        return urls;
+    }
+
+    /**
+     * Removes the statement listener added globally or for any connection supplier.
+     *
+     * @param listener the statement listener
+     *
+     * @since 4.1.0
+     */
+    public static synchronized void removeStatementListener(StatementListener listener) {
+        statementListeners = Arrays.stream(statementListeners)
+            .filter(element -> element != listener)
+            .toArray(StatementListener[]::new);
+        new ArrayList<>(supplierStatementListeners.keySet()).forEach(url -> {
+            StatementListener[] listeners = Arrays.stream(supplierStatementListeners.get(url))
+                .filter(element -> element != listener)
+                .toArray(StatementListener[]::new);
+            if (listeners.length == 0)
+                supplierStatementListeners.remove(url);
+            else
+                supplierStatementListeners.put(url, listeners);
+        });
+    }
+
+    /**
+     * Returns a new array with the listener added.
+     *
+     * @param listeners the array of the statement listeners
+     * @param listener the statement listener to be added
+     * @return a new array
+     *
+     * @since 4.1.0
+     */
+    private static StatementListener[] added(StatementListener[] listeners, StatementListener listener) {
+        StatementListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        return newListeners;
+    }
+
     /**
      * Constructs a new <b>Sql</b>.
      *
@@ -309,6 +537,10 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         sql.isInInsertFrom = isInInsertFrom; // since 4.0.0
         sql.connection     = connection;
         sql.generatedSql   = generatedSql;
+        sql.fetchSize      = fetchSize; // since 4.1.0
+        sql.stopCondition  = stopCondition; // since 4.1.0
+        sql.cacheTimeToLive = cacheTimeToLive; // since 4.1.0
+        sql.trackChanges   = trackChanges; // since 4.1.0
 
         expressionMap.entrySet()
             .forEach(entry -> sql.expressionMap.put(entry.getKey(), entry.getValue()));
@@ -2150,6 +2382,190 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return offset;
     }
 
+    /**
+     * Specifies the fetch size of the statement to execute <i>SELECT</i> SQL.
+     *
+     * <p>
+     * The fetch size is a hint to the JDBC driver of the number of rows to be fetched at a time.
+     * If <b>0</b>, the default fetch size of the JDBC driver is used.
+     * </p>
+     *
+     * @param fetchSize the fetch size
+     * @return this object
+     *
+     * @throws IllegalArgumentException if <b>fetchSize</b> is negative
+     *
+     * @since 4.1.0
+     * @see #getFetchSize()
+     */
+    public Sql<E> fetchSize(int fetchSize) {
+        if (fetchSize < 0)
+            throw new IllegalArgumentException("fetchSize: " + fetchSize);
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * Returns the fetch size that was specified.
+     *
+     * @return the fetch size
+     *
+     * @since 4.1.0
+     * @see #fetchSize(int)
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Specifies that the results of the <i>SELECT</i> SQL are cached in the query cache.
+     *
+     * <p>
+     * The results are cached by the URL of the connection supplier, the generated SQL and the parameters,
+     * and the same <i>SELECT</i> SQL returns the cached results without accessing the database
+     * until <b>timeToLive</b> elapses.<br>
+     * The results are invalidated when <b>Sql</b> executes an <i>INSERT</i>, <i>UPDATE</i> or <i>DELETE</i> SQL
+     * on any table in the <i>SELECT</i> SQL, including the tables of the joins, the subqueries and the <i>WITH</i> clauses.
+     * The changes made without <b>Sql</b> are not detected.
+     * </p>
+     *
+     * <p>
+     * The results are not cached with <i>FOR UPDATE</i>,
+     * or after the current transaction changed the database.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Sales&gt; salesList = new ArrayList&lt;&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Sales.class)
+     *         .columns("region", "amount")
+     *         .expression("amount", "SUM({amount})")
+     *         .groupBy("{region}")
+     *         .<b>cached(Duration.ofMinutes(1))</b>
+     *         .connection(conn)
+     *         .select(salesList::add)
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Sales&gt; salesList = []
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Sales)
+     *         .columns('region', 'amount')
+     *         .expression('amount', 'SUM({amount})')
+     *         .groupBy('{region}')
+     *         .<b>cached(Duration.ofMinutes(1))</b>
+     *         .connection(it)
+     *         .select({salesList &lt;&lt; it})
+     * }
+     * </pre></div>
+     *
+     * @param timeToLive the time to live of the cached results
+     * @return this object
+     *
+     * @throws NullPointerException if <b>timeToLive</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>timeToLive</b> is zero or negative
+     *
+     * @since 4.1.0
+     * @see #getCacheTimeToLive()
+     * @see org.lightsleep.helper.QueryCache
+     */
+    public Sql<E> cached(Duration timeToLive) {
+        Objects.requireNonNull(timeToLive, "timeToLive is null");
+        if (timeToLive.isZero() || timeToLive.isNegative())
+            throw new IllegalArgumentException("timeToLive: " + timeToLive);
+        cacheTimeToLive = timeToLive;
+        return this;
+    }
+
+    /**
+     * Returns the time to live of the cached results that was specified.
+     *
+     * @return the time to live, <b>null</b> if not specified
+     *
+     * @since 4.1.0
+     * @see #cached(Duration)
+     */
+    public Duration getCacheTimeToLive() {
+        return cacheTimeToLive;
+    }
+
+    /**
+     * Specifies that the snapshots of the selected entities are stored in the connection wrapper
+     * until the current transaction is completed.
+     *
+     * <p>
+     * {@link #update(Object)} with the entity of which snapshot is stored
+     * updates only the columns changed from the snapshot,
+     * and does not execute <i>UPDATE</i> SQL if no column has been changed.
+     * The columns with the update expressions are always updated if any column has been changed.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt; {
+     *     Optional&lt;Contact&gt; contactOpt = new Sql&lt;&gt;(Contact.class)
+     *         .where("{id}={}", 1)
+     *         .<b>trackChanges()</b>
+     *         .connection(conn)
+     *         .select();
+     *     contactOpt.ifPresent(contact -&gt; {
+     *         contact.name.first = "Akiyo";
+     *         new Sql&lt;&gt;(Contact.class)
+     *             .connection(conn)
+     *             .update(contact);
+     *     });
+     * });
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     def contact = new Sql&lt;&gt;(Contact)
+     *         .where('{id}={}', 1)
+     *         .<b>trackChanges()</b>
+     *         .connection(it)
+     *         .select().orElse(null)
+     *     if (contact != null) {
+     *         contact.name.first = 'Akiyo'
+     *         new Sql&lt;&gt;(Contact)
+     *             .connection(it)
+     *             .update(contact)
+     *     }
+     * }
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Generated SQL</span></div>
+     * <div class="exampleCode"><pre>
+     * SELECT id, lastName, firstName, ... FROM Contact WHERE id=1
+     * UPDATE Contact SET firstName='Akiyo' WHERE id=1
+     * </pre></div>
+     *
+     * @return this object
+     *
+     * @since 4.1.0
+     * @see #isTrackChanges()
+     * @see #update(Object)
+     */
+    public Sql<E> trackChanges() {
+        trackChanges = true;
+        return this;
+    }
+
+    /**
+     * Returns <b>true</b> if stores the snapshots of the selected entities, <b>false</b> otherwise.
+     *
+     * @return <b>true</b> if stores the snapshots of the selected entities, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see #trackChanges()
+     */
+    public boolean isTrackChanges() {
+        return trackChanges;
+    }
+
     /**
      * Specifies that appends <i>FOR UPDATE</i> to <i>SELECT</i> SQL.
      *
@@ -2560,6 +2976,38 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         if (connection == null)
             throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
 
+        if (isKeyLookup(resultClass)) {
+            // Finds the entity in the identity map @since 4.1.0
+            if (connection.isIdentityMapEnabled()) {
+                E identity = connection.getIdentity(entityInfo.entityClass(),
+                    keyOf(entityInfo, entityInfo.entityClass().cast(((EntityCondition<?>)where).entity())));
+                if (identity != null) {
+                    logger.debug(() -> "Sql.select: found in the identity map: " + entityInfo.entityClass().getName());
+                    ((Consumer<? super E>)consumer).accept(identity);
+                    return;
+                }
+            }
+
+            // Finds the entity in the entity cache @since 4.1.0
+            if (entityInfo.cache() != null && !connection.hasChanges()) { // not after changes in the current transaction
+                selectCached((Consumer<? super E>)consumer);
+                return;
+            }
+        }
+
+        executeSelect(resultClass, consumer);
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that joins no tables.
+     *
+     * @param <RE> the type of the result entity
+     * @param resultClass the class of the argumrnt of <b>consumer</b>
+     * @param consumer a consumer of the entities created from the <b>ResultSet</b>
+     *
+     * @since 4.1.0
+     */
+    private <RE> void executeSelect(Class<RE> resultClass, Consumer<? super RE> consumer) {
         Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : this;
 
         if (sql.columns.isEmpty()) {
@@ -2574,67 +3022,521 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
 
         SqlEntityInfo<RE> sqlEntityInfo = resultClass == sql.entityInfo.entityClass()
             ? (SqlEntityInfo<RE>)sql
             : newSqlEntityInfo(resultClass, sql.tableAlias);
 
-        sql.executeQuery(generatedSql, parameters, sql.getRowConsumer(sqlEntityInfo, consumer));
+        sql.executeRowQuery(generatedSql, parameters, sql.getRowConsumer(sqlEntityInfo, consumer));
     }
 
     /**
-     * Returns a new <b>SqlEntityInfo<b>.
+     * Returns whether the <i>SELECT</i> SQL is a lookup by the key
+     * which can use the identity map and the entity cache.
      *
-     * @param entityClass the entity class
-     * @param tableAlias the table alias
-     * @return a new <b>SqlEntityInfo<b>
+     * @param resultClass the class of the result entity
+     * @return <b>true</b> if a lookup by the key, <b>false</b> otherwise
      *
-     * @since 2.0.0
+     * @since 4.1.0
      */
-    private <T> SqlEntityInfo<T> newSqlEntityInfo(Class<T> entityClass, String tableAlias) {
-        return new SqlEntityInfo<T>() {
-            @Override
-            public String tableAlias() {
-                return tableAlias;
-            }
+    private boolean isKeyLookup(Class<?> resultClass) {
+        return resultClass == entityInfo.entityClass()
+            && where instanceof EntityCondition
+            && entityInfo.entityClass().isInstance(((EntityCondition<?>)where).entity())
+            && !distinct && columns.isEmpty() && expressionMap.isEmpty()
+            && fromSql == null && joinInfos.isEmpty() && groupBy.isEmpty() && having.isEmpty()
+            && unionSqls.isEmpty() && withSqls.isEmpty()
+            && limit == Integer.MAX_VALUE && offset == 0 && !forUpdate;
+    }
 
-            @Override
-            public EntityInfo<T> entityInfo() {
-                return getEntityInfo(entityClass);
-            }
+    /**
+     * Returns the key of the entity.
+     *
+     * @param <T> the type of the entity
+     * @param entityInfo the entity information
+     * @param entity the entity
+     * @return the list of the values of the key columns
+     *
+     * @since 4.1.0
+     */
+    private static <T> List<Object> keyOf(EntityInfo<T> entityInfo, T entity) {
+        List<Object> key = new ArrayList<>(entityInfo.keyColumnInfos().size());
+        entityInfo.keyColumnInfos()
+            .forEach(columnInfo -> key.add(entityInfo.accessor().getValue(entity, columnInfo.propertyName())));
+        return key;
+    }
 
-            @Override
-            public T entity() {
-                try {
-                    return entityClass.getConstructor().newInstance();
-                }
-                catch (RuntimeException  e) {
-                    throw e;
-                }
-                catch (Exception  e) {
-                    throw new RuntimeException(e);
-                }
+    /**
+     * Gets the entity from the entity cache, or selects and caches it if not cached.
+     *
+     * @param consumer a consumer of the entity
+     *
+     * @since 4.1.0
+     */
+    private void selectCached(Consumer<? super E> consumer) {
+        EntityCache<E> cache = entityInfo.cache();
+        E keyEntity = entityInfo.entityClass().cast(((EntityCondition<?>)where).entity());
+        List<E> loadedEntities = new ArrayList<>(1);
+        E entity = cache.get(cache.keyOf(String.valueOf(connection.getSupplier().getUrl()), keyEntity), () -> {
+            executeSelect(entityInfo.entityClass(), loadedEntities::add);
+            return loadedEntities.isEmpty() ? null : loadedEntities.get(0);
+        });
+        if (entity == null)
+            return;
+
+        if (loadedEntities.isEmpty() || entity != loadedEntities.get(0)) {
+            // A copy of the cached entity
+            logger.debug(() -> "Sql.select: found in the entity cache: " + entityInfo.entityClass().getName() + cache.keyOf(entity));
+            if (entity instanceof PostSelect)
+                ((PostSelect)entity).postSelect(connection);
+            if (connection.isIdentityMapEnabled())
+                connection.putIdentity(entityInfo.entityClass(), cache.keyOf(entity), entity);
+        }
+
+        consumer.accept(entity);
+    }
+
+    /**
+     * Invalidates the entities of the entity cache which may be changed by the SQL with the condition.
+     *
+     * <p>
+     * Invalidates the entity of the key if the condition is an entity condition, all entities otherwise.
+     * Invalidates them again after the current transaction is completed.
+     * </p>
+     *
+     * @param condition the condition of the <i>UPDATE</i> or <i>DELETE</i> SQL
+     *
+     * @since 4.1.0
+     */
+    private void invalidateCache(Condition condition) {
+        // Removes the entities from the identity map
+        if (condition instanceof EntityCondition && entityInfo.entityClass().isInstance(((EntityCondition<?>)condition).entity()))
+            connection.removeIdentity(entityInfo.entityClass(),
+                keyOf(entityInfo, entityInfo.entityClass().cast(((EntityCondition<?>)condition).entity())));
+        else
+            connection.removeIdentities(entityInfo.entityClass());
+
+        EntityCache<E> cache = entityInfo.cache();
+        if (cache == null)
+            return;
+
+        Runnable invalidation;
+        if (condition instanceof EntityCondition && entityInfo.entityClass().isInstance(((EntityCondition<?>)condition).entity())) {
+            List<Object> key = cache.keyOf(entityInfo.entityClass().cast(((EntityCondition<?>)condition).entity()));
+            invalidation = () -> cache.invalidateAllUrls(key);
+        } else
+            invalidation = cache::invalidateAll;
+
+        invalidation.run();
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.markChanged();
+                connection.addCompletionAction(invalidation);
             }
-        };
+        }
+        catch (SQLException e) {throw new RuntimeSQLException(e);}
     }
 
     /**
-     * Generates and executes a <i>SELECT</i> SQL that joins one table.
+     * Returns a publisher that executes a <i>SELECT</i> SQL that joins no tables
+     * and emits the entities as subscribers request.
      *
      * <p>
-     * Adds following strings to <b>columns</b> set
-     * if <b>columns</b> method is not invoked and
-     * <b>innerJoin</b>, <b>leftJoin</b> or <b>rightJoin</b> method invoked more than once.
+     * Same as <b>publishAs(entityClass(), ConnectionSupplier.find(), DefaultExecutor.instance)</b>.
      * </p>
      *
-     * <ul class="code" style="list-style-type:none">
-     *   <li>"&lt;Main Table Alias&gt;.*"</li>
-     *   <li>"&lt;Joined Table Alias&gt;.*"</li>
-     * </ul>
+     * @return a publisher of the entities
      *
-     * <div class="exampleTitle"><span>Java Example</span></div>
-     * <div class="exampleCode"><pre>
+     * @since 4.1.0
+     * @see #publishAs(Class, ConnectionSupplier, Executor)
+     */
+    public Publisher<E> publish() {
+        return publishAs(entityInfo.entityClass(), ConnectionSupplier.find(), DefaultExecutor.instance);
+    }
+
+    /**
+     * Returns a publisher that executes a <i>SELECT</i> SQL that joins no tables
+     * and emits the entities as subscribers request.
+     *
+     * <p>
+     * Same as <b>publishAs(entityClass(), connectionSupplier, executor)</b>.
+     * </p>
+     *
+     * @param connectionSupplier the connection supplier
+     * @param executor the executor to execute the <i>SELECT</i> SQL
+     * @return a publisher of the entities
+     *
+     * @throws NullPointerException if <b>connectionSupplier</b> or <b>executor</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     * @see #publishAs(Class, ConnectionSupplier, Executor)
+     */
+    public Publisher<E> publish(ConnectionSupplier connectionSupplier, Executor executor) {
+        return publishAs(entityInfo.entityClass(), connectionSupplier, executor);
+    }
+
+    /**
+     * Returns a publisher that executes a <i>SELECT</i> SQL that joins no tables
+     * and emits the entities as subscribers request.
+     *
+     * <p>
+     * Same as <b>publishAs(resultClass, ConnectionSupplier.find(), DefaultExecutor.instance)</b>.
+     * </p>
+     *
+     * @param <RE> the type of the result entity
+     * @param resultClass the class of the result entities
+     * @return a publisher of the result entities
+     *
+     * @throws NullPointerException if <b>resultClass</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     * @see #publishAs(Class, ConnectionSupplier, Executor)
+     */
+    public <RE> Publisher<RE> publishAs(Class<RE> resultClass) {
+        return publishAs(resultClass, ConnectionSupplier.find(), DefaultExecutor.instance);
+    }
+
+    /**
+     * Returns a publisher that executes a <i>SELECT</i> SQL that joins no tables
+     * and emits the entities as subscribers request.
+     *
+     * <p>
+     * Each time a subscriber subscribes, the <i>SELECT</i> SQL is executed on <b>executor</b>
+     * in a read-only transaction of <b>connectionSupplier</b>,
+     * and rows are read from the <b>ResultSet</b> only when the subscriber requested.
+     * If the subscription is cancelled, stops reading rows and closes the statement.
+     * If the fetch size is not specified, <b>100</b> is used as the fetch size.
+     * The connection wrapper specified by <b>connection</b> method is not used.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * new Sql&lt;&gt;(Contact.class)
+     *     .where("{name.last}={}", "Apple")
+     *     .<b>publish()</b>
+     *     .subscribe(subscriber);
+     * </pre></div>
+     *
+     * @param <RE> the type of the result entity
+     * @param resultClass the class of the result entities
+     * @param connectionSupplier the connection supplier
+     * @param executor the executor to execute the <i>SELECT</i> SQL
+     * @return a publisher of the result entities
+     *
+     * @throws NullPointerException if <b>resultClass</b>, <b>connectionSupplier</b> or <b>executor</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     * @see #selectAs(Class, Consumer)
+     */
+    public <RE> Publisher<RE> publishAs(Class<RE> resultClass, ConnectionSupplier connectionSupplier, Executor executor) {
+        Objects.requireNonNull(resultClass, "resultClass is null");
+        Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+        Objects.requireNonNull(executor, "executor is null");
+
+        Sql<E> sql = clone();
+        if (sql.fetchSize == 0)
+            sql.fetchSize = DEFAULT_PUBLISH_FETCH_SIZE;
+
+        return subscriber -> {
+            RowSubscription<RE> subscription = new RowSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+            try {
+                executor.execute(() -> {
+                    try {
+                        Transaction.executeReadOnly(connectionSupplier, conn -> {
+                            Sql<E> publishSql = sql.clone();
+                            publishSql.stopCondition = subscription::isCancelled;
+                            publishSql.connection(conn).selectAs(resultClass, subscription::emit);
+                        });
+                        subscription.complete();
+                    }
+                    catch (Throwable e) {
+                        subscription.error(e);
+                    }
+                });
+            }
+            catch (RuntimeException e) {
+                // RejectedExecutionException
+                subscription.error(e);
+            }
+        };
+    }
+
+    /**
+     * Generates and executes <i>SELECT</i> SQLs that joins no tables in parallel
+     * by partitioning the rows by the key ranges.
+     *
+     * <p>
+     * Same as <b>selectParallel(partitions, DefaultExecutor.instance, consumer)</b>.
+     * </p>
+     *
+     * @param partitions the number of partitions
+     * @param consumer a thread-safe consumer of the entities created from the <b>ResultSet</b>
+     *
+     * @throws NullPointerException if <b>consumer</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>partitions</b> is less than 1
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectParallel(int, Executor, Consumer)
+     */
+    public void selectParallel(int partitions, Consumer<? super E> consumer) {
+        selectParallel(partitions, DefaultExecutor.instance, consumer);
+    }
+
+    /**
+     * Generates and executes <i>SELECT</i> SQLs that joins no tables in parallel
+     * by partitioning the rows by the key ranges.
+     *
+     * <p>
+     * Gets the minimum and maximum values of the key with the connection wrapper of this object,
+     * divides the range into <b>partitions</b> ranges
+     * and executes a <i>SELECT</i> SQL for each range on <b>executor</b>
+     * in a read-only transaction with a connection got from the supplier of the connection wrapper.
+     * <b>consumer</b> is called from multiple threads and the order of the entities is not guaranteed.
+     * </p>
+     *
+     * <p>
+     * If the entity does not have just one key property of an integral type
+     * or this object has joins, <i>GROUP BY</i>, <i>UNION</i>, <i>LIMIT</i>, <i>OFFSET</i> or <i>FOR UPDATE</i>,
+     * executes one <i>SELECT</i> SQL with the connection wrapper of this object as <b>select(consumer)</b>.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var contacts = new ConcurrentLinkedQueue&lt;Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectParallel(8, contacts::add)</b>
+     * );
+     * </pre></div>
+     *
+     * @param partitions the number of partitions
+     * @param executor the executor to execute the <i>SELECT</i> SQLs
+     * @param consumer a thread-safe consumer of the entities created from the <b>ResultSet</b>
+     *
+     * @throws NullPointerException if <b>executor</b> or <b>consumer</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>partitions</b> is less than 1
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #select(Consumer)
+     */
+    public void selectParallel(int partitions, Executor executor, Consumer<? super E> consumer) {
+        Objects.requireNonNull(executor, "executor is null");
+        Objects.requireNonNull(consumer, "consumer is null");
+        if (partitions < 1)
+            throw new IllegalArgumentException("partitions: " + partitions);
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        // The key to partition
+        ColumnInfo keyColumnInfo = entityInfo.keyColumnInfos().size() == 1 ? entityInfo.keyColumnInfos().get(0) : null;
+        Class<?> keyType = keyColumnInfo == null ? null
+            : Utils.toClassType(entityInfo.accessor().getType(keyColumnInfo.propertyName()));
+        boolean partitionable = partitions > 1
+            && (keyType == Long.class || keyType == Integer.class || keyType == Short.class || keyType == Byte.class)
+            && fromSql == null && joinInfos.isEmpty() && groupBy.isEmpty() && unionSqls.isEmpty() && withSqls.isEmpty()
+            && limit == Integer.MAX_VALUE && offset == 0 && !forUpdate;
+        if (!partitionable) {
+            logger.debug(() -> "Sql.selectParallel: not partitioned: " + entityInfo.entityClass().getName());
+            select(consumer);
+            return;
+        }
+
+        // Gets the minimum and maximum values of the key
+        Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : this;
+        String columnName = keyColumnInfo.getColumnName(tableAlias);
+        List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
+        CharSequence sqlString = connection.getDatabase().subSelectSql(sql, null,
+            () -> "MIN(" + columnName + "),MAX(" + columnName + ")", parameters);
+        generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
+
+        Long[] minMax = new Long[2];
+        executeQuery(sqlString, parameters, resultSet -> {
+            try {
+                long min = resultSet.getLong(1);
+                if (!resultSet.wasNull()) {
+                    minMax[0] = min;
+                    minMax[1] = resultSet.getLong(2);
+                }
+            }
+            catch (SQLException e) {throw new RuntimeSQLException(e);}
+        });
+        if (minMax[0] == null)
+            return; // no rows
+
+        long min = minMax[0];
+        long max = minMax[1];
+        long step = Math.max(1L, max / partitions - min / partitions + 1L);
+
+        // Executes the partitions in parallel
+        ConnectionSupplier supplier = connection.getSupplier();
+        String propertyName = keyColumnInfo.propertyName();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int index = 0; index < partitions; ++index) {
+            long lower = min + step * index;
+            if (index > 0 && (lower > max || lower < min))
+                break; // beyond the maximum value
+
+            Sql<E> partitionSql = clone();
+            partitionSql.connection = null;
+            partitionSql.stopCondition = failed::get;
+            if (index > 0)
+                partitionSql.and("{" + propertyName + "}>={}", lower);
+            if (index < partitions - 1 && lower + step > lower && lower + step <= max)
+                partitionSql.and("{" + propertyName + "}<{}", lower + step);
+
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    Transaction.executeReadOnly(supplier, conn -> partitionSql.connection(conn).select(consumer));
+                }
+                catch (RuntimeException | Error e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Generates and executes <i>SELECT</i> SQLs that select the rows with any of the keys.
+     *
+     * <p>
+     * The condition of the keys is generated by {@link org.lightsleep.database.Database#keysCondition(Sql, List)}
+     * and is added to the <i>WHERE</i> clause with <i>AND</i>.<br>
+     * The keys are divided into chunks of {@link org.lightsleep.database.Database#maxKeysPerCondition(int)} keys,
+     * and each chunk is padded by repeating the last key to a size of a power of 2
+     * to keep the number of distinct SQLs small.
+     * The <i>ORDER BY</i>, <i>LIMIT</i> and <i>OFFSET</i> are applied to each chunk.
+     * </p>
+     *
+     * <p>
+     * An element of <b>keys</b> is one of the following.
+     * </p>
+     * <ul>
+     *   <li>an entity of the entity class</li>
+     *   <li>an <b>Object[]</b> of the key values in order of the key columns</li>
+     *   <li>the key value if the entity class has a single key column</li>
+     * </ul>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var contacts = new ArrayList&lt;Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectByKeys(Arrays.asList(1, 2, 3), contacts::add)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Contact&gt; contacts = []
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>selectByKeys([1, 2, 3], {contacts &lt;&lt; it})</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param keys a collection of keys
+     * @param consumer a consumer of the entities created from the <b>ResultSet</b>
+     *
+     * @throws NullPointerException if <b>keys</b>, any element of <b>keys</b> or <b>consumer</b> is <b>null</b>
+     * @throws IllegalArgumentException if an element of <b>keys</b> cannot be converted to the key values
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class has no key columns
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #deleteByKeys(Collection)
+     */
+    public void selectByKeys(Collection<?> keys, Consumer<? super E> consumer) {
+        Objects.requireNonNull(consumer, "consumer is null");
+
+        for (List<Object[]> chunk : keyChunks(keys)) {
+            Sql<E> sql = clone();
+            sql.where = where.and(connection.getDatabase().keysCondition(sql, chunk));
+            sql.select(consumer);
+        }
+    }
+
+    /**
+     * Returns a new <b>SqlEntityInfo<b>.
+     *
+     * @param entityClass the entity class
+     * @param tableAlias the table alias
+     * @return a new <b>SqlEntityInfo<b>
+     *
+     * @since 2.0.0
+     */
+    private <T> SqlEntityInfo<T> newSqlEntityInfo(Class<T> entityClass, String tableAlias) {
+        return new SqlEntityInfo<T>() {
+            @Override
+            public String tableAlias() {
+                return tableAlias;
+            }
+
+            @Override
+            public EntityInfo<T> entityInfo() {
+                return getEntityInfo(entityClass);
+            }
+
+            @Override
+            public T entity() {
+                try {
+                    return entityClass.getConstructor().newInstance();
+                }
+                catch (RuntimeException  e) {
+                    throw e;
+                }
+                catch (Exception  e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that joins one table.
+     *
+     * <p>
+     * Adds following strings to <b>columns</b> set
+     * if <b>columns</b> method is not invoked and
+     * <b>innerJoin</b>, <b>leftJoin</b> or <b>rightJoin</b> method invoked more than once.
+     * </p>
+     *
+     * <ul class="code" style="list-style-type:none">
+     *   <li>"&lt;Main Table Alias&gt;.*"</li>
+     *   <li>"&lt;Joined Table Alias&gt;.*"</li>
+     * </ul>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
      * var contacts = new ArrayList&lt;Contact&gt;();
      * var phones   = new ArrayList&lt;Phone&gt;();
      * Transaction.execute(conn -&gt;
@@ -2690,14 +3592,140 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
 
-        sql.executeQuery(generatedSql, parameters,
+        sql.executeRowQuery(generatedSql, parameters,
             sql.getRowConsumer(sql, consumer)
             .andThen(sql.getRowConsumer((JoinInfo<JE1>)sql.joinInfos.get(0), consumer1))
         );
     }
 
+    /**
+     * Generates and executes a <i>SELECT</i> SQL that joins one table,
+     * and groups the entities related to the joined table by the entity related to the main table.
+     *
+     * <p>
+     * The entity related to the main table is identified by the key columns
+     * and created only once even if it is joined to multiple rows.
+     * <b>consumer</b> is called once for each entity related to the main table in the order of appearance
+     * with the list of the joined entities.
+     * If no row is joined by the outer join, the list is empty.<br>
+     * If the leading elements of ORDER BY are the key properties of the main table
+     * (e.g. <b>orderBy("{C.id}")</b>), each group is passed to <b>consumer</b> as soon as the key changes,
+     * so only one group is kept in memory.
+     * Otherwise all groups are kept in memory until all rows are read, so specify ORDER BY for large results.<br>
+     * The columns of the same targets as {@link #select(Consumer, Consumer)} are selected,
+     * and the key columns of the main table and the joined table must be selected.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var phonesMap = new LinkedHashMap&lt;Contact, List&lt;Phone&gt;&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class, "C")
+     *         .leftJoin(Phone.class, "P", "{P.contactId}={C.id}")
+     *         .orderBy("{C.id}")
+     *         .connection(conn)
+     *         .<b>&lt;Phone&gt;selectGrouped(phonesMap::put)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Map&lt;Contact, List&lt;Phone&gt;&gt; phonesMap = [:]
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact, 'C')
+     *         .leftJoin(Phone, 'P', '{P.contactId}={C.id}')
+     *         .orderBy('{C.id}')
+     *         .connection(it)
+     *         .<b>selectGrouped({contact, phones -&gt; phonesMap[contact] = phones})</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param <JE1> the type of the entity related to the joined table
+     * @param consumer a consumer of the entity related to the main table and the list of the joined entities
+     *
+     * @throws NullPointerException if <b>consumer</b> is <b>null</b>
+     * @throws IllegalStateException if joinInfo information is less than 1
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class has no key columns
+     * @throws IllegalStateException if a <i>SELECT</i> SQL without columns was generated
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #select(Consumer, Consumer)
+     */
+    public <JE1> void selectGrouped(BiConsumer<? super E, ? super List<JE1>> consumer) {
+        Objects.requireNonNull(consumer, "consumer is null");
+        if (joinInfos.size() < 1) throw new IllegalStateException("joinInfos.size < 1");
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+        if (entityInfo.keyColumnInfos().isEmpty())
+            throw new IllegalStateException("no key columns: " + entityInfo.entityClass().getName());
+
+        Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : this;
+
+        if (sql.columns.isEmpty() && sql.joinInfos.size() > 1) {
+            if (sql == this) sql = clone();
+            sql.columns.add(sql.tableAlias + ".*");
+            sql.columns.add(sql.joinInfos.get(0).tableAlias() + ".*");
+        }
+
+        List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
+        generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
+
+        // If the rows are sorted by the key of the main entity,
+        // each group is passed to the consumer as soon as the key changes
+        boolean orderedByKey = sql.isOrderedByKey();
+
+        // The map of key: the key of the main entity and value: the main entity and the joined entities
+        Map<List<Object>, Map.Entry<E, List<JE1>>> groupMap = new LinkedHashMap<>();
+        List<Map.Entry<E, List<JE1>>> currentGroup = new ArrayList<>(1);
+        currentGroup.add(null);
+
+        Sql<E> groupSql = sql;
+        JoinInfo<JE1> joinInfo = (JoinInfo<JE1>)sql.joinInfos.get(0);
+        Consumer<Function<String, Object>> rowConsumer = sql.getRowConsumer(sql,
+            entity -> currentGroup.set(0, new AbstractMap.SimpleImmutableEntry<>(entity, new ArrayList<>())));
+        Consumer<Function<String, Object>> joinedRowConsumer = sql.getRowConsumer(joinInfo,
+            entity -> currentGroup.get(0).getValue().add(entity));
+
+        sql.executeRowQuery(generatedSql, parameters, row -> {
+            List<Object> key = groupSql.rowKey(groupSql, row);
+            if (key == null)
+                return; // No row of the main table of an outer join
+
+            Map.Entry<E, List<JE1>> group = groupMap.get(key);
+            if (group == null) {
+                if (orderedByKey) {
+                    // The previous group is complete
+                    groupMap.values().forEach(previous -> consumer.accept(previous.getKey(), previous.getValue()));
+                    groupMap.clear();
+                }
+
+                // Creates the main entity only once
+                rowConsumer.accept(row);
+                group = currentGroup.get(0);
+                groupMap.put(key, group);
+            } else
+                currentGroup.set(0, group);
+
+            if (groupSql.rowKey(joinInfo, row) != null)
+                joinedRowConsumer.accept(row);
+        });
+
+        groupMap.values().forEach(group -> consumer.accept(group.getKey(), group.getValue()));
+    }
+
     /**
      * Generates and executes a <i>SELECT</i> SQL that joins two tables.
      *
@@ -2778,9 +3806,11 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
 
-        sql.executeQuery(generatedSql, parameters,
+        sql.executeRowQuery(generatedSql, parameters,
             sql.getRowConsumer(sql, consumer)
             .andThen(sql.getRowConsumer((JoinInfo<JE1>)sql.joinInfos.get(0), consumer1))
             .andThen(sql.getRowConsumer((JoinInfo<JE2>)sql.joinInfos.get(1), consumer2))
@@ -2878,9 +3908,11 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
 
-        sql.executeQuery(generatedSql, parameters,
+        sql.executeRowQuery(generatedSql, parameters,
             sql.getRowConsumer(sql, consumer)
             .andThen(sql.getRowConsumer((JoinInfo<JE1>)sql.joinInfos.get(0), consumer1))
             .andThen(sql.getRowConsumer((JoinInfo<JE2>)sql.joinInfos.get(1), consumer2))
@@ -2990,9 +4022,11 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().selectSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
 
-        sql.executeQuery(generatedSql, parameters,
+        sql.executeRowQuery(generatedSql, parameters,
             sql.getRowConsumer(sql, consumer)
             .andThen(sql.getRowConsumer((JoinInfo<JE1>)sql.joinInfos.get(0), consumer1))
             .andThen(sql.getRowConsumer((JoinInfo<JE2>)sql.joinInfos.get(1), consumer2))
@@ -3133,25 +4167,133 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
      * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
      * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
      *
-     * @since 2.0.0
+     * @since 2.0.0
+     */
+    public int selectCount() {
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : this;
+
+        List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
+        CharSequence sqlString = connection.getDatabase().subSelectSql(sql, null, () -> "COUNT(*)", parameters);
+        generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
+
+        int[] count = new int[1];
+        executeQuery(sqlString, parameters, resultSet -> {
+            try {
+                count[0] = resultSet.getInt(1);
+            }
+            catch (SQLException e) {throw new RuntimeSQLException(e);}
+        });
+        return count[0];
+    }
+
+    /**
+     * Generates a <i>SELECT</i> SQL in the same way as {@link #select(Consumer)}
+     * and returns the execution plan of it without executing it.
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt; {
+     *     var plan = new Sql&lt;&gt;(Contact.class)
+     *         .where("{lastName}={}", "Apple")
+     *         .connection(conn)
+     *         .<b>explain()</b>;
+     *     if (plan.hasFullScan())
+     *         System.out.println(plan.text());
+     * });
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     def plan = new Sql&lt;&gt;(Contact)
+     *         .where('{lastName}={}', 'Apple')
+     *         .connection(it)
+     *         .<b>explain()</b>
+     *     if (plan.hasFullScan())
+     *         println plan.text()
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @return the execution plan
+     *
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if a <i>SELECT</i> SQL without columns was generated
+     * @throws UnsupportedOperationException if the database handler does not support getting execution plans
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.database.Database#explainSqls(CharSequence)
      */
-    public int selectCount() {
+    public ExplainPlan explain() {
         if (connection == null)
             throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
 
         Sql<E> sql = where.isEmpty() ? clone().where(Condition.ALL) : this;
+        if (sql.columns.isEmpty() && sql.joinInfos.size() > 0) {
+            if (sql == this) sql = clone();
+            sql.columns.add(tableAlias + ".*");
+        }
 
         List<Object> parameters = new ArrayList<>();
-        CharSequence sqlString = connection.getDatabase().subSelectSql(sql, null, () -> "COUNT(*)", parameters);
+        CharSequence sqlString = connection.getDatabase().selectSql(sql, parameters);
+        return explain(connection, sqlString, parameters);
+    }
 
-        int[] count = new int[1];
-        executeQuery(sqlString, parameters, resultSet -> {
-            try {
-                count[0] = resultSet.getInt(1);
+    /**
+     * Executes the SQLs to get the execution plan of the SQL and returns the plan.
+     *
+     * @param connection the connection wrapper
+     * @param sql the SQL
+     * @param parameters the parameters of the SQL
+     * @return the execution plan
+     *
+     * @throws UnsupportedOperationException if the database handler does not support getting execution plans
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    static ExplainPlan explain(ConnectionWrapper connection, CharSequence sql, List<Object> parameters) {
+        List<String> explainSqls = connection.getDatabase().explainSqls(sql);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try {
+            for (int sqlIndex = 0; sqlIndex < explainSqls.size(); ++sqlIndex) {
+                String explainSql = explainSqls.get(sqlIndex);
+                logger.debug(() -> connection.toString() + " explain: " + explainSql);
+                try (PreparedStatement statement = connection.prepareStatement(explainSql)) {
+                    if (sqlIndex == 0) {
+                        for (int index = 0; index < parameters.size(); ++index)
+                            setParameter(connection, statement, index + 1, parameters.get(index));
+                    }
+                    if (sqlIndex < explainSqls.size() - 1) {
+                        statement.execute();
+                        continue;
+                    }
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        ResultSetMetaData metaData = resultSet.getMetaData();
+                        while (resultSet.next()) {
+                            Map<String, Object> row = new LinkedHashMap<>();
+                            for (int column = 1; column <= metaData.getColumnCount(); ++column)
+                                row.put(metaData.getColumnLabel(column), resultSet.getObject(column));
+                            rows.add(row);
+                        }
+                    }
+                }
             }
-            catch (SQLException e) {throw new RuntimeSQLException(e);}
-        });
-        return count[0];
+        }
+        catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+        return new ExplainPlan(sql.toString(), rows, Instant.now());
     }
 
     /**
@@ -3175,7 +4317,9 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         fromSql.isInInsertFrom = true;
 
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().insertSql(this, parameters);
+        generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
         int count = executeUpdate(generatedSql, parameters);
 
         return count;
@@ -3229,7 +4373,9 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
             ((PreInsert)entity).preInsert(connection);
     
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().insertSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
         int count = sql.executeUpdate(generatedSql, parameters);
     
         // after INSERT
@@ -3289,6 +4435,311 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return count[0];
     }
 
+    /**
+     * Inserts the entities in bulk with the native bulk loader of the database.
+     *
+     * <p>
+     * Uses <i>COPY</i> for PostgreSQL, <i>LOAD DATA LOCAL INFILE</i> for MySQL and MariaDB
+     * and <b>SQLServerBulkCopy</b> for SQL Server,
+     * and batched <i>INSERT</i> SQLs for other databases.
+     * The values are converted with the <b>TypeConverter</b> map of the database handler as well as {@link #insert(Object)}.
+     * </p>
+     *
+     * <p>
+     * With <i>LOAD DATA LOCAL INFILE</i>, the server reports duplicate keys and invalid values as warnings
+     * and skips or converts the rows instead of failing.
+     * This method checks the number of the inserted rows and the warnings after the load
+     * and throws a <b>RuntimeSQLException</b> as {@link #insert(Iterable)} would,
+     * but the other rows are already loaded, so roll back the transaction.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>bulkInsert(contacts)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>bulkInsert(contacts)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param entities an <b>Iterable</b> of entities
+     * @return the number of rows inserted
+     *
+     * @throws NullPointerException if <b>entities</b> or any element of <b>entities</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.database.Database#bulkInsert(Sql, Iterable)
+     */
+    public int bulkInsert(Iterable<? extends E> entities) {
+        Objects.requireNonNull(entities, "entities is null");
+
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        // before INSERT (iterates entities only once)
+        Iterator<? extends E> iterator = entities.iterator();
+        List<E> postInsertEntities = new ArrayList<>();
+        Iterable<E> preInsertedEntities = () -> new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                E entity = Objects.requireNonNull(iterator.next(), "entities has a null element");
+                if (entity instanceof PreInsert)
+                    ((PreInsert)entity).preInsert(connection);
+                if (entity instanceof PostInsert)
+                    postInsertEntities.add(entity);
+                return entity;
+            }
+        };
+
+        int sqlNo = Sql.sqlNo.getAndIncrement();
+        if (logger.isInfoEnabled())
+            logger.info('#' + Integer.toUnsignedString(sqlNo) + ' '
+                + connection.toString() + " bulkInsert: " + entityInfo.tableName());
+
+        String metricsSql = "bulkInsert: " + entityInfo.tableName();
+        Object flightRecorderEvent = FlightRecorderEvents.begin(FlightRecorderEvents.STATEMENT_EXECUTE); // @since 4.1.0
+        long execTimeBefore = System.nanoTime(); // Time of before execution
+        int count;
+        try {
+            count = connection.getDatabase().bulkInsert(this, preInsertedEntities);
+        }
+        catch (RuntimeSQLException e) {
+            recordError(metricsSql, null, flightRecorderEvent);
+            throw e;
+        }
+        long execTimeAfter = System.nanoTime(); // Time of after execution
+        invalidateQueryCache(); // @since 4.1.0
+        recordExecution(metricsSql, null, Collections.emptyList(), 0L, execTimeAfter - execTimeBefore, -1L, 0L, count, flightRecorderEvent);
+
+        if (logger.isInfoEnabled()) {
+            double execTime = (execTimeAfter - execTimeBefore) / 1_000_000.0;
+            String sqlNoStr = "#" + Integer.toUnsignedString(sqlNo) + ' ';
+            switch (count) {
+            case 0:
+                logger.info(sqlNoStr + MessageFormat.format(messageInserted0Rows, timeFormat.get().format(execTime)));
+                break;
+            case 1:
+                logger.info(sqlNoStr + MessageFormat.format(messageInsertedRow, timeFormat.get().format(execTime)));
+                break;
+            default:
+                logger.info(sqlNoStr + MessageFormat.format(messageInsertedRows, count, timeFormat.get().format(execTime)));
+                break;
+            }
+        }
+
+        // after INSERT
+        postInsertEntities.forEach(entity -> ((PostInsert)entity).postInsert(connection));
+
+        return count;
+    }
+
+    /**
+     * Generates and executes an UPSERT SQL for the specified entity,
+     * which inserts the entity or updates the row with the same key if it exists.
+     *
+     * <p>
+     * Generates <i>INSERT ... ON CONFLICT ... DO UPDATE</i> for PostgreSQL and SQLite,
+     * <i>INSERT ... ON DUPLICATE KEY UPDATE</i> for MySQL and MariaDB
+     * and <i>MERGE</i> for other databases.<br>
+     * The key columns are the columns with <b>@Key</b> annotation.
+     * The columns to be updated are the updatable columns except the key columns
+     * and can be limited by {@link #columns(String...)}.<br>
+     * If the database handler does not support UPSERT SQLs
+     * ({@link org.lightsleep.database.Database#upsertSql(Sql, List)} returns <b>null</b>),
+     * executes an <i>UPDATE</i> SQL with the key and an <i>INSERT</i> SQL if no row is updated,
+     * which is not atomic unlike an UPSERT SQL.
+     * </p>
+     *
+     * <p>
+     * This method does not call <b>PreInsert</b>, <b>PostInsert</b>, <b>PreUpdate</b> and <b>PostUpdate</b> methods.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>upsert(contact)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>upsert(contact)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param entity the entity to be inserted or updated
+     * @return the number of rows affected which is reported by the JDBC driver
+     *
+     * @throws NullPointerException if <b>entity</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class has no key columns
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    public int upsert(E entity) {
+        Objects.requireNonNull(entity, "entity is null");
+
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        Sql<E> sql = clone().setEntity(entity);
+
+        List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
+        generatedSql = connection.getDatabase().upsertSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
+        int count;
+        if (generatedSql == null) {
+            // The database handler does not support UPSERT SQLs
+            count = sql.updateOrInsert();
+            generatedSql = sql.generatedSql;
+        } else
+            count = sql.executeUpdate(generatedSql, parameters);
+        invalidateCache(Condition.of(entity)); // @since 4.1.0
+        return count;
+    }
+
+    /**
+     * Updates the row with the key of the entity set to this object
+     * and inserts the entity if no row is updated.
+     *
+     * @return the number of rows affected
+     *
+     * @throws IllegalStateException if the entity class has no key columns
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private int updateOrInsert() {
+        if (entityInfo.keyColumnInfos().isEmpty())
+            throw new IllegalStateException("upsert: The entity class has no key columns. (" + entityInfo.entityClass().getName() + ")");
+
+        where = Condition.of(entity);
+        List<Object> parameters = new ArrayList<>();
+        generatedSql = connection.getDatabase().updateSql(this, parameters);
+        int count = executeUpdate(generatedSql, parameters);
+        if (count == 0) {
+            where = Condition.EMPTY;
+            parameters.clear();
+            generatedSql = connection.getDatabase().insertSql(this, parameters);
+            count = executeUpdate(generatedSql, parameters);
+        }
+        return count;
+    }
+
+    /**
+     * Generates UPSERT SQLs for each element of entities and executes them in batches.
+     *
+     * <p>
+     * The SQLs without parameters are executed in batches of <b>bulkInsertBatchSize</b> of lightsleep.properties
+     * (if undefined, 1000), and the SQLs with parameters are executed individually.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>upsert(contacts)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>upsert(contacts)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param entities an <b>Iterable</b> of entities
+     * @return the number of rows affected which is reported by the JDBC driver
+     *
+     * @throws NullPointerException if <b>entities</b> or any element of <b>entities</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class has no key columns
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #upsert(Object)
+     */
+    public int upsert(Iterable<? extends E> entities) {
+        Objects.requireNonNull(entities, "entities is null");
+
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        int count = 0;
+        List<String> batchSqls = new ArrayList<>();
+        for (E entity : entities) {
+            Objects.requireNonNull(entity, "entities has a null element");
+            Sql<E> sql = clone().setEntity(entity);
+
+            List<Object> parameters = new ArrayList<>();
+            long generateTimeBefore = System.nanoTime(); // @since 4.1.0
+            generatedSql = connection.getDatabase().upsertSql(sql, parameters);
+            long generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
+            if (generatedSql == null) {
+                // The database handler does not support UPSERT SQLs
+                count += executeBatch(batchSqls);
+                count += sql.updateOrInsert();
+                generatedSql = sql.generatedSql;
+            } else if (parameters.isEmpty()) {
+                this.generateNanos += generateNanos;
+                batchSqls.add(generatedSql.toString());
+                if (batchSqls.size() >= batchSize)
+                    count += executeBatch(batchSqls);
+            } else {
+                // with parameters
+                count += executeBatch(batchSqls);
+                sql.generateNanos = generateNanos;
+                count += sql.executeUpdate(generatedSql, parameters);
+            }
+        }
+        count += executeBatch(batchSqls);
+        invalidateCache(Condition.ALL); // @since 4.1.0
+
+        return count;
+    }
+
     /**
      * Generates and executes an <i>UPDATE</i> SQL for the specified entity.
      *
@@ -3297,6 +4748,12 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
      * To update all rows of the target table, specify <b>Condition.ALL</b> to <i>WHERE</i> conditions.
      * </p>
      *
+     * <p>
+     * If the entity was selected with {@link #trackChanges()} in the current transaction
+     * and neither the condition nor the columns are specified,
+     * updates only the columns changed after selected and returns <b>0</b> without executing SQL if no column has been changed.
+     * </p>
+     *
      * <div class="exampleTitle"><span>Java Example</span></div>
      * <div class="exampleCode"><pre>
      * Transaction.execute(conn -&gt; {
@@ -3361,9 +4818,26 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         if (entity instanceof PreUpdate)
             ((PreUpdate)entity).preUpdate(connection);
 
+        // Updates only the changed columns @since 4.1.0
+        Map<String, Object> snapshot = sql.where instanceof EntityCondition && sql.columns.isEmpty()
+            ? connection.getSnapshot(entity) : null;
+        Map<String, Object> newSnapshot = null;
+        if (snapshot != null) {
+            newSnapshot = new HashMap<>(snapshot);
+            if (!sql.selectChangedColumns(snapshot, newSnapshot)) {
+                logger.debug(() -> "Sql.update: no column has been changed: " + entityInfo.entityClass().getName());
+                return 0;
+            }
+        }
+
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().updateSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
         int count = sql.executeUpdate(generatedSql, parameters);
+        invalidateCache(sql.where); // @since 4.1.0
+        if (newSnapshot != null && count > 0)
+            connection.putSnapshot(entity, newSnapshot);
 
         // after UPDATE
         if (sql.where instanceof EntityCondition && entity instanceof PostUpdate)
@@ -3502,8 +4976,12 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         }
 
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         CharSequence sqlString = connection.getDatabase().deleteSql(this, parameters);
-        return executeUpdate(sqlString, parameters);
+        generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
+        int count = executeUpdate(sqlString, parameters);
+        invalidateCache(where); // @since 4.1.0
+        return count;
     }
 
     /**
@@ -3554,8 +5032,11 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
             ((PreDelete)entity).preDelete(connection);
 
         List<Object> parameters = new ArrayList<>();
+        long generateTimeBefore = System.nanoTime(); // @since 4.1.0
         generatedSql = connection.getDatabase().deleteSql(sql, parameters);
+        sql.generateNanos = System.nanoTime() - generateTimeBefore; // @since 4.1.0
         int count = sql.executeUpdate(generatedSql, parameters);
+        invalidateCache(sql.where); // @since 4.1.0
 
         // after DELETE
         if (entity instanceof PostDelete)
@@ -3600,31 +5081,216 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
      * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
      * </p>
      *
-     * @param entities an <b>Iterable</b> of entities
-     * @return the number of rows deleted
+     * @param entities an <b>Iterable</b> of entities
+     * @return the number of rows deleted
+     *
+     * @throws NullPointerException if <b>entities</b> or any element of <b>entities</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 2.0.0
+     */
+    public int delete(Iterable<? extends E> entities) {
+        int[] count = new int[1];
+        Objects.requireNonNull(entities, "entities is null")
+            .forEach(entity -> count[0] += delete(entity));
+        return count[0];
+    }
+
+    /**
+     * Generates and executes <i>DELETE</i> SQLs that delete the rows with any of the keys.
+     *
+     * <p>
+     * The keys are divided into chunks in the same way as {@link #selectByKeys(Collection, Consumer)}.<br>
+     * This method does not call <b>PreDelete.preDelete</b> and <b>PostDelete.postDelete</b> methods.
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * var count = new int[1];
+     * Transaction.execute(conn -&gt;
+     *     count[0] = new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>deleteByKeys(Arrays.asList(7, 8, 9))</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * int count
+     * Transaction.execute {
+     *     count = new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>deleteByKeys([7, 8, 9])</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">Caution:</span>
+     * Call {@link #connection(ConnectionWrapper)} method to specify the connection wrapper before invoking this method.
+     * </p>
+     *
+     * @param keys a collection of keys
+     * @return the number of rows deleted
+     *
+     * @throws NullPointerException if <b>keys</b> or any element of <b>keys</b> is <b>null</b>
+     * @throws IllegalArgumentException if an element of <b>keys</b> cannot be converted to the key values
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
+     * @throws IllegalStateException if the entity class has no key columns
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see #selectByKeys(Collection, Consumer)
+     */
+    public int deleteByKeys(Collection<?> keys) {
+        int count = 0;
+        for (List<Object[]> chunk : keyChunks(keys)) {
+            Sql<E> sql = clone();
+            sql.where = where.and(connection.getDatabase().keysCondition(sql, chunk));
+            count += sql.delete();
+        }
+        return count;
+    }
+
+    /**
+     * Converts the keys to the key values arrays and divides them into chunks.
+     *
+     * @param keys a collection of keys
+     * @return the list of chunks
      *
-     * @throws NullPointerException if <b>entities</b> or any element of <b>entities</b> is <b>null</b>
-     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set
-     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     * @since 4.1.0
+     */
+    private List<List<Object[]>> keyChunks(Collection<?> keys) {
+        Objects.requireNonNull(keys, "keys is null");
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        List<ColumnInfo> keyColumnInfos = entityInfo.keyColumnInfos();
+        if (keyColumnInfos.isEmpty())
+            throw new IllegalStateException("no key columns: " + entityInfo.entityClass().getName());
+
+        List<Object[]> keyValuesList = keys.stream()
+            .map(key -> keyValues(keyColumnInfos, key))
+            .collect(Collectors.toList());
+
+        int maxSize = Math.max(connection.getDatabase().maxKeysPerCondition(keyColumnInfos.size()), 1);
+        List<List<Object[]>> chunks = new ArrayList<>();
+        for (int fromIndex = 0; fromIndex < keyValuesList.size(); fromIndex += maxSize) {
+            List<Object[]> chunk = new ArrayList<>(keyValuesList.subList(fromIndex, Math.min(fromIndex + maxSize, keyValuesList.size())));
+
+            // Pads to the bucket size
+            int bucketSize = 1;
+            while (bucketSize < chunk.size())
+                bucketSize <<= 1;
+            Object[] lastKeyValues = chunk.get(chunk.size() - 1);
+            while (chunk.size() < Math.min(bucketSize, maxSize))
+                chunk.add(lastKeyValues);
+
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Converts a key to the key values array.
      *
-     * @since 2.0.0
+     * @param keyColumnInfos the key column informations
+     * @param key a key
+     * @return the key values array
+     *
+     * @since 4.1.0
      */
-    public int delete(Iterable<? extends E> entities) {
-        int[] count = new int[1];
-        Objects.requireNonNull(entities, "entities is null")
-            .forEach(entity -> count[0] += delete(entity));
-        return count[0];
+    private Object[] keyValues(List<ColumnInfo> keyColumnInfos, Object key) {
+        Objects.requireNonNull(key, "keys has a null element");
+
+        if (entityInfo.entityClass().isInstance(key))
+            return keyColumnInfos.stream()
+                .map(columnInfo -> entityInfo.accessor().getValue((E)key, columnInfo.propertyName()))
+                .toArray();
+
+        if (key instanceof Object[]) {
+            Object[] keyValues = (Object[])key;
+            if (keyValues.length != keyColumnInfos.size())
+                throw new IllegalArgumentException("key.length: " + keyValues.length + " != " + keyColumnInfos.size());
+            return keyValues;
+        }
+
+        if (keyColumnInfos.size() != 1)
+            throw new IllegalArgumentException("key: " + key + ", key columns: " + keyColumnInfos.size());
+        return new Object[] {key};
     }
 
-    /** The time format  */
-    private static DecimalFormat timeFormat = new DecimalFormat();
-    static {
+    // The fetch size used by publishAs if not specified @since 4.1.0
+    private static final int DEFAULT_PUBLISH_FETCH_SIZE = 100;
+
+    // The number of the rows notified to the statement listeners at once if the fetch size is not specified @since 4.1.0
+    private static final int DEFAULT_ROW_BATCH_SIZE = 100;
+
+    // The time format per thread since DecimalFormat is not thread-safe @since 4.1.0
+    static final ThreadLocal<DecimalFormat> timeFormat = ThreadLocal.withInitial(() -> {
+        DecimalFormat timeFormat = new DecimalFormat();
         timeFormat.setMinimumFractionDigits(0);
         timeFormat.setMaximumFractionDigits(3);
+        return timeFormat;
+    });
+
+    /**
+     * Specifies the columns changed from the snapshot and the columns with the update expressions
+     * to <b>columns</b> of this object.
+     *
+     * @param snapshot the snapshot of the entity
+     * @param newSnapshot the map to put the current values of the changed columns
+     * @return <b>true</b> if any column has been changed, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    private boolean selectChangedColumns(Map<String, Object> snapshot, Map<String, Object> newSnapshot) {
+        Accessor<E> accessor = entityInfo.accessor();
+        List<String> expressionColumns = new ArrayList<>();
+        boolean changed = false;
+        for (ColumnInfo columnInfo : entityInfo.columnInfos()) {
+            if (!columnInfo.updatable())
+                continue;
+            String propertyName = columnInfo.propertyName();
+            if (!columnInfo.updateExpression().isEmpty() || !getExpression(propertyName).isEmpty()) {
+                expressionColumns.add(propertyName);
+                continue;
+            }
+
+            Object value = accessor.getValue(entity, propertyName);
+            if (!snapshot.containsKey(propertyName) || !Objects.deepEquals(snapshot.get(propertyName), value)) {
+                columns.add(propertyName);
+                newSnapshot.put(propertyName, snapshotValue(value));
+                changed = true;
+            }
+        }
+        if (changed)
+            columns.addAll(expressionColumns);
+        return changed;
+    }
+
+    /**
+     * Returns the value to be stored in a snapshot,
+     * which is a copy of the value if the value is a mutable array or date.
+     *
+     * @param value the value
+     * @return the value to be stored in a snapshot
+     *
+     * @since 4.1.0
+     */
+    private static Object snapshotValue(Object value) {
+        if (value instanceof byte[])
+            return ((byte[])value).clone();
+        if (value instanceof Object[])
+            return ((Object[])value).clone();
+        if (value instanceof java.util.Date)
+            return ((java.util.Date)value).clone();
+        return value;
     }
 
     /**
-     * Returns a row consumer.
+     * Returns a row consumer,
+     * which accepts a function that returns the column value of the column label.
      *
      * @param connection the connection wrapper
      * @param sqlEntityInfo the <b>SqlEntityInfo</b> object
@@ -3633,14 +5299,30 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
      * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
      * @throws RuntimeException InstantiationException, IllegalAccessException
      */
-    private <T> Consumer<ResultSet> getRowConsumer(SqlEntityInfo<T> sqlEntityInfo, Consumer<? super T> consumer) {
-        return resultSet -> {
+    private <T> Consumer<Function<String, Object>> getRowConsumer(SqlEntityInfo<T> sqlEntityInfo, Consumer<? super T> consumer) {
+        // Whether the entities are registered to the identity map @since 4.1.0
+        boolean usesIdentityMap = usesIdentityMap(sqlEntityInfo);
+
+        return row -> {
             EntityInfo<T> entityInfo = sqlEntityInfo.entityInfo();
-            Accessor<T> accessor = entityInfo.accessor();
             String tableAlias = sqlEntityInfo.tableAlias();
             try {
+                // Finds the entity in the identity map @since 4.1.0
+                List<Object> key = null;
+                if (usesIdentityMap) {
+                    key = rowKey(sqlEntityInfo, row);
+                    if (key != null) {
+                        T identity = connection.getIdentity(entityInfo.entityClass(), key);
+                        if (identity != null) {
+                            consume(consumer, identity);
+                            return;
+                        }
+                    }
+                }
+
                 // Create an entity object
                 T entity = entityInfo.entityClass().getConstructor().newInstance();
+                Map<String, Object> snapshot = trackChanges ? new HashMap<>() : null; // @since 4.1.0
 
                 //  Column loop
                 sqlEntityInfo.selectedSqlColumnInfoStream(columns)
@@ -3649,38 +5331,269 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                         ColumnInfo columnInfo = sqlColumnInfo.columnInfo();
                         String columnAlias = columnInfo.getColumnAlias(tableAlias);
 
-                        Object value = connection.getDatabase().getObject(connection.getConnection(), resultSet, columnAlias);
-
-                        Class<?> destinType = Utils.toClassType(accessor.getType(columnInfo.propertyName()));
-                        Object convertedValue = null;
-                        try {
-                            convertedValue = connection.getDatabase().convert(value, destinType);
-                        }
-                        catch (ConvertException e) {
-                            if (columnInfo.columnType() == null)
-                                throw new RuntimeException("property: "
-                                    + entityInfo.entityClass().getName() + "." + columnInfo.propertyName()
-                                    + ", value: " + Utils.toLogString(value), e);
-
-                            logger.debug(() -> e.toString());
-                            value = connection.getDatabase().convert(value, columnInfo.columnType());
-                            convertedValue = connection.getDatabase().convert(value, destinType);
-                        }
+                        Object convertedValue = convertColumnValue(entityInfo, columnInfo, row.apply(columnAlias));
                         entityInfo.accessor().setValue(entity, columnInfo.propertyName(), convertedValue);
+                        if (snapshot != null)
+                            snapshot.put(columnInfo.propertyName(), snapshotValue(convertedValue));
                     });
 
+                // Stores the snapshot @since 4.1.0
+                if (snapshot != null)
+                    connection.putSnapshot(entity, snapshot);
+
+                // Registers to the identity map @since 4.1.0
+                if (key != null)
+                    connection.putIdentity(entityInfo.entityClass(), key, entity);
+
                 // After get
                 if (entity instanceof PostSelect)
                     ((PostSelect)entity).postSelect(connection);
 
                 // Consumes the entity
-                consumer.accept(entity);
+                consume(consumer, entity);
             }
             catch (RuntimeException e) {throw e;}
             catch (Exception e) {throw new RuntimeException(e);}
         };
     }
 
+    /**
+     * Returns the values of the key columns of the current row.
+     *
+     * @param <T> the type of the entity
+     * @param sqlEntityInfo the <b>SqlEntityInfo</b> object
+     * @param row the function that returns the column value of the column label
+     * @return the list of the values of the key columns,
+     *         <b>null</b> if any of the values is <b>null</b> (no row of an outer join)
+     *
+     * @since 4.1.0
+     */
+    private <T> List<Object> rowKey(SqlEntityInfo<T> sqlEntityInfo, Function<String, Object> row) {
+        EntityInfo<T> entityInfo = sqlEntityInfo.entityInfo();
+        List<Object> key = new ArrayList<>(entityInfo.keyColumnInfos().size());
+        for (ColumnInfo columnInfo : entityInfo.keyColumnInfos()) {
+            Object value = row.apply(columnInfo.getColumnAlias(sqlEntityInfo.tableAlias()));
+            if (value == null)
+                return null;
+            key.add(convertColumnValue(entityInfo, columnInfo, value));
+        }
+        return key;
+    }
+
+    /**
+     * Returns whether the leading elements of ORDER BY are the key properties of the main table.
+     *
+     * <p>
+     * Each of the elements must be in the form of <b>{propertyName}</b> or <b>{tableAlias.propertyName}</b>.
+     * </p>
+     *
+     * @return <b>true</b> if the rows are sorted by the key of the main table, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    private boolean isOrderedByKey() {
+        List<ColumnInfo> keyColumnInfos = entityInfo.keyColumnInfos();
+        List<OrderBy.Element> elements = orderBy.elements();
+        if (keyColumnInfos.isEmpty() || elements.size() < keyColumnInfos.size())
+            return false;
+
+        Set<String> propertyNames = new HashSet<>();
+        for (OrderBy.Element element : elements.subList(0, keyColumnInfos.size())) {
+            String content = element.content().trim();
+            if (element.arguments().length != 0 || !content.startsWith("{") || !content.endsWith("}"))
+                return false;
+
+            String propertyName = content.substring(1, content.length() - 1).trim();
+            if (!tableAlias.isEmpty() && propertyName.startsWith(tableAlias + '.'))
+                propertyName = propertyName.substring(tableAlias.length() + 1);
+            propertyNames.add(propertyName);
+        }
+
+        return keyColumnInfos.stream().allMatch(columnInfo -> propertyNames.contains(columnInfo.propertyName()));
+    }
+
+    /**
+     * Converts the column value to the type of the property.
+     *
+     * @param <T> the type of the entity
+     * @param entityInfo the entity information
+     * @param columnInfo the column information
+     * @param value the column value got from the <b>ResultSet</b>
+     * @return the converted value
+     *
+     * @since 4.1.0
+     */
+    private <T> Object convertColumnValue(EntityInfo<T> entityInfo, ColumnInfo columnInfo, Object value) {
+        Class<?> destinType = Utils.toClassType(entityInfo.accessor().getType(columnInfo.propertyName()));
+        try {
+            return connection.getDatabase().convert(value, destinType);
+        }
+        catch (ConvertException e) {
+            if (columnInfo.columnType() == null)
+                throw new RuntimeException("property: "
+                    + entityInfo.entityClass().getName() + "." + columnInfo.propertyName()
+                    + ", value: " + Utils.toLogString(value), e);
+
+            logger.debug(() -> e.toString());
+            value = connection.getDatabase().convert(value, columnInfo.columnType());
+            return connection.getDatabase().convert(value, destinType);
+        }
+    }
+
+    /**
+     * Returns whether the entities created by the row consumer are registered to the identity map,
+     * which requires the entity class has the key columns and all columns are selected without expressions.
+     *
+     * @param <T> the type of the entity
+     * @param sqlEntityInfo the <b>SqlEntityInfo</b> object
+     * @return <b>true</b> if the entities are registered to the identity map, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    private <T> boolean usesIdentityMap(SqlEntityInfo<T> sqlEntityInfo) {
+        if (!connection.isIdentityMapEnabled()
+            || sqlEntityInfo.entityInfo().keyColumnInfos().isEmpty()
+            || !expressionMap.isEmpty() || !groupBy.isEmpty())
+            return false;
+
+        return columns.isEmpty()
+            || sqlEntityInfo.selectedSqlColumnInfoStream(columns).filter(sqlColumnInfo -> sqlColumnInfo.columnInfo().selectable()).count()
+                == sqlEntityInfo.entityInfo().columnInfos().stream().filter(ColumnInfo::selectable).count();
+    }
+
+    /**
+     * Executes the <i>SELECT</i> SQL and passes each row to the row consumer.
+     *
+     * <p>
+     * If {@link #cached(Duration)} was specified,
+     * uses the cached rows or caches the rows in the query cache.
+     * </p>
+     *
+     * @param sql the SQL
+     * @param parameters the parameters of SQL
+     * @param rowConsumer the row consumer
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private void executeRowQuery(CharSequence sql, List<Object> parameters, Consumer<Function<String, Object>> rowConsumer) {
+        if (connection == null)
+            throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
+
+        List<Object> key = cacheTimeToLive == null || stopCondition != null || forUpdate
+            || connection.hasChanges() // not after changes in the current transaction
+            ? null : queryCacheKey(sql, parameters);
+        if (key == null) {
+            executeQuery(sql, parameters, resultSet -> rowConsumer.accept(columnLabel -> {
+                Object value = connection.getDatabase().getObject(connection.getConnection(), resultSet, columnLabel);
+                fetchedBytes += ExecutionStats.estimateBytes(value); // @since 4.1.0
+                return value;
+            }));
+            return;
+        }
+
+        QueryCache cache = QueryCache.instance;
+        List<Map<String, Object>> rows = cache.get(key);
+        if (rows != null) {
+            logger.debug(() -> "Sql.select: found in the query cache: " + rows.size() + " rows: " + sql);
+            rows.forEach(row -> rowConsumer.accept(columnLabel -> Utils.copyValue(row.get(columnLabel))));
+            return;
+        }
+
+        String sqlString = sql.toString();
+        long loadVersion = cache.version(sqlString);
+        List<Map<String, Object>> loadedRows = new ArrayList<>();
+        boolean[] cacheable = {true};
+        executeQuery(sql, parameters, resultSet -> {
+            Map<String, Object> row = rowOf(resultSet);
+            row.values().forEach(value -> fetchedBytes += ExecutionStats.estimateBytes(value));
+            if (row.values().stream().anyMatch(value -> value instanceof Blob || value instanceof Clob
+                    || value instanceof java.sql.Array || value instanceof SQLXML || value instanceof Ref
+                    || value instanceof Struct || value instanceof RowId))
+                cacheable[0] = false; // LOBs etc. are valid only while reading (NClob is a Clob)
+            rowConsumer.accept(columnLabel -> Utils.copyValue(row.get(columnLabel)));
+            if (cacheable[0])
+                loadedRows.add(row);
+        });
+        if (cacheable[0])
+            cache.put(key, sqlString, loadedRows, cacheTimeToLive, loadVersion);
+    }
+
+    /**
+     * Returns the key of the query cache.
+     *
+     * @param sql the SQL
+     * @param parameters the parameters of SQL
+     * @return the key, <b>null</b> if the parameters cannot be a key
+     *
+     * @since 4.1.0
+     */
+    private List<Object> queryCacheKey(CharSequence sql, List<Object> parameters) {
+        List<Object> key = new ArrayList<>(parameters.size() + 3);
+        key.add(connection.getSupplier().getUrl());
+        key.add(connection.getDatabase().getClass().getName());
+        key.add(sql.toString());
+        for (Object parameter : parameters) {
+            if (parameter instanceof SqlArray)
+                key.add(Arrays.asList(((SqlArray)parameter).typeName(), Arrays.asList(((SqlArray)parameter).elements())));
+            else if (parameter instanceof byte[])
+                key.add(Arrays.toString((byte[])parameter));
+            else if (parameter instanceof java.util.Date)
+                key.add(((java.util.Date)parameter).clone()); // not changed by the caller after this
+            else if (parameter == null || parameter instanceof Number || parameter instanceof CharSequence
+                    || parameter instanceof Boolean || parameter instanceof Character
+                    || parameter instanceof java.time.temporal.Temporal)
+                key.add(parameter instanceof CharSequence ? parameter.toString() : parameter);
+            else
+                return null; // Reader, InputStream etc.
+        }
+        return key;
+    }
+
+    /**
+     * Returns the values of the current row.
+     *
+     * @param resultSet the <b>ResultSet</b>
+     * @return the map of key: column label (case-insensitive) and value: column value
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private Map<String, Object> rowOf(ResultSet resultSet) {
+        try {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            Map<String, Object> row = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int index = 1; index <= metaData.getColumnCount(); ++index) {
+                String columnLabel = metaData.getColumnLabel(index);
+                row.put(columnLabel, connection.getDatabase().getObject(connection.getConnection(), resultSet, columnLabel));
+            }
+            return row;
+        }
+        catch (SQLException e) {throw new RuntimeSQLException(e);}
+    }
+
+    /**
+     * Invalidates the results in the query cache of which SQL refers to the table of this object.
+     * Invalidates them again after the current transaction is completed.
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private void invalidateQueryCache() {
+        Runnable invalidation = queryCacheInvalidations.computeIfAbsent(entityInfo.tableName(),
+            tableName -> () -> QueryCache.instance.invalidate(tableName));
+        invalidation.run();
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.markChanged();
+                connection.addCompletionAction(invalidation);
+            }
+        }
+        catch (SQLException e) {throw new RuntimeSQLException(e);}
+    }
 
     /**
      * Executes the <i>SELECT</i> SQL.
@@ -3699,29 +5612,51 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         if (connection == null)
             throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
 
-        int sqlNo = Sql.sqlNo++;
+        // Calls the statement listeners @since 4.1.0
+        StatementListener[] listeners = statementListeners();
+        StatementContext context = beforePrepare(listeners, sql, parameters);
+        if (context != null)
+            sql = context.sql();
+
+        Object flightRecorderEvent = FlightRecorderEvents.begin(FlightRecorderEvents.STATEMENT_EXECUTE); // @since 4.1.0
+        int sqlNo = Sql.sqlNo.getAndIncrement();
         if (logger.isInfoEnabled())
             logger.info('#' + Integer.toUnsignedString(sqlNo) + ' '
                 + connection.toString() + ' ' + sql);
 
+        consumerNanos = 0L; // @since 4.1.0
+        fetchedBytes = 0L; // @since 4.1.0
+
         // Prepares SQL
         try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
             //  Sets the parameter values
+            long bindTimeBefore = System.nanoTime(); // @since 4.1.0
             for (int index = 0; index < parameters.size(); ++index) {
                 Object parameter = parameters.get(index);
                 if  (logger.isDebugEnabled())
                     logger.debug("  parameters[" + index + "]: " + Utils.toLogString(parameter));
 
-                if (parameter instanceof Reader)
-                    statement.setCharacterStream(index + 1, (Reader)parameter);
-                else
-                    statement.setObject(index + 1, parameter);
+                setParameter(connection, statement, index + 1, parameter);
             }
 
+            long bindTimeAfter = System.nanoTime(); // @since 4.1.0
+            if (context != null) {
+                context.setBindNanos(bindTimeAfter - bindTimeBefore);
+                notifyListeners(listeners, listener -> listener.afterBind(context));
+            }
+
+            // Sets the fetch size @since 4.1.0
+            if (fetchSize > 0)
+                statement.setFetchSize(fetchSize);
+
             // Executes SQL
             long execTimeBefore = System.nanoTime(); // Time of before execution
             ResultSet resultSet = statement.executeQuery();
             long execTimeAfter = System.nanoTime(); // Time of after execution
+            if (context != null) {
+                context.setExecuteNanos(execTimeAfter - execTimeBefore);
+                notifyListeners(listeners, listener -> listener.afterExecute(context));
+            }
 
             int resultSetType = resultSet.getType();
 
@@ -3747,14 +5682,35 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
             // Loop for row
             long getTimeBefore = System.nanoTime(); // Time of before get rows
             int rowCount = 0;
+            long rowNanos = 0L; // The time in the row consumer @since 4.1.0
+            int rowBatchSize = fetchSize > 0 ? fetchSize : DEFAULT_ROW_BATCH_SIZE; // for the statement listeners @since 4.1.0
             while (rowCount < rowLimit) {
+                if (stopCondition != null && stopCondition.getAsBoolean())
+                    break;
                 if (!resultSet.next())
                     break;
                 ++rowCount;
 
-                consumer.accept(resultSet);
+                if (executionStatsEnabled) {
+                    long rowTimeBefore = System.nanoTime();
+                    consumer.accept(resultSet);
+                    rowNanos += System.nanoTime() - rowTimeBefore;
+                } else
+                    consumer.accept(resultSet);
+
+                if (context != null && rowCount % rowBatchSize == 0) {
+                    context.setRowCount(rowCount);
+                    notifyListeners(listeners, listener -> listener.onRows(context, rowBatchSize));
+                }
             }
             long getTimeAfter = System.nanoTime(); // Time of after get rows
+            if (context != null && rowCount % rowBatchSize != 0) {
+                int remainingCount = rowCount % rowBatchSize;
+                context.setRowCount(rowCount);
+                notifyListeners(listeners, listener -> listener.onRows(context, remainingCount));
+            }
+            recordExecution(sql, null, parameters, bindTimeAfter - bindTimeBefore,
+                execTimeAfter - execTimeBefore, getTimeAfter - getTimeBefore, rowNanos, rowCount, flightRecorderEvent); // @since 4.1.0
 
             // Logging for the results
             if (logger.isInfoEnabled()) {
@@ -3764,21 +5720,30 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                 switch (rowCount) {
                 case 0:
                     logger.info(sqlNoStr + MessageFormat.format(messageSelected0Rows,
-                        timeFormat.format(execTime) + timeFormat.format(getTime)));
+                        timeFormat.get().format(execTime + getTime)));
                     break;
                 case 1:
                     logger.info(sqlNoStr + MessageFormat.format(messageSelectedRow,
-                        timeFormat.format(execTime), timeFormat.format(getTime)));
+                        timeFormat.get().format(execTime), timeFormat.get().format(getTime)));
                     break;
                 default:
                     logger.info(sqlNoStr + MessageFormat.format(messageSelectedRows, rowCount,
-                        timeFormat.format(execTime), timeFormat.format(getTime),
-                        timeFormat.format(getTime / rowCount)));
+                        timeFormat.get().format(execTime), timeFormat.get().format(getTime),
+                        timeFormat.get().format(getTime / rowCount)));
                     break;
                 }
             }
         }
-        catch (SQLException e) {throw new RuntimeSQLException(e);}
+        catch (SQLException e) {
+            recordError(sql, null, flightRecorderEvent); // @since 4.1.0
+            if (context != null)
+                notifyListeners(listeners, listener -> listener.onError(context, e));
+            throw new RuntimeSQLException(e);
+        }
+        finally {
+            if (context != null)
+                notifyListeners(listeners, listener -> listener.onClose(context));
+        }
     }
 
     /**
@@ -3809,7 +5774,14 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         if (connection == null)
             throw new IllegalStateException(MessageFormat.format(messageNoConnection, entityInfo.entityClass().getName()));
 
-        int sqlNo = Sql.sqlNo++;
+        // Calls the statement listeners @since 4.1.0
+        StatementListener[] listeners = statementListeners();
+        StatementContext context = beforePrepare(listeners, sql, parameters);
+        if (context != null)
+            sql = context.sql();
+
+        Object flightRecorderEvent = FlightRecorderEvents.begin(FlightRecorderEvents.STATEMENT_EXECUTE); // @since 4.1.0
+        int sqlNo = Sql.sqlNo.getAndIncrement();
         if (logger.isInfoEnabled())
             logger.info('#' + Integer.toUnsignedString(sqlNo) + ' '
             //    + connection.getDatabase().getClass().getSimpleName() + ": " + sql);
@@ -3819,21 +5791,33 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         // Prepares SQL
         try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
             //  Sets the parameter values
+            long bindTimeBefore = System.nanoTime(); // @since 4.1.0
             for (int index = 0; index < parameters.size(); ++index) {
                 Object parameter = parameters.get(index);
                 if  (logger.isDebugEnabled())
                     logger.debug("  parameters[" + index + "]: " + Utils.toLogString(parameter));
 
-                if (parameter instanceof Reader)
-                    statement.setCharacterStream(index + 1, (Reader)parameter);
-                else
-                    statement.setObject(index + 1, parameter);
+                setParameter(connection, statement, index + 1, parameter);
+            }
+
+            long bindTimeAfter = System.nanoTime(); // @since 4.1.0
+            if (context != null) {
+                context.setBindNanos(bindTimeAfter - bindTimeBefore);
+                notifyListeners(listeners, listener -> listener.afterBind(context));
             }
 
             // Executes SQL
             long execTimeBefore = System.nanoTime(); // Time of before execution
             int rowCount = statement.executeUpdate();
             long execTimeAfter = System.nanoTime(); // Time of after execution
+            if (context != null) {
+                context.setExecuteNanos(execTimeAfter - execTimeBefore);
+                context.setRowCount(rowCount);
+                notifyListeners(listeners, listener -> listener.afterExecute(context));
+            }
+            invalidateQueryCache(); // @since 4.1.0
+            recordExecution(sql, null, parameters, bindTimeAfter - bindTimeBefore,
+                execTimeAfter - execTimeBefore, -1L, 0L, rowCount, flightRecorderEvent); // @since 4.1.0
 
             // Logging for the results
             if (logger.isInfoEnabled()) {
@@ -3843,37 +5827,37 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
                 if (sql.toString().startsWith("INSERT ")) {
                     switch (rowCount) {
                     case 0:
-                        logger.info(sqlNoStr + MessageFormat.format(messageInserted0Rows, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageInserted0Rows, timeFormat.get().format(execTime)));
                         break;
                     case 1:
-                        logger.info(sqlNoStr + MessageFormat.format(messageInsertedRow, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageInsertedRow, timeFormat.get().format(execTime)));
                         break;
                     default:
-                        logger.info(sqlNoStr + MessageFormat.format(messageInsertedRows, rowCount, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageInsertedRows, rowCount, timeFormat.get().format(execTime)));
                         break;
                     }
                 } else if (sql.toString().startsWith("DELETE ")) {
                     switch (rowCount) {
                     case 0:
-                        logger.info(sqlNoStr + MessageFormat.format(messageDeleted0Rows, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageDeleted0Rows, timeFormat.get().format(execTime)));
                         break;
                     case 1:
-                        logger.info(sqlNoStr + MessageFormat.format(messageDeletedRow, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageDeletedRow, timeFormat.get().format(execTime)));
                         break;
                     default:
-                        logger.info(sqlNoStr + MessageFormat.format(messageDeletedRows, rowCount, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageDeletedRows, rowCount, timeFormat.get().format(execTime)));
                         break;
                     }
                 } else {
                     switch (rowCount) {
                     case 0:
-                        logger.info(sqlNoStr + MessageFormat.format(messageUpdated0Rows, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageUpdated0Rows, timeFormat.get().format(execTime)));
                         break;
                     case 1:
-                        logger.info(sqlNoStr + MessageFormat.format(messageUpdatedRow, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageUpdatedRow, timeFormat.get().format(execTime)));
                         break;
                     default:
-                        logger.info(sqlNoStr + MessageFormat.format(messageUpdatedRows, rowCount, timeFormat.format(execTime)));
+                        logger.info(sqlNoStr + MessageFormat.format(messageUpdatedRows, rowCount, timeFormat.get().format(execTime)));
                         break;
                     }
                 }
@@ -3881,7 +5865,272 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
 
             return rowCount;
         }
-        catch (SQLException e) {throw new RuntimeSQLException(e);}
+        catch (SQLException e) {
+            recordError(sql, null, flightRecorderEvent); // @since 4.1.0
+            if (context != null)
+                notifyListeners(listeners, listener -> listener.onError(context, e));
+            throw new RuntimeSQLException(e);
+        }
+        finally {
+            if (context != null)
+                notifyListeners(listeners, listener -> listener.onClose(context));
+        }
+    }
+
+    /**
+     * Executes the SQLs without parameters in a batch and clears the list of the SQLs.
+     *
+     * @param sqls the list of the SQLs
+     * @return the number of rows affected
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     */
+    private int executeBatch(List<String> sqls) {
+        if (sqls.isEmpty())
+            return 0;
+
+        // Calls the statement listeners for each SQL @since 4.1.0
+        StatementListener[] listeners = statementListeners();
+        List<StatementContext> contexts = new ArrayList<>(listeners.length == 0 ? 0 : sqls.size());
+        if (listeners.length > 0) {
+            for (int index = 0; index < sqls.size(); ++index) {
+                StatementContext context = beforePrepare(listeners, sqls.get(index), Collections.emptyList());
+                contexts.add(context);
+                sqls.set(index, context.sql());
+            }
+        }
+
+        Object flightRecorderEvent = FlightRecorderEvents.begin(FlightRecorderEvents.BATCH_FLUSH); // @since 4.1.0
+        int sqlNo = Sql.sqlNo.getAndIncrement();
+        String sqlNoStr = "#" + Integer.toUnsignedString(sqlNo) + ' ';
+        if (logger.isInfoEnabled())
+            sqls.forEach(sql -> logger.info(sqlNoStr + connection.toString() + ' ' + sql));
+
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : sqls)
+                statement.addBatch(sql);
+
+            // Executes SQLs
+            long execTimeBefore = System.nanoTime(); // Time of before execution
+            int rowCount = 0;
+            int[] counts = statement.executeBatch();
+            for (int count : counts)
+                rowCount += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            long execTimeAfter = System.nanoTime(); // Time of after execution
+            for (int index = 0; index < contexts.size(); ++index) {
+                StatementContext context = contexts.get(index);
+                context.setExecuteNanos(execTimeAfter - execTimeBefore);
+                context.setRowCount(index < counts.length && counts[index] != Statement.SUCCESS_NO_INFO ? counts[index] : 1);
+                notifyListeners(listeners, listener -> listener.afterExecute(context));
+            }
+            invalidateQueryCache(); // @since 4.1.0
+            String fingerprint = flightRecorderEvent == null ? null : SqlMetrics.fingerprint(sqls.get(0)); // @since 4.1.0
+            recordExecution(sqls.get(0), fingerprint, Collections.emptyList(), 0L, execTimeAfter - execTimeBefore, -1L, 0L, rowCount, null); // @since 4.1.0
+            if (flightRecorderEvent != null)
+                FlightRecorderEvents.commit(flightRecorderEvent, connection.toString(),
+                    fingerprint, sqls.size(), rowCount, true);
+
+            // Logging for the results
+            if (logger.isInfoEnabled()) {
+                double execTime = (execTimeAfter - execTimeBefore) / 1_000_000.0;
+                switch (rowCount) {
+                case 0:
+                    logger.info(sqlNoStr + MessageFormat.format(messageUpdated0Rows, timeFormat.get().format(execTime)));
+                    break;
+                case 1:
+                    logger.info(sqlNoStr + MessageFormat.format(messageUpdatedRow, timeFormat.get().format(execTime)));
+                    break;
+                default:
+                    logger.info(sqlNoStr + MessageFormat.format(messageUpdatedRows, rowCount, timeFormat.get().format(execTime)));
+                    break;
+                }
+            }
+
+            sqls.clear();
+            return rowCount;
+        }
+        catch (SQLException e) {
+            String fingerprint = flightRecorderEvent == null ? null : SqlMetrics.fingerprint(sqls.get(0)); // @since 4.1.0
+            recordError(sqls.get(0), fingerprint, null); // @since 4.1.0
+            if (flightRecorderEvent != null)
+                FlightRecorderEvents.commit(flightRecorderEvent, connection.toString(),
+                    fingerprint, sqls.size(), 0, false);
+            contexts.forEach(context -> notifyListeners(listeners, listener -> listener.onError(context, e)));
+            throw new RuntimeSQLException(e);
+        }
+        finally {
+            contexts.forEach(context -> notifyListeners(listeners, listener -> listener.onClose(context)));
+        }
+    }
+
+    /**
+     * Returns the statement listeners for the connection.
+     *
+     * @return the array of the statement listeners, empty if none
+     *
+     * @since 4.1.0
+     */
+    private StatementListener[] statementListeners() {
+        StatementListener[] listeners = statementListeners;
+        if (supplierStatementListeners.isEmpty())
+            return listeners;
+
+        StatementListener[] supplierListeners = supplierStatementListeners.get(String.valueOf(connection.getSupplier().getUrl()));
+        if (supplierListeners == null)
+            return listeners;
+        if (listeners.length == 0)
+            return supplierListeners;
+
+        StatementListener[] allListeners = Arrays.copyOf(listeners, listeners.length + supplierListeners.length);
+        System.arraycopy(supplierListeners, 0, allListeners, listeners.length, supplierListeners.length);
+        return allListeners;
+    }
+
+    /**
+     * Creates a statement context and calls <b>beforePrepare</b> of the statement listeners.
+     *
+     * @param listeners the statement listeners
+     * @param sql the SQL
+     * @param parameters the parameters of SQL
+     * @return the statement context, <b>null</b> if <b>listeners</b> is empty
+     *
+     * @since 4.1.0
+     */
+    private StatementContext beforePrepare(StatementListener[] listeners, CharSequence sql, List<Object> parameters) {
+        if (listeners.length == 0)
+            return null;
+
+        StatementContext context = new StatementContext(connection, entityInfo.entityClass(), sql.toString(), parameters);
+        for (StatementListener listener : listeners)
+            context.setSql(Objects.requireNonNull(listener.beforePrepare(context, context.sql()),
+                "StatementListener.beforePrepare returned null"));
+        return context;
+    }
+
+    /**
+     * Calls the action for each statement listener.
+     *
+     * @param listeners the statement listeners
+     * @param action the action
+     *
+     * @since 4.1.0
+     */
+    private static void notifyListeners(StatementListener[] listeners, Consumer<StatementListener> action) {
+        for (StatementListener listener : listeners)
+            action.accept(listener);
+    }
+
+    /**
+     * Records an execution of the SQL to {@link SqlMetrics#instance} if the metrics are enabled,
+     * to {@link SlowQueryLog#instance}, to {@link NPlusOneDetector#instance} and to the execution statistics.<br>
+     * The fingerprint of the SQL is computed at most once for each execution and only if used.
+     *
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL, <b>null</b> if not computed yet
+     * @param parameters the parameters of SQL
+     * @param bindNanos the time to set the parameters (nanoseconds)
+     * @param executeNanos the execution time (nanoseconds)
+     * @param fetchNanos the time to fetch the rows including <b>rowNanos</b> (nanoseconds), negative if the SQL returns no rows
+     * @param rowNanos the time in the row consumer (nanoseconds)
+     * @param rowCount the number of the fetched or affected rows
+     * @param flightRecorderEvent the flight recorder event to commit, <b>null</b> if none
+     *
+     * @throws NPlusOneException if the N+1 query detector throws the exception
+     *
+     * @since 4.1.0
+     */
+    private void recordExecution(CharSequence sql, String fingerprint, List<Object> parameters,
+        long bindNanos, long executeNanos, long fetchNanos, long rowNanos, int rowCount, Object flightRecorderEvent) {
+        boolean metricsEnabled = SqlMetrics.isEnabled();
+        if (fingerprint == null && (flightRecorderEvent != null || metricsEnabled || NPlusOneDetector.instance.isCounting(connection)))
+            fingerprint = SqlMetrics.fingerprint(sql);
+
+        if (flightRecorderEvent != null)
+            FlightRecorderEvents.commit(flightRecorderEvent, connection.toString(), fingerprint,
+                rowCount, executeNanos, Math.max(fetchNanos, 0L), true);
+        if (metricsEnabled)
+            SqlMetrics.instance.recordExecution(connection.getSupplier(), sql, fingerprint, executeNanos, fetchNanos, rowCount);
+        SlowQueryLog.instance.log(connection, entityInfo.entityClass(), sql, fingerprint, parameters, executeNanos, fetchNanos, rowCount);
+        NPlusOneDetector.instance.record(connection, entityInfo.entityClass(), sql, fingerprint);
+
+        if (executionStatsEnabled) {
+            ExecutionStats stats = new ExecutionStats(sql.toString(), rowCount, fetchedBytes,
+                connection.getAcquireNanos(), generateNanos, bindNanos, executeNanos,
+                Math.max(fetchNanos, 0L) - rowNanos, rowNanos - consumerNanos, consumerNanos);
+            lastExecutionStats.set(stats);
+            executionStatsListeners.forEach(listener -> listener.accept(stats));
+        }
+        generateNanos = 0L;
+        consumerNanos = 0L;
+        fetchedBytes = 0L;
+    }
+
+    /**
+     * Passes the entity to the consumer measuring the time spent in the consumer.
+     *
+     * @param <T> the type of the entity
+     * @param consumer the consumer
+     * @param entity the entity
+     *
+     * @since 4.1.0
+     */
+    private <T> void consume(Consumer<? super T> consumer, T entity) {
+        if (!executionStatsEnabled) {
+            consumer.accept(entity);
+            return;
+        }
+        long consumerTimeBefore = System.nanoTime();
+        try {
+            consumer.accept(entity);
+        }
+        finally {
+            consumerNanos += System.nanoTime() - consumerTimeBefore;
+        }
+    }
+
+    /**
+     * Records a failed execution of the SQL to {@link SqlMetrics#instance} if the metrics are enabled.
+     *
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL, <b>null</b> if not computed yet
+     * @param flightRecorderEvent the flight recorder event to commit, <b>null</b> if none
+     *
+     * @since 4.1.0
+     */
+    private void recordError(CharSequence sql, String fingerprint, Object flightRecorderEvent) {
+        boolean metricsEnabled = SqlMetrics.isEnabled();
+        if (fingerprint == null && (flightRecorderEvent != null || metricsEnabled))
+            fingerprint = SqlMetrics.fingerprint(sql);
+
+        if (flightRecorderEvent != null)
+            FlightRecorderEvents.commit(flightRecorderEvent, connection.toString(), fingerprint,
+                0, 0L, 0L, false);
+        if (metricsEnabled)
+            SqlMetrics.instance.recordError(connection.getSupplier(), sql, fingerprint);
+    }
+
+    /**
+     * Sets the parameter value to the prepared statement.
+     *
+     * @param connection the connection wrapper
+     * @param statement the prepared statement
+     * @param index the parameter index (1, 2, ...)
+     * @param parameter the parameter value
+     *
+     * @throws SQLException if a database access error occurs
+     *
+     * @since 4.1.0
+     */
+    private static void setParameter(ConnectionWrapper connection, PreparedStatement statement, int index, Object parameter) throws SQLException {
+        if (parameter instanceof Reader)
+            statement.setCharacterStream(index, (Reader)parameter);
+        else if (parameter instanceof SqlArray) {
+            SqlArray array = (SqlArray)parameter;
+            statement.setArray(index, connection.createArrayOf(array.typeName(), array.elements()));
+        } else
+            statement.setObject(index, parameter);
     }
 
     /**
@@ -0,0 +1,498 @@
+// SqlMetrics.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.lightsleep.connection.ConnectionSupplier;
+import org.lightsleep.helper.Resource;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * A registry of the metrics of the executed SQLs.
+ *
+ * <p>
+ * The SQLs are normalized into fingerprints in which the literals are replaced with <b>?</b>,
+ * and the counts, the error counts, the row counts and the latencies of execution and fetch
+ * are aggregated for each connection supplier and fingerprint.
+ * The latencies of acquiring connections are aggregated for each connection supplier.
+ * </p>
+ *
+ * <p>
+ * The metrics are collected if <b>sqlMetrics</b> of lightsleep.properties is <b>true</b> (default: <b>true</b>),
+ * and published as an MXBean named <b>org.lightsleep:type=SqlMetrics</b>
+ * if <b>sqlMetricsJmx</b> of lightsleep.properties is <b>true</b> (default: <b>true</b>).
+ * The number of the fingerprints of each connection supplier is limited by
+ * <b>sqlMetricsMaxStatements</b> of lightsleep.properties (default: 1000),
+ * and the SQLs exceeding the limit are aggregated into the fingerprint <b>(others)</b>.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class SqlMetrics implements SqlMetricsMXBean {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(SqlMetrics.class);
+
+    /** The object name of the MXBean */
+    public static final String OBJECT_NAME = "org.lightsleep:type=SqlMetrics";
+
+    /** The fingerprint of the SQLs exceeding the limit */
+    public static final String OTHERS = "(others)";
+
+    // Whether the metrics are collected
+    private static final boolean enabled = Resource.getGlobal().getValue("sqlMetrics", Boolean::valueOf, true);
+
+    /** The metrics registry used by <b>Sql</b> and the connection suppliers */
+    public static final SqlMetrics instance = new SqlMetrics(
+        Math.max(Resource.getGlobal().getInt("sqlMetricsMaxStatements", 1000), 1));
+    static {
+        if (enabled && Resource.getGlobal().getValue("sqlMetricsJmx", Boolean::valueOf, true))
+            instance.registerMBean();
+    }
+
+    // The patterns to normalize SQLs
+    private static final Pattern stringLiteralPattern = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern numberLiteralPattern = Pattern.compile("(?<![\\p{L}\\p{N}_$#@.])\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?");
+    private static final Pattern parameterListPattern = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern rowListPattern = Pattern.compile("(\\((?:\\?|\\?, \\.\\.\\.)\\))(?:\\s*,\\s*\\((?:\\?|\\?, \\.\\.\\.)\\))+");
+    private static final Pattern whitespacePattern = Pattern.compile("\\s+");
+
+    // The maximum number of the fingerprints of each connection supplier
+    private final int maxStatements;
+
+    // The map of key: the connection supplier and value: the metrics of the connection supplier
+    private final Map<String, SupplierMetrics> supplierMap = new ConcurrentHashMap<>();
+
+    // The metrics of a connection supplier
+    private static class SupplierMetrics {
+        final LatencyHistogram acquireTime = new LatencyHistogram();
+        final LongAdder retryCount = new LongAdder();
+        final LongAdder retryExhaustedCount = new LongAdder();
+        final Map<String, StatementMetrics> statementMap = new ConcurrentHashMap<>();
+    }
+
+    // The metrics of a statement
+    private static class StatementMetrics {
+        final LongAdder count = new LongAdder();
+        final LongAdder errorCount = new LongAdder();
+        final LongAdder rowCount = new LongAdder();
+        final LatencyHistogram executeTime = new LatencyHistogram();
+        final LatencyHistogram fetchTime = new LatencyHistogram();
+    }
+
+    /**
+     * Constructs a new <b>SqlMetrics</b>.
+     *
+     * @param maxStatements the maximum number of the fingerprints of each connection supplier
+     *
+     * @throws IllegalArgumentException if <b>maxStatements</b> &lt;= 0
+     */
+    public SqlMetrics(int maxStatements) {
+        if (maxStatements <= 0)
+            throw new IllegalArgumentException("maxStatements: " + maxStatements);
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * Returns whether the metrics are collected by <b>Sql</b> and the connection suppliers.
+     *
+     * @return <b>true</b> if collected, <b>false</b> otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the fingerprint of the SQL,
+     * in which the literals are replaced with <b>?</b>, the lists of <b>?</b> are shortened
+     * and the whitespaces are collapsed.
+     *
+     * @param sql the SQL
+     * @return the fingerprint
+     *
+     * @throws NullPointerException if <b>sql</b> is <b>null</b>
+     */
+    public static String fingerprint(CharSequence sql) {
+        Objects.requireNonNull(sql, "sql is null");
+        String fingerprint = stringLiteralPattern.matcher(sql).replaceAll("?");
+        fingerprint = numberLiteralPattern.matcher(fingerprint).replaceAll("?");
+        fingerprint = parameterListPattern.matcher(fingerprint).replaceAll("?, ...");
+        fingerprint = rowListPattern.matcher(fingerprint).replaceAll("$1, ...");
+        return whitespacePattern.matcher(fingerprint).replaceAll(" ").trim();
+    }
+
+    /**
+     * Records an execution of the SQL.
+     *
+     * @param supplier the connection supplier
+     * @param sql the SQL
+     * @param executeNanos the execution time (nanoseconds)
+     * @param fetchNanos the time to fetch the rows (nanoseconds), negative if the SQL returns no rows
+     * @param rowCount the number of the fetched or affected rows
+     *
+     * @throws NullPointerException if <b>supplier</b> or <b>sql</b> is <b>null</b>
+     */
+    public void recordExecution(ConnectionSupplier supplier, CharSequence sql, long executeNanos, long fetchNanos, int rowCount) {
+        recordExecution(supplier, sql, null, executeNanos, fetchNanos, rowCount);
+    }
+
+    /**
+     * Records an execution of the SQL of which fingerprint is already computed.
+     *
+     * @param supplier the connection supplier
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL, <b>null</b> if not computed yet
+     * @param executeNanos the execution time (nanoseconds)
+     * @param fetchNanos the time to fetch the rows (nanoseconds), negative if the SQL returns no rows
+     * @param rowCount the number of the fetched or affected rows
+     */
+    void recordExecution(ConnectionSupplier supplier, CharSequence sql, String fingerprint,
+        long executeNanos, long fetchNanos, int rowCount) {
+        StatementMetrics metrics = statementMetrics(supplier, sql, fingerprint);
+        metrics.count.increment();
+        metrics.rowCount.add(rowCount);
+        metrics.executeTime.record(executeNanos);
+        if (fetchNanos >= 0L)
+            metrics.fetchTime.record(fetchNanos);
+    }
+
+    /**
+     * Records a failed execution of the SQL.
+     *
+     * @param supplier the connection supplier
+     * @param sql the SQL
+     *
+     * @throws NullPointerException if <b>supplier</b> or <b>sql</b> is <b>null</b>
+     */
+    public void recordError(ConnectionSupplier supplier, CharSequence sql) {
+        recordError(supplier, sql, null);
+    }
+
+    /**
+     * Records a failed execution of the SQL of which fingerprint is already computed.
+     *
+     * @param supplier the connection supplier
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL, <b>null</b> if not computed yet
+     */
+    void recordError(ConnectionSupplier supplier, CharSequence sql, String fingerprint) {
+        StatementMetrics metrics = statementMetrics(supplier, sql, fingerprint);
+        metrics.count.increment();
+        metrics.errorCount.increment();
+    }
+
+    /**
+     * Records an acquisition of a connection.
+     *
+     * @param supplier the connection supplier
+     * @param acquireNanos the time to acquire the connection (nanoseconds)
+     *
+     * @throws NullPointerException if <b>supplier</b> is <b>null</b>
+     */
+    public void recordAcquire(ConnectionSupplier supplier, long acquireNanos) {
+        supplierMetrics(supplier).acquireTime.record(acquireNanos);
+    }
+
+    /**
+     * Records a retry of a transaction.
+     *
+     * @param supplier the connection supplier
+     *
+     * @throws NullPointerException if <b>supplier</b> is <b>null</b>
+     *
+     * @see RetryPolicy
+     */
+    public void recordRetry(ConnectionSupplier supplier) {
+        supplierMetrics(supplier).retryCount.increment();
+    }
+
+    /**
+     * Records a transaction which failed with a retryable exception
+     * but was not retried because the attempts or the budget was exhausted.
+     *
+     * @param supplier the connection supplier
+     *
+     * @throws NullPointerException if <b>supplier</b> is <b>null</b>
+     *
+     * @see RetryPolicy
+     */
+    public void recordRetryExhausted(ConnectionSupplier supplier) {
+        supplierMetrics(supplier).retryExhaustedCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StatementStatistics> getStatements() {
+        List<StatementStatistics> statements = new ArrayList<>();
+        supplierMap.forEach((supplier, supplierMetrics) ->
+            supplierMetrics.statementMap.forEach((fingerprint, metrics) ->
+                statements.add(new StatementStatistics(supplier, fingerprint,
+                    metrics.count.sum(), metrics.errorCount.sum(), metrics.rowCount.sum(),
+                    metrics.executeTime.statistics(), metrics.fetchTime.statistics()))
+            )
+        );
+        return statements;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SupplierStatistics> getConnectionSuppliers() {
+        List<SupplierStatistics> suppliers = new ArrayList<>();
+        supplierMap.forEach((supplier, supplierMetrics) ->
+            suppliers.add(new SupplierStatistics(supplier, supplierMetrics.acquireTime.statistics(),
+                supplierMetrics.retryCount.sum(), supplierMetrics.retryExhaustedCount.sum())));
+        return suppliers;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        supplierMap.clear();
+    }
+
+    /**
+     * Registers this object to the platform MBean server as {@value #OBJECT_NAME}.<br>
+     * If the registration fails, logs a warning.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(this, name);
+        }
+        catch (JMException | RuntimeException e) {
+            logger.warn("SqlMetrics.registerMBean: " + e);
+        }
+    }
+
+    /**
+     * Returns the metrics of the connection supplier.
+     *
+     * @param supplier the connection supplier
+     * @return the metrics of the connection supplier
+     */
+    private SupplierMetrics supplierMetrics(ConnectionSupplier supplier) {
+        Objects.requireNonNull(supplier, "supplier is null");
+        return supplierMap.computeIfAbsent(supplier.toString(), key -> new SupplierMetrics());
+    }
+
+    /**
+     * Returns the metrics of the SQL.
+     *
+     * @param supplier the connection supplier
+     * @param sql the SQL
+     * @param fingerprint the fingerprint of the SQL, <b>null</b> if not computed yet
+     * @return the metrics of the SQL
+     */
+    private StatementMetrics statementMetrics(ConnectionSupplier supplier, CharSequence sql, String fingerprint) {
+        Map<String, StatementMetrics> statementMap = supplierMetrics(supplier).statementMap;
+        if (fingerprint == null)
+            fingerprint = fingerprint(sql);
+        StatementMetrics metrics = statementMap.get(fingerprint);
+        if (metrics == null) {
+            if (statementMap.size() >= maxStatements)
+                fingerprint = OTHERS;
+            metrics = statementMap.computeIfAbsent(fingerprint, key -> new StatementMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * The statistics of a statement.
+     *
+     * @since 4.1.0
+     */
+    public static class StatementStatistics {
+        private final String connectionSupplier;
+        private final String fingerprint;
+        private final long count;
+        private final long errorCount;
+        private final long rowCount;
+        private final LatencyHistogram.Statistics executeTime;
+        private final LatencyHistogram.Statistics fetchTime;
+
+        /**
+         * Constructs a new <b>StatementStatistics</b>.
+         *
+         * @param connectionSupplier the string representation of the connection supplier
+         * @param fingerprint the fingerprint of the SQL
+         * @param count the number of the executions
+         * @param errorCount the number of the failed executions
+         * @param rowCount the number of the fetched or affected rows
+         * @param executeTime the statistics of the execution time
+         * @param fetchTime the statistics of the time to fetch the rows
+         */
+        public StatementStatistics(String connectionSupplier, String fingerprint,
+            long count, long errorCount, long rowCount,
+            LatencyHistogram.Statistics executeTime, LatencyHistogram.Statistics fetchTime) {
+            this.connectionSupplier = connectionSupplier;
+            this.fingerprint = fingerprint;
+            this.count = count;
+            this.errorCount = errorCount;
+            this.rowCount = rowCount;
+            this.executeTime = executeTime;
+            this.fetchTime = fetchTime;
+        }
+
+        /**
+         * Returns the string representation of the connection supplier.
+         *
+         * @return the string representation of the connection supplier
+         */
+        public String getConnectionSupplier() {
+            return connectionSupplier;
+        }
+
+        /**
+         * Returns the fingerprint of the SQL.
+         *
+         * @return the fingerprint of the SQL
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * Returns the number of the executions.
+         *
+         * @return the number of the executions
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the number of the failed executions.
+         *
+         * @return the number of the failed executions
+         */
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * Returns the number of the fetched or affected rows.
+         *
+         * @return the number of the rows
+         */
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Returns the statistics of the execution time.
+         *
+         * @return the statistics of the execution time
+         */
+        public LatencyHistogram.Statistics getExecuteTime() {
+            return executeTime;
+        }
+
+        /**
+         * Returns the statistics of the time to fetch the rows.
+         *
+         * @return the statistics of the time to fetch the rows
+         */
+        public LatencyHistogram.Statistics getFetchTime() {
+            return fetchTime;
+        }
+
+        @Override
+        public String toString() {
+            return connectionSupplier + ": " + fingerprint + ": count: " + count + ", errorCount: " + errorCount
+                + ", rowCount: " + rowCount + ", executeTime: {" + executeTime + "}, fetchTime: {" + fetchTime + '}';
+        }
+    }
+
+    /**
+     * The statistics of a connection supplier.
+     *
+     * @since 4.1.0
+     */
+    public static class SupplierStatistics {
+        private final String connectionSupplier;
+        private final LatencyHistogram.Statistics acquireTime;
+        private final long retryCount;
+        private final long retryExhaustedCount;
+
+        /**
+         * Constructs a new <b>SupplierStatistics</b>.
+         *
+         * @param connectionSupplier the string representation of the connection supplier
+         * @param acquireTime the statistics of the time to acquire connections
+         * @param retryCount the number of the retries of the transactions
+         * @param retryExhaustedCount the number of the transactions not retried because the attempts or the budget was exhausted
+         */
+        public SupplierStatistics(String connectionSupplier, LatencyHistogram.Statistics acquireTime,
+            long retryCount, long retryExhaustedCount) {
+            this.connectionSupplier = connectionSupplier;
+            this.acquireTime = acquireTime;
+            this.retryCount = retryCount;
+            this.retryExhaustedCount = retryExhaustedCount;
+        }
+
+        /**
+         * Returns the string representation of the connection supplier.
+         *
+         * @return the string representation of the connection supplier
+         */
+        public String getConnectionSupplier() {
+            return connectionSupplier;
+        }
+
+        /**
+         * Returns the statistics of the time to acquire connections.
+         *
+         * @return the statistics of the time to acquire connections
+         */
+        public LatencyHistogram.Statistics getAcquireTime() {
+            return acquireTime;
+        }
+
+        /**
+         * Returns the number of the retries of the transactions.
+         *
+         * @return the number of the retries
+         */
+        public long getRetryCount() {
+            return retryCount;
+        }
+
+        /**
+         * Returns the number of the transactions which failed with retryable exceptions
+         * but were not retried because the attempts or the budget was exhausted.
+         *
+         * @return the number of the transactions
+         */
+        public long getRetryExhaustedCount() {
+            return retryExhaustedCount;
+        }
+
+        @Override
+        public String toString() {
+            return connectionSupplier + ": acquireTime: {" + acquireTime + '}'
+                + ", retryCount: " + retryCount + ", retryExhaustedCount: " + retryExhaustedCount;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+// SqlMetricsMXBean.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.List;
+
+/**
+ * The management interface of {@link SqlMetrics}.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public interface SqlMetricsMXBean {
+    /**
+     * Returns the statistics of the statements.
+     *
+     * @return the list of the statistics of the statements
+     */
+    List<SqlMetrics.StatementStatistics> getStatements();
+
+    /**
+     * Returns the statistics of the connection suppliers.
+     *
+     * @return the list of the statistics of the connection suppliers
+     */
+    List<SqlMetrics.SupplierStatistics> getConnectionSuppliers();
+
+    /**
+     * Clears all metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,148 @@
+// StatementContext.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lightsleep.connection.ConnectionWrapper;
+
+/**
+ * The context of an execution of a SQL passed to the {@link StatementListener}s.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class StatementContext {
+    // The connection wrapper
+    private final ConnectionWrapper connection;
+
+    // The entity class of the Sql
+    private final Class<?> entityClass;
+
+    // The parameters of the SQL
+    private final List<Object> parameters;
+
+    // The SQL
+    private String sql;
+
+    // The time to set the parameters (nanoseconds)
+    private long bindNanos;
+
+    // The time to execute the statement (nanoseconds)
+    private long executeNanos;
+
+    // The number of the fetched or affected rows
+    private int rowCount;
+
+    // The attributes of the listeners
+    private Map<String, Object> attributes;
+
+    /**
+     * Constructs a new <b>StatementContext</b>.
+     *
+     * @param connection the connection wrapper
+     * @param entityClass the entity class of the <b>Sql</b>
+     * @param sql the SQL
+     * @param parameters the parameters of the SQL
+     */
+    public StatementContext(ConnectionWrapper connection, Class<?> entityClass, String sql, List<Object> parameters) {
+        this.connection = connection;
+        this.entityClass = entityClass;
+        this.sql = sql;
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Returns the connection wrapper.
+     *
+     * @return the connection wrapper
+     */
+    public ConnectionWrapper connection() {
+        return connection;
+    }
+
+    /**
+     * Returns the entity class of the <b>Sql</b>.
+     *
+     * @return the entity class
+     */
+    public Class<?> entityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Returns the SQL, which is the rewritten SQL after <b>beforePrepare</b> is called.
+     *
+     * @return the SQL
+     */
+    public String sql() {
+        return sql;
+    }
+
+    /**
+     * Returns the parameters of the SQL.
+     *
+     * @return the unmodifiable list of the parameters
+     */
+    public List<Object> parameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the time to set the parameters.
+     *
+     * @return the time (nanoseconds), 0 before <b>afterBind</b> is called
+     */
+    public long bindNanos() {
+        return bindNanos;
+    }
+
+    /**
+     * Returns the time to execute the statement.
+     *
+     * @return the time (nanoseconds), 0 before <b>afterExecute</b> is called
+     */
+    public long executeNanos() {
+        return executeNanos;
+    }
+
+    /**
+     * Returns the number of the rows fetched so far or the number of the affected rows.
+     *
+     * @return the number of the rows
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the attributes to pass values between the methods of the listeners, such as the tracing spans.
+     *
+     * @return the map of the attributes
+     */
+    public Map<String, Object> attributes() {
+        if (attributes == null)
+            attributes = new HashMap<>();
+        return attributes;
+    }
+
+    void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    void setBindNanos(long bindNanos) {
+        this.bindNanos = bindNanos;
+    }
+
+    void setExecuteNanos(long executeNanos) {
+        this.executeNanos = executeNanos;
+    }
+
+    void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+}
@@ -0,0 +1,84 @@
+// StatementListener.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.sql.SQLException;
+
+/**
+ * A listener called around each execution of a SQL by <b>Sql</b>.
+ *
+ * <p>
+ * The listeners are registered globally by {@link Sql#addStatementListener(StatementListener)}
+ * or for a connection supplier by {@link Sql#addStatementListener(org.lightsleep.connection.ConnectionSupplier, StatementListener)},
+ * and called in the order of registration, the global listeners first.
+ * The methods are called in the thread that executes the SQL.
+ * An exception thrown by a listener is propagated to the caller of <b>Sql</b>,
+ * so <b>beforePrepare</b> can reject the execution (e.g. circuit breaking).
+ * </p>
+ *
+ * <p>
+ * Each SQL executed in a batch has its own context, and <b>afterBind</b> is not called for it.
+ * The native bulk loaders used by {@link Sql#bulkInsert(Iterable)} are not intercepted.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see StatementContext
+ */
+public interface StatementListener {
+    /**
+     * Called before the statement is prepared.<br>
+     * Returns the SQL to be executed, which can be rewritten (e.g. adding optimizer hints).
+     *
+     * @param context the context of the execution
+     * @param sql the SQL
+     * @return the SQL to be executed
+     */
+    default String beforePrepare(StatementContext context, String sql) {
+        return sql;
+    }
+
+    /**
+     * Called after the parameters are set to the statement.
+     *
+     * @param context the context of the execution
+     */
+    default void afterBind(StatementContext context) {
+    }
+
+    /**
+     * Called after the statement is executed.
+     *
+     * @param context the context of the execution
+     */
+    default void afterExecute(StatementContext context) {
+    }
+
+    /**
+     * Called each time the rows of the fetch size (100 if not specified) are read,
+     * and after the last row if any rows remain unreported.
+     *
+     * @param context the context of the execution
+     * @param rowCount the number of the rows read in this batch
+     */
+    default void onRows(StatementContext context, int rowCount) {
+    }
+
+    /**
+     * Called if a <b>SQLException</b> is thrown while executing the statement.
+     *
+     * @param context the context of the execution
+     * @param exception the exception
+     */
+    default void onError(StatementContext context, SQLException exception) {
+    }
+
+    /**
+     * Called after the statement is closed, whether succeeded or not.
+     *
+     * @param context the context of the execution
+     */
+    default void onClose(StatementContext context) {
+    }
+}
@@ -7,9 +7,13 @@ import java.sql.SQLException;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.lightsleep.connection.ConnectionSupplier;
 import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.DefaultExecutor;
 
 /**
  * A functional interface to execute transactions.
@@ -75,6 +79,11 @@ public interface Transaction {
      * </p>
      *
      * <p>
+     * If the transaction failed with a retryable exception such as a deadlock,
+     * it is executed again according to {@link RetryPolicy#getDefault()} (not retried by default).
+     * </p>
+     *
+     * <p>
      * Describe the transaction body in <b>transaction</b> using a lumbda expression.
      * </p>
      *
@@ -102,6 +111,11 @@ public interface Transaction {
      * </p>
      *
      * <p>
+     * If the transaction failed with a retryable exception such as a deadlock,
+     * it is executed again according to {@link RetryPolicy#getDefault()} (not retried by default).
+     * </p>
+     *
+     * <p>
      * Describe the transaction body in <b>transaction</b> using a lumbda expression.
      * </p>
      *
@@ -114,84 +128,172 @@ public interface Transaction {
      * @since 1.5.0
      */
     static void execute(ConnectionSupplier connectionSupplier, Transaction transaction) {
+        execute(connectionSupplier, RetryPolicy.getDefault(), transaction);
+    }
+
+    /**
+     * Executes a transaction in the same way as <b>execute(connectionSupplier, transaction)</b>,
+     * and executes it again if it failed with a retryable exception according to the retry policy.
+     *
+     * <p>
+     * Before a retry, the transaction is rolled back, the connection is closed
+     * and the backoff time of the retry policy elapses.
+     * If the transaction is not retried, the last exception is thrown.
+     * The retries and the transactions not retried because the attempts or the budget was exhausted
+     * are counted in {@link SqlMetrics#instance} if the metrics are enabled.
+     * </p>
+     *
+     * @param connectionSupplier a <b>ConnectionSupplier</b> object
+     * @param retryPolicy the retry policy
+     * @param transaction the <b>Transaction</b> object
+     *
+     * @throws NullPointerException if <b>connectionSupplier</b>, <b>retryPolicy</b> or <b>transaction</b> is <b>null</b>
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database
+     *
+     * @see RetryPolicy
+     * @see org.lightsleep.database.Database#isRetryable(SQLException)
+     *
+     * @since 4.1.0
+     */
+    static void execute(ConnectionSupplier connectionSupplier, RetryPolicy retryPolicy, Transaction transaction) {
         Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+        Objects.requireNonNull(retryPolicy, "retryPolicy is null");
         Objects.requireNonNull(transaction, "transaction is null");
 
-        ConnectionWrapper connection = null;
-        boolean committed = false;
-        try {
-            // Gets a connection
-            long beforeGetTime = System.nanoTime(); // The time before connectionSupplier.get
-            connection = connectionSupplier.get();
-            long afterGetTime = System.nanoTime(); // The time after connectionSupplier.get
-
-            if (Sql.logger.isDebugEnabled()) {
-                double time = (afterGetTime - beforeGetTime) / 1_000_000.0;
-                DecimalFormat timeFormat = new DecimalFormat();
-                timeFormat.setMinimumFractionDigits(0);
-                timeFormat.setMaximumFractionDigits(3);
-                String logHeader = connectionSupplier.toString() + ": ";
-                Sql.logger.debug(logHeader
-                    + MessageFormat.format(Sql.messageGet, timeFormat.format(time), connectionSupplier.getUrl()));
+        retryPolicy.earnBudget(); // @since 4.1.0
+        for (int attempt = 1; ; ++attempt) {
+            RuntimeException retriedException = TransactionAttempt.execute(connectionSupplier, retryPolicy, transaction, attempt);
+            if (retriedException == null)
+                return;
 
-                Sql.logger.debug(logHeader + Sql.messageStart);
+            // Waits before the retry @since 4.1.0
+            long backoffNanos = retryPolicy.backoffNanos(attempt - 1);
+            if (Sql.logger.isWarnEnabled())
+                Sql.logger.warn(connectionSupplier.toString() + ": retry " + attempt + '/' + (retryPolicy.maxAttempts() - 1)
+                    + " after " + backoffNanos / 1_000_000L + "ms: " + retriedException);
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoffNanos);
             }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw retriedException;
+            }
+        }
+    }
 
-            // Execute the transaction body
-            transaction.executeBody(connection);
+    /**
+     * Executes a read-only transaction.
+     *
+     * <p>
+     * Same as <b>execute(transaction)</b>
+     * except that the connection is set to read-only mode before calling <b>transaction.executeBody</b>.
+     * The read-only mode is a hint to the JDBC driver and the database to optimize the transaction.
+     * The connection is restored to the writable mode before closing.
+     * </p>
+     *
+     * @param transaction the <b>Transaction</b> object
+     *
+     * @throws NullPointerException if <b>transaction</b> is <b>null</b>
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database
+     *
+     * @since 4.1.0
+     */
+    static void executeReadOnly(Transaction transaction) {
+        executeReadOnly(ConnectionSupplier.find(), transaction);
+    }
+
+    /**
+     * Executes a read-only transaction.
+     *
+     * <p>
+     * Same as <b>execute(connectionSupplier, transaction)</b>
+     * except that the connection is set to read-only mode before calling <b>transaction.executeBody</b>.
+     * The read-only mode is a hint to the JDBC driver and the database to optimize the transaction.
+     * The connection is restored to the writable mode before closing.
+     * The connection is got from <b>connectionSupplier.forReadOnly()</b>.
+     * </p>
+     *
+     * @param connectionSupplier a <b>ConnectionSupplier</b> object
+     * @param transaction the <b>Transaction</b> object
+     *
+     * @throws NullPointerException if <b>connectionSupplier</b> or <b>transaction</b> is <b>null</b>
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database
+     *
+     * @since 4.1.0
+     */
+    static void executeReadOnly(ConnectionSupplier connectionSupplier, Transaction transaction) {
+        Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+        Objects.requireNonNull(transaction, "transaction is null");
 
-            // Commit
-            commit(connection);
-            committed = true;
+        execute(connectionSupplier.forReadOnly(), connection -> {
+            connection.setReadOnly(true);
+            transaction.executeBody(connection);
+        });
+    }
 
-            //  Logging of the transaction end
-            Sql.logger.debug(Sql.messageEnd);
-        }
-        catch (Throwable e) {
-            Sql.logger.error(e.toString(), e);
-            if (connection != null) {
-                if (!committed) {
-                    try {
-                        // Rollback
-                        rollback(connection);
+    /**
+     * Executes a transaction asynchronously with the default executor.
+     *
+     * <p>
+     * The default executor uses virtual threads if available.
+     * </p>
+     *
+     * @param transaction the <b>Transaction</b> object
+     * @return a <b>CompletableFuture</b> completed when the transaction ends
+     *
+     * @throws NullPointerException if <b>transaction</b> is <b>null</b>
+     *
+     * @see #execute(Transaction)
+     * @see org.lightsleep.helper.DefaultExecutor
+     *
+     * @since 4.1.0
+     */
+    static CompletableFuture<Void> executeAsync(Transaction transaction) {
+        return executeAsync(DefaultExecutor.instance, ConnectionSupplier.find(), transaction);
+    }
 
-                        //  Logging of the transaction end
-                        if (Sql.logger.isDebugEnabled())
-                            Sql.logger.debug(connectionSupplier.toString() + ": " + Sql.messageEnd);
-                    }
-                    catch (Throwable e2) {
-                        Sql.logger.error(e2.toString(), e2);
-                    }
-                }
-            }
+    /**
+     * Executes a transaction asynchronously with the executor.
+     *
+     * @param executor the executor to execute the transaction
+     * @param transaction the <b>Transaction</b> object
+     * @return a <b>CompletableFuture</b> completed when the transaction ends
+     *
+     * @throws NullPointerException if <b>executor</b> or <b>transaction</b> is <b>null</b>
+     *
+     * @see #execute(Transaction)
+     *
+     * @since 4.1.0
+     */
+    static CompletableFuture<Void> executeAsync(Executor executor, Transaction transaction) {
+        return executeAsync(executor, ConnectionSupplier.find(), transaction);
+    }
 
-            if (e instanceof Error) throw (Error)e;
-            if (e instanceof RuntimeException) throw (RuntimeException)e;
-            if (e instanceof SQLException) throw new RuntimeSQLException(e);
-            throw new RuntimeException(e);
-        }
-        finally {
-            if (connection != null) {
-                // Closes the connection
-                long beforeCloseTime = System.nanoTime(); // The time before connectionSupplier.get
-                try {
-                    connection.close();
-                }
-                catch (SQLException e) {
-                    throw new RuntimeSQLException(e);
-                }
-                long afterCloseTime = System.nanoTime(); // The time after connectionSupplier.get
+    /**
+     * Executes a transaction asynchronously with the executor.
+     *
+     * <p>
+     * If an exception is thrown in the transaction,
+     * the returned <b>CompletableFuture</b> is completed exceptionally with the exception.
+     * </p>
+     *
+     * @param executor the executor to execute the transaction
+     * @param connectionSupplier a <b>ConnectionSupplier</b> object
+     * @param transaction the <b>Transaction</b> object
+     * @return a <b>CompletableFuture</b> completed when the transaction ends
+     *
+     * @throws NullPointerException if <b>executor</b>, <b>connectionSupplier</b> or <b>transaction</b> is <b>null</b>
+     *
+     * @see #execute(ConnectionSupplier, Transaction)
+     *
+     * @since 4.1.0
+     */
+    static CompletableFuture<Void> executeAsync(Executor executor, ConnectionSupplier connectionSupplier, Transaction transaction) {
+        Objects.requireNonNull(executor, "executor is null");
+        Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+        Objects.requireNonNull(transaction, "transaction is null");
 
-                if (Sql.logger.isDebugEnabled()) {
-                    double time = (afterCloseTime - beforeCloseTime) / 1_000_000.0;
-                    DecimalFormat timeFormat = new DecimalFormat();
-                    timeFormat.setMinimumFractionDigits(0);
-                    timeFormat.setMaximumFractionDigits(3);
-                    Sql.logger.debug(connectionSupplier.toString() + ": "
-                        + MessageFormat.format(Sql.messageClose, timeFormat.format(time)));
-                }
-            }
-        }
+        return CompletableFuture.runAsync(() -> execute(connectionSupplier, transaction), executor);
     }
 
     /**
@@ -213,9 +315,7 @@ public interface Transaction {
 
                 if (Sql.logger.isDebugEnabled()) {
                     double time = (afterExecTime - beforeExecTime) / 1_000_000.0;
-                    DecimalFormat timeFormat = new DecimalFormat();
-                    timeFormat.setMinimumFractionDigits(0);
-                    timeFormat.setMaximumFractionDigits(3);
+                    DecimalFormat timeFormat = Sql.timeFormat.get(); // @since 4.1.0
                     Sql.logger.debug(connection.toString()
                         + ": " + MessageFormat.format(Sql.messageCommit, timeFormat.format(time)));
                 }
@@ -244,9 +344,7 @@ public interface Transaction {
 
                 if (Sql.logger.isDebugEnabled()) {
                     double time = (afterExecTime - beforeExecTime) / 1_000_000.0;
-                    DecimalFormat timeFormat = new DecimalFormat();
-                    timeFormat.setMinimumFractionDigits(0);
-                    timeFormat.setMaximumFractionDigits(3);
+                    DecimalFormat timeFormat = Sql.timeFormat.get(); // @since 4.1.0
                     Sql.logger.debug(connection.toString()
                         + ": " + MessageFormat.format(Sql.messageRollback, timeFormat.format(time)));
                 }
@@ -0,0 +1,139 @@
+// TransactionAttempt.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.sql.SQLException;
+import java.text.DecimalFormat;
+import java.text.MessageFormat;
+
+import org.lightsleep.connection.ConnectionSupplier;
+import org.lightsleep.connection.ConnectionWrapper;
+
+/**
+ * Executes an attempt of a transaction for <b>Transaction.execute</b>.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+class TransactionAttempt {
+    private TransactionAttempt() {
+    }
+
+    /**
+     * Executes a transaction once as an attempt of <b>execute(connectionSupplier, retryPolicy, transaction)</b>.
+     *
+     * <p>
+     * Gets a connection, executes the transaction body, commits or rolls back the transaction
+     * and closes the connection.
+     * If the transaction failed with a retryable exception and the retry policy allows another attempt,
+     * returns the exception instead of throwing it.
+     * </p>
+     *
+     * @param connectionSupplier a <b>ConnectionSupplier</b> object
+     * @param retryPolicy the retry policy
+     * @param transaction the <b>Transaction</b> object
+     * @param attempt the number of the attempt (1, 2, ...)
+     * @return <b>null</b> if committed, the exception if rolled back and to be retried
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database and not to be retried
+     */
+    static RuntimeException execute(ConnectionSupplier connectionSupplier, RetryPolicy retryPolicy,
+        Transaction transaction, int attempt) {
+        ConnectionWrapper connection = null;
+        boolean committed = false;
+        RuntimeException retriedException = null; // The exception of the retried transaction
+        Object flightRecorderEvent = FlightRecorderEvents.begin(FlightRecorderEvents.TRANSACTION);
+        try {
+            // Gets a connection
+            long beforeGetTime = System.nanoTime(); // The time before connectionSupplier.get
+            connection = connectionSupplier.get();
+            long afterGetTime = System.nanoTime(); // The time after connectionSupplier.get
+            connection.setAcquireNanos(afterGetTime - beforeGetTime);
+            NPlusOneDetector.instance.begin(connection);
+
+            if (Sql.logger.isDebugEnabled()) {
+                double time = (afterGetTime - beforeGetTime) / 1_000_000.0;
+                DecimalFormat timeFormat = Sql.timeFormat.get();
+                String logHeader = connectionSupplier.toString() + ": ";
+                Sql.logger.debug(logHeader
+                    + MessageFormat.format(Sql.messageGet, timeFormat.format(time), connectionSupplier.getUrl()));
+
+                Sql.logger.debug(logHeader + Sql.messageStart);
+            }
+
+            // Execute the transaction body
+            transaction.executeBody(connection);
+
+            // Commit
+            Transaction.commit(connection);
+            committed = true;
+            FlightRecorderEvents.commit(flightRecorderEvent, connectionSupplier.toString(), "commit");
+
+            //  Logging of the transaction end
+            Sql.logger.debug(Sql.messageEnd);
+            return null;
+        }
+        catch (Throwable e) {
+            // Determines whether to retry
+            if (!committed && !(e instanceof Error) && retryPolicy.maxAttempts() > 1
+                && RetryPolicy.isRetryable(connectionSupplier.getDatabase(), e)) {
+                if (attempt < retryPolicy.maxAttempts() && retryPolicy.spendBudget()) {
+                    retriedException = e instanceof RuntimeException ? (RuntimeException)e
+                        : e instanceof SQLException ? new RuntimeSQLException(e) : new RuntimeException(e);
+                    if (SqlMetrics.isEnabled())
+                        SqlMetrics.instance.recordRetry(connectionSupplier);
+                } else if (SqlMetrics.isEnabled())
+                    SqlMetrics.instance.recordRetryExhausted(connectionSupplier);
+            }
+
+            if (retriedException == null)
+                Sql.logger.error(e.toString(), e);
+            if (!committed)
+                FlightRecorderEvents.commit(flightRecorderEvent, connectionSupplier.toString(), "rollback");
+            if (connection != null) {
+                if (!committed) {
+                    try {
+                        // Rollback
+                        Transaction.rollback(connection);
+
+                        //  Logging of the transaction end
+                        if (Sql.logger.isDebugEnabled())
+                            Sql.logger.debug(connectionSupplier.toString() + ": " + Sql.messageEnd);
+                    }
+                    catch (Throwable e2) {
+                        Sql.logger.error(e2.toString(), e2);
+                    }
+                }
+            }
+
+            if (retriedException == null) {
+                if (e instanceof Error) throw (Error)e;
+                if (e instanceof RuntimeException) throw (RuntimeException)e;
+                if (e instanceof SQLException) throw new RuntimeSQLException(e);
+                throw new RuntimeException(e);
+            }
+            return retriedException;
+        }
+        finally {
+            if (connection != null) {
+                // Closes the connection
+                long beforeCloseTime = System.nanoTime(); // The time before connectionSupplier.get
+                try {
+                    connection.close();
+                }
+                catch (SQLException e) {
+                    throw new RuntimeSQLException(e);
+                }
+                long afterCloseTime = System.nanoTime(); // The time after connectionSupplier.get
+
+                if (Sql.logger.isDebugEnabled()) {
+                    double time = (afterCloseTime - beforeCloseTime) / 1_000_000.0;
+                    DecimalFormat timeFormat = Sql.timeFormat.get();
+                    Sql.logger.debug(connectionSupplier.toString() + ": "
+                        + MessageFormat.format(Sql.messageClose, timeFormat.format(time)));
+                }
+            }
+        }
+    }
+}
@@ -48,6 +48,17 @@ public class EntityCondition<K> implements Condition {
             throw new IllegalArgumentException(MessageFormat.format(messageEntityNotHaveKeyColumns, entityInfo.entityClass()));
     }
 
+    /**
+     * Returns the entity.
+     *
+     * @return the entity
+     *
+     * @since 4.1.0
+     */
+    public K entity() {
+        return entity;
+    }
+
     @Override
     public boolean isEmpty() {
         return false;
@@ -8,6 +8,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.lightsleep.Sql;
@@ -106,6 +108,12 @@ public class Expression implements Condition {
      *   </tr>
      * </table>
      *
+     * <p>
+     * If an <b>Iterable</b> argument is the right operand of <b>IN</b> or <b>NOT IN</b> and the left operand is a column
+     * such as <b>{id} IN {}</b>, the predicate is replaced with the result of
+     * {@link Database#inPredicateSqlString(Iterable, boolean, ColumnInfo)} unless it returns <b>null</b>.
+     * </p>
+     *
      * @throws MissingArgumentsException if the number of arguments does not match the number of placements in the expression
      * @throws MissingPropertyException if a property that does not exist in the expression is referenced
      */
@@ -122,6 +130,8 @@ public class Expression implements Condition {
         boolean escaped = false;
         boolean referEntity = false;
         int argIndex = 0;
+        ColumnInfo lastColumnInfo = null; // @since 4.1.0
+        int lastColumnEnd = -1; // @since 4.1.0
         for (int index = 0; index < content.length(); ++index) {
             char ch = content.charAt(index);
 
@@ -178,7 +188,21 @@ public class Expression implements Condition {
                                 value = database.convert(value, columnType);
                         }
 
-                        if (value == null)
+                        SqlString inPredicate = null;
+                        if (value instanceof Iterable && lastColumnInfo != null) {
+                            // {column} IN {} or {column} NOT IN {} @since 4.1.0
+                            Matcher matcher = IN_PATTERN.matcher(buff);
+                            if (matcher.find(lastColumnEnd) && matcher.start() == lastColumnEnd) {
+                                inPredicate = database.inPredicateSqlString((Iterable<?>)value, matcher.group(1) != null, lastColumnInfo);
+                                if (inPredicate != null)
+                                    buff.setLength(lastColumnEnd);
+                            }
+                        }
+
+                        if (inPredicate != null) {
+                            buff.append(' ').append(inPredicate.content());
+                            parameters.addAll(Arrays.asList(inPredicate.parameters()));
+                        } else if (value == null)
                             buff.append("NULL");
                         else {
                             SqlString sqlString = database.convert(value, SqlString.class);
@@ -186,7 +210,8 @@ public class Expression implements Condition {
                             parameters.addAll(Arrays.asList(sqlString.parameters()));
                         }
                     } else {
-                        appendsColumnName(buff, sql, entityInfo, propertyName);
+                        lastColumnInfo = appendsColumnName(buff, sql, entityInfo, propertyName);
+                        lastColumnEnd = buff.length();
                     }
 
                     continue;
@@ -213,14 +238,17 @@ public class Expression implements Condition {
 
     private static char[] delimiterChars = {'.', '_'};
 
-    // Appends a column name
-    private <E> void appendsColumnName(StringBuilder buff, Sql<E> sql, EntityInfo<E> entityInfo, String propertyName) {
+    // The pattern of IN or NOT IN between a column and an argument @since 4.1.0
+    private static final Pattern IN_PATTERN = Pattern.compile("\\s+(NOT\\s+)?IN\\s*$", Pattern.CASE_INSENSITIVE);
+
+    // Appends a column name and returns the column information
+    private <E> ColumnInfo appendsColumnName(StringBuilder buff, Sql<E> sql, EntityInfo<E> entityInfo, String propertyName) {
         List<String> propertyNames = new ArrayList<>();
         try {
             // Converts to a column name
             ColumnInfo columnInfo = entityInfo.getColumnInfo(propertyName);
             buff.append(columnInfo.getColumnName(sql.tableAlias()));
-            return;
+            return columnInfo;
         }
         catch (IllegalArgumentException e) {
             propertyNames.add(propertyName);
@@ -242,7 +270,7 @@ public class Expression implements Condition {
                             buff.append(columnInfo.getColumnName(sqlEntityInfo.tableAlias()));
                         else
                             buff.append(columnInfo.getColumnAlias(sqlEntityInfo.tableAlias()));
-                        return;
+                        return columnInfo;
                     }
                     catch (IllegalArgumentException e) {
                         propertyNames.add(propertyName2);
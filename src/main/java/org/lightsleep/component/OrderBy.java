@@ -65,6 +65,17 @@ public class OrderBy implements SqlComponent, Cloneable {
             return this;
         }
 
+        /**
+         * Returns whether in descending order.
+         *
+         * @return <b>true</b> if in descending order, <b>false</b> otherwise
+         *
+         * @since 4.1.0
+         */
+        public boolean isDescending() {
+            return order == DESC;
+        }
+
         @Override
         public <E> String toString(Database database, Sql<E> sql, List<Object> parameters) {
             return super.toString(database, sql, parameters) + order;
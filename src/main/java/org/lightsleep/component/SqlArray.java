@@ -0,0 +1,58 @@
+// SqlArray.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.component;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A SQL parameter which is bound as a <b>java.sql.Array</b>
+ * created by <b>Connection.createArrayOf</b>.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class SqlArray {
+    // The SQL name of the element type
+    private final String typeName;
+
+    // The elements
+    private final Object[] elements;
+
+    /**
+     * Constructs a new <b>SqlArray</b>.
+     *
+     * @param typeName the SQL name of the element type
+     * @param elements the elements
+     *
+     * @throws NullPointerException if <b>typeName</b> or <b>elements</b> is <b>null</b>
+     */
+    public SqlArray(String typeName, Object[] elements) {
+        this.typeName = Objects.requireNonNull(typeName, "typeName is null");
+        this.elements = Objects.requireNonNull(elements, "elements is null");
+    }
+
+    /**
+     * Returns the SQL name of the element type.
+     *
+     * @return the SQL name of the element type
+     */
+    public String typeName() {
+        return typeName;
+    }
+
+    /**
+     * Returns the elements.
+     *
+     * @return the elements
+     */
+    public Object[] elements() {
+        return elements;
+    }
+
+    @Override
+    public String toString() {
+        return typeName + Arrays.toString(elements);
+    }
+}
@@ -7,17 +7,24 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.sql.DataSource;
 
+import org.lightsleep.FlightRecorderEvents;
 import org.lightsleep.RuntimeSQLException;
+import org.lightsleep.SqlMetrics;
 import org.lightsleep.database.Database;
 import org.lightsleep.database.Standard;
 import org.lightsleep.helper.Resource;
@@ -78,6 +85,42 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
      */
     protected static final String USERNAME = "username";
 
+    /**
+     * {@value}
+     * @since 4.1.0
+     */
+    protected static final String REPLICA_URLS = "replicaUrls";
+
+    /**
+     * {@value}
+     * @since 4.1.0
+     */
+    protected static final String REPLICA_EJECT_TIME = "replicaEjectTime";
+
+    /**
+     * {@value}
+     * @since 4.1.0
+     */
+    protected static final String CONCURRENCY_LIMIT = "concurrencyLimit";
+
+    /**
+     * {@value}
+     * @since 4.1.0
+     */
+    protected static final String CONCURRENCY_MAX_LIMIT = "concurrencyMaxLimit";
+
+    /**
+     * {@value}
+     * @since 4.1.0
+     */
+    protected static final String CONCURRENCY_MAX_QUEUE = "concurrencyMaxQueue";
+
+    /**
+     * {@value}
+     * @since 4.1.0
+     */
+    protected static final String CONCURRENCY_MAX_WAIT = "concurrencyMaxWait";
+
     /**
      * The format string of conections
      *
@@ -151,29 +194,28 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
                 ? urlsStr.split(",")
                 : urlStr != null ? new String[] {urlStr} : new String[0];
 
+            // replicaUrls @since 4.1.0
+            String replicaUrlsStr = properties.getProperty(REPLICA_URLS);
+            properties.remove(REPLICA_URLS);
+            String replicaEjectTimeStr = properties.getProperty(REPLICA_EJECT_TIME);
+            properties.remove(REPLICA_EJECT_TIME);
+
+            // concurrencyLimit etc. @since 4.1.0
+            String concurrencyLimitStr = properties.getProperty(CONCURRENCY_LIMIT);
+            String concurrencyMaxLimitStr = properties.getProperty(CONCURRENCY_MAX_LIMIT);
+            String concurrencyMaxQueueStr = properties.getProperty(CONCURRENCY_MAX_QUEUE);
+            String concurrencyMaxWaitStr = properties.getProperty(CONCURRENCY_MAX_WAIT);
+            properties.remove(CONCURRENCY_LIMIT);
+            properties.remove(CONCURRENCY_MAX_LIMIT);
+            properties.remove(CONCURRENCY_MAX_QUEUE);
+            properties.remove(CONCURRENCY_MAX_WAIT);
+
             Arrays.stream(urls)
                 .map(String::trim)
                 .filter(url -> !url.isEmpty())
                 .forEach(url -> {
                     try {
-                        Properties supplierProperties = new Properties();
-                        properties.stringPropertyNames().forEach(name -> supplierProperties.put(name, properties.get(name)));
-
-                        ConnectionSupplier supplier = null;
-                        if (url.startsWith("[")) {
-                            // A connection supplier is specified at the head of url
-                            int braIndex = url.indexOf(']');
-                            if (braIndex > 0) {
-                                // Get a ConnectionSupplier class name
-                                supplierProperties.put(URL, url.substring(braIndex + 1).trim());
-                                supplier = ConnectionSupplier.of(url.substring(1, braIndex).trim(), supplierProperties);
-                            }
-                        }
-                        if (supplier == null) {
-                            supplierProperties.put(URL, url);
-                            supplier = ConnectionSupplier.of(supplierName, supplierProperties);
-                            logger.info("AbstractConnectionSupplier.initClass: url: \"" + supplier.getDatabase().maskPassword(url) + '"');
-                        }
+                        ConnectionSupplier supplier = createSupplier(supplierName, properties, url);
                         ConnectionSupplier beforeSupplier = supplierMap.put(url, supplier);
                         if (beforeSupplier != null)
                             logger.warn(MessageFormat.format(messageMultipleUrlsDefined, supplier.getDatabase().maskPassword(url)));
@@ -182,21 +224,102 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
                         logger.error("AbstractConnectionSupplier.initClass: url: \"" + url + '"', e);
                     }
                 });
+
+            if (replicaUrlsStr != null && !supplierMap.isEmpty()) {
+                // Routes read-only transactions of the first url to the replicas
+                Map.Entry<String, ConnectionSupplier> primaryEntry = supplierMap.entrySet().iterator().next();
+                List<ConnectionSupplier> replicas = new ArrayList<>();
+                Arrays.stream(replicaUrlsStr.split(","))
+                    .map(String::trim)
+                    .filter(url -> !url.isEmpty())
+                    .forEach(url -> {
+                        try {
+                            replicas.add(createSupplier(supplierName, properties, url));
+                        }
+                        catch (Exception e) {
+                            logger.error("AbstractConnectionSupplier.initClass: replica url: \"" + url + '"', e);
+                        }
+                    });
+                long ejectTime = parseValue(REPLICA_EJECT_TIME, replicaEjectTimeStr, Long::parseLong, ReplicaRouter.DEFAULT_EJECT_TIME);
+                primaryEntry.setValue(new ReplicaRouter(primaryEntry.getValue(), replicas, ejectTime));
+                logger.info(() -> "AbstractConnectionSupplier.initClass: replicas of \""
+                    + primaryEntry.getValue().getDatabase().maskPassword(primaryEntry.getKey()) + "\": " + replicas.size());
+            }
+
+            if (concurrencyLimitStr != null) {
+                // Limits the concurrency of each url
+                int limit = parseValue(CONCURRENCY_LIMIT, concurrencyLimitStr, Integer::parseInt, ConcurrencyLimiter.DEFAULT_LIMIT);
+                int maxLimit = parseValue(CONCURRENCY_MAX_LIMIT, concurrencyMaxLimitStr, Integer::parseInt, Math.max(ConcurrencyLimiter.DEFAULT_MAX_LIMIT, limit));
+                int maxQueue = parseValue(CONCURRENCY_MAX_QUEUE, concurrencyMaxQueueStr, Integer::parseInt, ConcurrencyLimiter.DEFAULT_MAX_QUEUE);
+                long maxWait = parseValue(CONCURRENCY_MAX_WAIT, concurrencyMaxWaitStr, Long::parseLong, ConcurrencyLimiter.DEFAULT_MAX_WAIT);
+                try {
+                    supplierMap.replaceAll((url, supplier) -> new ConcurrencyLimiter(supplier, limit, maxLimit, maxQueue, maxWait));
+                    logger.info(() -> "AbstractConnectionSupplier.initClass: concurrencyLimit: " + limit + ", maxLimit: " + maxLimit
+                        + ", maxQueue: " + maxQueue + ", maxWait: " + maxWait);
+                }
+                catch (IllegalArgumentException e) {
+                    logger.error("AbstractConnectionSupplier.initClass: concurrencyLimit", e);
+                }
+            }
         }
         catch (SecurityException e) {
             throw new RuntimeException(e);
         }
     }
 
+    // Parses the value of the property, or returns the default value if it is not specified or malformed. @since 4.1.0
+    private static <V> V parseValue(String propertyKey, String valueStr, Function<String, V> valueConverter, V defaultValue) {
+        if (valueStr == null)
+            return defaultValue;
+
+        try {
+            return valueConverter.apply(valueStr.trim());
+        }
+        catch (NumberFormatException e) {
+            logger.error("AbstractConnectionSupplier.initClass: " + propertyKey + ": \"" + valueStr + '"', e);
+            return defaultValue;
+        }
+    }
+
+    // Creates a connection supplier of the url.
+    private static ConnectionSupplier createSupplier(String supplierName, Properties properties, String url) {
+        Properties supplierProperties = new Properties();
+        properties.stringPropertyNames().forEach(name -> supplierProperties.put(name, properties.get(name)));
+
+        ConnectionSupplier supplier = null;
+        if (url.startsWith("[")) {
+            // A connection supplier is specified at the head of url
+            int braIndex = url.indexOf(']');
+            if (braIndex > 0) {
+                // Get a ConnectionSupplier class name
+                supplierProperties.put(URL, url.substring(braIndex + 1).trim());
+                supplier = ConnectionSupplier.of(url.substring(1, braIndex).trim(), supplierProperties);
+            }
+        }
+        if (supplier == null) {
+            supplierProperties.put(URL, url);
+            supplier = ConnectionSupplier.of(supplierName, supplierProperties);
+            logger.info("AbstractConnectionSupplier.initClass: url: \"" + supplier.getDatabase().maskPassword(url) + '"');
+        }
+        return supplier;
+    }
+
     /** The properties */
     protected Properties jdbcProperties;
 
     // The data source
-    private DataSource dataSource;
+    private volatile DataSource dataSource;
+
+    // The lock to initialize the data source @since 4.1.0
+    private final Lock dataSourceLock = new ReentrantLock();
 
     // The database handler. @since 2.1.0
     private Database database = Standard.instance;
 
+    // The string for the logs, null if not yet created
+    // @since 4.1.0
+    private volatile String logLabel;
+
     /**
      * Constructs a new <b>AbstractConnectionSupplier</b>.
      *
@@ -244,15 +367,25 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
         try {
             boolean first = false;
             if (dataSource == null) {
-                synchronized (this) {
+                // Uses a lock instead of synchronized not to pin virtual threads
+                dataSourceLock.lock();
+                try {
                     if (dataSource == null) {
                         dataSource = getDataSource();
                         first = true;
                     }
                 }
+                finally {
+                    dataSourceLock.unlock();
+                }
             }
 
+            Object flightRecorderEvent = FlightRecorderEvents.begin(FlightRecorderEvents.CONNECTION_ACQUIRE); // @since 4.1.0
+            long acquireTimeBefore = System.nanoTime(); // @since 4.1.0
             Connection connection = dataSource.getConnection();
+            FlightRecorderEvents.commit(flightRecorderEvent, toString()); // @since 4.1.0
+            if (SqlMetrics.isEnabled())
+                SqlMetrics.instance.recordAcquire(this, System.nanoTime() - acquireTimeBefore); // @since 4.1.0
             if (first) {
                 // first time and Jndi
                 DatabaseMetaData metaData = connection.getMetaData();
@@ -262,6 +395,7 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
                     if (url != null) {
                         try {
                             database = Database.getInstance(url);
+                            logLabel = null; // @since 4.1.0
                         }
                         catch (IllegalArgumentException e) {
                             logger.warn(e.toString());
@@ -279,18 +413,23 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
                         + metaData.getDatabaseProductName() + ' ' + metaData.getDatabaseProductVersion());
             }
 
-            boolean beforeAutoCommit = connection.getAutoCommit();
-            int transactionIsolation = connection.getTransactionIsolation();
-            connection.setAutoCommit(false);
-            boolean afterAutoCommit = connection.getAutoCommit();
-
-            logger.debug(() ->
-                getClass().getSimpleName()
-                + ".get: connection.autoCommit: " + beforeAutoCommit + " -> " + afterAutoCommit
-                + ", connection.transactionIsolation: " + isolationLevelsMap.getOrDefault(transactionIsolation, "unknow")
-            );
-
-            return new ConnectionWrapper(connection, this);
+            ConnectionWrapper connectionWrapper = new ConnectionWrapper(connection, this);
+            if (logger.isDebugEnabled()) {
+                boolean beforeAutoCommit = connection.getAutoCommit();
+                int transactionIsolation = connection.getTransactionIsolation();
+                connectionWrapper.setAutoCommit(false);
+                boolean afterAutoCommit = connection.getAutoCommit();
+
+                logger.debug(
+                    getClass().getSimpleName()
+                    + ".get: connection.autoCommit: " + beforeAutoCommit + " -> " + afterAutoCommit
+                    + ", connection.transactionIsolation: " + isolationLevelsMap.getOrDefault(transactionIsolation, "unknow")
+                );
+            } else
+                // Does not access the database only for the debug log
+                connectionWrapper.setAutoCommit(false);
+
+            return connectionWrapper;
         }
         catch (SQLException e) {
             throw new RuntimeSQLException(getUrl(), e);
@@ -318,6 +457,21 @@ public abstract class AbstractConnectionSupplier implements ConnectionSupplier {
      */
     @Override
     public String toString() {
+        // Creates only once since this is called for the log of every SQL @since 4.1.0
+        String logLabel = this.logLabel;
+        if (logLabel == null)
+            this.logLabel = logLabel = createLogLabel();
+        return logLabel;
+    }
+
+    /**
+     * Creates the string for the logs with <b>connectionLogFormat</b> property.
+     *
+     * @return the string for the logs
+     *
+     * @since 4.1.0
+     */
+    private String createLogLabel() {
         String url = "";
         if (connectionLogFormat.indexOf("{2}") >= 0) {
             // has the parameter of the jdbc URL
@@ -0,0 +1,548 @@
+// ConcurrencyLimiter.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.lightsleep.RuntimeSQLException;
+import org.lightsleep.database.Database;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * A connection supplier that limits the number of the connections in use
+ * of another connection supplier adaptively.
+ *
+ * <p>
+ * The limit is adjusted by the gradient of the time while the connections are held,
+ * which is the latency of the transactions.
+ * The short-term and long-term moving averages of the latency are kept for each priority,
+ * so that the different latencies of interactive and batch transactions are not compared with each other.
+ * The gradient is {@value #TOLERANCE} &times; <i>long-term latency</i> / <i>short-term latency</i>
+ * limited to between 0.5 and 1,
+ * and the limit approaches <i>limit</i> &times; <i>gradient</i> + &radic;<i>limit</i> gradually.
+ * So the limit increases while the latency is stable and more than half of the limit is in use,
+ * and decreases when the short-term latency exceeds {@value #TOLERANCE} times the long-term latency.
+ * If getting a connection from the connection supplier fails,
+ * the limit is decreased to {@value #BACKOFF_RATIO} times at most once per the short-term latency.
+ * </p>
+ *
+ * <p>
+ * If the limit is reached, <b>get()</b> waits in a queue up to the maximum waiting time.
+ * If the queue is full or the time is over, <b>get()</b> throws a <b>RuntimeSQLException</b>
+ * caused by a <b>SQLTransientConnectionException</b> without getting a connection,
+ * in the same way as a timeout of a connection pool.
+ * </p>
+ *
+ * <p>
+ * <b>get()</b> is used for interactive transactions,
+ * and the connection supplier returned by {@link #forBatch()} is used for batch transactions.
+ * Batch transactions are not admitted while any interactive transaction is waiting,
+ * so that interactive transactions are admitted first.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * var limiter = new <b>ConcurrencyLimiter(ConnectionSupplier.find())</b>;
+ * Transaction.execute(<b>limiter</b>, conn -&gt; {...});            // interactive
+ * Transaction.execute(<b>limiter.forBatch()</b>, conn -&gt; {...}); // batch
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * def limiter = new <b>ConcurrencyLimiter(ConnectionSupplier.find())</b>
+ * Transaction.execute(<b>limiter</b>) {...}            // interactive
+ * Transaction.execute(<b>limiter.forBatch()</b>) {...} // batch
+ * </pre></div>
+ *
+ * <p>
+ * If <b>concurrencyLimit</b> is specified in lightsleep.properties,
+ * all connection suppliers of the URLs are wrapped by this class with the following properties.
+ * </p>
+ *
+ * <div class="BlankLine">&nbsp;</div>
+ *
+ * <table class="additional">
+ *   <caption><span>References in lightsleep.properties</span></caption>
+ *   <tr><th>Property Name</th><th>Content</th></tr>
+ *   <tr><td>concurrencyLimit</td><td>The initial limit</td></tr>
+ *   <tr><td>concurrencyMaxLimit</td><td>The maximum limit (default: 200)</td></tr>
+ *   <tr><td>concurrencyMaxQueue</td><td>The maximum number of the waiting transactions of each priority (default: 100)</td></tr>
+ *   <tr><td>concurrencyMaxWait</td><td>The maximum time (ms) to wait in the queue (default: 500)</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class ConcurrencyLimiter implements ConnectionSupplier {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    /** The default initial limit */
+    public static final int DEFAULT_LIMIT = 20;
+
+    /** The default maximum limit */
+    public static final int DEFAULT_MAX_LIMIT = 200;
+
+    /** The default maximum number of the waiting transactions of each priority */
+    public static final int DEFAULT_MAX_QUEUE = 100;
+
+    /** The default maximum time (ms) to wait in the queue */
+    public static final long DEFAULT_MAX_WAIT = 500L;
+
+    /** The ratio of the short-term latency to the long-term latency tolerated without decreasing the limit */
+    public static final double TOLERANCE = 1.5;
+
+    /** The ratio to decrease the limit */
+    public static final double BACKOFF_RATIO = 0.9;
+
+    // The minimum limit
+    private static final int MIN_LIMIT = 1;
+
+    // The minimum gradient
+    private static final double MIN_GRADIENT = 0.5;
+
+    // The weight of the latest sample in the short-term moving average of the latency
+    private static final double SHORT_WEIGHT = 0.2;
+
+    // The weight of the latest sample in the long-term moving average of the latency
+    private static final double LONG_WEIGHT = 0.005;
+
+    // The weight of the new limit calculated from the gradient
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * The priorities of the transactions.
+     */
+    public enum Priority {
+        /** Interactive transactions, admitted first */
+        INTERACTIVE,
+
+        /** Batch transactions, admitted while no interactive transaction is waiting */
+        BATCH
+    }
+
+    // The connection supplier to be limited
+    private final ConnectionSupplier supplier;
+
+    // The maximum limit
+    private final int maxLimit;
+
+    // The maximum number of the waiting transactions of each priority
+    private final int maxQueue;
+
+    // The maximum time (ns) to wait in the queue
+    private final long maxWaitNanos;
+
+    // The lock of the following fields
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // The conditions to wait for each priority
+    private final Condition[] conditions = {lock.newCondition(), lock.newCondition()};
+
+    // The numbers of the waiting transactions of each priority
+    private final int[] waitings = new int[2];
+
+    // The current limit
+    private double limit;
+
+    // The number of the connections in use
+    private int inFlight;
+
+    // The short-term moving averages (ns) of the latency of each priority, 0 if no sample
+    private final double[] shortNanos = new double[2];
+
+    // The long-term moving averages (ns) of the latency of each priority, 0 if no sample
+    private final double[] longNanos = new double[2];
+
+    // The System.nanoTime() value when the limit was decreased last
+    private long decreasedTime = System.nanoTime();
+
+    // The number of the rejected transactions
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    // The connection supplier for batch transactions
+    private final ConnectionSupplier batchSupplier;
+
+    /**
+     * Constructs a new <b>ConcurrencyLimiter</b> with the default values.
+     *
+     * @param supplier the connection supplier to be limited
+     *
+     * @throws NullPointerException if <b>supplier</b> is <b>null</b>
+     */
+    public ConcurrencyLimiter(ConnectionSupplier supplier) {
+        this(supplier, DEFAULT_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_MAX_QUEUE, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Constructs a new <b>ConcurrencyLimiter</b>.
+     *
+     * @param supplier the connection supplier to be limited
+     * @param initialLimit the initial limit
+     * @param maxLimit the maximum limit
+     * @param maxQueue the maximum number of the waiting transactions of each priority
+     * @param maxWait the maximum time (ms) to wait in the queue
+     *
+     * @throws NullPointerException if <b>supplier</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>initialLimit</b> &lt; 1, <b>maxLimit</b> &lt; <b>initialLimit</b>,
+     *         <b>maxQueue</b> &lt; 0 or <b>maxWait</b> &lt; 0
+     */
+    public ConcurrencyLimiter(ConnectionSupplier supplier, int initialLimit, int maxLimit, int maxQueue, long maxWait) {
+        this.supplier = Objects.requireNonNull(supplier, "supplier is null");
+        if (initialLimit < MIN_LIMIT || maxLimit < initialLimit)
+            throw new IllegalArgumentException("initialLimit: " + initialLimit + ", maxLimit: " + maxLimit);
+        if (maxQueue < 0)
+            throw new IllegalArgumentException("maxQueue: " + maxQueue);
+        if (maxWait < 0L)
+            throw new IllegalArgumentException("maxWait: " + maxWait);
+
+        limit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWait);
+        batchSupplier = new Lane(Priority.BATCH, supplier);
+    }
+
+    /**
+     * Returns the connection supplier to be limited.
+     *
+     * @return the connection supplier to be limited
+     */
+    public ConnectionSupplier getSupplier() {
+        return supplier;
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the current limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int)limit;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of the connections in use.
+     *
+     * @return the number of the connections in use
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of the waiting transactions of the priority.
+     *
+     * @param priority the priority
+     * @return the number of the waiting transactions
+     *
+     * @throws NullPointerException if <b>priority</b> is <b>null</b>
+     */
+    public int getWaiting(Priority priority) {
+        Objects.requireNonNull(priority, "priority is null");
+        lock.lock();
+        try {
+            return waitings[priority.ordinal()];
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of the rejected transactions.
+     *
+     * @return the number of the rejected transactions
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Returns a connection wrapper for an interactive transaction.
+     *
+     * @return a connection wrapper
+     *
+     * @throws RuntimeSQLException if the transaction is rejected or a <b>SQLException</b> is thrown
+     */
+    @Override
+    public ConnectionWrapper get() {
+        return get(Priority.INTERACTIVE, supplier);
+    }
+
+    /**
+     * Returns a connection supplier which supplies connections for batch transactions
+     * within the same limit as this object.
+     *
+     * @return a connection supplier for batch transactions
+     */
+    public ConnectionSupplier forBatch() {
+        return batchSupplier;
+    }
+
+    /**
+     * Returns a connection supplier which supplies connections of <b>getSupplier().forReadOnly()</b>
+     * within the same limit as this object.
+     */
+    @Override
+    public ConnectionSupplier forReadOnly() {
+        ConnectionSupplier readOnlySupplier = supplier.forReadOnly();
+        return readOnlySupplier == supplier ? this : new Lane(Priority.INTERACTIVE, readOnlySupplier);
+    }
+
+    @Override
+    public Database getDatabase() {
+        return supplier.getDatabase();
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return supplier.getDataSource();
+    }
+
+    @Override
+    public String getUrl() {
+        return supplier.getUrl();
+    }
+
+    @Override
+    public String toString() {
+        return supplier.toString();
+    }
+
+    /**
+     * Returns a connection wrapper of the connection supplier after admitted.
+     *
+     * @param priority the priority of the transaction
+     * @param supplier the connection supplier
+     * @return a connection wrapper
+     *
+     * @throws RuntimeSQLException if the transaction is rejected or a <b>SQLException</b> is thrown
+     */
+    private ConnectionWrapper get(Priority priority, ConnectionSupplier supplier) {
+        acquire(priority);
+
+        long beforeGetTime = System.nanoTime();
+        ConnectionWrapper connection;
+        try {
+            connection = supplier.get();
+        }
+        catch (RuntimeException | Error e) {
+            release(priority, 0L, true);
+            throw e;
+        }
+
+        Runnable closeAction = connection.closeAction;
+        connection.closeAction = () -> {
+            try {
+                if (closeAction != null)
+                    closeAction.run();
+            }
+            finally {
+                release(priority, System.nanoTime() - beforeGetTime, false);
+            }
+        };
+        return connection;
+    }
+
+    /**
+     * Waits until the transaction is admitted.
+     *
+     * @param priority the priority of the transaction
+     *
+     * @throws RuntimeSQLException if the transaction is rejected
+     */
+    private void acquire(Priority priority) {
+        int index = priority.ordinal();
+        lock.lock();
+        try {
+            if (canAdmit(priority)) {
+                ++inFlight;
+                return;
+            }
+            if (waitings[index] >= maxQueue)
+                throw reject(priority, "queue full");
+
+            ++waitings[index];
+            try {
+                long remainingNanos = maxWaitNanos;
+                while (!canAdmit(priority)) {
+                    if (remainingNanos <= 0L)
+                        throw reject(priority, "timed out");
+                    remainingNanos = conditions[index].awaitNanos(remainingNanos);
+                }
+                ++inFlight;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(priority, "interrupted");
+            }
+            finally {
+                --waitings[index];
+                signalWaitings();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases an admitted transaction and adjusts the limit.
+     *
+     * @param priority the priority of the transaction
+     * @param latencyNanos the time (ns) while the connection was held
+     * @param dropped <b>true</b> if getting a connection failed, <b>false</b> otherwise
+     */
+    private void release(Priority priority, long latencyNanos, boolean dropped) {
+        int index = priority.ordinal();
+        lock.lock();
+        try {
+            --inFlight;
+            double beforeLimit = limit;
+
+            if (dropped) {
+                // Multiplicative decrease at most once per the short-term latency
+                long now = System.nanoTime();
+                if (now - decreasedTime >= (long)shortNanos[index]) {
+                    limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+                    decreasedTime = now;
+                }
+            } else {
+                if (shortNanos[index] == 0.0) {
+                    shortNanos[index] = latencyNanos;
+                    longNanos[index] = latencyNanos;
+                } else {
+                    shortNanos[index] += SHORT_WEIGHT * (latencyNanos - shortNanos[index]);
+                    longNanos[index] += LONG_WEIGHT * (latencyNanos - longNanos[index]);
+                    if (longNanos[index] > 2.0 * shortNanos[index])
+                        // Follows a decrease of the latency quickly
+                        longNanos[index] *= 0.95;
+                }
+
+                double gradient = shortNanos[index] == 0.0 ? 1.0
+                    : Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * longNanos[index] / shortNanos[index]));
+                // Does not increase unless more than half of the limit is in use
+                if (gradient < 1.0 || inFlight + 1 > limit / 2) {
+                    double newLimit = limit * gradient + Math.sqrt(limit);
+                    limit = Math.max(MIN_LIMIT, Math.min(maxLimit, limit + SMOOTHING * (newLimit - limit)));
+                }
+            }
+
+            if ((int)limit != (int)beforeLimit && logger.isDebugEnabled())
+                logger.debug("ConcurrencyLimiter: " + supplier + ": limit: " + (int)beforeLimit + " -> " + (int)limit
+                    + ", priority: " + priority + ", latency: " + (long)shortNanos[index] / 1000L
+                    + "us, long-term latency: " + (long)longNanos[index] / 1000L + "us");
+
+            signalWaitings();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the transaction of the priority can be admitted now.
+     *
+     * @param priority the priority of the transaction
+     * @return <b>true</b> if the transaction can be admitted, <b>false</b> otherwise
+     */
+    private boolean canAdmit(Priority priority) {
+        return inFlight < (int)limit
+            && (priority == Priority.INTERACTIVE || waitings[Priority.INTERACTIVE.ordinal()] == 0);
+    }
+
+    /**
+     * Wakes up the waiting transactions as many as the available slots,
+     * the interactive transactions first.
+     */
+    private void signalWaitings() {
+        int available = (int)limit - inFlight;
+        if (available <= 0)
+            return;
+        Condition condition = waitings[Priority.INTERACTIVE.ordinal()] > 0
+            ? conditions[Priority.INTERACTIVE.ordinal()]
+            : conditions[Priority.BATCH.ordinal()];
+        for (int count = 0; count < available; ++count)
+            condition.signal();
+    }
+
+    /**
+     * Counts a rejection and returns the exception to be thrown.
+     *
+     * @param priority the priority of the transaction
+     * @param reason the reason of the rejection
+     * @return the exception to be thrown
+     */
+    private RuntimeSQLException reject(Priority priority, String reason) {
+        rejectedCount.incrementAndGet();
+        String message = "ConcurrencyLimiter: " + supplier + ": rejected (" + reason + "): priority: " + priority
+            + ", limit: " + (int)limit + ", inFlight: " + inFlight
+            + ", waiting: " + waitings[Priority.INTERACTIVE.ordinal()] + '/' + waitings[Priority.BATCH.ordinal()];
+        logger.debug(message);
+        return new RuntimeSQLException(new SQLTransientConnectionException(message, "08001"));
+    }
+
+    // The connection supplier for a priority
+    private class Lane implements ConnectionSupplier {
+        private final Priority priority;
+        private final ConnectionSupplier supplier;
+
+        Lane(Priority priority, ConnectionSupplier supplier) {
+            this.priority = priority;
+            this.supplier = supplier;
+        }
+
+        @Override
+        public ConnectionWrapper get() {
+            return ConcurrencyLimiter.this.get(priority, supplier);
+        }
+
+        @Override
+        public ConnectionSupplier forReadOnly() {
+            ConnectionSupplier readOnlySupplier = supplier.forReadOnly();
+            return readOnlySupplier == supplier ? this : new Lane(priority, readOnlySupplier);
+        }
+
+        @Override
+        public Database getDatabase() {
+            return supplier.getDatabase();
+        }
+
+        @Override
+        public DataSource getDataSource() {
+            return supplier.getDataSource();
+        }
+
+        @Override
+        public String getUrl() {
+            return supplier.getUrl();
+        }
+
+        @Override
+        public String toString() {
+            return supplier.toString();
+        }
+    }
+}
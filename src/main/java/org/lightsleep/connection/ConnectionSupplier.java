@@ -51,6 +51,23 @@ public interface ConnectionSupplier extends Supplier<ConnectionWrapper> {
      */
     String getUrl();
 
+    /**
+     * Returns a connection supplier used for read-only transactions.
+     *
+     * <p>
+     * The default implementation returns this object.
+     * </p>
+     *
+     * @return a connection supplier used for read-only transactions
+     *
+     * @see ReplicaRouter
+     *
+     * @since 4.1.0
+     */
+    default ConnectionSupplier forReadOnly() {
+        return this;
+    }
+
     /**
      * Create a <b>ConnectionSupplier</b>
      *
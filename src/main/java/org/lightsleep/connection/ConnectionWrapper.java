@@ -18,12 +18,20 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Executor;
 
+import org.lightsleep.FlightRecorderEvents;
 import org.lightsleep.database.Database;
+import org.lightsleep.helper.Resource;
 
 /**
  * Wraps <b>java.sql.Connection</b>.
@@ -40,6 +48,47 @@ public class ConnectionWrapper implements Connection {
     private final Connection connection;
     private final ConnectionSupplier supplier; // @since 2.2.0
 
+    // The cached auto-commit mode and read-only mode, null if unknown
+    // @since 4.1.0
+    private Boolean autoCommit;
+    private Boolean readOnly;
+
+    // The action called after the connection is closed, null if none
+    // @since 4.1.0
+    Runnable closeAction;
+
+    // The actions called after the current transaction is completed
+    // @since 4.1.0
+    private final Set<Runnable> completionActions = new LinkedHashSet<>();
+
+    // Whether the current transaction changed the database
+    // @since 4.1.0
+    private boolean changed;
+
+    // The map of key: entity and value: snapshot of the column values of the entity
+    // @since 4.1.0
+    private final Map<Object, Map<String, Object>> snapshotMap = new IdentityHashMap<>();
+
+    // Whether the identity map is enabled by default
+    // @since 4.1.0
+    private static final boolean defaultIdentityMapEnabled = Resource.getGlobal().getValue("identityMap", Boolean::valueOf, false);
+
+    // Whether the identity map is enabled
+    // @since 4.1.0
+    private boolean identityMapEnabled = defaultIdentityMapEnabled;
+
+    // The identity map of key: entity class and value: map of key: key values and value: entity
+    // @since 4.1.0
+    private final Map<Class<?>, Map<List<Object>, Object>> identityMap = new HashMap<>();
+
+    // The time to get this connection (nanoseconds), -1 if unknown
+    // @since 4.1.0
+    private long acquireNanos = -1L;
+
+    // The time when this object was constructed (System.nanoTime())
+    // @since 4.1.0
+    private final long createdTime = System.nanoTime();
+
     /**
      * Constructs a new <b>ConnectionWrapper</b>.<br>
      *
@@ -114,27 +163,291 @@ public class ConnectionWrapper implements Connection {
 
     @Override
     public void setAutoCommit(boolean autoCommit) throws SQLException {
+        this.autoCommit = null;
         connection.setAutoCommit(autoCommit);
+        this.autoCommit = autoCommit;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The value is cached after the first call or after <b>setAutoCommit</b> is called,
+     * so that the database is not accessed again.
+     * </p>
+     */
     @Override
     public boolean getAutoCommit() throws SQLException {
-        return connection.getAutoCommit();
+        if (autoCommit == null)
+            autoCommit = connection.getAutoCommit();
+        return autoCommit;
     }
 
     @Override
     public void commit() throws SQLException {
-        connection.commit();
+        try {
+            connection.commit();
+        }
+        finally {
+            runCompletionActions();
+        }
     }
 
     @Override
     public void rollback() throws SQLException {
-        connection.rollback();
+        try {
+            connection.rollback();
+        }
+        finally {
+            runCompletionActions();
+        }
+    }
+
+    /**
+     * Adds an action called after the current transaction is committed or rolled back,
+     * or after the connection is closed.
+     * The same action is added only once.
+     *
+     * @param action the action
+     *
+     * @throws NullPointerException if <b>action</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     */
+    public void addCompletionAction(Runnable action) {
+        completionActions.add(Objects.requireNonNull(action, "action is null"));
+    }
+
+    /**
+     * Returns whether the current transaction has actions called after it is completed.
+     *
+     * @return <b>true</b> if the current transaction has the actions, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    public boolean hasCompletionActions() {
+        return !completionActions.isEmpty();
+    }
+
+    /**
+     * Marks that the current transaction changed the database.
+     * The mark is cleared after the current transaction is committed or rolled back,
+     * or after the connection is closed.
+     *
+     * @since 4.1.0
+     */
+    public void markChanged() {
+        changed = true;
+    }
+
+    /**
+     * Returns whether the current transaction changed the database.
+     *
+     * @return <b>true</b> if marked by {@link #markChanged()}, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    public boolean hasChanges() {
+        return changed;
+    }
+
+    /**
+     * Stores the snapshot of the column values of the entity until the current transaction is completed.
+     *
+     * @param entity the entity
+     * @param snapshot the map of key: property name and value: column value
+     *
+     * @throws NullPointerException if <b>entity</b> or <b>snapshot</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     */
+    public void putSnapshot(Object entity, Map<String, Object> snapshot) {
+        snapshotMap.put(Objects.requireNonNull(entity, "entity is null"), Objects.requireNonNull(snapshot, "snapshot is null"));
+    }
+
+    /**
+     * Returns the snapshot of the column values of the entity stored by {@link #putSnapshot(Object, Map)}.
+     *
+     * @param entity the entity
+     * @return the map of key: property name and value: column value, <b>null</b> if not stored
+     *
+     * @since 4.1.0
+     */
+    public Map<String, Object> getSnapshot(Object entity) {
+        return snapshotMap.get(entity);
+    }
+
+    /**
+     * Specifies whether the identity map is enabled.
+     *
+     * <p>
+     * If the identity map is enabled, the entities selected in the current transaction
+     * are held by the key until the transaction is completed,
+     * and the <b>Sql</b> objects return the same entity instance for the same key.
+     * <b>Sql.select</b> methods with only an entity condition (<b>where(entity)</b>)
+     * return the held entity without accessing the database.<br>
+     * The default value is <b>identityMap</b> of lightsleep.properties (default: <b>false</b>).
+     * </p>
+     *
+     * <div class="exampleTitle"><span>Java Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt; {
+     *     conn.<b>setIdentityMapEnabled(true)</b>;
+     *     ...
+     * });
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>Groovy Example</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     it.<b>identityMapEnabled = true</b>
+     *     ...
+     * }
+     * </pre></div>
+     *
+     * @param identityMapEnabled <b>true</b> if the identity map is enabled, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    public void setIdentityMapEnabled(boolean identityMapEnabled) {
+        this.identityMapEnabled = identityMapEnabled;
+        if (!identityMapEnabled)
+            identityMap.clear();
+    }
+
+    /**
+     * Returns whether the identity map is enabled.
+     *
+     * @return <b>true</b> if the identity map is enabled, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see #setIdentityMapEnabled(boolean)
+     */
+    public boolean isIdentityMapEnabled() {
+        return identityMapEnabled;
+    }
+
+    /**
+     * Sets the time to get this connection.
+     *
+     * @param acquireNanos the time (nanoseconds)
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.ExecutionStats#connectionWaitNanos()
+     */
+    public void setAcquireNanos(long acquireNanos) {
+        this.acquireNanos = acquireNanos;
+    }
+
+    /**
+     * Returns the time to get this connection.
+     *
+     * @return the time (nanoseconds), -1 if unknown
+     *
+     * @since 4.1.0
+     */
+    public long getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    /**
+     * Returns the entity of the key in the identity map.
+     *
+     * @param <E> the type of the entity
+     * @param entityClass the entity class
+     * @param key the list of the values of the key columns
+     * @return the entity, <b>null</b> if not found
+     *
+     * @since 4.1.0
+     */
+    public <E> E getIdentity(Class<E> entityClass, List<Object> key) {
+        Map<List<Object>, Object> entityMap = identityMap.get(entityClass);
+        return entityMap == null ? null : entityClass.cast(entityMap.get(key));
+    }
+
+    /**
+     * Puts the entity to the identity map if the identity map is enabled.
+     *
+     * @param entityClass the entity class
+     * @param key the list of the values of the key columns
+     * @param entity the entity
+     *
+     * @throws NullPointerException if <b>entityClass</b>, <b>key</b> or <b>entity</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     */
+    public void putIdentity(Class<?> entityClass, List<Object> key, Object entity) {
+        Objects.requireNonNull(entityClass, "entityClass is null");
+        Objects.requireNonNull(key, "key is null");
+        Objects.requireNonNull(entity, "entity is null");
+        if (identityMapEnabled)
+            identityMap.computeIfAbsent(entityClass, k -> new HashMap<>()).put(key, entity);
+    }
+
+    /**
+     * Removes the entity of the key from the identity map.
+     *
+     * @param entityClass the entity class
+     * @param key the list of the values of the key columns
+     *
+     * @since 4.1.0
+     */
+    public void removeIdentity(Class<?> entityClass, List<Object> key) {
+        Map<List<Object>, Object> entityMap = identityMap.get(entityClass);
+        if (entityMap != null)
+            entityMap.remove(key);
+    }
+
+    /**
+     * Removes all entities of the entity class from the identity map.
+     *
+     * @param entityClass the entity class
+     *
+     * @since 4.1.0
+     */
+    public void removeIdentities(Class<?> entityClass) {
+        identityMap.remove(entityClass);
+    }
+
+    /**
+     * Calls and removes the actions added by {@link #addCompletionAction(Runnable)}
+     * and removes the snapshots, the entities in the identity map and the mark of the changes.
+     *
+     * @since 4.1.0
+     */
+    private void runCompletionActions() {
+        snapshotMap.clear();
+        identityMap.clear();
+        changed = false;
+        if (completionActions.isEmpty())
+            return;
+        List<Runnable> actions = new ArrayList<>(completionActions);
+        completionActions.clear();
+        actions.forEach(Runnable::run);
     }
 
     @Override
     public void close() throws SQLException {
-        connection.close();
+        Object flightRecorderEvent = FlightRecorderEvents.begin(FlightRecorderEvents.CONNECTION_CLOSE); // @since 4.1.0
+        try {
+            // Restores the read-only mode before returning the connection to the pool
+            if (readOnly == Boolean.TRUE)
+                setReadOnly(false);
+        }
+        finally {
+            try {
+                connection.close();
+                if (flightRecorderEvent != null)
+                    FlightRecorderEvents.commit(flightRecorderEvent, toString(), System.nanoTime() - createdTime); // @since 4.1.0
+            }
+            finally {
+                runCompletionActions();
+                Runnable action = closeAction;
+                closeAction = null;
+                if (action != null)
+                    action.run();
+            }
+        }
     }
 
     @Override
@@ -149,12 +462,24 @@ public class ConnectionWrapper implements Connection {
 
     @Override
     public void setReadOnly(boolean readOnly) throws SQLException {
+        this.readOnly = null;
         connection.setReadOnly(readOnly);
+        this.readOnly = readOnly;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The value is cached after the first call or after <b>setReadOnly</b> is called,
+     * so that the database is not accessed again.
+     * </p>
+     */
     @Override
     public boolean isReadOnly() throws SQLException {
-        return connection.isReadOnly();
+        if (readOnly == null)
+            readOnly = connection.isReadOnly();
+        return readOnly;
     }
 
     @Override
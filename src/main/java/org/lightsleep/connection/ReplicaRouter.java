@@ -0,0 +1,283 @@
+// ReplicaRouter.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.lightsleep.database.Database;
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * A connection supplier that routes connections to a primary database and its read replicas.
+ *
+ * <p>
+ * <b>get()</b> returns a connection to the primary database.
+ * The connection supplier returned by <b>forReadOnly()</b> returns a connection to one of the replicas
+ * and is used by <b>Transaction.executeReadOnly</b>.
+ * </p>
+ *
+ * <p>
+ * A replica is selected with the least outstanding connections
+ * weighted by the moving average of the time to get a connection.
+ * If getting a connection from a replica fails, the replica is ejected for a certain time
+ * and another replica is tried.
+ * If no replica is available, the primary database is used.
+ * </p>
+ *
+ * <p>
+ * Refers to the following properties of lightsleep.properties file.
+ * </p>
+ *
+ * <div class="BlankLine">&nbsp;</div>
+ *
+ * <table class="additional">
+ *   <caption><span>References in lightsleep.properties</span></caption>
+ *   <tr><th>Property Name</th><th>Content</th></tr>
+ *   <tr><td>replicaUrls</td><td>The comma separated URLs of the replicas of the (first) primary URL</td></tr>
+ *   <tr><td>replicaEjectTime</td><td>The time (ms) to eject a failed replica (default: 30000)</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class ReplicaRouter implements ConnectionSupplier {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    /** The default time (ms) to eject a failed replica */
+    public static final long DEFAULT_EJECT_TIME = 30_000L;
+
+    // The weight of the latest sample in the moving average of the time to get a connection
+    private static final double EWMA_WEIGHT = 0.2;
+
+    // The primary connection supplier
+    private final ConnectionSupplier primary;
+
+    // The replicas
+    private final List<Replica> replicas;
+
+    // The time (ns) to eject a failed replica
+    private final long ejectNanos;
+
+    // The counter to rotate the start position of the replicas with the same score
+    private final AtomicInteger rotation = new AtomicInteger();
+
+    // The connection supplier for read-only transactions
+    private final ConnectionSupplier readOnlySupplier = new ReadOnlySupplier();
+
+    // A replica and its statistics
+    private static class Replica {
+        final ConnectionSupplier supplier;
+
+        // The number of connections not closed
+        final AtomicInteger outstanding = new AtomicInteger();
+
+        // The moving average (ns) of the time to get a connection
+        volatile double averageNanos;
+
+        // The System.nanoTime() value until which this replica is ejected
+        final AtomicLong ejectedUntil = new AtomicLong();
+
+        // true if ejected
+        volatile boolean ejected;
+
+        Replica(ConnectionSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        // Returns the score of this replica, the lower the better
+        double score() {
+            return (outstanding.get() + 1) * (averageNanos + 1.0);
+        }
+    }
+
+    /**
+     * Constructs a new <b>ReplicaRouter</b>.
+     *
+     * @param primary the connection supplier of the primary database
+     * @param replicas the connection suppliers of the replicas
+     *
+     * @throws NullPointerException if <b>primary</b>, <b>replicas</b> or any element of <b>replicas</b> is <b>null</b>
+     */
+    public ReplicaRouter(ConnectionSupplier primary, List<? extends ConnectionSupplier> replicas) {
+        this(primary, replicas, DEFAULT_EJECT_TIME);
+    }
+
+    /**
+     * Constructs a new <b>ReplicaRouter</b>.
+     *
+     * @param primary the connection supplier of the primary database
+     * @param replicas the connection suppliers of the replicas
+     * @param ejectTime the time (ms) to eject a failed replica
+     *
+     * @throws NullPointerException if <b>primary</b>, <b>replicas</b> or any element of <b>replicas</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>ejectTime</b> is negative
+     */
+    public ReplicaRouter(ConnectionSupplier primary, List<? extends ConnectionSupplier> replicas, long ejectTime) {
+        this.primary = Objects.requireNonNull(primary, "primary is null");
+        Objects.requireNonNull(replicas, "replicas is null");
+        if (ejectTime < 0L)
+            throw new IllegalArgumentException("ejectTime: " + ejectTime);
+
+        List<Replica> replicaList = new ArrayList<>(replicas.size());
+        replicas.forEach(replica -> replicaList.add(new Replica(Objects.requireNonNull(replica, "replicas has a null element"))));
+        this.replicas = Collections.unmodifiableList(replicaList);
+        ejectNanos = ejectTime * 1_000_000L;
+    }
+
+    /**
+     * Returns the connection supplier of the primary database.
+     *
+     * @return the connection supplier of the primary database
+     */
+    public ConnectionSupplier getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Returns the connection suppliers of the replicas.
+     *
+     * @return the connection suppliers of the replicas
+     */
+    public List<ConnectionSupplier> getReplicas() {
+        List<ConnectionSupplier> suppliers = new ArrayList<>(replicas.size());
+        replicas.forEach(replica -> suppliers.add(replica.supplier));
+        return suppliers;
+    }
+
+    /**
+     * Returns a connection wrapper of the primary database.
+     *
+     * @return a connection wrapper of the primary database
+     *
+     * @throws org.lightsleep.RuntimeSQLException if a <b>SQLException</b> is thrown
+     */
+    @Override
+    public ConnectionWrapper get() {
+        return primary.get();
+    }
+
+    /**
+     * Returns a connection supplier which supplies connections of the replicas.
+     */
+    @Override
+    public ConnectionSupplier forReadOnly() {
+        return replicas.isEmpty() ? primary : readOnlySupplier;
+    }
+
+    @Override
+    public Database getDatabase() {
+        return primary.getDatabase();
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return primary.getDataSource();
+    }
+
+    @Override
+    public String getUrl() {
+        return primary.getUrl();
+    }
+
+    @Override
+    public String toString() {
+        return primary.toString();
+    }
+
+    /**
+     * Returns a connection wrapper of a replica.<br>
+     * If no replica is available, returns a connection wrapper of the primary database.
+     *
+     * @return a connection wrapper
+     */
+    private ConnectionWrapper getReplicaConnection() {
+        List<Replica> candidates = new ArrayList<>(replicas);
+        int start = Math.floorMod(rotation.getAndIncrement(), candidates.size());
+        Collections.rotate(candidates, -start);
+
+        while (!candidates.isEmpty()) {
+            // Selects the replica with the lowest score
+            long now = System.nanoTime();
+            Replica selected = null;
+            double selectedScore = Double.MAX_VALUE;
+            for (Replica replica : candidates) {
+                if (replica.ejected && now - replica.ejectedUntil.get() < 0L)
+                    continue;
+                double score = replica.score();
+                if (score < selectedScore) {
+                    selected = replica;
+                    selectedScore = score;
+                }
+            }
+            if (selected == null)
+                break;
+            candidates.remove(selected);
+
+            Replica replica = selected;
+            replica.outstanding.incrementAndGet();
+            try {
+                long beforeGetTime = System.nanoTime();
+                ConnectionWrapper connection = replica.supplier.get();
+                long getNanos = System.nanoTime() - beforeGetTime;
+
+                replica.averageNanos = replica.averageNanos == 0.0
+                    ? getNanos
+                    : replica.averageNanos + EWMA_WEIGHT * (getNanos - replica.averageNanos);
+                if (replica.ejected) {
+                    replica.ejected = false;
+                    logger.info(() -> "ReplicaRouter: restored: " + replica.supplier);
+                }
+
+                connection.closeAction = replica.outstanding::decrementAndGet;
+                return connection;
+            }
+            catch (RuntimeException e) {
+                replica.outstanding.decrementAndGet();
+                replica.ejectedUntil.set(System.nanoTime() + ejectNanos);
+                replica.ejected = true;
+                logger.warn("ReplicaRouter: ejected: " + replica.supplier + ": " + e);
+            }
+        }
+
+        logger.warn(() -> "ReplicaRouter: no replica is available, uses the primary: " + primary);
+        return primary.get();
+    }
+
+    // The connection supplier for read-only transactions
+    private class ReadOnlySupplier implements ConnectionSupplier {
+        @Override
+        public ConnectionWrapper get() {
+            return getReplicaConnection();
+        }
+
+        @Override
+        public Database getDatabase() {
+            return primary.getDatabase();
+        }
+
+        @Override
+        public DataSource getDataSource() {
+            return primary.getDataSource();
+        }
+
+        @Override
+        public String getUrl() {
+            return primary.getUrl();
+        }
+
+        @Override
+        public String toString() {
+            return primary.toString();
+        }
+    }
+}
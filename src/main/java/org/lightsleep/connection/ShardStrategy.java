@@ -0,0 +1,100 @@
+// ShardStrategy.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A strategy to map a shard key to a shard.
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see ShardedSupplier
+ */
+@FunctionalInterface
+public interface ShardStrategy {
+    /**
+     * Returns the index of the shard of the shard key.
+     *
+     * @param shardKey the shard key
+     * @param shardCount the number of shards
+     * @return the index of the shard (0 &lt;= index &lt; <b>shardCount</b>)
+     *
+     * @throws IllegalArgumentException if the shard key cannot be mapped to any shard
+     */
+    int shardIndex(Object shardKey, int shardCount);
+
+    /**
+     * Returns a strategy that maps the hash code of the shard key to a shard.
+     *
+     * <p>
+     * The hash code of the shard key must be the same in every JVM,
+     * such as <b>Integer</b>, <b>Long</b> and <b>String</b>.
+     * </p>
+     *
+     * @return a <b>ShardStrategy</b>
+     */
+    static ShardStrategy hash() {
+        return (shardKey, shardCount) -> {
+            int hash = Objects.hashCode(shardKey);
+            return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+        };
+    }
+
+    /**
+     * Returns a strategy that maps ranges of the shard key to shards.
+     *
+     * <p>
+     * The shard <b>i</b> holds the keys less than <b>upperBounds.get(i)</b>
+     * and greater than or equal to <b>upperBounds.get(i - 1)</b>.
+     * The last shard holds the keys greater than or equal to the last upper bound,
+     * so the number of shards must be <b>upperBounds.size() + 1</b>.
+     * </p>
+     *
+     * @param <K> the type of the shard key
+     * @param upperBounds the upper bounds (exclusive) of the shards in ascending order
+     * @return a <b>ShardStrategy</b>
+     *
+     * @throws NullPointerException if <b>upperBounds</b> or any element of <b>upperBounds</b> is <b>null</b>
+     */
+    static <K extends Comparable<? super K>> ShardStrategy range(List<K> upperBounds) {
+        Objects.requireNonNull(upperBounds, "upperBounds is null");
+        List<K> bounds = new ArrayList<>(upperBounds);
+        bounds.forEach(bound -> Objects.requireNonNull(bound, "upperBounds has a null element"));
+
+        return (shardKey, shardCount) -> {
+            Objects.requireNonNull(shardKey, "shardKey is null");
+            @SuppressWarnings("unchecked")
+            int index = Collections.binarySearch(bounds, (K)shardKey);
+            index = index >= 0 ? index + 1 : -index - 1;
+            if (index >= shardCount)
+                throw new IllegalArgumentException("shardKey: " + shardKey + ", shardCount: " + shardCount);
+            return index;
+        };
+    }
+
+    /**
+     * Returns a strategy that maps the shard key to a shard using a lookup table.
+     *
+     * @param table the map of key: shard key and value: shard index
+     * @return a <b>ShardStrategy</b>
+     *
+     * @throws NullPointerException if <b>table</b> is <b>null</b>
+     */
+    static ShardStrategy lookup(Map<?, Integer> table) {
+        Map<?, Integer> map = new HashMap<>(Objects.requireNonNull(table, "table is null"));
+
+        return (shardKey, shardCount) -> {
+            Integer index = map.get(shardKey);
+            if (index == null || index < 0 || index >= shardCount)
+                throw new IllegalArgumentException("shardKey: " + shardKey + ", index: " + index + ", shardCount: " + shardCount);
+            return index;
+        };
+    }
+}
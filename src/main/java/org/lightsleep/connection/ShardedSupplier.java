@@ -0,0 +1,336 @@
+// ShardedSupplier.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.lightsleep.Sql;
+import org.lightsleep.Transaction;
+import org.lightsleep.component.OrderBy;
+import org.lightsleep.database.Database;
+import org.lightsleep.helper.Accessor;
+import org.lightsleep.helper.DefaultExecutor;
+
+/**
+ * A set of the connection suppliers of shards, which maps shard keys to the connection suppliers.
+ *
+ * <p>
+ * Use <b>forKey(shardKey)</b> to get the connection supplier of the shard of a shard key.
+ * <b>select</b> and <b>selectCount</b> methods execute the same query on all shards in parallel
+ * and merge the results.
+ * This class is not a connection supplier itself, because a connection cannot be supplied without a shard key.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * var shards = ShardedSupplier.find(ShardStrategy.hash(), "customer");
+ *
+ * Transaction.execute(shards.forKey(customerId), conn -&gt; ...);
+ *
+ * var contacts = new ArrayList&lt;Contact&gt;();
+ * shards.select(new Sql&lt;&gt;(Contact.class)
+ *     .where("{name.last}={}", "Apple")
+ *     .orderBy("{id}")
+ *     .limit(10),
+ *     contacts::add);
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see ShardStrategy
+ */
+public class ShardedSupplier {
+    // The pattern of simple ORDER BY elements: {propertyName} or {tableAlias.propertyName}
+    private static final Pattern propertyPattern = Pattern.compile("^\\s*\\{\\s*([^{}#\\s]+)\\s*\\}\\s*$");
+
+    // The connection suppliers of the shards
+    private final List<ConnectionSupplier> shards;
+
+    // The strategy to map a shard key to a shard
+    private final ShardStrategy strategy;
+
+    // The executor to execute queries on shards
+    private final Executor executor;
+
+    /**
+     * Constructs a new <b>ShardedSupplier</b>.
+     *
+     * @param shards the connection suppliers of the shards
+     * @param strategy the strategy to map a shard key to a shard
+     *
+     * @see org.lightsleep.helper.DefaultExecutor
+     *
+     * @throws NullPointerException if <b>shards</b>, any element of <b>shards</b> or <b>strategy</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>shards</b> is empty
+     */
+    public ShardedSupplier(List<? extends ConnectionSupplier> shards, ShardStrategy strategy) {
+        this(shards, strategy, DefaultExecutor.instance);
+    }
+
+    /**
+     * Constructs a new <b>ShardedSupplier</b>.
+     *
+     * @param shards the connection suppliers of the shards
+     * @param strategy the strategy to map a shard key to a shard
+     * @param executor the executor to execute queries on shards
+     *
+     * @throws NullPointerException if <b>shards</b>, any element of <b>shards</b>, <b>strategy</b> or <b>executor</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>shards</b> is empty
+     */
+    public ShardedSupplier(List<? extends ConnectionSupplier> shards, ShardStrategy strategy, Executor executor) {
+        Objects.requireNonNull(shards, "shards is null");
+        if (shards.isEmpty())
+            throw new IllegalArgumentException("shards is empty");
+        shards.forEach(shard -> Objects.requireNonNull(shard, "shards has a null element"));
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.strategy = Objects.requireNonNull(strategy, "strategy is null");
+        this.executor = Objects.requireNonNull(executor, "executor is null");
+    }
+
+    /**
+     * Returns a new <b>ShardedSupplier</b>
+     * with the connection suppliers whose URLs contain all <b>urlWords</b> in lightsleep.properties.
+     *
+     * <p>
+     * The order of the shards is the order of the URLs in lightsleep.properties.
+     * </p>
+     *
+     * @param strategy the strategy to map a shard key to a shard
+     * @param urlWords the words to find the URLs of the shards
+     * @return a new <b>ShardedSupplier</b>
+     *
+     * @throws NullPointerException if <b>strategy</b>, <b>urlWords</b> or any element of <b>urlWords</b> is <b>null</b>
+     * @throws IllegalArgumentException if no URL is found
+     */
+    public static ShardedSupplier find(ShardStrategy strategy, String... urlWords) {
+        Objects.requireNonNull(urlWords, "urlWords is null");
+
+        List<ConnectionSupplier> suppliers =
+            AbstractConnectionSupplier.supplierMap.entrySet().stream()
+                .filter(entry ->
+                    Arrays.stream(urlWords)
+                        .allMatch(urlWord -> entry.getKey().indexOf(urlWord) >= 0)
+                )
+                .map(entry -> entry.getValue())
+                .collect(Collectors.toList());
+
+        if (suppliers.isEmpty())
+            // A url is not found.
+            throw new IllegalArgumentException(
+                MessageFormat.format(AbstractConnectionSupplier.messageUrlNotFound,
+                    Arrays.toString(urlWords)));
+
+        return new ShardedSupplier(suppliers, strategy);
+    }
+
+    /**
+     * Returns the connection suppliers of the shards.
+     *
+     * @return the connection suppliers of the shards
+     */
+    public List<ConnectionSupplier> getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the connection supplier of the shard of the shard key.
+     *
+     * @param shardKey the shard key
+     * @return the connection supplier of the shard
+     *
+     * @throws IllegalArgumentException if the shard key cannot be mapped to any shard
+     */
+    public ConnectionSupplier forKey(Object shardKey) {
+        int index = strategy.shardIndex(shardKey, shards.size());
+        if (index < 0 || index >= shards.size())
+            throw new IllegalArgumentException("shardKey: " + shardKey + ", index: " + index);
+        return shards.get(index);
+    }
+
+    @Override
+    public String toString() {
+        return shards.toString();
+    }
+
+    /**
+     * Executes the SELECT SQL on all shards in parallel
+     * and calls <b>consumer.accept</b> for each row of the merged result.
+     *
+     * <p>
+     * If <b>sql</b> has ORDER BY, the results of the shards are merged in the order.
+     * Each element of ORDER BY must be a property name in the form of <b>{propertyName}</b>.
+     * <b>NULL</b> values are merged in the order of {@link org.lightsleep.database.Database#nullsAreSortedLow()}
+     * of the database handler of the shards.
+     * If <b>sql</b> has LIMIT and OFFSET, they are applied to the merged result.
+     * Each shard is executed in a read-only transaction.
+     * </p>
+     *
+     * @param <E> the entity type
+     * @param sql the <b>Sql</b> object (the connection of it is not used)
+     * @param consumer a consumer for the entities obtained
+     *
+     * @throws NullPointerException if <b>sql</b> or <b>consumer</b> is <b>null</b>
+     * @throws IllegalArgumentException if an element of ORDER BY is not a property name
+     * @throws org.lightsleep.RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database
+     */
+    public <E> void select(Sql<E> sql, Consumer<? super E> consumer) {
+        Objects.requireNonNull(sql, "sql is null");
+        Objects.requireNonNull(consumer, "consumer is null");
+
+        Comparator<E> comparator = comparator(sql, shards.get(0).getDatabase());
+        int offset = sql.getOffset();
+        int limit = sql.getLimit();
+
+        // Scatter
+        List<List<E>> results = executeAll(shard -> {
+            Sql<E> shardSql = sql.clone();
+            if (limit != Integer.MAX_VALUE) {
+                // Each shard returns the rows up to offset + limit
+                shardSql.limit((int)Math.min((long)offset + limit, Integer.MAX_VALUE));
+                shardSql.offset(0);
+            } else if (offset != 0)
+                shardSql.offset(0);
+
+            List<E> entities = new ArrayList<>();
+            Transaction.executeReadOnly(shard, conn -> shardSql.connection(conn).select(entities::add));
+            return entities;
+        });
+
+        // Gather (k-way merge)
+        PriorityQueue<Cursor<E>> queue = new PriorityQueue<>(results.size(),
+            (cursor1, cursor2) -> {
+                int result = comparator.compare(cursor1.current(), cursor2.current());
+                return result != 0 ? result : Integer.compare(cursor1.shardIndex, cursor2.shardIndex);
+            });
+        for (int index = 0; index < results.size(); ++index)
+            if (!results.get(index).isEmpty())
+                queue.add(new Cursor<>(index, results.get(index)));
+
+        int skipped = 0;
+        int count = 0;
+        while (!queue.isEmpty() && count < limit) {
+            Cursor<E> cursor = queue.poll();
+            E entity = cursor.current();
+            if (cursor.next())
+                queue.add(cursor);
+
+            if (skipped < offset) {
+                ++skipped;
+                continue;
+            }
+            consumer.accept(entity);
+            ++count;
+        }
+    }
+
+    /**
+     * Executes <b>sql.selectCount()</b> on all shards in parallel and returns the sum of the row counts.
+     *
+     * <p>
+     * Each shard is executed in a read-only transaction.
+     * </p>
+     *
+     * @param sql the <b>Sql</b> object (the connection of it is not used)
+     * @return the sum of the row counts
+     *
+     * @throws NullPointerException if <b>sql</b> is <b>null</b>
+     * @throws org.lightsleep.RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database
+     */
+    public int selectCount(Sql<?> sql) {
+        Objects.requireNonNull(sql, "sql is null");
+
+        List<Integer> counts = executeAll(shard -> {
+            Sql<?> shardSql = sql.clone();
+            int[] count = new int[1];
+            Transaction.executeReadOnly(shard, conn -> count[0] = shardSql.connection(conn).selectCount());
+            return count[0];
+        });
+
+        return counts.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // Executes the function on all shards in parallel and returns the results in the order of the shards.
+    private <R> List<R> executeAll(Function<ConnectionSupplier, R> function) {
+        List<CompletableFuture<R>> futures = shards.stream()
+            .map(shard -> CompletableFuture.supplyAsync(() -> function.apply(shard), executor))
+            .collect(Collectors.toList());
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw e;
+        }
+
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    // Returns a comparator of the entities from ORDER BY of the Sql object
+    // which sorts null values in the same order as the database.
+    private static <E> Comparator<E> comparator(Sql<E> sql, Database database) {
+        Accessor<E> accessor = sql.entityInfo().accessor();
+        Comparator<E> comparator = (entity1, entity2) -> 0;
+
+        for (OrderBy.Element element : sql.getOrderBy().elements()) {
+            Matcher matcher = propertyPattern.matcher(element.content());
+            if (!matcher.matches() || element.arguments().length != 0)
+                throw new IllegalArgumentException("ShardedSupplier.select: unsupported ORDER BY element: \""
+                    + element.content() + '"');
+
+            String propertyName = matcher.group(1);
+            String aliasPrefix = sql.tableAlias() + '.';
+            if (!sql.tableAlias().isEmpty() && propertyName.startsWith(aliasPrefix))
+                propertyName = propertyName.substring(aliasPrefix.length());
+            String name = propertyName;
+
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Comparator<Comparable> valueComparator = element.isDescending()
+                ? Comparator.<Comparable>reverseOrder() : Comparator.<Comparable>naturalOrder();
+            valueComparator = database.nullsAreSortedLow() != element.isDescending()
+                ? Comparator.nullsFirst(valueComparator) : Comparator.nullsLast(valueComparator);
+
+            comparator = comparator.thenComparing(entity -> (Comparable<?>)accessor.getValue(entity, name), valueComparator);
+        }
+
+        return comparator;
+    }
+
+    // A cursor of the result of a shard
+    private static class Cursor<E> {
+        final int shardIndex;
+        final List<E> entities;
+        int position;
+
+        Cursor(int shardIndex, List<E> entities) {
+            this.shardIndex = shardIndex;
+            this.entities = entities;
+        }
+
+        E current() {
+            return entities.get(position);
+        }
+
+        boolean next() {
+            return ++position < entities.size();
+        }
+    }
+}
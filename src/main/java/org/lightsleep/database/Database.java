@@ -3,9 +3,14 @@
 
 package org.lightsleep.database;
 
+import java.io.Reader;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -13,6 +18,13 @@ import java.util.function.Supplier;
 
 import org.lightsleep.RuntimeSQLException;
 import org.lightsleep.Sql;
+import org.lightsleep.component.Condition;
+import org.lightsleep.component.Expression;
+import org.lightsleep.component.Or;
+import org.lightsleep.component.SqlString;
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.ColumnInfo;
+import org.lightsleep.helper.Resource;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
 
@@ -32,6 +44,51 @@ public interface Database {
         return false;
     }
 
+    /**
+     * Returns whether support row value constructors in <b>IN</b> predicates
+     * such as <b>(a, b) IN ((1, 2), (3, 4))</b>.
+     *
+     * @return <b>true</b> if support row value constructors in <b>IN</b> predicates, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     */
+    default boolean supportsRowValueIn() {
+        return false;
+    }
+
+    /**
+     * Returns whether <b>NULL</b> values are sorted before any other values in ascending order
+     * and after them in descending order.
+     *
+     * <p>
+     * This implementation returns <b>false</b> (<b>NULL</b> values are sorted as the highest values).
+     * </p>
+     *
+     * @return <b>true</b> if <b>NULL</b> values are sorted as the lowest values, <b>false</b> otherwise
+     *
+     * @since 4.1.0
+     * @see java.sql.DatabaseMetaData#nullsAreSortedLow()
+     */
+    default boolean nullsAreSortedLow() {
+        return false;
+    }
+
+    /**
+     * Returns the maximum number of keys in a condition generated by {@link #keysCondition(Sql, List)}.
+     *
+     * <p>
+     * This implementation returns 1000, which is the maximum number of expressions in an <b>IN</b> list of Oracle.
+     * </p>
+     *
+     * @param keyColumnCount the number of key columns
+     * @return the maximum number of keys in a condition
+     *
+     * @since 4.1.0
+     */
+    default int maxKeysPerCondition(int keyColumnCount) {
+        return 1000;
+    }
+
     /**
      * Creates and returns a SELECT SQL.
      *
@@ -87,6 +144,115 @@ public interface Database {
      */
      <E> CharSequence insertSql(Sql<E> sql, List<Object> parameters);
 
+    /**
+     * Creates and returns an UPSERT SQL
+     * which inserts the entity or updates the row with the same key if it exists.
+     *
+     * <p>
+     * The key columns are the columns with <b>@Key</b> annotation.
+     * The columns to be updated are the updatable columns except the key columns.
+     * </p>
+     *
+     * <p>
+     * This implementation returns <b>null</b>,
+     * and then {@link org.lightsleep.Sql#upsert(Object)} updates the row with the same key
+     * and inserts the entity if no row is updated.
+     * The database handlers derived from {@link Standard} return a <i>MERGE</i> SQL or a dialect-specific UPSERT SQL.
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param parameters the list to add the parameters of the SQL
+     * @return a <b>CharSequence</b> including UPSERT SQL or <b>null</b> if the database handler does not support UPSERT SQLs
+     *
+     * @throws IllegalStateException if the entity class has no key columns
+     *
+     * @since 4.1.0
+     */
+    default <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return null;
+    }
+
+    /**
+     * Inserts the entities into the main table of <b>sql</b> in bulk.
+     *
+     * <p>
+     * This implementation generates an <i>INSERT</i> SQL for each entity with {@link #insertSql(Sql, List)}
+     * and executes them in batches of <b>bulkInsertBatchSize</b> of lightsleep.properties (if undefined, 1000).
+     * The SQLs with parameters are executed individually.<br>
+     * The database handlers override this method to use the native bulk loader of the driver.
+     * </p>
+     *
+     * <p>
+     * This method does not call <b>PreInsert.preInsert</b> and <b>PostInsert.postInsert</b> methods.
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information and the connection wrapper
+     * @param entities an <b>Iterable</b> of entities, which is iterated only once
+     * @return the number of rows inserted
+     *
+     * @throws NullPointerException if <b>sql</b>, <b>entities</b> or any element of <b>entities</b> is <b>null</b>
+     * @throws IllegalStateException if a <b>ConnectionWrapper</b> is not set to <b>sql</b>
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#bulkInsert(Iterable)
+     */
+    default <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        Objects.requireNonNull(sql, "sql is null");
+        Objects.requireNonNull(entities, "entities is null");
+        ConnectionWrapper connection = sql.getConnection();
+        if (connection == null)
+            throw new IllegalStateException("sql.connection is null");
+
+        int batchSize = Math.max(Resource.getGlobal().getInt("bulkInsertBatchSize", 1000), 1);
+        int count = 0;
+        try (Statement statement = connection.createStatement()) {
+            int batchCount = 0;
+            for (E entity : entities) {
+                Objects.requireNonNull(entity, "entities has a null element");
+
+                List<Object> parameters = new ArrayList<>();
+                String insertSql = insertSql(sql.clone().setEntity(entity), parameters).toString();
+                if (parameters.isEmpty()) {
+                    statement.addBatch(insertSql);
+                    if (++batchCount >= batchSize) {
+                        count += Standard.executeBatch(statement);
+                        batchCount = 0;
+                    }
+                } else {
+                    // with parameters
+                    if (batchCount > 0) {
+                        count += Standard.executeBatch(statement);
+                        batchCount = 0;
+                    }
+                    try (PreparedStatement preparedStatement = connection.prepareStatement(insertSql)) {
+                        for (int index = 0; index < parameters.size(); ++index) {
+                            Object parameter = parameters.get(index);
+                            if (parameter instanceof Reader)
+                                preparedStatement.setCharacterStream(index + 1, (Reader)parameter);
+                            else
+                                preparedStatement.setObject(index + 1, parameter);
+                        }
+                        count += preparedStatement.executeUpdate();
+                    }
+                }
+            }
+
+            if (batchCount > 0)
+                count += Standard.executeBatch(statement);
+        }
+        catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+
+        if (Standard.logger.isDebugEnabled())
+            Standard.logger.debug("Database.bulkInsert: " + sql.entityInfo().tableName() + ": " + count + " rows");
+
+        return count;
+    }
+
     /**
      * Creates and returns a UPDATE SQL.
      *
@@ -107,6 +273,117 @@ public interface Database {
      */
     <E> CharSequence deleteSql(Sql<E> sql, List<Object> parameters);
 
+    /**
+     * Returns a <b>SqlString</b> which replaces an <b>IN</b> or <b>NOT IN</b> predicate
+     * with an <b>Iterable</b> argument such as <b>{id} IN {}</b>.
+     *
+     * <p>
+     * The content of the returned <b>SqlString</b> replaces the operator and the argument.
+     * This implementation returns <b>null</b> to generate <b>IN (</b><i>value</i>, ...<b>)</b>.
+     * </p>
+     *
+     * @param values the values of the argument
+     * @param not <b>true</b> if <b>NOT IN</b>, <b>false</b> if <b>IN</b>
+     * @param columnInfo the column information of the left operand
+     * @return a <b>SqlString</b> or <b>null</b>
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.component.Expression#toString(Database, Sql, List)
+     */
+    default SqlString inPredicateSqlString(Iterable<?> values, boolean not, ColumnInfo columnInfo) {
+        return null;
+    }
+
+    /**
+     * Creates and returns a condition that matches the rows with any of the keys.
+     *
+     * <p>
+     * Generates <b>{key} IN ({}, {}, ...)</b> for a single key column.
+     * For composite keys, generates <b>({key1}, {key2}) IN (({}, {}), ...)</b>
+     * if {@link #supportsRowValueIn()} returns <b>true</b>,
+     * <b>{key1}={} AND {key2}={} OR ...</b> otherwise.
+     * The key values are converted to the column types of the key columns.
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param keys the list of key values arrays in order of the key columns
+     * @return a condition
+     *
+     * @throws NullPointerException if <b>sql</b>, <b>keys</b> or any element of <b>keys</b> is <b>null</b>
+     * @throws IllegalArgumentException if the length of a key values array differs from the number of key columns
+     * @throws IllegalStateException if the entity class has no key columns
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#selectByKeys(java.util.Collection, java.util.function.Consumer)
+     * @see org.lightsleep.Sql#deleteByKeys(java.util.Collection)
+     */
+    default <E> Condition keysCondition(Sql<E> sql, List<Object[]> keys) {
+        Objects.requireNonNull(sql, "sql is null");
+        Objects.requireNonNull(keys, "keys is null");
+        List<ColumnInfo> keyColumnInfos = sql.entityInfo().keyColumnInfos();
+        if (keyColumnInfos.isEmpty())
+            throw new IllegalStateException("no key columns: " + sql.entityInfo().entityClass().getName());
+        if (keys.isEmpty())
+            return Condition.EMPTY;
+
+        int keyCount = keyColumnInfos.size();
+        boolean rowValue = keyCount == 1 || supportsRowValueIn();
+        List<Condition> conditions = new ArrayList<>();
+        StringBuilder buff = new StringBuilder();
+        List<Object> arguments = new ArrayList<>();
+
+        if (rowValue) {
+            if (keyCount > 1) buff.append('(');
+            for (int keyIndex = 0; keyIndex < keyCount; ++keyIndex) {
+                if (keyIndex > 0) buff.append(", ");
+                buff.append('{').append(keyColumnInfos.get(keyIndex).propertyName()).append('}');
+            }
+            if (keyCount > 1) buff.append(')');
+            buff.append(" IN (");
+        }
+
+        for (int index = 0; index < keys.size(); ++index) {
+            Object[] values = Objects.requireNonNull(keys.get(index), "keys has a null element");
+            if (values.length != keyCount)
+                throw new IllegalArgumentException("keys[" + index + "].length: " + values.length + " != " + keyCount);
+
+            if (rowValue) {
+                if (index > 0) buff.append(", ");
+                if (keyCount > 1) buff.append('(');
+            }
+            for (int keyIndex = 0; keyIndex < keyCount; ++keyIndex) {
+                ColumnInfo columnInfo = keyColumnInfos.get(keyIndex);
+                if (rowValue) {
+                    if (keyIndex > 0) buff.append(", ");
+                } else {
+                    if (keyIndex > 0) buff.append(" AND ");
+                    buff.append('{').append(columnInfo.propertyName()).append("}=");
+                }
+                buff.append("{}");
+
+                Object value = values[keyIndex];
+                if (value != null && columnInfo.columnType() != null)
+                    value = convert(value, columnInfo.columnType());
+                arguments.add(value);
+            }
+            if (rowValue) {
+                if (keyCount > 1) buff.append(')');
+            } else {
+                // ({key1}={} AND {key2}={}) OR ...
+                conditions.add(new Expression(buff.toString(), arguments.toArray()));
+                buff.setLength(0);
+                arguments.clear();
+            }
+        }
+
+        if (!rowValue)
+            return new Or(conditions).optimized();
+
+        buff.append(')');
+        return new Expression(buff.toString(), arguments.toArray());
+    }
+
     /**
      * Returns the <b>TypeConverter</b> map.
      *
@@ -124,6 +401,56 @@ public interface Database {
      */
     <T> T convert(Object value, Class<T> type);
 
+    /**
+     * Creates and returns the SQLs to get the execution plan of the SQL.
+     *
+     * <p>
+     * The SQLs are executed in order.
+     * The parameters of <b>sql</b> are set to the first SQL,
+     * and the rows returned by the last SQL are the execution plan.
+     * </p>
+     *
+     * @param sql the SQL
+     * @return the list of the SQLs to get the execution plan
+     *
+     * @throws UnsupportedOperationException if the database handler does not support getting execution plans
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#explain()
+     */
+    default List<String> explainSqls(CharSequence sql) {
+        throw new UnsupportedOperationException(getClass().getName() + ".explainSqls");
+    }
+
+    /**
+     * Returns whether the transaction that failed with the exception can be retried.
+     *
+     * <p>
+     * This implementation returns <b>true</b>
+     * if the SQLSTATE is <b>40001</b> (serialization failure) or <b>40P01</b> (deadlock detected),
+     * or the exception is a <b>SQLTransactionRollbackException</b>,
+     * with which the database has rolled back the transaction.
+     * Returns <b>false</b> if the SQLSTATE is <b>40003</b> (statement completion unknown)
+     * even if the exception is a <b>SQLTransactionRollbackException</b>,
+     * because the transaction may have been committed and a retry may apply the changes twice.
+     * </p>
+     *
+     * @param exception the exception
+     * @return <b>true</b> if the transaction can be retried, <b>false</b> otherwise
+     *
+     * @throws NullPointerException if <b>exception</b> is <b>null</b>
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.RetryPolicy
+     */
+    default boolean isRetryable(SQLException exception) {
+        String sqlState = exception.getSQLState();
+        if ("40003".equals(sqlState))
+            return false; // may have been committed
+        return "40001".equals(sqlState) || "40P01".equals(sqlState)
+            || exception instanceof SQLTransactionRollbackException;
+    }
+
     /**
      * Masks the password of the JDBC URL.
      *
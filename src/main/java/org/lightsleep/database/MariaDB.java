@@ -8,8 +8,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
 
 import org.lightsleep.RuntimeSQLException;
+import org.lightsleep.Sql;
 import org.lightsleep.component.SqlString;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
@@ -114,6 +117,60 @@ public class MariaDB extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean nullsAreSortedLow() {
+        return true;
+    }
+
+    /**
+     * Creates and returns an <i>INSERT ... ON DUPLICATE KEY UPDATE</i> SQL as the UPSERT SQL.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return MySQL.insertOnDuplicateKeyUpdateSql(this, sql, parameters);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation returns <b>EXPLAIN FORMAT=JSON</b> <i>sql</i>.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return Collections.singletonList("EXPLAIN FORMAT=JSON " + sql);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation also returns <b>true</b> if the error code is <b>1213</b> (deadlock found).
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean isRetryable(SQLException exception) {
+        return super.isRetryable(exception) || exception.getErrorCode() == 1213;
+    }
+
     @Override
     public String maskPassword(String jdbcUrl) {
         return jdbcUrl.replaceAll("password *=" + PASSWORD_PATTERN, "password=" + PASSWORD_MASK);
@@ -139,4 +196,24 @@ public class MariaDB extends Standard {
 
         return object;
     }
+
+    /**
+     * Inserts the entities in bulk with <i>LOAD DATA LOCAL INFILE</i>
+     * streaming the rows from memory.
+     *
+     * <p>
+     * The values are converted to strings with the <b>TypeConverter</b> map.<br>
+     * If the entities cannot be loaded with <i>LOAD DATA</i> (see {@link Standard#bulkLoadColumns(Sql)}),
+     * the driver does not support the input stream
+     * or local infile is disabled on the server or the connection,
+     * inserts them with batched <i>INSERT</i> SQLs.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        return MySQL.loadDataLocalInfile(this, sql, entities, remainingEntities -> super.bulkInsert(sql, remainingEntities),
+            "org.mariadb.jdbc.MariaDbStatement", "org.mariadb.jdbc.Statement");
+    }
 }
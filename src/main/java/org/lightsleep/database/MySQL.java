@@ -3,14 +3,31 @@
 
 package org.lightsleep.database;
 
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
 import java.sql.Time;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.lightsleep.RuntimeSQLException;
+import org.lightsleep.Sql;
+import org.lightsleep.component.Expression;
 import org.lightsleep.component.SqlString;
+import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
 
@@ -118,6 +135,101 @@ public class MySQL extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean nullsAreSortedLow() {
+        return true;
+    }
+
+    /**
+     * Creates and returns an <i>INSERT ... ON DUPLICATE KEY UPDATE</i> SQL as the UPSERT SQL.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return insertOnDuplicateKeyUpdateSql(this, sql, parameters);
+    }
+
+    /**
+     * Creates and returns an <i>INSERT ... ON DUPLICATE KEY UPDATE</i> SQL.
+     *
+     * @param <E> the type of the entity
+     * @param database the database handler
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param parameters the list to add the parameters of the SQL
+     * @return a <b>CharSequence</b> including UPSERT SQL
+     *
+     * @throws IllegalStateException if the entity class has no key columns
+     */
+    static <E> CharSequence insertOnDuplicateKeyUpdateSql(Standard database, Sql<E> sql, List<Object> parameters) {
+        List<ColumnInfo> keyColumnInfos = database.upsertKeyColumnInfos(sql);
+
+        // INSERT INTO ... (column name, ...) VALUES (value, ...)
+        StringBuilder buff = new StringBuilder(database.insertSql(sql, parameters));
+
+        // ON DUPLICATE KEY UPDATE column name=value, ...
+        buff.append(" ON DUPLICATE KEY UPDATE ");
+        List<ColumnInfo> updateColumnInfos = database.upsertUpdateColumnInfos(sql);
+        if (updateColumnInfos.isEmpty()) {
+            // no update
+            String columnName = keyColumnInfos.get(0).columnName();
+            buff.append(columnName).append('=').append(columnName);
+        } else {
+            String delimiter = "";
+            for (ColumnInfo columnInfo : updateColumnInfos) {
+                Expression expression = database.getUpsertUpdateExpression(sql, columnInfo);
+                buff.append(delimiter)
+                    .append(columnInfo.columnName())
+                    .append('=')
+                    .append(expression.isEmpty()
+                        ? "VALUES(" + columnInfo.columnName() + ')'
+                        : expression.toString(database, sql, parameters));
+                delimiter = ", ";
+            }
+        }
+
+        return buff;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation returns <b>EXPLAIN FORMAT=JSON</b> <i>sql</i>.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return Collections.singletonList("EXPLAIN FORMAT=JSON " + sql);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation also returns <b>true</b> if the error code is <b>1213</b> (deadlock found).
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean isRetryable(SQLException exception) {
+        return super.isRetryable(exception) || exception.getErrorCode() == 1213;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -149,4 +261,226 @@ public class MySQL extends Standard {
 
         return object;
     }
+
+    /**
+     * Inserts the entities in bulk with <i>LOAD DATA LOCAL INFILE</i>
+     * streaming the rows from memory.
+     *
+     * <p>
+     * The values are converted to strings with the <b>TypeConverter</b> map.
+     * The connection requires <b>allowLoadLocalInfile=true</b>
+     * and the server requires <b>local_infile=ON</b>.<br>
+     * If the entities cannot be loaded with <i>LOAD DATA</i> (see {@link Standard#bulkLoadColumns(Sql)}),
+     * the driver does not support the input stream
+     * or local infile is disabled on the server or the connection,
+     * inserts them with batched <i>INSERT</i> SQLs.<br>
+     * With <i>LOCAL</i>, the server turns errors such as duplicate keys and invalid values into warnings
+     * and skips or converts the rows.
+     * So if the number of the inserted rows differs from the number of the entities
+     * or any warning is reported, throws a <b>RuntimeSQLException</b> as <b>insert(entities)</b> would,
+     * and the transaction should be rolled back.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        return loadDataLocalInfile(this, sql, entities, remainingEntities -> super.bulkInsert(sql, remainingEntities),
+            "com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement");
+    }
+
+    /**
+     * Inserts the entities in bulk with <i>LOAD DATA LOCAL INFILE</i>.
+     *
+     * @param <E> the type of the entity
+     * @param database the database handler
+     * @param sql the <b>Sql</b> object that contains SQL generation information and the connection wrapper
+     * @param entities an <b>Iterable</b> of entities, which is iterated only once
+     * @param fallback the function to insert the entities if they cannot be loaded
+     * @param statementClassNames the class names of the driver statement with <b>setLocalInfileInputStream</b> method
+     * @return the number of rows inserted
+     *
+     * @throws RuntimeSQLException if a <b>SQLException</b> is thrown while accessing the database, replaces it with this exception
+     */
+    static <E> int loadDataLocalInfile(Standard database, Sql<E> sql, Iterable<? extends E> entities,
+            ToIntFunction<Iterable<? extends E>> fallback, String... statementClassNames) {
+        Objects.requireNonNull(sql, "sql is null");
+        Objects.requireNonNull(entities, "entities is null");
+
+        List<ColumnInfo> columnInfos = database.bulkLoadColumns(sql);
+        if (columnInfos == null || sql.getConnection() == null)
+            return fallback.applyAsInt(entities);
+
+        // LOAD DATA LOCAL INFILE ... (column name or @variable, ...) SET column name = UNHEX(@variable), ...
+        boolean[] binaries = new boolean[columnInfos.size()];
+        StringBuilder columnsBuff = new StringBuilder();
+        StringBuilder setBuff = new StringBuilder();
+        for (int index = 0; index < columnInfos.size(); ++index) {
+            ColumnInfo columnInfo = columnInfos.get(index);
+            Class<?> type = columnInfo.columnType() != null
+                ? columnInfo.columnType()
+                : sql.entityInfo().accessor().getType(columnInfo.propertyName());
+            binaries[index] = type == byte[].class;
+
+            columnsBuff.append(index == 0 ? " (" : ", ");
+            if (binaries[index]) {
+                columnsBuff.append("@v").append(index);
+                setBuff.append(setBuff.length() == 0 ? " SET " : ", ")
+                    .append(columnInfo.columnName()).append("=UNHEX(@v").append(index).append(')');
+            } else
+                columnsBuff.append(columnInfo.columnName());
+        }
+        columnsBuff.append(')');
+        String loadSql = "LOAD DATA LOCAL INFILE 'lightsleep.tsv' INTO TABLE " + sql.entityInfo().tableName()
+            + " CHARACTER SET utf8mb4" + columnsBuff + setBuff;
+
+        // Keeps the entities read by the driver to insert them again if local infile is disabled
+        Iterator<? extends E> iterator = entities.iterator();
+        List<E> readEntities = new ArrayList<>();
+        Iterable<E> readingEntities = () -> new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                E entity = iterator.next();
+                readEntities.add(entity);
+                return entity;
+            }
+        };
+
+        RowInputStream<E> inputStream = new RowInputStream<>(readingEntities, entity -> {
+            StringBuilder buff = new StringBuilder();
+            for (int index = 0; index < columnInfos.size(); ++index) {
+                if (index > 0)
+                    buff.append('\t');
+                Object value = database.bulkLoadValue(sql, columnInfos.get(index), entity);
+                if (value == null)
+                    buff.append("\\N");
+                else if (binaries[index])
+                    appendHex(buff, (byte[])value);
+                else if (value instanceof Boolean)
+                    buff.append((Boolean)value ? '1' : '0');
+                else
+                    appendLoadDataValue(buff, database.convert(value, String.class));
+            }
+            return buff.append('\n');
+        });
+
+        try (Statement statement = sql.getConnection().createStatement()) {
+            if (!setLocalInfileInputStream(statement, inputStream, statementClassNames)) {
+                if (logger.isDebugEnabled())
+                    logger.debug(database.getClass().getSimpleName() + ".bulkInsert: The driver does not support setLocalInfileInputStream.");
+                return fallback.applyAsInt(entities);
+            }
+
+            if (logger.isDebugEnabled())
+                logger.debug(database.getClass().getSimpleName() + ".bulkInsert: " + loadSql);
+            int count = statement.executeUpdate(loadSql);
+
+            // LOCAL turns the errors into warnings and skips or converts the rows
+            SQLWarning warning = statement.getWarnings();
+            if (count != readEntities.size() || warning != null) {
+                SQLException e = new SQLException(database.getClass().getSimpleName() + ".bulkInsert: "
+                    + count + " rows inserted of " + readEntities.size() + " entities"
+                    + (warning == null ? "" : ": " + warning.getMessage()),
+                    warning == null ? null : warning.getSQLState(),
+                    warning == null ? 0 : warning.getErrorCode());
+                if (warning != null)
+                    e.setNextException(warning);
+                throw new RuntimeSQLException(e);
+            }
+            return count;
+        }
+        catch (SQLException e) {
+            if (!isLocalInfileDisabled(e))
+                throw new RuntimeSQLException(e);
+
+            if (logger.isDebugEnabled())
+                logger.debug(database.getClass().getSimpleName() + ".bulkInsert: Local infile is disabled: " + e);
+            return fallback.applyAsInt(() -> Stream.concat(readEntities.stream(),
+                StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false))
+                .iterator());
+        }
+    }
+
+    /**
+     * Returns whether the exception is thrown because local infile is disabled on the server or the connection.
+     *
+     * <p>
+     * MySQL reports 1148 (ER_NOT_ALLOWED_COMMAND) or 3948 (ER_CLIENT_LOCAL_FILES_DISABLED),
+     * and MariaDB reports 4166 (ER_LOAD_INFILE_CAPABILITY_DISABLED).
+     * The drivers report the connection property disabled with the messages.
+     * </p>
+     *
+     * @param e the exception
+     * @return <b>true</b> if local infile is disabled, <b>false</b> otherwise
+     */
+    static boolean isLocalInfileDisabled(SQLException e) {
+        switch (e.getErrorCode()) {
+        case 1148: case 3948: case 4166:
+            return true;
+        default:
+            String message = e.getMessage() == null ? "" : e.getMessage().toLowerCase();
+            return message.contains("local data is disabled")    // MySQL Connector/J
+                || message.contains("local infile is disabled"); // MariaDB Connector/J
+        }
+    }
+
+    /**
+     * Sets the input stream of <i>LOAD DATA LOCAL INFILE</i> to the driver statement.
+     *
+     * @param statement the statement
+     * @param inputStream the input stream
+     * @param statementClassNames the class names of the driver statement
+     * @return <b>true</b> if set, <b>false</b> if the driver does not support it
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    private static boolean setLocalInfileInputStream(Statement statement, InputStream inputStream, String... statementClassNames) throws SQLException {
+        for (String className : statementClassNames) {
+            try {
+                Class<?> statementClass = Class.forName(className);
+                if (!statement.isWrapperFor(statementClass))
+                    continue;
+
+                statementClass.getMethod("setLocalInfileInputStream", InputStream.class)
+                    .invoke(statement.unwrap(statementClass), inputStream);
+                return true;
+            }
+            catch (ClassNotFoundException | NoSuchMethodException e) {
+                continue;
+            }
+            catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException)
+                    throw (SQLException)e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the string value escaped for <i>LOAD DATA</i> to <b>buff</b>.
+     *
+     * @param buff the string buffer to be appended
+     * @param value the string value
+     */
+    private static void appendLoadDataValue(StringBuilder buff, String value) {
+        for (char ch : value.toCharArray()) {
+            switch (ch) {
+            case '\u0000': buff.append("\\0" ); break; // 00 NUL
+            case '\t'    : buff.append("\\t" ); break; // 09 HT
+            case '\n'    : buff.append("\\n" ); break; // 0A LF
+            case '\r'    : buff.append("\\r" ); break; // 0D CR
+            case '\\'    : buff.append("\\\\"); break;
+            default      : buff.append(ch    ); break;
+            }
+        }
+    }
 }
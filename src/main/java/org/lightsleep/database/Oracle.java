@@ -11,12 +11,14 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 
 import org.lightsleep.RuntimeSQLException;
 import org.lightsleep.Sql;
 import org.lightsleep.component.SqlString;
+import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.TypeConverter;
 
 /**
@@ -99,6 +101,14 @@ public class Oracle extends Standard {
         );
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
     @Override
     protected <E> CharSequence withSelectSql(Sql<E> sql, List<Object> parameters) {
         return onlyWithSelectSql(sql, parameters);
@@ -123,6 +133,60 @@ public class Oracle extends Standard {
         }
     }
 
+    /**
+     * Appends the source of the <i>MERGE</i> SQL to <b>buff</b>.
+     *
+     * <p>
+     * <b>(SELECT</b> <i>value column name</i>, ... <b>FROM DUAL) S</b>
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    protected <E> void appendMergeSource(StringBuilder buff, Sql<E> sql, List<Object> parameters) {
+        buff.append("(SELECT ");
+        String delimiter = "";
+        for (ColumnInfo columnInfo : mergeSourceColumnInfos(sql)) {
+            buff.append(delimiter)
+                .append(getInsertExpression(sql, columnInfo).toString(this, sql, parameters))
+                .append(' ')
+                .append(columnInfo.columnName());
+            delimiter = ", ";
+        }
+        buff.append(" FROM DUAL) S");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation returns <b>EXPLAIN PLAN FOR</b> <i>sql</i>
+     * and <b>SELECT PLAN_TABLE_OUTPUT FROM TABLE(DBMS_XPLAN.DISPLAY())</b>.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return Arrays.asList("EXPLAIN PLAN FOR " + sql,
+            "SELECT PLAN_TABLE_OUTPUT FROM TABLE(DBMS_XPLAN.DISPLAY())");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation also returns <b>true</b> if the error code is <b>60</b> (ORA-00060: deadlock detected)
+     * or <b>8177</b> (ORA-08177: can't serialize access).
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean isRetryable(SQLException exception) {
+        return super.isRetryable(exception) || exception.getErrorCode() == 60 || exception.getErrorCode() == 8177;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -3,16 +3,35 @@
 
 package org.lightsleep.database;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import org.lightsleep.RuntimeSQLException;
+import org.lightsleep.Sql;
+import org.lightsleep.component.Expression;
+import org.lightsleep.component.SqlArray;
 import org.lightsleep.component.SqlString;
+import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
+import org.postgresql.PGConnection;
 
 /**
  * A database handler for
@@ -135,6 +154,144 @@ public class PostgreSQL extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    // The SQL type names of the array elements @since 4.1.0
+    private static final Map<Class<?>, String> arrayTypeNames = new HashMap<>();
+    static {
+        arrayTypeNames.put(Boolean   .class, "boolean");
+        arrayTypeNames.put(Short     .class, "smallint");
+        arrayTypeNames.put(Integer   .class, "integer");
+        arrayTypeNames.put(Long      .class, "bigint");
+        arrayTypeNames.put(Float     .class, "real");
+        arrayTypeNames.put(Double    .class, "double precision");
+        arrayTypeNames.put(BigDecimal.class, "numeric");
+        arrayTypeNames.put(String    .class, "varchar");
+        arrayTypeNames.put(Date      .class, "date");
+        arrayTypeNames.put(Time      .class, "time");
+        arrayTypeNames.put(Timestamp .class, "timestamp");
+    }
+
+    // The array element types of the property types which have no SQL type names @since 4.1.0
+    private static final Map<Class<?>, Class<?>> arrayElementTypes = new HashMap<>();
+    static {
+        arrayElementTypes.put(java.util.Date.class, Timestamp.class);
+        arrayElementTypes.put(LocalDate     .class, Date     .class);
+        arrayElementTypes.put(LocalTime     .class, Time     .class);
+        arrayElementTypes.put(LocalDateTime .class, Timestamp.class);
+    }
+
+    /**
+     * Returns <b>= ANY(?)</b> or <b>&lt;&gt; ALL(?)</b> with a <b>SqlArray</b> parameter
+     * so that the SQL is the same regardless of the number of values.
+     *
+     * <p>
+     * The element type of the array is inferred from the column type or the property type of <b>columnInfo</b>.
+     * Returns <b>null</b> to generate <b>IN (</b><i>value</i>, ...<b>)</b>
+     * if the element type does not have a SQL type name.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public SqlString inPredicateSqlString(Iterable<?> values, boolean not, ColumnInfo columnInfo) {
+        Class<?> elementType = columnInfo.columnType() != null ? columnInfo.columnType()
+            : columnInfo.entityInfo().accessor().getType(columnInfo.propertyName());
+        elementType = Utils.toClassType(elementType);
+        elementType = arrayElementTypes.getOrDefault(elementType, elementType);
+        String typeName = arrayTypeNames.get(elementType);
+        if (typeName == null)
+            return null;
+
+        List<Object> elements = new ArrayList<>();
+        for (Object value : values)
+            elements.add(value == null ? null : convert(value, elementType));
+        return new SqlString(not ? "<> ALL(?)" : "= ANY(?)", new SqlArray(typeName, elements.toArray()));
+    }
+
+    /**
+     * Creates and returns an <i>INSERT ... ON CONFLICT (</i><i>key</i>, ...<i>) DO UPDATE</i> SQL as the UPSERT SQL.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return insertOnConflictSql(this, sql, parameters);
+    }
+
+    /**
+     * Creates and returns an <i>INSERT ... ON CONFLICT (</i><i>key</i>, ...<i>) DO UPDATE</i> SQL.
+     *
+     * @param <E> the type of the entity
+     * @param database the database handler
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param parameters the list to add the parameters of the SQL
+     * @return a <b>CharSequence</b> including UPSERT SQL
+     *
+     * @throws IllegalStateException if the entity class has no key columns
+     */
+    static <E> CharSequence insertOnConflictSql(Standard database, Sql<E> sql, List<Object> parameters) {
+        List<ColumnInfo> keyColumnInfos = database.upsertKeyColumnInfos(sql);
+        Sql<E> targetSql = database.upsertTargetSql(sql, "T");
+        StringBuilder buff = new StringBuilder();
+
+        // INSERT INTO table name AS alias
+        buff.append("INSERT INTO ")
+            .append(targetSql.entityInfo().tableName())
+            .append(" AS ")
+            .append(targetSql.tableAlias());
+
+        // (column name, ...) VALUES (value, ...)
+        database.appendInsertColumns(buff, targetSql);
+        database.appendInsertValues(buff, targetSql, parameters);
+
+        // ON CONFLICT (key column name, ...)
+        buff.append(" ON CONFLICT ")
+            .append(keyColumnInfos.stream()
+                .map(ColumnInfo::columnName)
+                .collect(Collectors.joining(", ", "(", ")")));
+
+        // DO UPDATE SET column name=value, ...
+        List<ColumnInfo> updateColumnInfos = database.upsertUpdateColumnInfos(targetSql);
+        if (updateColumnInfos.isEmpty())
+            buff.append(" DO NOTHING");
+        else {
+            String delimiter = " DO UPDATE SET ";
+            for (ColumnInfo columnInfo : updateColumnInfos) {
+                Expression expression = database.getUpsertUpdateExpression(targetSql, columnInfo);
+                buff.append(delimiter)
+                    .append(columnInfo.columnName())
+                    .append('=')
+                    .append(expression.isEmpty()
+                        ? columnInfo.getColumnName("EXCLUDED")
+                        : expression.toString(database, targetSql, parameters));
+                delimiter = ", ";
+            }
+        }
+
+        return buff;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation returns <b>EXPLAIN (FORMAT JSON)</b> <i>sql</i>.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return Collections.singletonList("EXPLAIN (FORMAT JSON) " + sql);
+    }
+
     /**
      * @since 2.2.0
      */
@@ -166,4 +323,88 @@ public class PostgreSQL extends Standard {
 
         return object;
     }
+
+    /**
+     * Inserts the entities in bulk with <i>COPY ... FROM STDIN</i>
+     * using <b>CopyManager</b> of the PostgreSQL JDBC driver.
+     *
+     * <p>
+     * The values are converted to strings with the <b>TypeConverter</b> map
+     * and streamed in the text format of <i>COPY</i>.<br>
+     * If the entities cannot be loaded with <i>COPY</i> (see {@link Standard#bulkLoadColumns(Sql)}),
+     * inserts them with batched <i>INSERT</i> SQLs.
+     * </p>
+     *
+     * @throws UncheckedIOException if an <b>IOException</b> is thrown while streaming the rows
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        Objects.requireNonNull(sql, "sql is null");
+        Objects.requireNonNull(entities, "entities is null");
+
+        List<ColumnInfo> columnInfos = bulkLoadColumns(sql);
+        if (columnInfos == null || sql.getConnection() == null)
+            return super.bulkInsert(sql, entities);
+
+        String copySql = "COPY " + sql.entityInfo().tableName()
+            + columnInfos.stream()
+                .map(ColumnInfo::columnName)
+                .collect(Collectors.joining(", ", " (", ")"))
+            + " FROM STDIN";
+        if (logger.isDebugEnabled())
+            logger.debug("PostgreSQL.bulkInsert: " + copySql);
+
+        RowInputStream<E> inputStream = new RowInputStream<>(entities, entity -> {
+            StringBuilder buff = new StringBuilder();
+            for (int index = 0; index < columnInfos.size(); ++index) {
+                if (index > 0)
+                    buff.append('\t');
+                appendCopyValue(buff, bulkLoadValue(sql, columnInfos.get(index), entity));
+            }
+            return buff.append('\n');
+        });
+
+        try {
+            return (int)sql.getConnection().unwrap(PGConnection.class).getCopyAPI()
+                .copyIn(copySql, inputStream);
+        }
+        catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the value in the text format of <i>COPY</i> to <b>buff</b>.
+     *
+     * @param buff the string buffer to be appended
+     * @param value the value
+     */
+    private void appendCopyValue(StringBuilder buff, Object value) {
+        if (value == null) {
+            buff.append("\\N");
+            return;
+        }
+
+        if (value instanceof byte[]) {
+            // bytea hex format
+            buff.append("\\\\x");
+            appendHex(buff, (byte[])value);
+            return;
+        }
+
+        for (char ch : convert(value, String.class).toCharArray()) {
+            switch (ch) {
+            case '\t': buff.append("\\t" ); break; // 09 HT
+            case '\n': buff.append("\\n" ); break; // 0A LF
+            case '\r': buff.append("\\r" ); break; // 0D CR
+            case '\\': buff.append("\\\\"); break;
+            default  : buff.append(ch    ); break;
+            }
+        }
+    }
 }
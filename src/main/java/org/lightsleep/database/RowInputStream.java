@@ -0,0 +1,94 @@
+// RowInputStream.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.database;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * An input stream that encodes the entities into rows on demand
+ * for the native bulk loaders.
+ *
+ * @param <E> the type of the entity
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+class RowInputStream<E> extends InputStream {
+    // The iterator of the entities
+    private final Iterator<? extends E> iterator;
+
+    // The function to encode an entity into a row
+    private final Function<? super E, CharSequence> encoder;
+
+    // The bytes of the current row
+    private byte[] bytes = new byte[0];
+
+    // The position in the current row
+    private int position;
+
+    // The number of rows read
+    private int rowCount;
+
+    /**
+     * Constructs a new <b>RowInputStream</b>.
+     *
+     * @param entities an <b>Iterable</b> of entities
+     * @param encoder the function to encode an entity into a row including the line terminator
+     */
+    RowInputStream(Iterable<? extends E> entities, Function<? super E, CharSequence> encoder) {
+        iterator = entities.iterator();
+        this.encoder = encoder;
+    }
+
+    /**
+     * Returns the number of rows read.
+     *
+     * @return the number of rows read
+     */
+    int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Reads the next row if the current row has been read.
+     *
+     * @return <b>true</b> if there are remaining bytes, <b>false</b> otherwise
+     */
+    private boolean fill() {
+        while (position >= bytes.length) {
+            if (!iterator.hasNext())
+                return false;
+            E entity = Objects.requireNonNull(iterator.next(), "entities has a null element");
+            bytes = encoder.apply(entity).toString().getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            ++rowCount;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() {
+        return fill() ? bytes[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        Objects.requireNonNull(buffer, "buffer is null");
+        if (length == 0)
+            return 0;
+
+        int readLength = 0;
+        while (readLength < length && fill()) {
+            int copyLength = Math.min(length - readLength, bytes.length - position);
+            System.arraycopy(bytes, position, buffer, offset + readLength, copyLength);
+            position += copyLength;
+            readLength += copyLength;
+        }
+        return readLength == 0 ? -1 : readLength;
+    }
+}
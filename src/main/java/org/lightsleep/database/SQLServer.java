@@ -6,6 +6,9 @@ package org.lightsleep.database;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.Instant;
@@ -15,16 +18,29 @@ import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.lightsleep.RuntimeSQLException;
 import org.lightsleep.Sql;
 import org.lightsleep.component.Expression;
 import org.lightsleep.component.SqlString;
+import org.lightsleep.connection.ConnectionWrapper;
+import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
 
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+
 /**
  * A database handler for
  * <a href="https://www.microsoft.com/ja-jp/server-cloud/products-SQL-Server-2014.aspx" target="SQL Server">Microsoft SQL Server</a>.
@@ -251,6 +267,29 @@ public class SQLServer extends Standard {
         );
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation returns the number of keys which fit within 2000 parameters
+     * to stay below the limit of 2100 parameters of SQL Server.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxKeysPerCondition(int keyColumnCount) {
+        return Math.max(2000 / Math.max(keyColumnCount, 1), 1);
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean nullsAreSortedLow() {
+        return true;
+    }
+
     @Override
     public <E> CharSequence selectSql(Sql<E> sql, List<Object> parameters) {
         StringBuilder buff = new StringBuilder();
@@ -355,6 +394,16 @@ public class SQLServer extends Standard {
         return buff;
     }
 
+    /**
+     * Creates and returns a <i>MERGE</i> SQL terminated by a semicolon as the UPSERT SQL.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return new StringBuilder(super.upsertSql(sql, parameters)).append(';');
+    }
+
     /**
      * @since 1.8.2
      */
@@ -374,6 +423,20 @@ public class SQLServer extends Standard {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation also returns <b>true</b> if the error code is <b>1205</b> (deadlock victim).
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean isRetryable(SQLException exception) {
+        return super.isRetryable(exception) || exception.getErrorCode() == 1205;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -402,4 +465,141 @@ public class SQLServer extends Standard {
 
         return object;
     }
+
+    /**
+     * Inserts the entities in bulk with <b>SQLServerBulkCopy</b> of the SQL Server JDBC driver.
+     *
+     * <p>
+     * The values are converted with the <b>TypeConverter</b> map
+     * to the types related to the column types of the table.<br>
+     * If the entities cannot be loaded with <b>SQLServerBulkCopy</b> (see {@link Standard#bulkLoadColumns(Sql)}),
+     * inserts them with batched <i>INSERT</i> SQLs.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        Objects.requireNonNull(sql, "sql is null");
+        Objects.requireNonNull(entities, "entities is null");
+
+        List<ColumnInfo> columnInfos = bulkLoadColumns(sql);
+        ConnectionWrapper connection = sql.getConnection();
+        if (columnInfos == null || connection == null)
+            return super.bulkInsert(sql, entities);
+
+        String tableName = sql.entityInfo().tableName();
+        try {
+            // Gets the column types
+            BulkData<E> bulkData = new BulkData<>(sql, entities, columnInfos);
+            try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT "
+                    + columnInfos.stream().map(ColumnInfo::columnName).collect(Collectors.joining(", "))
+                    + " FROM " + tableName + " WHERE 1=0")) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                for (int index = 0; index < columnInfos.size(); ++index) {
+                    bulkData.types     [index] = metaData.getColumnType(index + 1);
+                    bulkData.precisions[index] = metaData.getPrecision (index + 1);
+                    bulkData.scales    [index] = metaData.getScale    (index + 1);
+                }
+            }
+
+            if (logger.isDebugEnabled())
+                logger.debug("SQLServer.bulkInsert: " + tableName);
+
+            try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(connection.unwrap(SQLServerConnection.class))) {
+                bulkCopy.setDestinationTableName(tableName);
+                for (int index = 0; index < columnInfos.size(); ++index)
+                    bulkCopy.addColumnMapping(index + 1, columnInfos.get(index).columnName());
+                bulkCopy.writeToServer(bulkData);
+            }
+
+            return bulkData.rowCount;
+        }
+        catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+    }
+
+    /**
+     * The source of <b>SQLServerBulkCopy</b> which converts the entities into rows on demand.
+     *
+     * @param <E> the type of the entity
+     */
+    @SuppressWarnings("serial")
+    private class BulkData<E> implements ISQLServerBulkData {
+        private final transient Sql<E> sql;
+        private final transient Iterator<? extends E> iterator;
+        private final transient List<ColumnInfo> columnInfos;
+        private final int[] types;
+        private final int[] precisions;
+        private final int[] scales;
+        private transient E entity;
+        private int rowCount;
+
+        private BulkData(Sql<E> sql, Iterable<? extends E> entities, List<ColumnInfo> columnInfos) {
+            this.sql = sql;
+            iterator = entities.iterator();
+            this.columnInfos = columnInfos;
+            types      = new int[columnInfos.size()];
+            precisions = new int[columnInfos.size()];
+            scales     = new int[columnInfos.size()];
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            return IntStream.rangeClosed(1, columnInfos.size()).boxed()
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnInfos.get(column - 1).columnName();
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return types[column - 1];
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return precisions[column - 1];
+        }
+
+        @Override
+        public int getScale(int column) {
+            return scales[column - 1];
+        }
+
+        @Override
+        public Object[] getRowData() {
+            Object[] row = new Object[columnInfos.size()];
+            for (int index = 0; index < row.length; ++index) {
+                Object value = bulkLoadValue(sql, columnInfos.get(index), entity);
+                if (value != null) {
+                    switch (types[index]) {
+                    case java.sql.Types.DATE     : value = convert(value, Date     .class); break;
+                    case java.sql.Types.TIME     : value = convert(value, Time     .class); break;
+                    case java.sql.Types.TIMESTAMP: value = convert(value, Timestamp.class); break;
+                    default:
+                        if (!(value instanceof Number || value instanceof Boolean || value instanceof byte[]))
+                            value = convert(value, String.class);
+                        break;
+                    }
+                }
+                row[index] = value;
+            }
+            return row;
+        }
+
+        @Override
+        public boolean next() {
+            if (!iterator.hasNext())
+                return false;
+            entity = Objects.requireNonNull(iterator.next(), "entities has a null element");
+            ++rowCount;
+            return true;
+        }
+    }
 }
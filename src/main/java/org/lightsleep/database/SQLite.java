@@ -12,6 +12,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 
 import org.lightsleep.Sql;
@@ -191,6 +193,16 @@ public class SQLite extends Standard {
             throw new UnsupportedOperationException("forUpdate");
     }
 
+    /**
+     * Creates and returns an <i>INSERT ... ON CONFLICT (</i><i>key</i>, ...<i>) DO UPDATE</i> SQL as the UPSERT SQL.
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return PostgreSQL.insertOnConflictSql(this, sql, parameters);
+    }
+
     /**
      * @since 1.8.2
      */
@@ -199,6 +211,36 @@ public class SQLite extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean nullsAreSortedLow() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation returns <b>EXPLAIN QUERY PLAN</b> <i>sql</i>.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return Collections.singletonList("EXPLAIN QUERY PLAN " + sql);
+    }
+
     /**
      * @since 2.2.0
      */
@@ -9,6 +9,7 @@ import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Date;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.Instant;
@@ -20,6 +21,7 @@ import java.time.ZonedDateTime;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +37,7 @@ import org.lightsleep.component.SqlString;
 import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.ConvertException;
 import org.lightsleep.helper.Resource;
+import org.lightsleep.helper.SqlColumnInfo;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.helper.Utils;
 import org.lightsleep.logger.Logger;
@@ -921,6 +924,312 @@ public class Standard implements Database {
         return buff;
     }
 
+    /**
+     * Returns the insertable columns of <b>sql</b> if the entities can be loaded by the native bulk loader.
+     *
+     * <p>
+     * Returns <b>null</b> if a FROM subquery or an insert expression is specified,
+     * or if the type of a property is an array other than <b>byte[]</b>.
+     * In this case, the entities are inserted with batched <i>INSERT</i> SQLs.
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @return the list of insertable columns or <b>null</b>
+     *
+     * @since 4.1.0
+     */
+    protected <E> List<ColumnInfo> bulkLoadColumns(Sql<E> sql) {
+        if (sql.getFrom() != null)
+            return null;
+
+        List<ColumnInfo> columnInfos = sql.columnInfoStream()
+            .filter(ColumnInfo::insertable)
+            .collect(Collectors.toList());
+
+        for (ColumnInfo columnInfo : columnInfos) {
+            String propertyName = columnInfo.propertyName();
+            if (!sql.getExpression(propertyName).isEmpty() || !columnInfo.insertExpression().isEmpty())
+                return null;
+
+            Class<?> type = columnInfo.columnType() != null
+                ? columnInfo.columnType()
+                : sql.entityInfo().accessor().getType(propertyName);
+            if (type.isArray() && type != byte[].class)
+                return null;
+        }
+
+        return columnInfos;
+    }
+
+    /**
+     * Returns the value of the column of the entity to be loaded by the native bulk loader.
+     *
+     * <p>
+     * If the column type is specified, the value is converted to the column type
+     * as well as <i>INSERT</i> SQL.
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param columnInfo the column information
+     * @param entity the entity
+     * @return the value (might be null)
+     *
+     * @since 4.1.0
+     */
+    protected <E> Object bulkLoadValue(Sql<E> sql, ColumnInfo columnInfo, E entity) {
+        Object value = sql.entityInfo().accessor().getValue(entity, columnInfo.propertyName());
+        if (value != null && columnInfo.columnType() != null)
+            value = convert(value, columnInfo.columnType());
+        return value;
+    }
+
+    /**
+     * Appends the hexadecimal string of the bytes to <b>buff</b>.
+     *
+     * @param buff the string buffer to be appended
+     * @param bytes the bytes
+     *
+     * @since 4.1.0
+     */
+    protected static void appendHex(StringBuilder buff, byte[] bytes) {
+        for (int value : bytes) {
+            value &= 0xFF;
+            buff.append(Character.toUpperCase(Character.forDigit(value >>> 4, 16)))
+                .append(Character.toUpperCase(Character.forDigit(value & 0x0F, 16)));
+        }
+    }
+
+    /**
+     * Executes the batch of the statement and returns the number of rows.
+     *
+     * @param statement the statement
+     * @return the number of rows
+     *
+     * @throws SQLException if a database access error occurs
+     *
+     * @since 4.1.0
+     */
+    static int executeBatch(Statement statement) throws SQLException {
+        int count = 0;
+        for (int rowCount : statement.executeBatch())
+            count += rowCount == Statement.SUCCESS_NO_INFO ? 1 : rowCount;
+        return count;
+    }
+
+    /**
+     * Creates and returns a <i>MERGE</i> SQL as the UPSERT SQL.
+     *
+     * <p>
+     * <b>MERGE INTO</b> <i>table</i> <b>T USING</b> <i>source</i> <b>S ON (</b><i>T.key=S.key</i>, ...<b>)</b><br>
+     * <b>WHEN MATCHED THEN UPDATE SET</b> <i>column=S.column</i>, ...<br>
+     * <b>WHEN NOT MATCHED THEN INSERT (</b><i>column</i>, ...<b>) VALUES (</b><i>S.column</i>, ...<b>)</b>
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        List<ColumnInfo> keyColumnInfos = upsertKeyColumnInfos(sql);
+        Sql<E> targetSql = upsertTargetSql(sql, "T");
+        StringBuilder buff = new StringBuilder();
+
+        // MERGE INTO table name and alias
+        buff.append("MERGE INTO ");
+        appendMainTable(buff, targetSql);
+
+        // USING (...) S
+        buff.append(" USING ");
+        appendMergeSource(buff, targetSql, parameters);
+
+        // ON (T.key=S.key AND ...)
+        buff.append(" ON (")
+            .append(keyColumnInfos.stream()
+                .map(columnInfo -> columnInfo.getColumnName(targetSql.tableAlias()) + '=' + columnInfo.getColumnName("S"))
+                .collect(Collectors.joining(" AND ")))
+            .append(')');
+
+        // WHEN MATCHED THEN UPDATE SET column=value, ...
+        String delimiter = " WHEN MATCHED THEN UPDATE SET ";
+        for (ColumnInfo columnInfo : upsertUpdateColumnInfos(targetSql)) {
+            Expression expression = getUpsertUpdateExpression(targetSql, columnInfo);
+            buff.append(delimiter)
+                .append(columnInfo.columnName())
+                .append('=')
+                .append(expression.isEmpty()
+                    ? columnInfo.getColumnName("S")
+                    : expression.toString(this, targetSql, parameters));
+            delimiter = ", ";
+        }
+
+        // WHEN NOT MATCHED THEN INSERT (column name, ...) VALUES (S.column name, ...)
+        buff.append(" WHEN NOT MATCHED THEN INSERT");
+        appendInsertColumns(buff, targetSql);
+        buff.append(" VALUES ")
+            .append(targetSql.columnInfoStream()
+                .filter(ColumnInfo::insertable)
+                .map(columnInfo -> columnInfo.getColumnName("S"))
+                .collect(Collectors.joining(", ", "(", ")")));
+
+        return buff;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * This implementation returns <b>EXPLAIN</b> <i>sql</i>.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return Collections.singletonList("EXPLAIN " + sql);
+    }
+
+    /**
+     * Appends the source of the <i>MERGE</i> SQL to <b>buff</b>.
+     *
+     * <p>
+     * <b>(VALUES (</b><i>value</i>, ...<b>)) S (</b><i>column name</i>, ...<b>)</b>
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param buff the string buffer to be appended
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param parameters the list to add the parameters of the SQL
+     *
+     * @since 4.1.0
+     */
+    protected <E> void appendMergeSource(StringBuilder buff, Sql<E> sql, List<Object> parameters) {
+        List<ColumnInfo> columnInfos = mergeSourceColumnInfos(sql);
+
+        // (VALUES (value, ...))
+        buff.append("(VALUES (");
+        String delimiter = "";
+        for (ColumnInfo columnInfo : columnInfos) {
+            buff.append(delimiter)
+                .append(getInsertExpression(sql, columnInfo).toString(this, sql, parameters));
+            delimiter = ", ";
+        }
+        buff.append("))");
+
+        // S (column name, ...)
+        buff.append(" S")
+            .append(columnInfos.stream()
+                .map(ColumnInfo::columnName)
+                .collect(Collectors.joining(", ", " (", ")")));
+    }
+
+    /**
+     * Returns the columns of the source of the <i>MERGE</i> SQL,
+     * which are the key columns and the insertable columns.
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @return the columns of the source
+     *
+     * @since 4.1.0
+     */
+    protected <E> List<ColumnInfo> mergeSourceColumnInfos(Sql<E> sql) {
+        return sql.columnInfoStream()
+            .filter(columnInfo -> columnInfo.isKey() || columnInfo.insertable())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the key columns of the UPSERT SQL.
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @return the key columns
+     *
+     * @throws IllegalStateException if the entity class has no key columns
+     *
+     * @since 4.1.0
+     */
+    protected <E> List<ColumnInfo> upsertKeyColumnInfos(Sql<E> sql) {
+        List<ColumnInfo> keyColumnInfos = sql.entityInfo().keyColumnInfos();
+        if (keyColumnInfos.isEmpty())
+            throw new IllegalStateException("upsert: The entity class has no key columns. (" + sql.entityInfo().entityClass().getName() + ")");
+        return keyColumnInfos;
+    }
+
+    /**
+     * Returns the columns to be updated by the UPSERT SQL,
+     * which are the selected updatable columns except the key columns.
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @return the columns to be updated
+     *
+     * @since 4.1.0
+     */
+    protected <E> List<ColumnInfo> upsertUpdateColumnInfos(Sql<E> sql) {
+        return sql.selectedSqlColumnInfoStream()
+            .map(SqlColumnInfo::columnInfo)
+            .filter(columnInfo -> columnInfo.updatable() && !columnInfo.isKey())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the expression specified to <b>sql</b> or the update expression of the column.
+     *
+     * <p>
+     * Returns an empty expression if neither is specified,
+     * then the UPSERT SQL updates the column with the value to be inserted.
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param columnInfo the column information
+     * @return the expression (might be empty)
+     *
+     * @since 4.1.0
+     */
+    protected <E> Expression getUpsertUpdateExpression(Sql<E> sql, ColumnInfo columnInfo) {
+        Expression expression = sql.getExpression(columnInfo.propertyName());
+        if (expression.isEmpty())
+            expression = columnInfo.updateExpression();
+        return expression;
+    }
+
+    /**
+     * Returns the <b>Sql</b> object with the table alias
+     * to distinguish the columns of the target table in the UPSERT SQL.
+     *
+     * <p>
+     * Returns <b>sql</b> itself if it already has a table alias.
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param tableAlias the table alias
+     * @return the <b>Sql</b> object with the table alias
+     *
+     * @since 4.1.0
+     */
+    protected <E> Sql<E> upsertTargetSql(Sql<E> sql, String tableAlias) {
+        if (!sql.tableAlias().isEmpty())
+            return sql;
+
+        Sql<E> targetSql = new Sql<>(sql.entityInfo().entityClass(), tableAlias)
+            .columns(sql.getColumns())
+            .setEntity(sql.entity());
+
+        // Sets expressions to targetSql from sql.
+        sql.columnInfoStream().forEach(columnInfo -> {
+            String propertyName = columnInfo.propertyName();
+            Expression expression = sql.getExpression(propertyName);
+            if (!expression.isEmpty())
+                targetSql.expression(propertyName, expression);
+        });
+
+        return targetSql;
+    }
+
     @Override
     public <E> CharSequence updateSql(Sql<E> sql, List<Object> parameters) {
         StringBuilder buff = new StringBuilder();
@@ -1254,23 +1563,42 @@ public class Standard implements Database {
         sql.columnInfoStream()
             .filter(ColumnInfo::insertable)
             .forEach(columnInfo -> {
-                String propertyName = columnInfo.propertyName();
-
-                // gets expression
-                Expression expression = sql.getExpression(propertyName);
-                if (expression.isEmpty())
-                    expression = columnInfo.insertExpression();
-
-                if (expression.isEmpty())
-                    expression = new Expression("{#" + propertyName + "}");
-
                 buff.append(delimiter[0])
-                    .append(expression.toString(this, sql, parameters));
+                    .append(getInsertExpression(sql, columnInfo).toString(this, sql, parameters));
                 delimiter[0] = ", ";
             });
         buff.append(')');
     }
 
+    /**
+     * Returns the expression of the value of the column to be inserted.
+     *
+     * <p>
+     * Returns the expression specified to <b>sql</b>, the insert expression of the column
+     * or the expression referring the property value of the entity.
+     * </p>
+     *
+     * @param <E> the type of the entity
+     * @param sql the <b>Sql</b> object that contains SQL generation information
+     * @param columnInfo the column information
+     * @return the expression
+     *
+     * @since 4.1.0
+     */
+    protected <E> Expression getInsertExpression(Sql<E> sql, ColumnInfo columnInfo) {
+        String propertyName = columnInfo.propertyName();
+
+        // gets expression
+        Expression expression = sql.getExpression(propertyName);
+        if (expression.isEmpty() && columnInfo.insertExpression() != null)
+            expression = columnInfo.insertExpression();
+
+        if (expression.isEmpty())
+            expression = new Expression("{#" + propertyName + "}");
+
+        return expression;
+    }
+
     /**
      * Appends UPDATE column names and values to <b>buff</b>.
      *
@@ -0,0 +1,47 @@
+// Cacheable.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.entity;
+
+import java.lang.annotation.*;
+
+/**
+ * Indicates that the entities of the class are cached by the key.
+ *
+ * <p>
+ * <b>Sql.select</b> methods with only an entity condition (<b>where(entity)</b>)
+ * return the cached entity without accessing the database.
+ * The cached entities are invalidated by <b>update</b>, <b>delete</b> and <b>upsert</b> methods of <b>Sql</b>.<br>
+ * The entity classes can also be specified by <b>cacheableEntities</b> of lightsleep.properties.
+ * </p>
+ *
+ * <div class="exampleTitle"><span>Java Example</span></div>
+ * <div class="exampleCode"><pre>
+ * <b>{@literal @}Cacheable(maxSize=1000, expireSeconds=60)</b>
+ *  public class Product {
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>Groovy Example</span></div>
+ * <div class="exampleCode"><pre>
+ * <b>{@literal @}Cacheable(maxSize=1000, expireSeconds=60)</b>
+ *  class Product {
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see org.lightsleep.helper.EntityCache
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface Cacheable {
+    /**
+     * @return the maximum number of the cached entities
+     */
+    int maxSize() default 10000;
+
+    /**
+     * @return the seconds until the cached entities expire
+     */
+    int expireSeconds() default 600;
+}
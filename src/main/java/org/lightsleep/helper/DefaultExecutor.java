@@ -0,0 +1,71 @@
+// DefaultExecutor.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.lightsleep.logger.Logger;
+import org.lightsleep.logger.LoggerFactory;
+
+/**
+ * Has the default executor to execute transactions asynchronously.
+ *
+ * <p>
+ * If virtual threads are available (Java 21 or later), the executor starts a new virtual thread for each task.
+ * Otherwise, the executor uses a cached pool of daemon threads.
+ * The executor is shared in the JVM and is provided as an <b>Executor</b>,
+ * so that it cannot be shut down by the callers.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class DefaultExecutor {
+    // The logger
+    private static final Logger logger = LoggerFactory.getLogger(DefaultExecutor.class);
+
+    // true if the executor uses virtual threads
+    private static boolean virtual;
+
+    // The executor service
+    private static final ExecutorService executorService = newExecutor();
+
+    /** The default executor */
+    public static final Executor instance = executorService::execute;
+
+    // Returns a new executor.
+    private static ExecutorService newExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService)Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtual = true;
+            logger.debug("DefaultExecutor: uses virtual threads");
+            return executor;
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            // Virtual threads are not available
+            AtomicInteger threadNo = new AtomicInteger(1);
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "lightsleep-" + threadNo.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Returns whether the default executor uses virtual threads.
+     *
+     * @return <b>true</b> if the default executor uses virtual threads, <b>false</b> otherwise
+     */
+    public static boolean isVirtual() {
+        return virtual;
+    }
+
+    private DefaultExecutor() {
+    }
+}
@@ -0,0 +1,420 @@
+// EntityCache.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A cache of entities keyed by the values of the key columns.
+ *
+ * <p>
+ * The cache is divided into stripes by the hash code of the key,
+ * and each stripe evicts the entities by the segmented LRU
+ * (a probationary segment for the entities accessed once
+ * and a protected segment for the entities accessed twice or more).
+ * The entities expire after the specified time.<br>
+ * When multiple threads request the same missing key at the same time,
+ * only one thread loads the entity and the others wait for it.
+ * </p>
+ *
+ * <p>
+ * The cache stores copies of the entities and returns copies,
+ * which are created by copying the column values with the <b>Accessor</b>.
+ * The values of mutable types (<b>java.util.Date</b> and its subclasses, <b>Calendar</b> and arrays)
+ * are also copied, so that the callers and the cache do not share them.
+ * </p>
+ *
+ * <p>
+ * <b>Sql</b> caches the entities by the keys returned by {@link #keyOf(String, Object)},
+ * so that the entities of the same key values in the databases of different URLs
+ * (for example the shards or the replicas) are cached separately.
+ * </p>
+ *
+ * @param <E> the type of the entity
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see org.lightsleep.entity.Cacheable
+ */
+public class EntityCache<E> {
+    // The maximum number of the stripes (a power of 2)
+    private static final int MAX_STRIPE_COUNT = 16;
+
+    // The minimum capacity of a stripe
+    private static final int MIN_STRIPE_CAPACITY = 64;
+
+    // The entity information
+    private final EntityInfo<E> entityInfo;
+
+    // The nanoseconds until the entities expire
+    private final long expireNanos;
+
+    // The clock that returns the current time in nanoseconds
+    private final LongSupplier nanoClock;
+
+    // The stripes
+    private final List<Stripe<E>> stripes = new ArrayList<>();
+
+    // The version incremented by each invalidation
+    private final AtomicLong version = new AtomicLong();
+
+    // The URLs of the keys returned by keyOf(String, E)
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+    // The loads in progress
+    private final Map<List<Object>, CompletableFuture<E>> loadings = new ConcurrentHashMap<>();
+
+    // The statistics
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    // A cached entity
+    private static class Entry<E> {
+        final E entity;
+        final long expireTime;
+
+        Entry(E entity, long expireTime) {
+            this.entity = entity;
+            this.expireTime = expireTime;
+        }
+    }
+
+    // A stripe of the cache
+    private static class Stripe<E> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private final int protectedCapacity;
+        private final LinkedHashMap<List<Object>, Entry<E>> probationMap = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<List<Object>, Entry<E>> protectedMap = new LinkedHashMap<>(16, 0.75f, true);
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            protectedCapacity = Math.max(capacity * 4 / 5, 1);
+        }
+
+        Entry<E> get(List<Object> key, long now) {
+            lock.lock();
+            try {
+                Entry<E> entry = protectedMap.get(key);
+                if (entry != null) {
+                    if (entry.expireTime - now > 0)
+                        return entry;
+                    protectedMap.remove(key);
+                    return null;
+                }
+
+                entry = probationMap.remove(key);
+                if (entry == null || entry.expireTime - now <= 0)
+                    return null;
+
+                // Promotes to the protected segment
+                protectedMap.put(key, entry);
+                if (protectedMap.size() > protectedCapacity) {
+                    // Demotes the least recently used entity to the probationary segment
+                    Iterator<Map.Entry<List<Object>, Entry<E>>> iterator = protectedMap.entrySet().iterator();
+                    Map.Entry<List<Object>, Entry<E>> eldest = iterator.next();
+                    iterator.remove();
+                    probationMap.put(eldest.getKey(), eldest.getValue());
+                }
+                return entry;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void put(List<Object> key, Entry<E> entry) {
+            lock.lock();
+            try {
+                protectedMap.remove(key);
+                probationMap.put(key, entry);
+                while (probationMap.size() + protectedMap.size() > capacity) {
+                    Iterator<List<Object>> iterator = (probationMap.isEmpty() ? protectedMap : probationMap).keySet().iterator();
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(List<Object> key) {
+            lock.lock();
+            try {
+                if (protectedMap.remove(key) == null)
+                    probationMap.remove(key);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                probationMap.clear();
+                protectedMap.clear();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return probationMap.size() + protectedMap.size();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Constructs a new <b>EntityCache</b>.
+     *
+     * @param entityInfo the entity information
+     * @param maxSize the maximum number of the cached entities
+     * @param expireSeconds the seconds until the cached entities expire
+     *
+     * @throws NullPointerException if <b>entityInfo</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>maxSize</b> or <b>expireSeconds</b> is less than 1
+     */
+    public EntityCache(EntityInfo<E> entityInfo, int maxSize, int expireSeconds) {
+        this(entityInfo, maxSize, expireSeconds, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new <b>EntityCache</b> with the clock.
+     *
+     * @param entityInfo the entity information
+     * @param maxSize the maximum number of the cached entities
+     * @param expireSeconds the seconds until the cached entities expire
+     * @param nanoClock the clock that returns the current time in nanoseconds like <b>System.nanoTime()</b>
+     *
+     * @throws NullPointerException if <b>entityInfo</b> or <b>nanoClock</b> is <b>null</b>
+     * @throws IllegalArgumentException if <b>maxSize</b> or <b>expireSeconds</b> is less than 1
+     */
+    public EntityCache(EntityInfo<E> entityInfo, int maxSize, int expireSeconds, LongSupplier nanoClock) {
+        this.entityInfo = Objects.requireNonNull(entityInfo, "entityInfo is null");
+        this.nanoClock = Objects.requireNonNull(nanoClock, "nanoClock is null");
+        if (maxSize < 1)
+            throw new IllegalArgumentException("maxSize: " + maxSize);
+        if (expireSeconds < 1)
+            throw new IllegalArgumentException("expireSeconds: " + expireSeconds);
+
+        expireNanos = TimeUnit.SECONDS.toNanos(expireSeconds);
+        int stripeCount = Integer.highestOneBit(Math.max(Math.min(maxSize / MIN_STRIPE_CAPACITY, MAX_STRIPE_COUNT), 1));
+        int stripeCapacity = (maxSize + stripeCount - 1) / stripeCount;
+        for (int index = 0; index < stripeCount; ++index)
+            stripes.add(new Stripe<>(stripeCapacity));
+    }
+
+    /**
+     * Returns the stripe of the key.
+     *
+     * @param key the key
+     * @return the stripe
+     */
+    private Stripe<E> stripe(List<Object> key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return stripes.get((hash ^ (hash >>> 16)) & (stripes.size() - 1));
+    }
+
+    /**
+     * Returns the key of the entity.
+     *
+     * @param entity the entity
+     * @return the list of the values of the key columns
+     *
+     * @throws NullPointerException if <b>entity</b> is <b>null</b>
+     */
+    public List<Object> keyOf(E entity) {
+        Objects.requireNonNull(entity, "entity is null");
+        List<Object> key = new ArrayList<>(entityInfo.keyColumnInfos().size());
+        entityInfo.keyColumnInfos()
+            .forEach(columnInfo -> key.add(entityInfo.accessor().getValue(entity, columnInfo.propertyName())));
+        return Collections.unmodifiableList(key);
+    }
+
+    /**
+     * Returns the key of the entity in the database of the URL.
+     *
+     * @param url the URL of the connection supplier
+     * @param entity the entity
+     * @return the list of the URL and the values of the key columns
+     *
+     * @throws NullPointerException if <b>url</b> or <b>entity</b> is <b>null</b>
+     */
+    public List<Object> keyOf(String url, E entity) {
+        Objects.requireNonNull(url, "url is null");
+        List<Object> key = new ArrayList<>(entityInfo.keyColumnInfos().size() + 1);
+        key.add(url);
+        key.addAll(keyOf(entity));
+        urls.add(url);
+        return Collections.unmodifiableList(key);
+    }
+
+    /**
+     * Returns a copy of the cached entity of the key.
+     * If the entity is not cached, loads it with <b>loader</b>, caches a copy of it and returns it.
+     *
+     * <p>
+     * The loaded entity is not cached if the cache is invalidated while loading.
+     * If the other thread is loading the entity of the same key, waits for it and returns a copy of it.
+     * </p>
+     *
+     * @param key the key
+     * @param loader the function to load the entity from the database, which returns <b>null</b> if not found
+     * @return the entity or <b>null</b> if not found
+     *
+     * @throws NullPointerException if <b>key</b> or <b>loader</b> is <b>null</b>
+     */
+    public E get(List<Object> key, Supplier<? extends E> loader) {
+        Objects.requireNonNull(key, "key is null");
+        Objects.requireNonNull(loader, "loader is null");
+
+        Stripe<E> stripe = stripe(key);
+        Entry<E> entry = stripe.get(key, nanoClock.getAsLong());
+        if (entry != null) {
+            hitCount.increment();
+            return copy(entry.entity);
+        }
+
+        CompletableFuture<E> future = new CompletableFuture<>();
+        CompletableFuture<E> loading = loadings.putIfAbsent(key, future);
+        missCount.increment();
+        if (loading != null) {
+            // Waits for the other thread
+            try {
+                E entity = loading.join();
+                return entity == null ? null : copy(entity);
+            }
+            catch (CompletionException | CancellationException e) {
+                // Loads by itself if the other thread failed
+                return loader.get();
+            }
+        }
+
+        try {
+            long loadVersion = version.get();
+            E entity = loader.get();
+            E copied = entity == null ? null : copy(entity);
+            if (copied != null && version.get() == loadVersion)
+                stripe.put(key, new Entry<>(copied, nanoClock.getAsLong() + expireNanos));
+            future.complete(copied);
+            return entity;
+        }
+        catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            loadings.remove(key, future);
+        }
+    }
+
+    /**
+     * Invalidates the cached entity of the key.
+     *
+     * @param key the key
+     *
+     * @throws NullPointerException if <b>key</b> is <b>null</b>
+     */
+    public void invalidate(List<Object> key) {
+        Objects.requireNonNull(key, "key is null");
+        version.incrementAndGet();
+        stripe(key).remove(key);
+    }
+
+    /**
+     * Invalidates the cached entities of the key in the databases of all URLs.
+     *
+     * @param key the key returned by {@link #keyOf(Object)}
+     *
+     * @throws NullPointerException if <b>key</b> is <b>null</b>
+     */
+    public void invalidateAllUrls(List<Object> key) {
+        Objects.requireNonNull(key, "key is null");
+        version.incrementAndGet();
+        urls.forEach(url -> {
+            List<Object> urlKey = new ArrayList<>(key.size() + 1);
+            urlKey.add(url);
+            urlKey.addAll(key);
+            stripe(urlKey).remove(urlKey);
+        });
+    }
+
+    /**
+     * Invalidates all cached entities.
+     */
+    public void invalidateAll() {
+        version.incrementAndGet();
+        stripes.forEach(Stripe::clear);
+    }
+
+    /**
+     * Returns the number of the cached entities.
+     *
+     * @return the number of the cached entities
+     */
+    public int size() {
+        return stripes.stream().mapToInt(Stripe::size).sum();
+    }
+
+    /**
+     * Returns the number of times the cached entity was found.
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of times the cached entity was not found.
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns a copy of the entity.
+     *
+     * @param entity the entity
+     * @return a copy of the entity
+     */
+    private E copy(E entity) {
+        try {
+            E copied = entityInfo.entityClass().getConstructor().newInstance();
+            Accessor<E> accessor = entityInfo.accessor();
+            entityInfo.columnInfos().forEach(columnInfo ->
+                accessor.setValue(copied, columnInfo.propertyName(), Utils.copyValue(accessor.getValue(entity, columnInfo.propertyName()))));
+            return copied;
+        }
+        catch (RuntimeException e) {throw e;}
+        catch (Exception e) {throw new RuntimeException(e);}
+    }
+}
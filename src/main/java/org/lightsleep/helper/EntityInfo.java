@@ -42,6 +42,12 @@ public class EntityInfo<E> {
     // The list of information of the columns which are key
     private final List<ColumnInfo> keyColumnInfos;
 
+    // The entity cache, null if the entities are not cached @since 4.1.0
+    private final EntityCache<E> cache;
+
+    // The class names of the cacheable entities specified by lightsleep.properties @since 4.1.0
+    private static final List<String> cacheableEntities = Resource.getGlobal().getStringList("cacheableEntities");
+
     /**
      * Constructs a new <b>EntityInfo</b>.
      *
@@ -259,6 +265,19 @@ public class EntityInfo<E> {
         columnInfos = columnInfoMap.values().stream().collect(Collectors.toList());
 
         keyColumnInfos = columnInfos.stream().filter(ColumnInfo::isKey).collect(Collectors.toList());
+
+        // @Cacheable / the entity cache @since 4.1.0
+        Cacheable cacheable = entityClass.getAnnotation(Cacheable.class);
+        if (keyColumnInfos.isEmpty())
+            cache = null;
+        else if (cacheable != null)
+            cache = new EntityCache<>(this, cacheable.maxSize(), cacheable.expireSeconds());
+        else if (cacheableEntities.contains(entityClass.getName()))
+            cache = new EntityCache<>(this,
+                Resource.getGlobal().getInt("entityCacheMaxSize", 10000),
+                Resource.getGlobal().getInt("entityCacheExpireSeconds", 600));
+        else
+            cache = null;
     }
 
     /**
@@ -328,4 +347,20 @@ public class EntityInfo<E> {
     public List<ColumnInfo> keyColumnInfos() {
         return keyColumnInfos;
     }
+
+    /**
+     * Returns the entity cache.
+     *
+     * <p>
+     * The entities are cached if the entity class has the key columns and
+     * has <b>{@literal @}Cacheable</b> annotation or is specified by <b>cacheableEntities</b> of lightsleep.properties.
+     * </p>
+     *
+     * @return the entity cache, <b>null</b> if the entities are not cached
+     *
+     * @since 4.1.0
+     */
+    public EntityCache<E> cache() {
+        return cache;
+    }
 }
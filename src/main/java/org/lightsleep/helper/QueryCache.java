@@ -0,0 +1,393 @@
+// QueryCache.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * A cache of the results of <i>SELECT</i> SQLs keyed by the URL of the connection supplier, the SQL and the parameters.
+ *
+ * <p>
+ * Each result is a list of rows, and each row is a map of the column label and the raw column value.
+ * <b>Sql</b> copies the values of mutable types when it reads them, so that the callers and the cache do not share them.
+ * The results are evicted in least recently used order when the estimated size exceeds the memory budget
+ * until it is 7/8 of the budget, and expire after the time to live specified when put.
+ * </p>
+ *
+ * <p>
+ * The results are invalidated by the table name.
+ * The tables of a result are the identifiers in the SQL,
+ * so the tables of the joins, the subqueries and the <i>WITH</i> clauses are included.
+ * Each table has a version incremented by each invalidation,
+ * so that a result is not cached if any of its tables was invalidated while executing the SQL.
+ * </p>
+ *
+ * <p>
+ * The methods do not lock except for the eviction, which is done by one thread at a time.
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see org.lightsleep.Sql#cached(Duration)
+ */
+public class QueryCache {
+    /**
+     * The query cache used by <b>Sql</b>,
+     * the memory budget of which is <b>queryCacheMaxBytes</b> of lightsleep.properties (default: 64MB)
+     */
+    public static final QueryCache instance = new QueryCache(
+        Resource.getGlobal().getValue("queryCacheMaxBytes", Long::valueOf, 64L * 1024 * 1024));
+
+    // The pattern to split a SQL into the identifiers
+    private static final Pattern identifierSeparator = Pattern.compile("[^\\p{L}\\p{N}_$#@]+");
+
+    // The memory budget (bytes)
+    private final long maxBytes;
+
+    // The cached results
+    private final Map<Object, Entry> entryMap = new ConcurrentHashMap<>();
+
+    // The map of key: identifier and value: the keys of the results of which SQL has the identifier
+    private final Map<String, Set<Object>> keysMap = new ConcurrentHashMap<>();
+
+    // The map of key: table name (upper case) and value: the version incremented by each invalidation of the table
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+    // The version incremented by each invalidation of all results
+    private final AtomicLong allVersion = new AtomicLong();
+
+    // The estimated size of the cached results (bytes)
+    private final AtomicLong bytes = new AtomicLong();
+
+    // The lock of the eviction
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // The statistics
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    // A cached result
+    private static class Entry {
+        final List<Map<String, Object>> rows;
+        final Set<String> identifiers;
+        final long bytes;
+        final long expireTime;
+        volatile long accessTime;
+
+        Entry(List<Map<String, Object>> rows, Set<String> identifiers, long bytes, long now, long expireTime) {
+            this.rows = rows;
+            this.identifiers = identifiers;
+            this.bytes = bytes;
+            this.expireTime = expireTime;
+            accessTime = now;
+        }
+    }
+
+    /**
+     * Constructs a new <b>QueryCache</b>.
+     *
+     * @param maxBytes the memory budget (bytes)
+     *
+     * @throws IllegalArgumentException if <b>maxBytes</b> is negative
+     */
+    public QueryCache(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes: " + maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached result of the key.
+     *
+     * @param key the key
+     * @return the unmodifiable list of the rows, <b>null</b> if not cached or expired
+     *
+     * @throws NullPointerException if <b>key</b> is <b>null</b>
+     */
+    public List<Map<String, Object>> get(Object key) {
+        Objects.requireNonNull(key, "key is null");
+        Entry entry = entryMap.get(key);
+        if (entry != null) {
+            long now = System.nanoTime();
+            if (entry.expireTime - now > 0) {
+                entry.accessTime = now;
+                hitCount.increment();
+                return entry.rows;
+            }
+            remove(key, entry);
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * Returns the current version of the tables the SQL refers to,
+     * which is changed by each invalidation of the tables.<br>
+     * Get the version before executing the SQL and pass it to {@link #put(Object, String, List, Duration, long)}.
+     *
+     * @param sql the SQL
+     * @return the current version
+     *
+     * @throws NullPointerException if <b>sql</b> is <b>null</b>
+     */
+    public long version(String sql) {
+        return version(identifiers(Objects.requireNonNull(sql, "sql is null")));
+    }
+
+    /**
+     * Caches the result of the SQL.
+     *
+     * <p>
+     * Does not cache the result if any table the SQL refers to was invalidated after <b>loadVersion</b> was got,
+     * or the estimated size of the result exceeds the memory budget.
+     * </p>
+     *
+     * @param key the key
+     * @param sql the SQL
+     * @param rows the list of the rows
+     * @param timeToLive the time to live of the result
+     * @param loadVersion the version got by {@link #version(String)} before executing the SQL
+     *
+     * @throws NullPointerException if <b>key</b>, <b>sql</b>, <b>rows</b> or <b>timeToLive</b> is <b>null</b>
+     */
+    public void put(Object key, String sql, List<Map<String, Object>> rows, Duration timeToLive, long loadVersion) {
+        Objects.requireNonNull(key, "key is null");
+        Objects.requireNonNull(sql, "sql is null");
+        Objects.requireNonNull(rows, "rows is null");
+        Objects.requireNonNull(timeToLive, "timeToLive is null");
+
+        Set<String> identifiers = identifiers(sql);
+        if (version(identifiers) != loadVersion)
+            return;
+
+        long entryBytes = 64L + sql.length() * 2L + rows.stream().mapToLong(QueryCache::estimateBytes).sum();
+        if (entryBytes > maxBytes)
+            return;
+
+        long now = System.nanoTime();
+        Entry entry = new Entry(Collections.unmodifiableList(new ArrayList<>(rows)), identifiers,
+            entryBytes, now, now + timeToLive.toNanos());
+        Entry oldEntry = entryMap.put(key, entry);
+        bytes.addAndGet(entryBytes - (oldEntry == null ? 0L : oldEntry.bytes));
+        index(key, identifiers);
+
+        // Removes the result if invalidated while putting
+        if (version(identifiers) != loadVersion)
+            remove(key, entry);
+
+        if (bytes.get() > maxBytes)
+            evict();
+    }
+
+    /**
+     * Invalidates the cached results of which SQL refers to the table.
+     *
+     * @param tableName the table name, which can be qualified by the schema name
+     *
+     * @throws NullPointerException if <b>tableName</b> is <b>null</b>
+     */
+    public void invalidate(String tableName) {
+        Objects.requireNonNull(tableName, "tableName is null");
+
+        String[] identifiers = identifierSeparator.split(tableName);
+        if (identifiers.length == 0)
+            return;
+        String identifier = identifiers[identifiers.length - 1].toUpperCase(Locale.ROOT);
+        tableVersions.computeIfAbsent(identifier, k -> new AtomicLong()).incrementAndGet();
+
+        Set<Object> keys = keysMap.get(identifier);
+        if (keys != null)
+            new ArrayList<>(keys).forEach(this::remove);
+    }
+
+    /**
+     * Invalidates all cached results.
+     */
+    public void invalidateAll() {
+        allVersion.incrementAndGet();
+        new ArrayList<>(entryMap.keySet()).forEach(this::remove);
+    }
+
+    /**
+     * Returns the number of the cached results.
+     *
+     * @return the number of the cached results
+     */
+    public int size() {
+        return entryMap.size();
+    }
+
+    /**
+     * Returns the estimated size of the cached results.
+     *
+     * @return the estimated size (bytes)
+     */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the number of times the cached result was found.
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of times the cached result was not found.
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the identifiers in the SQL.
+     *
+     * @param sql the SQL
+     * @return the set of the identifiers (upper case)
+     */
+    private static Set<String> identifiers(String sql) {
+        Set<String> identifiers = new HashSet<>();
+        for (String identifier : identifierSeparator.split(sql))
+            if (!identifier.isEmpty())
+                identifiers.add(identifier.toUpperCase(Locale.ROOT));
+        return identifiers;
+    }
+
+    /**
+     * Returns the sum of the versions of the tables and all results,
+     * which increases whenever any of them is incremented.
+     *
+     * @param identifiers the identifiers in the SQL
+     * @return the version
+     */
+    private long version(Set<String> identifiers) {
+        long version = allVersion.get();
+        for (String identifier : identifiers) {
+            AtomicLong tableVersion = tableVersions.get(identifier);
+            if (tableVersion != null)
+                version += tableVersion.get();
+        }
+        return version;
+    }
+
+    /**
+     * Removes the cached result of the key.
+     *
+     * @param key the key
+     */
+    private void remove(Object key) {
+        Entry entry = entryMap.get(key);
+        if (entry != null)
+            remove(key, entry);
+    }
+
+    /**
+     * Removes the cached result of the key if it is the entry,
+     * and removes the key from the index.
+     *
+     * @param key the key
+     * @param entry the cached result
+     */
+    private void remove(Object key, Entry entry) {
+        if (!entryMap.remove(key, entry))
+            return;
+        bytes.addAndGet(-entry.bytes);
+
+        entry.identifiers.forEach(identifier ->
+            keysMap.computeIfPresent(identifier, (k, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            })
+        );
+
+        // Indexes again if the other thread put the result of the same key
+        if (entryMap.containsKey(key))
+            index(key, entry.identifiers);
+    }
+
+    /**
+     * Adds the key to the index.
+     *
+     * @param key the key
+     * @param identifiers the identifiers in the SQL
+     */
+    private void index(Object key, Set<String> identifiers) {
+        identifiers.forEach(identifier ->
+            keysMap.compute(identifier, (k, keys) -> {
+                if (keys == null)
+                    keys = ConcurrentHashMap.newKeySet();
+                keys.add(key);
+                return keys;
+            })
+        );
+    }
+
+    /**
+     * Evicts the least recently used results until the estimated size is 7/8 of the memory budget.
+     * Does nothing if the other thread is evicting.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock())
+            return;
+        try {
+            if (bytes.get() <= maxBytes)
+                return;
+
+            // Snapshots the access times to sort consistently
+            List<Object[]> candidates = new ArrayList<>(entryMap.size());
+            entryMap.forEach((key, entry) -> candidates.add(new Object[] {key, entry, entry.accessTime}));
+            candidates.sort(Comparator.comparingLong(candidate -> (Long)candidate[2]));
+
+            long targetBytes = maxBytes - maxBytes / 8;
+            for (Object[] candidate : candidates) {
+                if (bytes.get() <= targetBytes)
+                    break;
+                remove(candidate[0], (Entry)candidate[1]);
+            }
+        }
+        finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the estimated size of the row.
+     *
+     * @param row the row
+     * @return the estimated size (bytes)
+     */
+    private static long estimateBytes(Map<String, Object> row) {
+        long rowBytes = 48L;
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            Object value = entry.getValue();
+            rowBytes += 32L + entry.getKey().length() * 2L;
+            if (value instanceof CharSequence)
+                rowBytes += 40L + ((CharSequence)value).length() * 2L;
+            else if (value instanceof byte[])
+                rowBytes += 16L + ((byte[])value).length;
+            else if (value != null)
+                rowBytes += 24L;
+        }
+        return rowBytes;
+    }
+}
@@ -22,6 +22,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.Temporal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collection;
 import java.util.List;
 import java.util.Iterator;
@@ -159,6 +160,29 @@ public class Utils {
         return array;
     }
 
+    /**
+     * Returns a copy of the value if the type of it is mutable, the value itself otherwise.
+     * The values of <b>java.util.Date</b> and its subclasses, <b>Calendar</b> and arrays are copied.
+     *
+     * @param value the value (permit <b>null</b>)
+     * @return a copy of the value or the value
+     *
+     * @since 4.1.0
+     */
+    public static Object copyValue(Object value) {
+        if (value instanceof java.util.Date)
+            return ((java.util.Date)value).clone(); // including java.sql.Date, Time and Timestamp
+        if (value instanceof Calendar)
+            return ((Calendar)value).clone();
+        if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            Object copied = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copied, 0, length);
+            return copied;
+        }
+        return value;
+    }
+
     /**
      * Returns a string representation for the log output of the specified value.
      *
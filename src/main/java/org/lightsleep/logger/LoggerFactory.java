@@ -3,8 +3,8 @@
 
 package org.lightsleep.logger;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.lightsleep.helper.Resource;
 
@@ -47,7 +47,7 @@ public class LoggerFactory {
     private static Class<? extends Logger> loggerClass;
 
     // The logger map
-    private static final Map<String, Logger> loggerMap = new LinkedHashMap<>();
+    private static final Map<String, Logger> loggerMap = new ConcurrentHashMap<>();
 
     static {
         initClass();
@@ -120,7 +120,11 @@ public class LoggerFactory {
             catch (Exception e) {
                 e.printStackTrace();
             }
-            loggerMap.put(name, logger);
+            if (logger != null) {
+                Logger beforeLogger = loggerMap.putIfAbsent(name, logger);
+                if (beforeLogger != null)
+                    logger = beforeLogger;
+            }
         }
         return logger;
     }
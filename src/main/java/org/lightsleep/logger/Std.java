@@ -4,13 +4,39 @@
 package org.lightsleep.logger;
 
 import java.io.PrintStream;
-import java.sql.Timestamp;
-import java.util.function.Supplier;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.lightsleep.helper.Resource;
 
 /**
  * Outputs logs to stdout or stderr.
  *
+ * <p>
+ * <b>Std.Out</b> and <b>Std.Err</b> output in the logging threads.
+ * <b>Std.AsyncOut</b> and <b>Std.AsyncErr</b> (since 4.1.0) output from a background thread,
+ * so the logging threads do not contend for the lock of the stream.
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>Related lightsleep.properties</span></caption>
+ *   <tr><th>Property Name</th><th>Content</th></tr>
+ *   <tr><td>stdLoggerBufferSize</td><td>The maximum number of the entries waiting to be output (default: 8192)</td></tr>
+ *   <tr><td>stdLoggerBufferFullPolicy</td><td><b>block</b> (default): If the buffer is full, the logging threads wait until there is space.<br>
+ *     <b>drop</b>: If the buffer is full, the entries are discarded and the number of them is output later.</td></tr>
+ * </table>
+ *
  * @since 1.0.0
  * @author Masato Kokubo
  */
@@ -187,6 +213,194 @@ public abstract class Std implements Logger {
         }
     }
 
+    /**
+     * Outputs logs to stdout asynchronously from a background thread.
+     *
+     * <p>
+     * The log entries are put into a bounded buffer and written by a daemon thread,
+     * so the calling threads do not wait for the lock of the stream.
+     * The remaining entries are written when the JVM shuts down.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    public static abstract class AsyncOut extends Std {
+        /**
+         * Constructs a new <b>Std.AsyncOut</b> with the logging level.
+         *
+         * @param level the logging level
+         */
+        public AsyncOut(Level level) {
+            super(System.out, level, true);
+        }
+
+        /**
+         * Outputs logs to stdout asynchronously in the trace logging level.
+         */
+        public static class Trace extends AsyncOut {
+            /**
+             * Constructs a new <b>Std.AsyncOut.Trace</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Trace(String name) {super(Level.TRACE);}
+        }
+
+        /**
+         * Outputs logs to stdout asynchronously in the debug logging level.
+         */
+        public static class Debug extends AsyncOut {
+            /**
+             * Constructs a new <b>Std.AsyncOut.Debug</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Debug(String name) {super(Level.DEBUG);}
+        }
+
+        /**
+         * Outputs logs to stdout asynchronously in the info logging level.
+         */
+        public static class Info extends AsyncOut {
+            /**
+             * Constructs a new <b>Std.AsyncOut.Info</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Info (String name) {super(Level.INFO );}
+        }
+
+        /**
+         * Outputs logs to stdout asynchronously in the warn logging level.
+         */
+        public static class Warn extends AsyncOut {
+            /**
+             * Constructs a new <b>Std.AsyncOut.Warn</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Warn (String name) {super(Level.WARN );}
+        }
+
+        /**
+         * Outputs logs to stdout asynchronously in the error logging level.
+         */
+        public static class Error extends AsyncOut {
+            /**
+             * Constructs a new <b>Std.AsyncOut.Error</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Error(String name) {super(Level.ERROR);}
+        }
+
+        /**
+         * Outputs logs to stdout asynchronously in the fatal logging level.
+         */
+        public static class Fatal extends AsyncOut {
+            /**
+             * Constructs a new <b>Std.AsyncOut.Fatal</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Fatal(String name) {super(Level.FATAL);}
+        }
+    }
+
+    /**
+     * Outputs logs to stderr asynchronously from a background thread.
+     *
+     * <p>
+     * The log entries are put into a bounded buffer and written by a daemon thread,
+     * so the calling threads do not wait for the lock of the stream.
+     * The remaining entries are written when the JVM shuts down.
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    public static abstract class AsyncErr extends Std {
+        /**
+         * Constructs a new <b>Std.AsyncErr</b> with the logging level.
+         *
+         * @param level the logging level
+         */
+        public AsyncErr(Level level) {
+            super(System.err, level, true);
+        }
+
+        /**
+         * Outputs logs to stderr asynchronously in the trace logging level.
+         */
+        public static class Trace extends AsyncErr {
+            /**
+             * Constructs a new <b>Std.AsyncErr.Trace</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Trace(String name) {super(Level.TRACE);}
+        }
+
+        /**
+         * Outputs logs to stderr asynchronously in the debug logging level.
+         */
+        public static class Debug extends AsyncErr {
+            /**
+             * Constructs a new <b>Std.AsyncErr.Debug</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Debug(String name) {super(Level.DEBUG);}
+        }
+
+        /**
+         * Outputs logs to stderr asynchronously in the info logging level.
+         */
+        public static class Info extends AsyncErr {
+            /**
+             * Constructs a new <b>Std.AsyncErr.Info</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Info (String name) {super(Level.INFO );}
+        }
+
+        /**
+         * Outputs logs to stderr asynchronously in the warn logging level.
+         */
+        public static class Warn extends AsyncErr {
+            /**
+             * Constructs a new <b>Std.AsyncErr.Warn</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Warn (String name) {super(Level.WARN );}
+        }
+
+        /**
+         * Outputs logs to stderr asynchronously in the error logging level.
+         */
+        public static class Error extends AsyncErr {
+            /**
+             * Constructs a new <b>Std.AsyncErr.Error</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Error(String name) {super(Level.ERROR);}
+        }
+
+        /**
+         * Outputs logs to stderr asynchronously in the fatal logging level.
+         */
+        public static class Fatal extends AsyncErr {
+            /**
+             * Constructs a new <b>Std.AsyncErr.Fatal</b>.
+             *
+             * @param name the name (does not use)
+             */
+            public Fatal(String name) {super(Level.FATAL);}
+        }
+    }
+
     /** The logger level */
     protected enum Level {TRACE, DEBUG, INFO, WARN, ERROR, FATAL}
 
@@ -196,15 +410,14 @@ public abstract class Std implements Logger {
     // The level
     private Level level;
 
-    // The message format
-    private static String messageFormat = "%1$tY-%1$tm-%1$td %1$tH:%1$tM:%1$tS.%1$tL %2$s ";
+    // The writer to output asynchronously, null if outputs synchronously @since 4.1.0
+    private final AsyncWriter asyncWriter;
+
+    // The timestamp format (DateTimeFormatter is thread-safe) @since 4.1.0
+    private static final DateTimeFormatter timestampFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
 
-    // StackTraceElement format
-    // %1: class name
-    // %2: mwthod name
-    // %3: file name
-    // %4: line number
-    private static String stackTraceFormat = "    at %1$s.%2$s (%3$s:%4$d)";
+    // The line separator
+    private static final String lineSeparator = System.lineSeparator();
 
     /**
      * Constructs a new <b>Std</b>.
@@ -213,8 +426,22 @@ public abstract class Std implements Logger {
      * @param level the logging level
      */
     protected Std(PrintStream stream, Level level) {
+        this(stream, level, false);
+    }
+
+    /**
+     * Constructs a new <b>Std</b>.
+     *
+     * @param stream the print stream
+     * @param level the logging level
+     * @param async if <b>true</b>, outputs from a background thread
+     *
+     * @since 4.1.0
+     */
+    protected Std(PrintStream stream, Level level, boolean async) {
         this.stream = Objects.requireNonNull(stream, "stream is null");
         this.level  = Objects.requireNonNull(level , "level is null");
+        asyncWriter = async ? AsyncWriter.instance() : null;
     }
 
     /**
@@ -238,29 +465,224 @@ public abstract class Std implements Logger {
         if (level.compareTo(this.level) < 0)
             return;
 
-        stream.println(String.format(messageFormat, new Timestamp(System.currentTimeMillis()), level) + message);
+        if (asyncWriter != null) {
+            asyncWriter.offer(new Entry(stream, System.currentTimeMillis(), level, message, t));
+            return;
+        }
+
+        // Builds the whole entry first and outputs it at once,
+        // so that the lock of the stream is held only once and briefly
+        StringBuilder buff = new StringBuilder();
+        append(buff, System.currentTimeMillis(), level, message, t);
+        stream.print(buff);
+        stream.flush();
+    }
+
+    /**
+     * Appends a log entry to the string builder.
+     *
+     * @param buff the string builder
+     * @param time the time of the entry (milliseconds since the epoch)
+     * @param level the level
+     * @param message a message
+     * @param t a Throwable (nullable)
+     *
+     * @since 4.1.0
+     */
+    private static void append(StringBuilder buff, long time, Level level, String message, Throwable t) {
+        buff.append(timestampFormatter.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault())))
+            .append(' ').append(level).append(' ').append(message).append(lineSeparator);
 
         boolean isCause = false;
         int elementsCount = 0;
         while (t != null) {
-            stream.println(isCause ? "Caused by: " + t.toString() : t.toString());
+            buff.append(isCause ? "Caused by: " + t.toString() : t.toString()).append(lineSeparator);
             StackTraceElement[] elements = t.getStackTrace();
             if (!isCause)
                 elementsCount = elements.length;
             for (int index = 0; index < elements.length; ++index) {
                 StackTraceElement element = elements[index];
                 if (isCause && index > elements.length - elementsCount) {
-                    stream.println("    ..." + (elementsCount - 1) + " more");
+                    buff.append("    ...").append(elementsCount - 1).append(" more").append(lineSeparator);
                     break;
                 }
-                stream.println(String.format(stackTraceFormat,
-                    element.getClassName(), element.getMethodName(),
-                    element.getFileName(), element.getLineNumber()));
+                buff.append("    at ").append(element.getClassName()).append('.').append(element.getMethodName())
+                    .append(" (").append(element.getFileName()).append(':').append(element.getLineNumber()).append(')')
+                    .append(lineSeparator);
             }
             t = t.getCause();
             isCause = true;
         }
-    ////
+    }
+
+    /**
+     * A log entry waiting to be output.
+     *
+     * @since 4.1.0
+     */
+    private static class Entry {
+        private final PrintStream stream;
+        private final long time;
+        private final Level level;
+        private final String message;
+        private final Throwable throwable;
+        private final CountDownLatch flushed; // not null if the entry is a marker to wait for the output
+
+        private Entry(PrintStream stream, long time, Level level, String message, Throwable throwable) {
+            this.stream    = stream;
+            this.time      = time;
+            this.level     = level;
+            this.message   = message;
+            this.throwable = throwable;
+            flushed        = null;
+        }
+
+        private Entry(CountDownLatch flushed) {
+            stream    = null;
+            time      = 0L;
+            level     = null;
+            message   = null;
+            throwable = null;
+            this.flushed = flushed;
+        }
+    }
+
+    /**
+     * Outputs the log entries from a daemon thread.
+     *
+     * @since 4.1.0
+     */
+    private static class AsyncWriter implements Runnable {
+        // The instance
+        private static volatile AsyncWriter instance;
+
+        // The maximum time to wait for the thread to output the entries at shutdown (ms)
+        private static final long FLUSH_TIMEOUT_MILLIS = 1000L;
+
+        // The entries waiting to be output
+        private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(
+            Math.max(Resource.getGlobal().getInt("stdLoggerBufferSize", 8192), 1));
+
+        // Whether to discard the entries instead of waiting if the queue is full
+        private final boolean dropsOnFull = "drop".equalsIgnoreCase(
+            Resource.getGlobal().getString("stdLoggerBufferFullPolicy", "block"));
+
+        // The number of the entries discarded since the last output
+        private final AtomicLong droppedCount = new AtomicLong();
+
+        // The thread to output the entries
+        private final Thread thread = new Thread(this, "Lightsleep-Std-Logger");
+
+        /**
+         * Returns the instance starting the thread at the first call.
+         *
+         * @return the instance
+         */
+        private static AsyncWriter instance() {
+            AsyncWriter writer = instance;
+            if (writer == null) {
+                synchronized (AsyncWriter.class) {
+                    writer = instance;
+                    if (writer == null) {
+                        writer = new AsyncWriter();
+                        writer.thread.setDaemon(true);
+                        writer.thread.start();
+                        Runtime.getRuntime().addShutdownHook(new Thread(writer::flush, "Lightsleep-Std-Logger-Shutdown"));
+                        instance = writer;
+                    }
+                }
+            }
+            return writer;
+        }
+
+        /**
+         * Puts an entry into the queue.
+         * If the queue is full, waits until there is space or discards the entry according to the policy.
+         *
+         * @param entry the entry
+         */
+        private void offer(Entry entry) {
+            if (queue.offer(entry))
+                return;
+
+            if (!dropsOnFull) {
+                try {
+                    queue.put(entry);
+                    return;
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            droppedCount.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            List<Entry> entries = new ArrayList<>();
+            for (;;) {
+                try {
+                    entries.add(queue.take());
+                }
+                catch (InterruptedException e) {
+                    continue;
+                }
+                queue.drainTo(entries);
+                try {
+                    write(entries);
+                }
+                finally {
+                    entries.forEach(entry -> {if (entry.flushed != null) entry.flushed.countDown();});
+                    entries.clear();
+                }
+            }
+        }
+
+        /**
+         * Outputs the entries, printing consecutive entries for the same stream at once.
+         *
+         * @param entries the entries
+         */
+        private void write(List<Entry> entries) {
+            StringBuilder buff = new StringBuilder();
+            PrintStream stream = null;
+            for (Entry entry : entries) {
+                if (entry.flushed != null)
+                    continue;
+                if (stream != null && entry.stream != stream) {
+                    stream.print(buff);
+                    stream.flush();
+                    buff.setLength(0);
+                }
+                stream = entry.stream;
+                append(buff, entry.time, entry.level, entry.message, entry.throwable);
+            }
+
+            if (stream == null)
+                return;
+
+            long dropped = droppedCount.getAndSet(0L);
+            if (dropped > 0L)
+                append(buff, System.currentTimeMillis(), Level.WARN,
+                    dropped + " log entries were discarded because the buffer was full", null);
+
+            stream.print(buff);
+            stream.flush();
+        }
+
+        /**
+         * Waits until the thread outputs the entries put before, up to {@value #FLUSH_TIMEOUT_MILLIS}ms.
+         */
+        private void flush() {
+            CountDownLatch flushed = new CountDownLatch(1);
+            try {
+                if (queue.offer(new Entry(flushed), FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                    flushed.await(FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     @Override
@@ -325,61 +747,67 @@ public abstract class Std implements Logger {
 
     @Override
     public void trace(Supplier<String> messageSupplier) {
-        trace(messageSupplier.get());
+        if (Level.TRACE.compareTo(level) >= 0)
+            trace(messageSupplier.get());
     }
 
     @Override
     public void debug(Supplier<String> messageSupplier) {
-        debug(messageSupplier.get());
+        if (Level.DEBUG.compareTo(level) >= 0)
+            debug(messageSupplier.get());
     }
 
     @Override
     public void info(Supplier<String> messageSupplier) {
-        info(messageSupplier.get());
+        if (Level.INFO.compareTo(level) >= 0)
+            info(messageSupplier.get());
     }
 
     @Override
     public void warn(Supplier<String> messageSupplier) {
-        warn(messageSupplier.get());
+        if (Level.WARN.compareTo(level) >= 0)
+            warn(messageSupplier.get());
     }
 
     @Override
     public void error(Supplier<String> messageSupplier) {
-        error(messageSupplier.get());
+        if (Level.ERROR.compareTo(level) >= 0)
+            error(messageSupplier.get());
     }
 
     @Override
     public void fatal(Supplier<String> messageSupplier) {
-        fatal(messageSupplier.get());
+        if (Level.FATAL.compareTo(level) >= 0)
+            fatal(messageSupplier.get());
     }
 
     @Override
     public boolean isTraceEnabled() {
-        return true;
+        return Level.TRACE.compareTo(level) >= 0;
     }
 
     @Override
     public boolean isDebugEnabled() {
-        return true;
+        return Level.DEBUG.compareTo(level) >= 0;
     }
 
     @Override
     public boolean isInfoEnabled() {
-        return true;
+        return Level.INFO.compareTo(level) >= 0;
     }
 
     @Override
     public boolean isWarnEnabled() {
-        return true;
+        return Level.WARN.compareTo(level) >= 0;
     }
 
     @Override
     public boolean isErrorEnabled() {
-        return true;
+        return Level.ERROR.compareTo(level) >= 0;
     }
 
     @Override
     public boolean isFatalEnabled() {
-        return true;
+        return Level.FATAL.compareTo(level) >= 0;
     }
 }
@@ -0,0 +1,157 @@
+// ExecutionStats.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * SQLの1回の実行の時間の内訳です。
+ *
+ * <p>
+ * 時間は以下のフェーズにナノ秒単位で分けられます。
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>フェーズ</span></caption>
+ *   <tr><th>フェーズ</th><th>内容</th></tr>
+ *   <tr><td>connectionWait</td><td>トランザクションでコネクションを取得する時間 (トランザクション内のSQLで共通)</td></tr>
+ *   <tr><td>generate</td><td>式の値の変換を含むSQLを生成する時間</td></tr>
+ *   <tr><td>bind</td><td>ステートメントにパラメータを設定する時間</td></tr>
+ *   <tr><td>execute</td><td>ステートメントを実行する時間</td></tr>
+ *   <tr><td>fetch</td><td>JDBCドライバが行を取得する時間</td></tr>
+ *   <tr><td>mapping</td><td>行からエンティティを生成する時間</td></tr>
+ *   <tr><td>consumer</td><td>エンティティのコンシューマ内で費やされた時間</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Sql#lastExecutionStats()
+ * @see Sql#addExecutionStatsListener(java.util.function.Consumer)
+ */
+public class ExecutionStats {
+    /**
+     * <b>ExecutionStats</b>を構築します。
+     *
+     * @param sql SQL
+     * @param rowCount 取得または更新された行数
+     * @param estimatedBytes 取得したカラム値の推定サイズ (バイト)
+     * @param connectionWaitNanos コネクションを取得する時間 (ナノ秒)。不明な場合は-1
+     * @param generateNanos SQLを生成する時間 (ナノ秒)
+     * @param bindNanos パラメータを設定する時間 (ナノ秒)
+     * @param executeNanos ステートメントを実行する時間 (ナノ秒)
+     * @param fetchNanos JDBCドライバが行を取得する時間 (ナノ秒)
+     * @param mappingNanos エンティティを生成する時間 (ナノ秒)
+     * @param consumerNanos コンシューマ内で費やされた時間 (ナノ秒)
+     */
+    public ExecutionStats(String sql, int rowCount, long estimatedBytes,
+        long connectionWaitNanos, long generateNanos, long bindNanos,
+        long executeNanos, long fetchNanos, long mappingNanos, long consumerNanos) {
+    }
+
+    /**
+     * SQLを返します。
+     *
+     * @return SQL
+     */
+    public String sql() {
+        return null;
+    }
+
+    /**
+     * 取得または更新された行数を返します。
+     *
+     * @return 行数
+     */
+    public int rowCount() {
+        return 0;
+    }
+
+    /**
+     * 取得したカラム値の推定サイズを返します。
+     *
+     * @return 推定サイズ (バイト)
+     */
+    public long estimatedBytes() {
+        return 0L;
+    }
+
+    /**
+     * トランザクションでコネクションを取得する時間を返します。
+     *
+     * @return 時間 (ナノ秒)。不明な場合は-1
+     */
+    public long connectionWaitNanos() {
+        return 0L;
+    }
+
+    /**
+     * SQLを生成する時間を返します。
+     *
+     * @return 時間 (ナノ秒)
+     */
+    public long generateNanos() {
+        return 0L;
+    }
+
+    /**
+     * ステートメントにパラメータを設定する時間を返します。
+     *
+     * @return 時間 (ナノ秒)
+     */
+    public long bindNanos() {
+        return 0L;
+    }
+
+    /**
+     * ステートメントを実行する時間を返します。
+     *
+     * @return 時間 (ナノ秒)
+     */
+    public long executeNanos() {
+        return 0L;
+    }
+
+    /**
+     * JDBCドライバが行を取得する時間を返します。
+     *
+     * @return 時間 (ナノ秒)
+     */
+    public long fetchNanos() {
+        return 0L;
+    }
+
+    /**
+     * 行からエンティティを生成する時間を返します。
+     *
+     * @return 時間 (ナノ秒)
+     */
+    public long mappingNanos() {
+        return 0L;
+    }
+
+    /**
+     * エンティティのコンシューマ内で費やされた時間を返します。
+     *
+     * @return 時間 (ナノ秒)
+     */
+    public long consumerNanos() {
+        return 0L;
+    }
+
+    /**
+     * Lightsleep内で費やされた時間 (<b>generate</b>、<b>bind</b>および<b>mapping</b>の合計) を返します。
+     *
+     * @return 時間 (ナノ秒)
+     */
+    public long libraryNanos() {
+        return 0L;
+    }
+
+    /**
+     * データベースおよびJDBCドライバで費やされた時間 (<b>execute</b>および<b>fetch</b>の合計) を返します。
+     *
+     * @return 時間 (ナノ秒)
+     */
+    public long databaseNanos() {
+        return 0L;
+    }
+}
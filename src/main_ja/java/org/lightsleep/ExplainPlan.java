@@ -0,0 +1,88 @@
+// ExplainPlan.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * データベースが返すSQLの実行計画です。
+ *
+ * <p>
+ * 実行計画は{@link org.lightsleep.database.Database#explainSqls(CharSequence)}のSQLが返す行で、
+ * 例えばPostgreSQLおよびMySQLでは1行のJSONドキュメント、
+ * SQLiteでは<b>EXPLAIN QUERY PLAN</b>の行、
+ * Oracleでは<b>DBMS_XPLAN.DISPLAY</b>の行です。
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Sql#explain()
+ * @see SlowQueryLog
+ */
+public class ExplainPlan {
+    /**
+     * <b>ExplainPlan</b>を構築します。
+     *
+     * @param sql 実行計画を取得したSQL
+     * @param rows 実行計画の行 (各行はキー: カラム・ラベル、値: カラム値のマップ)
+     * @param capturedTime 実行計画を取得した時刻
+     */
+    public ExplainPlan(String sql, List<Map<String, Object>> rows, Instant capturedTime) {
+    }
+
+    /**
+     * 実行計画を取得したSQLを返します。
+     *
+     * @return 実行計画を取得したSQL
+     */
+    public String sql() {
+        return null;
+    }
+
+    /**
+     * 実行計画の行を返します。
+     *
+     * @return 実行計画の行の変更不可リスト (各行はキー: カラム・ラベル、値: カラム値のマップ)
+     */
+    public List<Map<String, Object>> rows() {
+        return null;
+    }
+
+    /**
+     * 実行計画を取得した時刻を返します。
+     *
+     * @return 実行計画を取得した時刻
+     */
+    public Instant capturedTime() {
+        return null;
+    }
+
+    /**
+     * 実行計画をテキストとして返します。
+     *
+     * <p>
+     * 各行はタブで区切られたカラム値の1行になります。
+     * </p>
+     *
+     * @return 実行計画のテキスト
+     */
+    public String text() {
+        return null;
+    }
+
+    /**
+     * 実行計画に全表スキャンが含まれるかどうかを返します。
+     *
+     * <p>
+     * PostgreSQL、MySQL、MariaDB、SQLite、OracleおよびH2の表記から判定します。
+     * </p>
+     *
+     * @return 全表スキャンが含まれる場合は<b>true</b>、そうでなければ<b>false</b>
+     */
+    public boolean hasFullScan() {
+        return false;
+    }
+}
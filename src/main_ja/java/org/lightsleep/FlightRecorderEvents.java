@@ -0,0 +1,100 @@
+// FlightRecorderEvents.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * LightsleepのJava Flight Recorderイベントを発行します。
+ *
+ * <p>
+ * イベントはフライト・レコーディングの実行中のみ発行されるため、
+ * レコーディングが実行されていない場合のオーバーヘッドはフラグのチェックのみです。
+ * イベントは実行時に<b>jdk.jfr.EventFactory</b>で定義され、
+ * Javaランタイムに<b>jdk.jfr</b>モジュールがない場合は何もしません。
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>イベント</span></caption>
+ *   <tr><th>イベント名</th><th>期間</th><th>フィールド</th></tr>
+ *   <tr><td>org.lightsleep.StatementExecute</td><td>準備から行の取得の終了まで</td>
+ *     <td>connection, fingerprint, rowCount, executeTime, fetchTime, succeeded</td></tr>
+ *   <tr><td>org.lightsleep.BatchFlush</td><td>バッチの実行</td>
+ *     <td>connection, fingerprint, statementCount, rowCount, succeeded</td></tr>
+ *   <tr><td>org.lightsleep.Transaction</td><td>開始からコミットまたはロールバックまで</td>
+ *     <td>connectionSupplier, outcome (commitまたはrollback)</td></tr>
+ *   <tr><td>org.lightsleep.ConnectionAcquire</td><td>データソースからの取得</td>
+ *     <td>connectionSupplier</td></tr>
+ *   <tr><td>org.lightsleep.ConnectionClose</td><td>コネクションのクローズ</td>
+ *     <td>connection, heldTime</td></tr>
+ * </table>
+ *
+ * <table class="additional">
+ *   <caption><span>関連するlightsleep.properties</span></caption>
+ *   <tr><th>プロパティ名</th><th>内容</th></tr>
+ *   <tr><td>flightRecorderEvents</td><td>イベントを発行するかどうか (デフォルト: true)</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public final class FlightRecorderEvents {
+    /** ステートメントの実行ごとに発行されるイベントのタイプ */
+    public static final Type STATEMENT_EXECUTE = null;
+
+    /** バッチの実行ごとに発行されるイベントのタイプ */
+    public static final Type BATCH_FLUSH = null;
+
+    /** トランザクションごとに発行されるイベントのタイプ */
+    public static final Type TRANSACTION = null;
+
+    /** コネクションの取得ごとに発行されるイベントのタイプ */
+    public static final Type CONNECTION_ACQUIRE = null;
+
+    /** コネクションのクローズごとに発行されるイベントのタイプ */
+    public static final Type CONNECTION_CLOSE = null;
+
+    /**
+     * フライト・レコーディングが実行中でイベントが発行されるかどうかを返します。
+     *
+     * @return フライト・レコーディングが実行中の場合は<b>true</b>、そうでなければ<b>false</b>
+     */
+    public static boolean isRecording() {
+        return false;
+    }
+
+    /**
+     * フライト・レコーディングが実行中であればイベントを開始します。
+     *
+     * @param type イベントのタイプ
+     * @return {@link #commit(Object, Object...)}に渡すイベント・オブジェクト、レコーディングが実行中でない場合は<b>null</b>
+     */
+    public static Object begin(Type type) {
+        return null;
+    }
+
+    /**
+     * イベントを終了し、フィールド値を設定してコミットします。
+     * <b>event</b>が<b>null</b>の場合は何もしません。
+     *
+     * @param event {@link #begin(Type)}が返したイベント・オブジェクト
+     * @param values イベント・タイプのフィールドの順のフィールド値
+     */
+    public static void commit(Object event, Object... values) {
+    }
+
+    /**
+     * イベントのタイプです。
+     *
+     * @since 4.1.0
+     */
+    public static final class Type {
+        /**
+         * イベント名を返します。
+         *
+         * @return イベント名
+         */
+        public String name() {
+            return null;
+        }
+    }
+}
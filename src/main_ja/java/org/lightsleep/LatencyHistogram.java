@@ -0,0 +1,155 @@
+// LatencyHistogram.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * ナノ秒単位のレイテンシのヒストグラムです。
+ *
+ * <p>
+ * レイテンシの2のべき乗ごとの範囲をそれぞれ16個の線形バケットに分割するため、
+ * パーセンタイルの相対誤差は最大1/16です。
+ * 記録はロックせず、複数のスレッドから同時にコールできます。
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see SqlMetrics
+ */
+public class LatencyHistogram {
+    /**
+     * レイテンシを記録します。
+     *
+     * @param nanos レイテンシ (ナノ秒)。負の場合は0として扱います
+     */
+    public void record(long nanos) {
+    }
+
+    /**
+     * 記録されたレイテンシの数を返します。
+     *
+     * @return 記録されたレイテンシの数
+     */
+    public long count() {
+        return 0L;
+    }
+
+    /**
+     * 記録されたレイテンシの平均を返します。
+     *
+     * @return 平均 (ナノ秒)。何も記録されていない場合は0
+     */
+    public double mean() {
+        return 0.0;
+    }
+
+    /**
+     * 記録されたレイテンシの最大値を返します。
+     *
+     * @return 最大値 (ナノ秒)
+     */
+    public long max() {
+        return 0L;
+    }
+
+    /**
+     * パーセンタイルのレイテンシを返します。
+     *
+     * @param percentile パーセンタイル (0.0 - 100.0)
+     * @return パーセンタイルのバケットの最大のレイテンシ (ナノ秒)。何も記録されていない場合は0
+     *
+     * @throws IllegalArgumentException <b>percentile</b>が範囲外の場合
+     */
+    public long percentile(double percentile) {
+        return 0L;
+    }
+
+    /**
+     * 記録されたレイテンシをクリアします。
+     */
+    public void reset() {
+    }
+
+    /**
+     * 記録されたレイテンシの統計を返します。
+     *
+     * @return 統計
+     */
+    public Statistics statistics() {
+        return null;
+    }
+
+    /**
+     * 記録されたレイテンシのミリ秒単位の統計です。
+     *
+     * @since 4.1.0
+     */
+    public static class Statistics {
+        /**
+         * <b>Statistics</b>を構築します。
+         *
+         * @param count 記録されたレイテンシの数
+         * @param meanNanos 平均 (ナノ秒)
+         * @param p50Nanos 50パーセンタイル (ナノ秒)
+         * @param p90Nanos 90パーセンタイル (ナノ秒)
+         * @param p99Nanos 99パーセンタイル (ナノ秒)
+         * @param maxNanos 最大値 (ナノ秒)
+         */
+        public Statistics(long count, double meanNanos, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+        }
+
+        /**
+         * 記録されたレイテンシの数を返します。
+         *
+         * @return 記録されたレイテンシの数
+         */
+        public long getCount() {
+            return 0L;
+        }
+
+        /**
+         * 平均を返します。
+         *
+         * @return 平均 (ミリ秒)
+         */
+        public double getMean() {
+            return 0.0;
+        }
+
+        /**
+         * 50パーセンタイルを返します。
+         *
+         * @return 50パーセンタイル (ミリ秒)
+         */
+        public double getP50() {
+            return 0.0;
+        }
+
+        /**
+         * 90パーセンタイルを返します。
+         *
+         * @return 90パーセンタイル (ミリ秒)
+         */
+        public double getP90() {
+            return 0.0;
+        }
+
+        /**
+         * 99パーセンタイルを返します。
+         *
+         * @return 99パーセンタイル (ミリ秒)
+         */
+        public double getP99() {
+            return 0.0;
+        }
+
+        /**
+         * 最大値を返します。
+         *
+         * @return 最大値 (ミリ秒)
+         */
+        public double getMax() {
+            return 0.0;
+        }
+    }
+}
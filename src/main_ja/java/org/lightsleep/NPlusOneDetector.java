@@ -0,0 +1,88 @@
+// NPlusOneDetector.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * N+1クエリの検出器で、<b>org.lightsleep.NPlusOneDetector</b>という名前のロガーに報告します。
+ *
+ * <p>
+ * {@link Transaction#execute(Transaction)}メソッドで実行されるトランザクション内で
+ * SQLの実行回数をフィンガープリント ({@link SqlMetrics#fingerprint(CharSequence)}を参照) ごとに数え、
+ * あるフィンガープリントのSQLがしきい値の回数を超えて実行された場合に報告します。
+ * 報告はトランザクション内でフィンガープリントごとに1回WARNレベルでログ出力されるか、
+ * スローが有効な場合 (例えばテスト時) は{@link NPlusOneException}としてスローされます。
+ * 報告にはLightsleep外の呼び出し箇所が含まれ、
+ * 1件ずつではなく複数のキーの行をまとめて取得することが提案されます。
+ * </p>
+ *
+ * <p>
+ * 実行回数はトランザクションがコミットまたはロールバックされた時、
+ * またはコネクションがクローズされた時に破棄されます。
+ * しきい値が負の場合は何も数えません。
+ * </p>
+ *
+ * <div class="exampleTitle"><span>使用例/Java</span></div>
+ * <div class="exampleCode"><pre>
+ * NPlusOneDetector.instance.<b>setThreshold(10)</b>;
+ * NPlusOneDetector.instance.<b>setThrowing(true)</b>;
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+ * <div class="exampleCode"><pre>
+ * NPlusOneDetector.instance.<b>threshold = 10</b>
+ * NPlusOneDetector.instance.<b>throwing = true</b>
+ * </pre></div>
+ *
+ * <p>
+ * デフォルト値はlightsleep.propertiesで以下のように指定します。
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>lightsleep.properties</span></caption>
+ *   <tr><th>プロパティ名</th><th>内容</th><th>デフォルト</th></tr>
+ *   <tr><td>nPlusOneThreshold</td><td>トランザクション内での同じフィンガープリントの最大実行回数</td><td>-1 (検出しない)</td></tr>
+ *   <tr><td>nPlusOneThrow</td><td>ログ出力の代わりに<b>NPlusOneException</b>をスローするかどうか</td><td>false</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class NPlusOneDetector {
+    /** <b>Transaction</b>および<b>Sql</b>が使用するN+1クエリ検出器 */
+    public static final NPlusOneDetector instance = null;
+
+    /**
+     * トランザクション内での同じフィンガープリントの最大実行回数を設定します。
+     *
+     * @param threshold 最大実行回数。検出しない場合は負の値
+     */
+    public void setThreshold(int threshold) {
+    }
+
+    /**
+     * トランザクション内での同じフィンガープリントの最大実行回数を返します。
+     *
+     * @return 最大実行回数。検出しない場合は負の値
+     */
+    public int getThreshold() {
+        return 0;
+    }
+
+    /**
+     * ログ出力の代わりに<b>NPlusOneException</b>をスローするかどうかを設定します。
+     *
+     * @param throwing 例外をスローする場合は<b>true</b>、ログ出力する場合は<b>false</b>
+     */
+    public void setThrowing(boolean throwing) {
+    }
+
+    /**
+     * ログ出力の代わりに<b>NPlusOneException</b>をスローするかどうかを返します。
+     *
+     * @return 例外をスローする場合は<b>true</b>、ログ出力する場合は<b>false</b>
+     */
+    public boolean isThrowing() {
+        return false;
+    }
+}
@@ -0,0 +1,22 @@
+// NPlusOneException.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * トランザクション内で同じフィンガープリントのSQLがしきい値の回数を超えて実行された場合に
+ * {@link NPlusOneDetector}がこの例外をスローします。
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+@SuppressWarnings("serial")
+public class NPlusOneException extends RuntimeException {
+    /**
+     * 指定の詳細メッセージで新規<b>NPlusOneException</b>を構築します。
+     *
+     * @param message 詳細メッセージ
+     */
+    public NPlusOneException(String message) {
+    }
+}
@@ -0,0 +1,81 @@
+// Publisher.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+/**
+ * サブスクライバの要求に応じてエンティティを発行するパブリッシャです。
+ *
+ * <p>
+ * このインターフェースの形は<b>org.reactivestreams.Publisher</b>および
+ * <b>java.util.concurrent.Flow.Publisher</b> (Java 9以降) と同じなので、メソッド参照でそれらに適合させることができます。
+ * </p>
+ *
+ * @param <T> エンティティの型
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see Sql#publish()
+ * @see Sql#publishAs(Class)
+ */
+@FunctionalInterface
+public interface Publisher<T> {
+    /**
+     * サブスクライバへのエンティティの発行を開始するようにこのパブリッシャに要求します。
+     *
+     * @param subscriber サブスクライバ
+     *
+     * @throws NullPointerException <b>subscriber</b>が<b>null</b>の場合
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+
+    /**
+     * エンティティの受信者です。
+     *
+     * @param <T> エンティティの型
+     */
+    interface Subscriber<T> {
+        /**
+         * このサブスクライバの他のメソッドより前にコールされます。
+         *
+         * @param subscription サブスクリプション
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * 次のエンティティでコールされます。
+         *
+         * @param item エンティティ
+         */
+        void onNext(T item);
+
+        /**
+         * エラーが発生した場合にコールされます。
+         *
+         * @param throwable エラー
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * すべてのエンティティを発行した時にコールされます。
+         */
+        void onComplete();
+    }
+
+    /**
+     * パブリッシャとサブスクライバのリンクです。
+     */
+    interface Subscription {
+        /**
+         * 要求するエンティティの数に<b>n</b>を加えます。
+         *
+         * @param n エンティティの数 (正でない場合は<b>IllegalArgumentException</b>で<b>onError</b>がコールされる)
+         */
+        void request(long n);
+
+        /**
+         * エンティティの発行の中止をパブリッシャに要求します。
+         */
+        void cancel();
+    }
+}
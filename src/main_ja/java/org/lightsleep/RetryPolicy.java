@@ -0,0 +1,157 @@
+// RetryPolicy.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import org.lightsleep.database.Database;
+
+/**
+ * デッドロックやシリアライゼーション失敗などのリトライ可能な例外で失敗したトランザクションをリトライするポリシーです。
+ *
+ * <p>
+ * {@link Transaction#execute(org.lightsleep.connection.ConnectionSupplier, RetryPolicy, Transaction)}は、
+ * トランザクション内でスローされた例外またはその原因のいずれかが、データベース・ハンドラの
+ * {@link Database#isRetryable(SQLException)}でリトライ可能と判定される<b>SQLException</b>の場合、
+ * トランザクションをロールバックし、コネクションをクローズして、バックオフ時間だけ待機した後、
+ * トランザクション全体を再度実行します。
+ * </p>
+ *
+ * <p>
+ * バックオフ時間は、0から<i>initialBackoff</i> &times; 2<sup><i>リトライ回数</i></sup>
+ * (<i>maxBackoff</i>が上限) までのランダムな時間 (フル・ジッタ) です。
+ * リトライはこのポリシーを使用するトランザクションで共有されるバジェットで制限されます。
+ * バジェットはトランザクションごとに<i>budgetRatio</i>増え、リトライごとに1減り、最大{@value #MAX_BUDGET}で、
+ * 激しい競合時にリトライが負荷を倍増させないようにします。
+ * </p>
+ *
+ * <p>
+ * <span class="simpleTagLabel">注意:</span>
+ * トランザクションの本体は最初から再度実行されるため、トランザクション外への副作用があってはなりません。
+ * </p>
+ *
+ * <div class="exampleTitle"><span>使用例/Java</span></div>
+ * <div class="exampleCode"><pre>
+ * var retryPolicy = new <b>RetryPolicy(3, Duration.ofMillis(10), Duration.ofSeconds(1), 0.1)</b>;
+ * Transaction.execute(ConnectionSupplier.find(), <b>retryPolicy</b>, conn -&gt; {
+ *     ...
+ * });
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+ * <div class="exampleCode"><pre>
+ * def retryPolicy = new <b>RetryPolicy(3, Duration.ofMillis(10), Duration.ofSeconds(1), 0.1)</b>
+ * Transaction.execute(ConnectionSupplier.find(), <b>retryPolicy</b>) {
+ *     ...
+ * }
+ * </pre></div>
+ *
+ * <p>
+ * その他の<b>Transaction.execute</b>メソッドが使用するデフォルトのポリシーは
+ * lightsleep.propertiesで以下のように指定します。
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>lightsleep.properties</span></caption>
+ *   <tr><th>プロパティ名</th><th>内容</th><th>デフォルト</th></tr>
+ *   <tr><td>transactionMaxAttempts</td><td>最初を含む最大試行回数</td><td>1 (リトライしない)</td></tr>
+ *   <tr><td>transactionRetryInitialBackoffMillis</td><td>初期バックオフ時間 (ms)</td><td>10</td></tr>
+ *   <tr><td>transactionRetryMaxBackoffMillis</td><td>最大バックオフ時間 (ms)</td><td>1000</td></tr>
+ *   <tr><td>transactionRetryBudgetRatio</td><td>トランザクションごとに増えるリトライのバジェット</td><td>0.1</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see SqlMetrics.SupplierStatistics#getRetryCount()
+ */
+public class RetryPolicy {
+    /** リトライのバジェットの最大値 */
+    public static final int MAX_BUDGET = 10;
+
+    /** リトライしないポリシー */
+    public static final RetryPolicy NONE = null;
+
+    /**
+     * <b>RetryPolicy</b>を構築します。
+     *
+     * @param maxAttempts 最初を含む最大試行回数
+     * @param initialBackoff 初期バックオフ時間
+     * @param maxBackoff 最大バックオフ時間
+     * @param budgetRatio トランザクションごとに増えるリトライのバジェット
+     *
+     * @throws NullPointerException <b>initialBackoff</b>または<b>maxBackoff</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>maxAttempts</b> &lt; 1、バックオフ時間が負、または<b>budgetRatio</b> &lt; 0の場合
+     */
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double budgetRatio) {
+    }
+
+    /**
+     * デフォルトのポリシーを返します。
+     *
+     * @return デフォルトのポリシー
+     */
+    public static RetryPolicy getDefault() {
+        return null;
+    }
+
+    /**
+     * デフォルトのポリシーを設定します。
+     *
+     * @param retryPolicy デフォルトのポリシー
+     *
+     * @throws NullPointerException <b>retryPolicy</b>が<b>null</b>の場合
+     */
+    public static void setDefault(RetryPolicy retryPolicy) {
+    }
+
+    /**
+     * 最初を含む最大試行回数を返します。
+     *
+     * @return 最大試行回数
+     */
+    public int maxAttempts() {
+        return 0;
+    }
+
+    /**
+     * 初期バックオフ時間を返します。
+     *
+     * @return 初期バックオフ時間
+     */
+    public Duration initialBackoff() {
+        return null;
+    }
+
+    /**
+     * 最大バックオフ時間を返します。
+     *
+     * @return 最大バックオフ時間
+     */
+    public Duration maxBackoff() {
+        return null;
+    }
+
+    /**
+     * トランザクションごとに増えるリトライのバジェットを返します。
+     *
+     * @return バジェットの比率
+     */
+    public double budgetRatio() {
+        return 0.0;
+    }
+
+    /**
+     * 例外またはその原因のいずれかが、データベース・ハンドラでリトライ可能と判定される<b>SQLException</b>かどうかを返します。
+     *
+     * @param database データベース・ハンドラ
+     * @param exception 例外
+     * @return リトライ可能な場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @throws NullPointerException <b>database</b>または<b>exception</b>が<b>null</b>の場合
+     */
+    public static boolean isRetryable(Database database, Throwable exception) {
+        return false;
+    }
+}
@@ -0,0 +1,177 @@
+// SlowQueryLog.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.lightsleep.connection.ConnectionWrapper;
+
+/**
+ * 遅いSQLのログで、<b>org.lightsleep.SlowQueryLog</b>という名前のロガーに出力されます。
+ *
+ * <p>
+ * 実行時間、行の取得時間および合計時間のいずれかのしきい値を超えたSQLはWARNレベルでログ出力され、
+ * その他のSQLはサンプリング率に従ってINFOレベルでログ出力されます。
+ * しきい値はエンティティ・クラスごとおよびSQLのフィンガープリント
+ * ({@link SqlMetrics#fingerprint(CharSequence)}を参照) ごとに指定でき、
+ * その順にデフォルトのしきい値より優先されます。
+ * </p>
+ *
+ * <p>
+ * 各エントリには、SQL、パラメータ、行数、コネクションおよびLightsleep外の呼び出し箇所が含まれます。
+ * lightsleep.propertiesの<b>slowQueryLogParameters</b>が<b>true</b>でない限り、
+ * パラメータは型と長さにマスクされ、SQLの代わりにフィンガープリントをログ出力することでSQL内のリテラルもマスクされます。
+ * ログ出力されないSQLについては何も生成されません。
+ * </p>
+ *
+ * <p>
+ * 実行計画の取得が有効な場合、遅い<i>SELECT</i> SQLの実行計画を同じコネクションで{@link Sql#explain()}と同様に取得し、
+ * エントリに追加してフィンガープリントごとに保持します ({@link #getPlan(String)}を参照)。
+ * コネクションがオート・コミットでない場合、失敗してもトランザクションが中断されないように
+ * 実行計画はセーブポイント内で取得されます。
+ * </p>
+ *
+ * <p>
+ * デフォルト値はlightsleep.propertiesで以下のように指定します。
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>lightsleep.properties</span></caption>
+ *   <tr><th>プロパティ名</th><th>内容</th><th>デフォルト</th></tr>
+ *   <tr><td>slowQueryExecuteMillis</td><td>実行時間のしきい値 (ms)</td><td>-1 (なし)</td></tr>
+ *   <tr><td>slowQueryFetchMillis</td><td>行の取得時間のしきい値 (ms)</td><td>-1 (なし)</td></tr>
+ *   <tr><td>slowQueryTotalMillis</td><td>合計時間のしきい値 (ms)</td><td>1000</td></tr>
+ *   <tr><td>slowQuerySampleRate</td><td>その他のSQLのサンプリング率 (0.0 - 1.0)</td><td>0.0</td></tr>
+ *   <tr><td>slowQueryLogParameters</td><td>パラメータ値をログ出力するかどうか</td><td>false</td></tr>
+ *   <tr><td>slowQueryExplain</td><td>遅い<i>SELECT</i> SQLの実行計画を取得するかどうか</td><td>false</td></tr>
+ *   <tr><td>slowQueryExplainIntervalMillis</td><td>同じフィンガープリントの実行計画を再度取得するまでの最小間隔 (ms)</td><td>60000</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class SlowQueryLog {
+    /** <b>Sql</b>が使用するスロー・クエリ・ログ */
+    public static final SlowQueryLog instance = null;
+
+    /**
+     * SQLの時間のしきい値です。
+     *
+     * @since 4.1.0
+     */
+    public static class Thresholds {
+        /**
+         * <b>Thresholds</b>を構築します。
+         *
+         * @param execute 実行時間のしきい値 (ない場合は<b>null</b>)
+         * @param fetch 行の取得時間のしきい値 (ない場合は<b>null</b>)
+         * @param total 合計時間のしきい値 (ない場合は<b>null</b>)
+         */
+        public Thresholds(Duration execute, Duration fetch, Duration total) {
+        }
+    }
+
+    /**
+     * ロガー名<b>org.lightsleep.SlowQueryLog</b>に出力する<b>SlowQueryLog</b>を構築します。
+     */
+    public SlowQueryLog() {
+    }
+
+    /**
+     * デフォルトのしきい値を設定します。
+     *
+     * @param thresholds しきい値
+     *
+     * @throws NullPointerException <b>thresholds</b>が<b>null</b>の場合
+     */
+    public void setThresholds(Thresholds thresholds) {
+    }
+
+    /**
+     * エンティティ・クラスのSQLのしきい値を設定します。
+     *
+     * @param entityClass エンティティ・クラス
+     * @param thresholds しきい値 (削除する場合は<b>null</b>)
+     *
+     * @throws NullPointerException <b>entityClass</b>が<b>null</b>の場合
+     */
+    public void setThresholds(Class<?> entityClass, Thresholds thresholds) {
+    }
+
+    /**
+     * SQLと同じフィンガープリントのSQLのしきい値を設定します。
+     *
+     * @param sql SQLまたはフィンガープリント
+     * @param thresholds しきい値 (削除する場合は<b>null</b>)
+     *
+     * @throws NullPointerException <b>sql</b>が<b>null</b>の場合
+     */
+    public void setThresholds(String sql, Thresholds thresholds) {
+    }
+
+    /**
+     * しきい値を超えないSQLのサンプリング率を設定します。
+     *
+     * @param sampleRate サンプリング率 (0.0 - 1.0)
+     *
+     * @throws IllegalArgumentException <b>sampleRate</b>が範囲外の場合
+     */
+    public void setSampleRate(double sampleRate) {
+    }
+
+    /**
+     * パラメータ値をログ出力するかどうかを設定します。
+     *
+     * @param logParameters パラメータ値とSQLをログ出力する場合は<b>true</b>、
+     *     パラメータの型と長さおよびSQLのフィンガープリントをログ出力する場合は<b>false</b>
+     */
+    public void setLogParameters(boolean logParameters) {
+    }
+
+    /**
+     * 遅い<i>SELECT</i> SQLの実行計画を取得するかどうかを設定します。
+     *
+     * @param explain 実行計画を取得する場合は<b>true</b>、そうでなければ<b>false</b>
+     */
+    public void setExplain(boolean explain) {
+    }
+
+    /**
+     * 同じフィンガープリントの実行計画を再度取得するまでの最小間隔を設定します。
+     *
+     * @param interval 間隔
+     *
+     * @throws NullPointerException <b>interval</b>が<b>null</b>の場合
+     */
+    public void setExplainInterval(Duration interval) {
+    }
+
+    /**
+     * SQLと同じフィンガープリントのSQLについて最後に取得された実行計画を返します。
+     *
+     * @param sql SQLまたはフィンガープリント
+     * @return 実行計画。取得されていない場合は<b>null</b>
+     *
+     * @throws NullPointerException <b>sql</b>が<b>null</b>の場合
+     */
+    public ExplainPlan getPlan(String sql) {
+        return null;
+    }
+
+    /**
+     * SQLが遅いかサンプリングされた場合にログ出力します。
+     *
+     * @param connection コネクション・ラッパー
+     * @param entityClass エンティティ・クラス
+     * @param sql SQL
+     * @param parameters SQLのパラメータ
+     * @param executeNanos 実行時間 (ナノ秒)
+     * @param fetchNanos 行の取得時間 (ナノ秒)。SQLが行を返さない場合は負の値
+     * @param rowCount 取得または更新された行数
+     */
+    public void log(ConnectionWrapper connection, Class<?> entityClass, CharSequence sql, List<Object> parameters,
+        long executeNanos, long fetchNanos, int rowCount) {
+    }
+}
@@ -3,9 +3,12 @@
 
 package org.lightsleep;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.Optional;
@@ -71,6 +74,106 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return null;
     }
 
+    /**
+     * 現在のスレッドで最後に実行されたSQLの実行統計を返します。
+     *
+     * <p>
+     * lightsleep.propertiesの<b>executionStats</b>が<b>true</b> (デフォルト: <b>false</b>) の場合に統計を記録します。
+     * 結果がクエリ・キャッシュにあったSQLは記録しません。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * var contacts = new ArrayList&lt;Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class).connection(conn).select(contacts::add));
+     * <b>ExecutionStats stats = Sql.lastExecutionStats();</b>
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Contact&gt; contacts = []
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact).connection(it).select({contacts &lt;&lt; it})
+     * }
+     * <b>def stats = Sql.lastExecutionStats()</b>
+     * </pre></div>
+     *
+     * @return 実行統計 (現在のスレッドでSQLが実行されていないか統計が記録されない場合は<b>null</b>)
+     *
+     * @since 4.1.0
+     */
+    public static ExecutionStats lastExecutionStats() {
+        return null;
+    }
+
+    /**
+     * 統計が記録される場合にSQLの実行ごとに、SQLを実行したスレッドで実行統計と共にコールされるリスナを追加します。
+     *
+     * @param listener リスナ
+     *
+     * @throws NullPointerException <b>listener</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     * @see #lastExecutionStats()
+     */
+    public static void addExecutionStatsListener(Consumer<? super ExecutionStats> listener) {
+    }
+
+    /**
+     * {@link #addExecutionStatsListener(Consumer)}で追加されたリスナを削除します。
+     *
+     * @param listener リスナ
+     *
+     * @since 4.1.0
+     */
+    public static void removeExecutionStatsListener(Consumer<? super ExecutionStats> listener) {
+    }
+
+    /**
+     * SQLの実行ごとにその前後でコールされるステートメント・リスナを追加します。
+     *
+     * @param listener ステートメント・リスナ
+     *
+     * @throws NullPointerException <b>listener</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     * @see StatementListener
+     */
+    public static void addStatementListener(StatementListener listener) {
+    }
+
+    /**
+     * コネクション・サプライヤから取得したコネクション・ラッパーでのSQLの実行ごとに
+     * その前後でコールされるステートメント・リスナを追加します。
+     *
+     * <p>
+     * リスナはコネクション・サプライヤと同じURLのコネクション・ラッパーに対してコールされます。
+     * コネクション・サプライヤが<b>ConcurrencyLimiter</b>の場合は制限されるコネクション・サプライヤのURLが、
+     * <b>ReplicaRouter</b>の場合はプライマリとレプリカのURLが使用されます。
+     * </p>
+     *
+     * @param connectionSupplier コネクション・サプライヤ
+     * @param listener ステートメント・リスナ
+     *
+     * @throws NullPointerException <b>connectionSupplier</b>または<b>listener</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     * @see StatementListener
+     */
+    public static void addStatementListener(ConnectionSupplier connectionSupplier, StatementListener listener) {
+    }
+
+    /**
+     * グローバルまたはいずれかのコネクション・サプライヤに追加されたステートメント・リスナを削除します。
+     *
+     * @param listener ステートメント・リスナ
+     *
+     * @since 4.1.0
+     */
+    public static void removeStatementListener(StatementListener listener) {
+    }
+
     /**
      * <b>Sql</b>を構築します。
      *
@@ -1723,6 +1826,179 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return 0;
     }
 
+    /**
+     * <i>SELECT</i> SQLを実行するステートメントのフェッチサイズを指定します。
+     *
+     * <p>
+     * フェッチサイズは、一度にフェッチする行数のJDBCドライバへのヒントです。
+     * <b>0</b>の場合は、JDBCドライバのデフォルトのフェッチサイズを使用します。
+     * </p>
+     *
+     * @param fetchSize フェッチサイズ
+     * @return このオブジェクト
+     *
+     * @throws IllegalArgumentException <b>fetchSize</b>が負の場合
+     *
+     * @since 4.1.0
+     * @see #getFetchSize()
+     */
+    public Sql<E> fetchSize(int fetchSize) {
+        return null;
+    }
+
+    /**
+     * 指定されているフェッチサイズを返します。
+     *
+     * @return フェッチサイズ
+     *
+     * @since 4.1.0
+     * @see #fetchSize(int)
+     */
+    public int getFetchSize() {
+        return 0;
+    }
+
+    /**
+     * <i>SELECT</i> SQLの結果をクエリ・キャッシュにキャッシュする事を指定します。
+     *
+     * <p>
+     * 結果はコネクション・サプライヤのURL、生成されたSQLおよびパラメータによってキャッシュされ、
+     * 同じ<i>SELECT</i> SQLは<b>timeToLive</b>が経過するまでデータベースにアクセスせずにキャッシュされた結果を返します。<br>
+     * 結合、サブクエリおよび<i>WITH</i>句のテーブルを含めて<i>SELECT</i> SQL内のいずれかのテーブルに対して、
+     * <b>Sql</b>が<i>INSERT</i>, <i>UPDATE</i>または<i>DELETE</i> SQLを実行すると結果は無効化されます。
+     * <b>Sql</b>を使用せずに行われた変更は検出されません。
+     * </p>
+     *
+     * <p>
+     * <i>FOR UPDATE</i>付きの場合、または現在のトランザクションがデータベースを変更した後は、結果はキャッシュされません。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Sales&gt; salesList = new ArrayList&lt;&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Sales.class)
+     *         .columns("region", "amount")
+     *         .expression("amount", "SUM({amount})")
+     *         .groupBy("{region}")
+     *         .<b>cached(Duration.ofMinutes(1))</b>
+     *         .connection(conn)
+     *         .select(salesList::add)
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Sales&gt; salesList = []
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Sales)
+     *         .columns('region', 'amount')
+     *         .expression('amount', 'SUM({amount})')
+     *         .groupBy('{region}')
+     *         .<b>cached(Duration.ofMinutes(1))</b>
+     *         .connection(it)
+     *         .select({salesList &lt;&lt; it})
+     * }
+     * </pre></div>
+     *
+     * @param timeToLive キャッシュされた結果の生存時間
+     * @return このオブジェクト
+     *
+     * @throws NullPointerException <b>timeToLive</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>timeToLive</b>がゼロまたは負の場合
+     *
+     * @since 4.1.0
+     * @see #getCacheTimeToLive()
+     * @see org.lightsleep.helper.QueryCache
+     */
+    public Sql<E> cached(Duration timeToLive) {
+        return null;
+    }
+
+    /**
+     * 指定されているキャッシュされた結果の生存時間を返します。
+     *
+     * @return 生存時間 (指定されていない場合は<b>null</b>)
+     *
+     * @since 4.1.0
+     * @see #cached(Duration)
+     */
+    public Duration getCacheTimeToLive() {
+        return null;
+    }
+
+    /**
+     * 検索されたエンティティのスナップショットを現在のトランザクションが完了するまでコネクション・ラッパーに格納する事を指定します。
+     *
+     * <p>
+     * スナップショットが格納されているエンティティの{@link #update(Object)}は、
+     * スナップショットから変更されたカラムのみを更新し、
+     * 変更されたカラムがなければ<i>UPDATE</i> SQLを実行しません。
+     * 更新式を持つカラムは、いずれかのカラムが変更されていれば常に更新されます。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt; {
+     *     Optional&lt;Contact&gt; contactOpt = new Sql&lt;&gt;(Contact.class)
+     *         .where("{id}={}", 1)
+     *         .<b>trackChanges()</b>
+     *         .connection(conn)
+     *         .select();
+     *     contactOpt.ifPresent(contact -&gt; {
+     *         contact.name.first = "Akiyo";
+     *         new Sql&lt;&gt;(Contact.class)
+     *             .connection(conn)
+     *             .update(contact);
+     *     });
+     * });
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     def contact = new Sql&lt;&gt;(Contact)
+     *         .where('{id}={}', 1)
+     *         .<b>trackChanges()</b>
+     *         .connection(it)
+     *         .select().orElse(null)
+     *     if (contact != null) {
+     *         contact.name.first = 'Akiyo'
+     *         new Sql&lt;&gt;(Contact)
+     *             .connection(it)
+     *             .update(contact)
+     *     }
+     * }
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>生成されるSQL</span></div>
+     * <div class="exampleCode"><pre>
+     * SELECT id, lastName, firstName, ... FROM Contact WHERE id=1
+     * UPDATE Contact SET firstName='Akiyo' WHERE id=1
+     * </pre></div>
+     *
+     * @return このオブジェクト
+     *
+     * @since 4.1.0
+     * @see #isTrackChanges()
+     * @see #update(Object)
+     */
+    public Sql<E> trackChanges() {
+        return null;
+    }
+
+    /**
+     * 検索されたエンティティのスナップショットを格納する場合は<b>true</b>、そうでなければ<b>false</b>を返します。
+     *
+     * @return 検索されたエンティティのスナップショットを格納する場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @since 4.1.0
+     * @see #trackChanges()
+     */
+    public boolean isTrackChanges() {
+        return false;
+    }
+
     /**
      * <i>SELECT</i> SQLに<i>FOR UPDATE</i>を追加する事を指定します。
      *
@@ -2109,6 +2385,219 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
     public <RE> void selectAs(Class<RE> resultClass, Consumer<? super RE> consumer) {
     }
 
+    /**
+     * テーブルを結合しない<i>SELECT</i> SQLを実行し、サブスクライバの要求に応じてエンティティを発行するパブリッシャを返します。
+     *
+     * <p>
+     * <b>publishAs(entityClass(), ConnectionSupplier.find(), DefaultExecutor.instance)</b>と同じです。
+     * </p>
+     *
+     * @return エンティティのパブリッシャ
+     *
+     * @since 4.1.0
+     * @see #publishAs(Class, ConnectionSupplier, Executor)
+     */
+    public Publisher<E> publish() {
+        return null;
+    }
+
+    /**
+     * テーブルを結合しない<i>SELECT</i> SQLを実行し、サブスクライバの要求に応じてエンティティを発行するパブリッシャを返します。
+     *
+     * <p>
+     * <b>publishAs(entityClass(), connectionSupplier, executor)</b>と同じです。
+     * </p>
+     *
+     * @param connectionSupplier コネクション・サプライヤ
+     * @param executor <i>SELECT</i> SQLを実行するエグゼキュータ
+     * @return エンティティのパブリッシャ
+     *
+     * @throws NullPointerException <b>connectionSupplier</b>または<b>executor</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     * @see #publishAs(Class, ConnectionSupplier, Executor)
+     */
+    public Publisher<E> publish(ConnectionSupplier connectionSupplier, Executor executor) {
+        return null;
+    }
+
+    /**
+     * テーブルを結合しない<i>SELECT</i> SQLを実行し、サブスクライバの要求に応じてエンティティを発行するパブリッシャを返します。
+     *
+     * <p>
+     * <b>publishAs(resultClass, ConnectionSupplier.find(), DefaultExecutor.instance)</b>と同じです。
+     * </p>
+     *
+     * @param <RE> 結果エンティティの型
+     * @param resultClass 結果エンティティのクラス
+     * @return 結果エンティティのパブリッシャ
+     *
+     * @throws NullPointerException <b>resultClass</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     * @see #publishAs(Class, ConnectionSupplier, Executor)
+     */
+    public <RE> Publisher<RE> publishAs(Class<RE> resultClass) {
+        return null;
+    }
+
+    /**
+     * テーブルを結合しない<i>SELECT</i> SQLを実行し、サブスクライバの要求に応じてエンティティを発行するパブリッシャを返します。
+     *
+     * <p>
+     * サブスクライバがサブスクライブするたびに、<b>connectionSupplier</b>の読み取り専用のトランザクションで
+     * <i>SELECT</i> SQLを<b>executor</b>で実行し、サブスクライバが要求した時にだけ<b>ResultSet</b>から行を読み込みます。
+     * サブスクリプションがキャンセルされた場合は、行の読み込みを中止してステートメントをクローズします。
+     * フェッチサイズが指定されていない場合は、<b>100</b>をフェッチサイズとして使用します。
+     * <b>connection</b>メソッドで指定されたコネクションラッパーは使用しません。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * new Sql&lt;&gt;(Contact.class)
+     *     .where("{name.last}={}", "Apple")
+     *     .<b>publish()</b>
+     *     .subscribe(subscriber);
+     * </pre></div>
+     *
+     * @param <RE> 結果エンティティの型
+     * @param resultClass 結果エンティティのクラス
+     * @param connectionSupplier コネクション・サプライヤ
+     * @param executor <i>SELECT</i> SQLを実行するエグゼキュータ
+     * @return 結果エンティティのパブリッシャ
+     *
+     * @throws NullPointerException <b>resultClass</b>, <b>connectionSupplier</b>または<b>executor</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     * @see #selectAs(Class, Consumer)
+     */
+    public <RE> Publisher<RE> publishAs(Class<RE> resultClass, ConnectionSupplier connectionSupplier, Executor executor) {
+        return null;
+    }
+
+    /**
+     * キー範囲で行を分割し、テーブルを結合しない<i>SELECT</i> SQLを並列に生成および実行します。
+     *
+     * <p>
+     * <b>selectParallel(partitions, DefaultExecutor.instance, consumer)</b>と同じです。
+     * </p>
+     *
+     * @param partitions 分割数
+     * @param consumer <b>ResultSet</b>から生成されたエンティティのスレッドセーフなコンシューマ
+     *
+     * @throws NullPointerException <b>consumer</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>partitions</b>が1未満の場合
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws RuntimeSQLException データベースのアクセス中に<b>SQLException</b>がスローされた場合
+     *
+     * @since 4.1.0
+     * @see #selectParallel(int, Executor, Consumer)
+     */
+    public void selectParallel(int partitions, Consumer<? super E> consumer) {
+    }
+
+    /**
+     * キー範囲で行を分割し、テーブルを結合しない<i>SELECT</i> SQLを並列に生成および実行します。
+     *
+     * <p>
+     * このオブジェクトのコネクションラッパーでキーの最小値と最大値を取得し、その範囲を<b>partitions</b>個の範囲に分割し、
+     * 各範囲の<i>SELECT</i> SQLを、コネクションラッパーのサプライヤから取得したコネクションの読み取り専用のトランザクションで
+     * <b>executor</b>で実行します。
+     * <b>consumer</b>は複数のスレッドからコールされ、エンティティの順序は保証されません。
+     * </p>
+     *
+     * <p>
+     * エンティティが整数型のキー・プロパティをちょうど1つ持っていない場合、
+     * またはこのオブジェクトに結合, <i>GROUP BY</i>, <i>UNION</i>, <i>LIMIT</i>, <i>OFFSET</i>, <i>FOR UPDATE</i>がある場合は、
+     * <b>select(consumer)</b>と同様にこのオブジェクトのコネクションラッパーで1つの<i>SELECT</i> SQLを実行します。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * var contacts = new ConcurrentLinkedQueue&lt;Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectParallel(8, contacts::add)</b>
+     * );
+     * </pre></div>
+     *
+     * @param partitions 分割数
+     * @param executor <i>SELECT</i> SQLを実行するエグゼキュータ
+     * @param consumer <b>ResultSet</b>から生成されたエンティティのスレッドセーフなコンシューマ
+     *
+     * @throws NullPointerException <b>executor</b>または<b>consumer</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>partitions</b>が1未満の場合
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws RuntimeSQLException データベースのアクセス中に<b>SQLException</b>がスローされた場合
+     *
+     * @since 4.1.0
+     * @see #select(Consumer)
+     */
+    public void selectParallel(int partitions, Executor executor, Consumer<? super E> consumer) {
+    }
+
+    /**
+     * いずれかのキーを持つ行を取得する<i>SELECT</i> SQLを生成して実行します。
+     *
+     * <p>
+     * キーの条件は{@link org.lightsleep.database.Database#keysCondition(Sql, List)}で生成され、
+     * <i>WHERE</i>句に<i>AND</i>で追加されます。<br>
+     * キーは{@link org.lightsleep.database.Database#maxKeysPerCondition(int)}個ずつのチャンクに分割され、
+     * 異なるSQLの数を少なく保つために、各チャンクは最後のキーを繰り返して2のべき乗のサイズに埋められます。
+     * <i>ORDER BY</i>, <i>LIMIT</i>および<i>OFFSET</i>は各チャンクに適用されます。
+     * </p>
+     *
+     * <p>
+     * <b>keys</b>の要素は以下のいずれかです。
+     * </p>
+     * <ul>
+     *   <li>エンティティ・クラスのエンティティ</li>
+     *   <li>キーカラムの順に並べたキーの値の<b>Object[]</b></li>
+     *   <li>エンティティ・クラスのキーカラムが1つの場合はキーの値</li>
+     * </ul>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * var contacts = new ArrayList&lt;Contact&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>selectByKeys(Arrays.asList(1, 2, 3), contacts::add)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * List&lt;Contact&gt; contacts = []
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>selectByKeys([1, 2, 3], {contacts &lt;&lt; it})</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">注意:</span>
+     * このメソッドを使用する前にコネクションラッパーを指定する
+     * {@link #connection(ConnectionWrapper)}メソッドをコールしてください。
+     * </p>
+     *
+     * @param keys キーのコレクション
+     * @param consumer <b>ResultSet</b>から生成されたエンティティのコンシューマ
+     *
+     * @throws NullPointerException <b>keys</b>, <b>keys</b>の要素のいずれかまたは<b>consumer</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>keys</b>の要素をキーの値に変換できない場合
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws IllegalStateException エンティティ・クラスにキーカラムがない場合
+     * @throws RuntimeSQLException データベースアクセスエラーが発生した場合
+     *
+     * @since 4.1.0
+     * @see #deleteByKeys(Collection)
+     */
+    public void selectByKeys(Collection<?> keys, Consumer<? super E> consumer) {
+    }
+
     /**
      * 1つのテーブルを結合する <i>SELECT</i> SQLを生成して実行します。
      *
@@ -2170,6 +2659,68 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         Consumer<? super JE1> consumer1) {
     }
 
+    /**
+     * 1つのテーブルを結合する <i>SELECT</i> SQLを生成して実行し、
+     * 結合テーブルのエンティティをメインテーブルのエンティティごとにグループ化します。
+     *
+     * <p>
+     * メインテーブルのエンティティはキーカラムで識別され、複数の行に結合されていても1回だけ生成されます。
+     * メインテーブルのエンティティごとに出現順に、
+     * 結合テーブルのエンティティのリストと共に<b>consumer</b>をコールします。
+     * 外部結合で結合された行がない場合、リストは空です。<br>
+     * ORDER BYの先頭の要素がメインテーブルのキープロパティの場合 (例: <b>orderBy("{C.id}")</b>)、
+     * キーが変わるたびに各グループを<b>consumer</b>に渡すため、メモリに保持するグループは1つだけです。
+     * それ以外の場合はすべての行を読み込むまで全グループをメモリに保持するため、大きな結果にはORDER BYを指定してください。<br>
+     * {@link #select(Consumer, Consumer)}と同じカラムを取得し、
+     * メインテーブルと結合テーブルのキーカラムは取得対象である必要があります。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * var phonesMap = new LinkedHashMap&lt;Contact, List&lt;Phone&gt;&gt;();
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class, "C")
+     *         .leftJoin(Phone.class, "P", "{P.contactId}={C.id}")
+     *         .orderBy("{C.id}")
+     *         .connection(conn)
+     *         .<b>&lt;Phone&gt;selectGrouped(phonesMap::put)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * Map&lt;Contact, List&lt;Phone&gt;&gt; phonesMap = [:]
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact, 'C')
+     *         .leftJoin(Phone, 'P', '{P.contactId}={C.id}')
+     *         .orderBy('{C.id}')
+     *         .connection(it)
+     *         .<b>selectGrouped({contact, phones -&gt; phonesMap[contact] = phones})</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">注意:</span>
+     * このメソッドを使用する前にコネクションラッパーを指定する
+     * {@link #connection(ConnectionWrapper)}メソッドをコールしてください。
+     * </p>
+     *
+     * @param <JE1> 結合テーブル1のエンティティの型
+     * @param consumer メインテーブルのエンティティと結合テーブル1のエンティティのリストのコンシューマ
+     *
+     * @throws NullPointerException <b>consumer</b>が<b>null</b>の場合
+     * @throws IllegalStateException 結合テーブル情報がない場合
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws IllegalStateException エンティティクラスにキーカラムがない場合
+     * @throws IllegalStateException カラムのない<i>SELECT</i> SQLが生成された場合
+     * @throws RuntimeSQLException データベースアクセスエラーが発生した場合
+     *
+     * @since 4.1.0
+     * @see #select(Consumer, Consumer)
+     */
+    public <JE1> void selectGrouped(BiConsumer<? super E, ? super List<JE1>> consumer) {
+    }
+
     /**
      * 2つのテーブルを結合する <i>SELECT</i> SQLを生成して実行します。
      *
@@ -2536,6 +3087,53 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return 0;
     }
 
+    /**
+     * {@link #select(Consumer)}と同様に<i>SELECT</i> SQLを生成し、実行せずにその実行計画を返します。
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt; {
+     *     var plan = new Sql&lt;&gt;(Contact.class)
+     *         .where("{lastName}={}", "Apple")
+     *         .connection(conn)
+     *         .<b>explain()</b>;
+     *     if (plan.hasFullScan())
+     *         System.out.println(plan.text());
+     * });
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     def plan = new Sql&lt;&gt;(Contact)
+     *         .where('{lastName}={}', 'Apple')
+     *         .connection(it)
+     *         .<b>explain()</b>
+     *     if (plan.hasFullScan())
+     *         println plan.text()
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">注意:</span>
+     * このメソッドを使用する前にコネクションラッパーを指定する
+     * {@link #connection(ConnectionWrapper)}メソッドをコールしてください。
+     * </p>
+     *
+     * @return 実行計画
+     *
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws IllegalStateException カラムのない<i>SELECT</i> SQLが生成された場合
+     * @throws UnsupportedOperationException データベース・ハンドラが実行計画の取得をサポートしていない場合
+     * @throws RuntimeSQLException データベースアクセスエラーが発生した場合
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.database.Database#explainSqls(CharSequence)
+     */
+    public ExplainPlan explain() {
+        return null;
+    }
+
     /**
      * FROMサブクエリを伴う<i>INSERT</i> SQLを生成して実行します。
      * 
@@ -2639,6 +3237,165 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return 0;
     }
 
+    /**
+     * データベースのネイティブな一括ロード機能でエンティティを一括挿入します。
+     *
+     * <p>
+     * PostgreSQLでは<i>COPY</i>、MySQLとMariaDBでは<i>LOAD DATA LOCAL INFILE</i>、
+     * SQL Serverでは<b>SQLServerBulkCopy</b>を使用し、
+     * その他のデータベースではバッチ実行される<i>INSERT</i> SQLを使用します。
+     * 値は{@link #insert(Object)}と同様にデータベース・ハンドラの<b>TypeConverter</b>マップで変換されます。
+     * </p>
+     *
+     * <p>
+     * <i>LOAD DATA LOCAL INFILE</i>では、サーバはキーの重複や不正な値を警告として報告し、
+     * 失敗せずに行をスキップまたは変換します。
+     * このメソッドはロード後に挿入された行数と警告を確認し、{@link #insert(Iterable)}と同様に
+     * <b>RuntimeSQLException</b>をスローしますが、他の行はロード済みなのでトランザクションをロールバックしてください。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>bulkInsert(contacts)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>bulkInsert(contacts)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">注意:</span>
+     * このメソッドを使用する前にコネクションラッパーを指定する
+     * {@link #connection(ConnectionWrapper)}メソッドをコールしてください。
+     * </p>
+     *
+     * @param entities 挿入対象のエンティティの<b>Iterable</b>
+     * @return 挿入した行数
+     *
+     * @throws NullPointerException <b>entities</b>または<b>entities</b>の要素のいずれかが<b>null</b>の場合
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws RuntimeSQLException データベースアクセスエラーが発生した場合
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.database.Database#bulkInsert(Sql, Iterable)
+     */
+    public int bulkInsert(Iterable<? extends E> entities) {
+        return 0;
+    }
+
+    /**
+     * 指定のエンティティを挿入するか、同じキーの行が存在する場合はその行を更新するUPSERT SQLを生成して実行します。
+     *
+     * <p>
+     * PostgreSQLとSQLiteでは<i>INSERT ... ON CONFLICT ... DO UPDATE</i>、
+     * MySQLとMariaDBでは<i>INSERT ... ON DUPLICATE KEY UPDATE</i>、
+     * その他のデータベースでは<i>MERGE</i>を生成します。<br>
+     * キーカラムは<b>@Key</b>アノテーションが付加されたカラムです。
+     * 更新するカラムはキーカラム以外の更新可能なカラムで、{@link #columns(String...)}で限定できます。<br>
+     * データベース・ハンドラがUPSERT SQLをサポートしていない場合
+     * ({@link org.lightsleep.database.Database#upsertSql(Sql, List)}が<b>null</b>を返す場合) は、
+     * キーを条件とする<i>UPDATE</i> SQLを実行し、更新された行がなければ<i>INSERT</i> SQLを実行します。
+     * これはUPSERT SQLと異なりアトミックではありません。
+     * </p>
+     *
+     * <p>
+     * このメソッドは<b>PreInsert</b>, <b>PostInsert</b>, <b>PreUpdate</b>および<b>PostUpdate</b>のメソッドをコールしません。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>upsert(contact)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>upsert(contact)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">注意:</span>
+     * このメソッドを使用する前にコネクションラッパーを指定する
+     * {@link #connection(ConnectionWrapper)}メソッドをコールしてください。
+     * </p>
+     *
+     * @param entity 挿入または更新対象のエンティティ
+     * @return JDBCドライバが返す影響を受けた行数
+     *
+     * @throws NullPointerException <b>entity</b>が<b>null</b>の場合
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws IllegalStateException エンティティ・クラスにキーカラムがない場合
+     * @throws RuntimeSQLException データベースアクセスエラーが発生した場合
+     *
+     * @since 4.1.0
+     */
+    public int upsert(E entity) {
+        return 0;
+    }
+
+    /**
+     * <b>entities</b>の各要素のUPSERT SQLを生成し、バッチ実行します。
+     *
+     * <p>
+     * パラメータのないSQLはlightsleep.propertiesの<b>bulkInsertBatchSize</b> (未定義の場合は1000) 件ずつバッチ実行され、
+     * パラメータのあるSQLは個別に実行されます。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt;
+     *     new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>upsert(contacts)</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>upsert(contacts)</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">注意:</span>
+     * このメソッドを使用する前にコネクションラッパーを指定する
+     * {@link #connection(ConnectionWrapper)}メソッドをコールしてください。
+     * </p>
+     *
+     * @param entities エンティティの<b>Iterable</b>
+     * @return JDBCドライバが返す影響を受けた行数
+     *
+     * @throws NullPointerException <b>entities</b>または<b>entities</b>の要素のいずれかが<b>null</b>の場合
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws IllegalStateException エンティティ・クラスにキーカラムがない場合
+     * @throws RuntimeSQLException データベースアクセスエラーが発生した場合
+     *
+     * @since 4.1.0
+     * @see #upsert(Object)
+     */
+    public int upsert(Iterable<? extends E> entities) {
+        return 0;
+    }
+
     /**
      * 指定のエンティティの<i>UPDATE</i> SQLを生成して実行します。
      *
@@ -2647,6 +3404,12 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
      * 対象のテーブルのすべての行を更新するには、<i>WHERE</i>句の条件に<b>Condition.ALL</b>を指定してください。
      * </p>
      *
+     * <p>
+     * エンティティが現在のトランザクションで{@link #trackChanges()}を指定して検索されていて、
+     * 条件もカラムも指定されていない場合は、検索後に変更されたカラムのみを更新し、
+     * 変更されたカラムがなければSQLを実行せずに<b>0</b>を返します。
+     * </p>
+     *
      * <div class="exampleTitle"><span>使用例/Java</span></div>
      * <div class="exampleCode"><pre>
      * Transaction.execute(conn -&gt; {
@@ -2901,6 +3664,56 @@ public class Sql<E> implements Cloneable, SqlEntityInfo<E> {
         return 0;
     }
 
+    /**
+     * いずれかのキーを持つ行を削除する<i>DELETE</i> SQLを生成して実行します。
+     *
+     * <p>
+     * キーは{@link #selectByKeys(Collection, Consumer)}と同様にチャンクに分割されます。<br>
+     * このメソッドは<b>PreDelete.preDelete</b>および<b>PostDelete.postDelete</b>メソッドをコールしません。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * var count = new int[1];
+     * Transaction.execute(conn -&gt;
+     *     count[0] = new Sql&lt;&gt;(Contact.class)
+     *         .connection(conn)
+     *         .<b>deleteByKeys(Arrays.asList(7, 8, 9))</b>
+     * );
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * int count
+     * Transaction.execute {
+     *     count = new Sql&lt;&gt;(Contact)
+     *         .connection(it)
+     *         .<b>deleteByKeys([7, 8, 9])</b>
+     * }
+     * </pre></div>
+     *
+     * <p>
+     * <span class="simpleTagLabel">注意:</span>
+     * このメソッドを使用する前にコネクションラッパーを指定する
+     * {@link #connection(ConnectionWrapper)}メソッドをコールしてください。
+     * </p>
+     *
+     * @param keys キーのコレクション
+     * @return 削除した行数
+     *
+     * @throws NullPointerException <b>keys</b>または<b>keys</b>の要素のいずれかが<b>null</b>の場合
+     * @throws IllegalArgumentException <b>keys</b>の要素をキーの値に変換できない場合
+     * @throws IllegalStateException <b>ConnectionWrapper</b>が設定されていない場合
+     * @throws IllegalStateException エンティティ・クラスにキーカラムがない場合
+     * @throws RuntimeSQLException データベースアクセスエラーが発生した場合
+     *
+     * @since 4.1.0
+     * @see #selectByKeys(Collection, Consumer)
+     */
+    public int deleteByKeys(Collection<?> keys) {
+        return 0;
+    }
+
     /**
      * SQLを実行します。
      *
@@ -0,0 +1,294 @@
+// SqlMetrics.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.List;
+
+import org.lightsleep.connection.ConnectionSupplier;
+
+/**
+ * 実行されたSQLのメトリクスのレジストリです。
+ *
+ * <p>
+ * SQLはリテラルを<b>?</b>に置き換えたフィンガープリントに正規化され、
+ * 実行回数、エラー回数、行数、実行および取得のレイテンシが
+ * コネクション・サプライヤとフィンガープリントごとに集計されます。
+ * コネクション取得のレイテンシはコネクション・サプライヤごとに集計されます。
+ * </p>
+ *
+ * <p>
+ * lightsleep.propertiesの<b>sqlMetrics</b>が<b>true</b> (デフォルト: <b>true</b>) の場合にメトリクスを収集し、
+ * lightsleep.propertiesの<b>sqlMetricsJmx</b>が<b>true</b> (デフォルト: <b>true</b>) の場合は
+ * <b>org.lightsleep:type=SqlMetrics</b>という名前のMXBeanとして公開します。
+ * 各コネクション・サプライヤのフィンガープリントの数は
+ * lightsleep.propertiesの<b>sqlMetricsMaxStatements</b> (デフォルト: 1000) で制限され、
+ * 制限を超えたSQLはフィンガープリント<b>(others)</b>に集計されます。
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class SqlMetrics implements SqlMetricsMXBean {
+    /** MXBeanのオブジェクト名 */
+    public static final String OBJECT_NAME = "org.lightsleep:type=SqlMetrics";
+
+    /** 制限を超えたSQLのフィンガープリント */
+    public static final String OTHERS = "(others)";
+
+    /** <b>Sql</b>およびコネクション・サプライヤが使用するメトリクス・レジストリ */
+    public static final SqlMetrics instance = null;
+
+    /**
+     * <b>SqlMetrics</b>を構築します。
+     *
+     * @param maxStatements 各コネクション・サプライヤのフィンガープリントの最大数
+     *
+     * @throws IllegalArgumentException <b>maxStatements</b> &lt;= 0の場合
+     */
+    public SqlMetrics(int maxStatements) {
+    }
+
+    /**
+     * <b>Sql</b>およびコネクション・サプライヤがメトリクスを収集するかどうかを返します。
+     *
+     * @return 収集する場合は<b>true</b>、そうでなければ<b>false</b>
+     */
+    public static boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * リテラルを<b>?</b>に置き換え、<b>?</b>のリストを短縮し、空白を縮約したSQLのフィンガープリントを返します。
+     *
+     * @param sql SQL
+     * @return フィンガープリント
+     *
+     * @throws NullPointerException <b>sql</b>が<b>null</b>の場合
+     */
+    public static String fingerprint(CharSequence sql) {
+        return null;
+    }
+
+    /**
+     * SQLの実行を記録します。
+     *
+     * @param supplier コネクション・サプライヤ
+     * @param sql SQL
+     * @param executeNanos 実行時間 (ナノ秒)
+     * @param fetchNanos 行の取得時間 (ナノ秒)。SQLが行を返さない場合は負の値
+     * @param rowCount 取得または更新された行数
+     *
+     * @throws NullPointerException <b>supplier</b>または<b>sql</b>が<b>null</b>の場合
+     */
+    public void recordExecution(ConnectionSupplier supplier, CharSequence sql, long executeNanos, long fetchNanos, int rowCount) {
+    }
+
+    /**
+     * SQLの実行の失敗を記録します。
+     *
+     * @param supplier コネクション・サプライヤ
+     * @param sql SQL
+     *
+     * @throws NullPointerException <b>supplier</b>または<b>sql</b>が<b>null</b>の場合
+     */
+    public void recordError(ConnectionSupplier supplier, CharSequence sql) {
+    }
+
+    /**
+     * コネクションの取得を記録します。
+     *
+     * @param supplier コネクション・サプライヤ
+     * @param acquireNanos コネクションの取得時間 (ナノ秒)
+     *
+     * @throws NullPointerException <b>supplier</b>が<b>null</b>の場合
+     */
+    public void recordAcquire(ConnectionSupplier supplier, long acquireNanos) {
+    }
+
+    /**
+     * トランザクションのリトライを記録します。
+     *
+     * @param supplier コネクション・サプライヤ
+     *
+     * @throws NullPointerException <b>supplier</b>が<b>null</b>の場合
+     *
+     * @see RetryPolicy
+     */
+    public void recordRetry(ConnectionSupplier supplier) {
+    }
+
+    /**
+     * リトライ可能な例外で失敗したが、試行回数またはバジェットを使い果たしたためリトライしなかったトランザクションを記録します。
+     *
+     * @param supplier コネクション・サプライヤ
+     *
+     * @throws NullPointerException <b>supplier</b>が<b>null</b>の場合
+     *
+     * @see RetryPolicy
+     */
+    public void recordRetryExhausted(ConnectionSupplier supplier) {
+    }
+
+    @Override
+    public List<StatementStatistics> getStatements() {
+        return null;
+    }
+
+    @Override
+    public List<SupplierStatistics> getConnectionSuppliers() {
+        return null;
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    /**
+     * このオブジェクトを{@value #OBJECT_NAME}としてプラットフォームMBeanサーバに登録します。<br>
+     * 登録に失敗した場合は警告をログ出力します。
+     */
+    public void registerMBean() {
+    }
+
+    /**
+     * ステートメントの統計です。
+     *
+     * @since 4.1.0
+     */
+    public static class StatementStatistics {
+        /**
+         * <b>StatementStatistics</b>を構築します。
+         *
+         * @param connectionSupplier コネクション・サプライヤの文字列表現
+         * @param fingerprint SQLのフィンガープリント
+         * @param count 実行回数
+         * @param errorCount 失敗した実行回数
+         * @param rowCount 取得または更新された行数
+         * @param executeTime 実行時間の統計
+         * @param fetchTime 行の取得時間の統計
+         */
+        public StatementStatistics(String connectionSupplier, String fingerprint,
+            long count, long errorCount, long rowCount,
+            LatencyHistogram.Statistics executeTime, LatencyHistogram.Statistics fetchTime) {
+        }
+
+        /**
+         * コネクション・サプライヤの文字列表現を返します。
+         *
+         * @return コネクション・サプライヤの文字列表現
+         */
+        public String getConnectionSupplier() {
+            return null;
+        }
+
+        /**
+         * SQLのフィンガープリントを返します。
+         *
+         * @return SQLのフィンガープリント
+         */
+        public String getFingerprint() {
+            return null;
+        }
+
+        /**
+         * 実行回数を返します。
+         *
+         * @return 実行回数
+         */
+        public long getCount() {
+            return 0L;
+        }
+
+        /**
+         * 失敗した実行回数を返します。
+         *
+         * @return 失敗した実行回数
+         */
+        public long getErrorCount() {
+            return 0L;
+        }
+
+        /**
+         * 取得または更新された行数を返します。
+         *
+         * @return 行数
+         */
+        public long getRowCount() {
+            return 0L;
+        }
+
+        /**
+         * 実行時間の統計を返します。
+         *
+         * @return 実行時間の統計
+         */
+        public LatencyHistogram.Statistics getExecuteTime() {
+            return null;
+        }
+
+        /**
+         * 行の取得時間の統計を返します。
+         *
+         * @return 行の取得時間の統計
+         */
+        public LatencyHistogram.Statistics getFetchTime() {
+            return null;
+        }
+    }
+
+    /**
+     * コネクション・サプライヤの統計です。
+     *
+     * @since 4.1.0
+     */
+    public static class SupplierStatistics {
+        /**
+         * <b>SupplierStatistics</b>を構築します。
+         *
+         * @param connectionSupplier コネクション・サプライヤの文字列表現
+         * @param acquireTime コネクションの取得時間の統計
+         * @param retryCount トランザクションのリトライ回数
+         * @param retryExhaustedCount 試行回数またはバジェットを使い果たしたためリトライしなかったトランザクション数
+         */
+        public SupplierStatistics(String connectionSupplier, LatencyHistogram.Statistics acquireTime,
+            long retryCount, long retryExhaustedCount) {
+        }
+
+        /**
+         * コネクション・サプライヤの文字列表現を返します。
+         *
+         * @return コネクション・サプライヤの文字列表現
+         */
+        public String getConnectionSupplier() {
+            return null;
+        }
+
+        /**
+         * コネクションの取得時間の統計を返します。
+         *
+         * @return コネクションの取得時間の統計
+         */
+        public LatencyHistogram.Statistics getAcquireTime() {
+            return null;
+        }
+
+        /**
+         * トランザクションのリトライ回数を返します。
+         *
+         * @return リトライ回数
+         */
+        public long getRetryCount() {
+            return 0L;
+        }
+
+        /**
+         * リトライ可能な例外で失敗したが、試行回数またはバジェットを使い果たしたためリトライしなかったトランザクション数を返します。
+         *
+         * @return トランザクション数
+         */
+        public long getRetryExhaustedCount() {
+            return 0L;
+        }
+    }
+}
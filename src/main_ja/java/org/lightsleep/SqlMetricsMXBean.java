@@ -0,0 +1,33 @@
+// SqlMetricsMXBean.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.List;
+
+/**
+ * {@link SqlMetrics}の管理インタフェースです。
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public interface SqlMetricsMXBean {
+    /**
+     * ステートメントの統計を返します。
+     *
+     * @return ステートメントの統計のリスト
+     */
+    List<SqlMetrics.StatementStatistics> getStatements();
+
+    /**
+     * コネクション・サプライヤの統計を返します。
+     *
+     * @return コネクション・サプライヤの統計のリスト
+     */
+    List<SqlMetrics.SupplierStatistics> getConnectionSuppliers();
+
+    /**
+     * すべてのメトリクスをクリアします。
+     */
+    void reset();
+}
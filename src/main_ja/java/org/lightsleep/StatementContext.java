@@ -0,0 +1,100 @@
+// StatementContext.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.util.List;
+import java.util.Map;
+
+import org.lightsleep.connection.ConnectionWrapper;
+
+/**
+ * {@link StatementListener}に渡されるSQLの実行のコンテキストです。
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class StatementContext {
+    /**
+     * <b>StatementContext</b>を構築します。
+     *
+     * @param connection コネクション・ラッパー
+     * @param entityClass <b>Sql</b>のエンティティ・クラス
+     * @param sql SQL
+     * @param parameters SQLのパラメータ
+     */
+    public StatementContext(ConnectionWrapper connection, Class<?> entityClass, String sql, List<Object> parameters) {
+    }
+
+    /**
+     * コネクション・ラッパーを返します。
+     *
+     * @return コネクション・ラッパー
+     */
+    public ConnectionWrapper connection() {
+        return null;
+    }
+
+    /**
+     * <b>Sql</b>のエンティティ・クラスを返します。
+     *
+     * @return エンティティ・クラス
+     */
+    public Class<?> entityClass() {
+        return null;
+    }
+
+    /**
+     * SQLを返します。<b>beforePrepare</b>がコールされた後は書き換えられたSQLです。
+     *
+     * @return SQL
+     */
+    public String sql() {
+        return null;
+    }
+
+    /**
+     * SQLのパラメータを返します。
+     *
+     * @return 変更不可のパラメータのリスト
+     */
+    public List<Object> parameters() {
+        return null;
+    }
+
+    /**
+     * パラメータを設定する時間を返します。
+     *
+     * @return 時間 (ナノ秒)。<b>afterBind</b>がコールされる前は0
+     */
+    public long bindNanos() {
+        return 0L;
+    }
+
+    /**
+     * ステートメントを実行する時間を返します。
+     *
+     * @return 時間 (ナノ秒)。<b>afterExecute</b>がコールされる前は0
+     */
+    public long executeNanos() {
+        return 0L;
+    }
+
+    /**
+     * これまでに取得した行数または更新された行数を返します。
+     *
+     * @return 行数
+     */
+    public int rowCount() {
+        return 0;
+    }
+
+    /**
+     * トレースのスパンなど、リスナのメソッド間で値を受け渡すための属性を返します。
+     *
+     * @return 属性のマップ
+     */
+    public Map<String, Object> attributes() {
+        return null;
+    }
+}
@@ -0,0 +1,84 @@
+// StatementListener.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep;
+
+import java.sql.SQLException;
+
+/**
+ * <b>Sql</b>によるSQLの実行ごとにその前後でコールされるリスナです。
+ *
+ * <p>
+ * リスナは{@link Sql#addStatementListener(StatementListener)}でグローバルに、
+ * または{@link Sql#addStatementListener(org.lightsleep.connection.ConnectionSupplier, StatementListener)}で
+ * コネクション・サプライヤに登録され、グローバルのリスナから順に登録順にコールされます。
+ * メソッドはSQLを実行するスレッドでコールされます。
+ * リスナがスローした例外は<b>Sql</b>の呼び出し元に伝播するため、
+ * <b>beforePrepare</b>で実行を拒否できます (サーキット・ブレーカーなど)。
+ * </p>
+ *
+ * <p>
+ * バッチで実行される各SQLはそれぞれのコンテキストを持ち、<b>afterBind</b>はコールされません。
+ * {@link Sql#bulkInsert(Iterable)}が使用するネイティブのバルク・ローダーはインターセプトされません。
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see StatementContext
+ */
+public interface StatementListener {
+    /**
+     * ステートメントを準備する前にコールされます。<br>
+     * 実行するSQLを返します。SQLは書き換えることができます (オプティマイザ・ヒントの追加など)。
+     *
+     * @param context 実行のコンテキスト
+     * @param sql SQL
+     * @return 実行するSQL
+     */
+    default String beforePrepare(StatementContext context, String sql) {
+        return sql;
+    }
+
+    /**
+     * ステートメントにパラメータを設定した後にコールされます。
+     *
+     * @param context 実行のコンテキスト
+     */
+    default void afterBind(StatementContext context) {
+    }
+
+    /**
+     * ステートメントを実行した後にコールされます。
+     *
+     * @param context 実行のコンテキスト
+     */
+    default void afterExecute(StatementContext context) {
+    }
+
+    /**
+     * フェッチ・サイズ (指定されていない場合は100) の行を読み込むごと、
+     * および未通知の行が残っている場合は最後の行の後にコールされます。
+     *
+     * @param context 実行のコンテキスト
+     * @param rowCount このバッチで読み込んだ行数
+     */
+    default void onRows(StatementContext context, int rowCount) {
+    }
+
+    /**
+     * ステートメントの実行中に<b>SQLException</b>がスローされた場合にコールされます。
+     *
+     * @param context 実行のコンテキスト
+     * @param exception 例外
+     */
+    default void onError(StatementContext context, SQLException exception) {
+    }
+
+    /**
+     * 成功したかどうかにかかわらず、ステートメントをクローズした後にコールされます。
+     *
+     * @param context 実行のコンテキスト
+     */
+    default void onClose(StatementContext context) {
+    }
+}
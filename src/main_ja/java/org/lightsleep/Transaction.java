@@ -3,6 +3,9 @@
 
 package org.lightsleep;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import org.lightsleep.connection.ConnectionSupplier;
 import org.lightsleep.connection.ConnectionWrapper;
 
@@ -70,6 +73,11 @@ public interface Transaction {
      * </p>
      *
      * <p>
+     * デッドロックなどのリトライ可能な例外でトランザクションが失敗した場合、
+     * {@link RetryPolicy#getDefault()}に従って再度実行します (デフォルトではリトライしません)。
+     * </p>
+     *
+     * <p>
      * <b>transaction</b>にラムダ式でトランザクションの実体を記述してください。
      * </p>
      *
@@ -96,6 +104,11 @@ public interface Transaction {
      * </p>
      *
      * <p>
+     * デッドロックなどのリトライ可能な例外でトランザクションが失敗した場合、
+     * {@link RetryPolicy#getDefault()}に従って再度実行します (デフォルトではリトライしません)。
+     * </p>
+     *
+     * <p>
      * <b>transaction</b>にラムダ式でトランザクションの実体を記述してください。
      * </p>
      *
@@ -110,6 +123,135 @@ public interface Transaction {
     static void execute(ConnectionSupplier connectionSupplier, Transaction transaction) {
     }
 
+    /**
+     * <b>execute(connectionSupplier, transaction)</b>と同様にトランザクションを実行し、
+     * リトライ可能な例外で失敗した場合はリトライ・ポリシーに従って再度実行します。
+     *
+     * <p>
+     * リトライの前に、トランザクションをロールバックし、コネクションをクローズして、
+     * リトライ・ポリシーのバックオフ時間だけ待機します。
+     * リトライしない場合は最後の例外をスローします。
+     * メトリクスが有効な場合、リトライ、および試行回数またはバジェットを使い果たしたためリトライしなかったトランザクションは
+     * {@link SqlMetrics#instance}で数えられます。
+     * </p>
+     *
+     * @param connectionSupplier <b>ConnectionSupplier</b>オブジェクト
+     * @param retryPolicy リトライ・ポリシー
+     * @param transaction <b>Transaction</b>オブジェクト
+     *
+     * @throws NullPointerException <b>connectionSupplier</b>、<b>retryPolicy</b>または<b>transaction</b>が<b>null</b>の場合
+     * @throws RuntimeSQLException データベースのアクセス中に<b>SQLException</b>がスローされた場合
+     *
+     * @see RetryPolicy
+     * @see org.lightsleep.database.Database#isRetryable(java.sql.SQLException)
+     *
+     * @since 4.1.0
+     */
+    static void execute(ConnectionSupplier connectionSupplier, RetryPolicy retryPolicy, Transaction transaction) {
+    }
+
+    /**
+     * 読み取り専用のトランザクションを実行します。
+     *
+     * <p>
+     * <b>transaction.executeBody</b>をコールする前にコネクションを読み取り専用モードにする以外は、
+     * <b>execute(transaction)</b>と同じです。
+     * 読み取り専用モードは、JDBCドライバおよびデータベースがトランザクションを最適化するためのヒントとなります。
+     * コネクションはクローズする前に書き込み可能モードに戻されます。
+     * </p>
+     *
+     * @param transaction <b>Transaction</b>オブジェクト
+     *
+     * @throws NullPointerException <b>transaction</b>が<b>null</b>の場合
+     * @throws RuntimeSQLException データベースのアクセス中に<b>SQLException</b>がスローされた場合
+     *
+     * @since 4.1.0
+     */
+    static void executeReadOnly(Transaction transaction) {
+    }
+
+    /**
+     * 読み取り専用のトランザクションを実行します。
+     *
+     * <p>
+     * <b>transaction.executeBody</b>をコールする前にコネクションを読み取り専用モードにする以外は、
+     * <b>execute(connectionSupplier, transaction)</b>と同じです。
+     * 読み取り専用モードは、JDBCドライバおよびデータベースがトランザクションを最適化するためのヒントとなります。
+     * コネクションはクローズする前に書き込み可能モードに戻されます。
+     * コネクションは<b>connectionSupplier.forReadOnly()</b>から取得します。
+     * </p>
+     *
+     * @param connectionSupplier <b>ConnectionSupplier</b>オブジェクト
+     * @param transaction <b>Transaction</b>オブジェクト
+     *
+     * @throws NullPointerException <b>connectionSupplier</b>または<b>transaction</b>が<b>null</b>の場合
+     * @throws RuntimeSQLException データベースのアクセス中に<b>SQLException</b>がスローされた場合
+     *
+     * @since 4.1.0
+     */
+    static void executeReadOnly(ConnectionSupplier connectionSupplier, Transaction transaction) {
+    }
+
+    /**
+     * デフォルトのエグゼキュータでトランザクションを非同期に実行します。
+     *
+     * <p>
+     * デフォルトのエグゼキュータは、使用可能であれば仮想スレッドを使用します。
+     * </p>
+     *
+     * @param transaction <b>Transaction</b>オブジェクト
+     * @return トランザクションの終了時に完了する<b>CompletableFuture</b>
+     *
+     * @throws NullPointerException <b>transaction</b>が<b>null</b>の場合
+     *
+     * @see #execute(Transaction)
+     * @see org.lightsleep.helper.DefaultExecutor
+     *
+     * @since 4.1.0
+     */
+    static CompletableFuture<Void> executeAsync(Transaction transaction) {
+        return null;
+    }
+
+    /**
+     * エグゼキュータでトランザクションを非同期に実行します。
+     *
+     * @param executor トランザクションを実行するエグゼキュータ
+     * @param transaction <b>Transaction</b>オブジェクト
+     * @return トランザクションの終了時に完了する<b>CompletableFuture</b>
+     *
+     * @throws NullPointerException <b>executor</b>または<b>transaction</b>が<b>null</b>の場合
+     *
+     * @see #execute(Transaction)
+     *
+     * @since 4.1.0
+     */
+    static CompletableFuture<Void> executeAsync(Executor executor, Transaction transaction) {
+        return null;
+    }
+
+    /**
+     * エグゼキュータでトランザクションを非同期に実行します。
+     *
+     * <p>
+     * トランザクションで例外がスローされた場合、返される<b>CompletableFuture</b>はその例外で異常終了します。
+     * </p>
+     *
+     * @param executor トランザクションを実行するエグゼキュータ
+     * @param connectionSupplier <b>ConnectionSupplier</b>オブジェクト
+     * @param transaction <b>Transaction</b>オブジェクト
+     * @return トランザクションの終了時に完了する<b>CompletableFuture</b>
+     *
+     * @throws NullPointerException <b>executor</b>, <b>connectionSupplier</b>または<b>transaction</b>が<b>null</b>の場合
+     *
+     * @see #execute(ConnectionSupplier, Transaction)
+     *
+     * @since 4.1.0
+     */
+    static CompletableFuture<Void> executeAsync(Executor executor, ConnectionSupplier connectionSupplier, Transaction transaction) {
+        return null;
+    }
+
     /**
      * コネクションが自動コミットでなければ、トランザクションをコミットします。
      *
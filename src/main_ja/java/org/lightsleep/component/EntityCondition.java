@@ -27,6 +27,17 @@ public class EntityCondition<E> implements Condition {
     public EntityCondition(E entity) {
     }
 
+    /**
+     * エンティティを返します。
+     *
+     * @return エンティティ
+     *
+     * @since 4.1.0
+     */
+    public E entity() {
+        return null;
+    }
+
     @Override
     public boolean isEmpty() {
         return false;
@@ -7,6 +7,7 @@ import java.util.List;
 
 import org.lightsleep.Sql;
 import org.lightsleep.database.Database;
+import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.MissingPropertyException;
 
 /**
@@ -83,6 +84,11 @@ public class Expression implements Condition {
      *   </tr>
      * </table>
      *     *
+     * <p>
+     * <b>Iterable</b>の引数が<b>IN</b>または<b>NOT IN</b>の右オペランドで、左オペランドが<b>{id} IN {}</b>のようにカラムの場合は、
+     * {@link Database#inPredicateSqlString(Iterable, boolean, ColumnInfo)}が<b>null</b>を返さなければ、述語をその結果で置き換えます。
+     * </p>
+     *
      * @throws MissingArgumentsException 式のプレースメントと引数の数が一致しない場合
      * @throws MissingPropertyException 式に存在しないプロパティが参照された場合
      */
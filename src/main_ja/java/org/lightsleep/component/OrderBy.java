@@ -49,6 +49,17 @@ public class OrderBy implements SqlComponent, Cloneable {
             return this;
         }
 
+        /**
+         * 降順かどうかを返します。
+         *
+         * @return 降順の場合は<b>true</b>、そうでなければ<b>false</b>
+         *
+         * @since 4.1.0
+         */
+        public boolean isDescending() {
+            return false;
+        }
+
         @Override
         public <E> String toString(Database database, Sql<E> sql, List<Object> parameters) {
             return null;
@@ -0,0 +1,46 @@
+// SqlArray.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.component;
+
+/**
+ * <b>Connection.createArrayOf</b>で作成した<b>java.sql.Array</b>としてバインドされるSQLパラメータです。
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class SqlArray {
+    /**
+     * <b>SqlArray</b>を構築します。
+     *
+     * @param typeName 要素の型のSQL名
+     * @param elements 要素
+     *
+     * @throws NullPointerException <b>typeName</b>または<b>elements</b>が<b>null</b>の場合
+     */
+    public SqlArray(String typeName, Object[] elements) {
+    }
+
+    /**
+     * 要素の型のSQL名を返します。
+     *
+     * @return 要素の型のSQL名
+     */
+    public String typeName() {
+        return null;
+    }
+
+    /**
+     * 要素を返します。
+     *
+     * @return 要素
+     */
+    public Object[] elements() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return null;
+    }
+}
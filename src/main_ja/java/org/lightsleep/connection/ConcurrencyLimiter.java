@@ -0,0 +1,219 @@
+// ConcurrencyLimiter.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import javax.sql.DataSource;
+
+import org.lightsleep.database.Database;
+
+/**
+ * 別のコネクション・サプライヤの使用中のコネクション数を適応的に制限するコネクション・サプライヤです。
+ *
+ * <p>
+ * 制限値は、コネクションを保持している時間、すなわちトランザクションのレイテンシの勾配で調整されます。
+ * 対話型とバッチのトランザクションの異なるレイテンシを互いに比較しないように、
+ * レイテンシの短期と長期の移動平均を優先度ごとに保持します。
+ * 勾配は{@value #TOLERANCE} &times; <i>長期レイテンシ</i> / <i>短期レイテンシ</i>を0.5から1の範囲に制限した値で、
+ * 制限値は<i>制限値</i> &times; <i>勾配</i> + &radic;<i>制限値</i>に徐々に近づきます。
+ * このため制限値は、レイテンシが安定していて制限値の半分を超えて使用中の間は増加し、
+ * 短期レイテンシが長期レイテンシの{@value #TOLERANCE}倍を超えると減少します。
+ * コネクション・サプライヤからのコネクションの取得に失敗した場合、
+ * 制限値を短期レイテンシあたり最大1回、{@value #BACKOFF_RATIO}倍に減らします。
+ * </p>
+ *
+ * <p>
+ * 制限値に達している場合、<b>get()</b>は最大待ち時間までキューで待機します。
+ * キューが満杯か時間を超えた場合、<b>get()</b>はコネクションを取得せずに、
+ * コネクション・プールのタイムアウトと同様に<b>SQLTransientConnectionException</b>を原因とする
+ * <b>RuntimeSQLException</b>をスローします。
+ * </p>
+ *
+ * <p>
+ * <b>get()</b>は対話型のトランザクションに使用し、
+ * {@link #forBatch()}が返すコネクション・サプライヤはバッチ・トランザクションに使用します。
+ * 対話型のトランザクションを先に受け入れるため、
+ * 対話型のトランザクションが待機している間はバッチ・トランザクションを受け入れません。
+ * </p>
+ *
+ * <div class="exampleTitle"><span>使用例/Java</span></div>
+ * <div class="exampleCode"><pre>
+ * var limiter = new <b>ConcurrencyLimiter(ConnectionSupplier.find())</b>;
+ * Transaction.execute(<b>limiter</b>, conn -&gt; {...});            // 対話型
+ * Transaction.execute(<b>limiter.forBatch()</b>, conn -&gt; {...}); // バッチ
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+ * <div class="exampleCode"><pre>
+ * def limiter = new <b>ConcurrencyLimiter(ConnectionSupplier.find())</b>
+ * Transaction.execute(<b>limiter</b>) {...}            // 対話型
+ * Transaction.execute(<b>limiter.forBatch()</b>) {...} // バッチ
+ * </pre></div>
+ *
+ * <p>
+ * lightsleep.propertiesで<b>concurrencyLimit</b>が指定されている場合、
+ * すべてのURLのコネクション・サプライヤが以下のプロパティでこのクラスにラップされます。
+ * </p>
+ *
+ * <div class="BlankLine">&nbsp;</div>
+ *
+ * <table class="additional">
+ *   <caption><span>lightsleep.propertiesの参照</span></caption>
+ *   <tr><th>プロパティ名</th><th>内容</th></tr>
+ *   <tr><td>concurrencyLimit</td><td>初期の制限値</td></tr>
+ *   <tr><td>concurrencyMaxLimit</td><td>最大の制限値 (デフォルト: 200)</td></tr>
+ *   <tr><td>concurrencyMaxQueue</td><td>優先度ごとの待機するトランザクションの最大数 (デフォルト: 100)</td></tr>
+ *   <tr><td>concurrencyMaxWait</td><td>キューで待機する最大時間 (ミリ秒、デフォルト: 500)</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class ConcurrencyLimiter implements ConnectionSupplier {
+    /** デフォルトの初期の制限値 */
+    public static final int DEFAULT_LIMIT = 20;
+
+    /** デフォルトの最大の制限値 */
+    public static final int DEFAULT_MAX_LIMIT = 200;
+
+    /** 優先度ごとの待機するトランザクションのデフォルトの最大数 */
+    public static final int DEFAULT_MAX_QUEUE = 100;
+
+    /** キューで待機するデフォルトの最大時間 (ミリ秒) */
+    public static final long DEFAULT_MAX_WAIT = 500L;
+
+    /** 制限値を減らさずに許容する短期レイテンシの長期レイテンシに対する比率 */
+    public static final double TOLERANCE = 1.5;
+
+    /** 制限値を減らす比率 */
+    public static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * トランザクションの優先度です。
+     */
+    public enum Priority {
+        /** 対話型のトランザクションで、先に受け入れられます */
+        INTERACTIVE,
+
+        /** バッチ・トランザクションで、対話型のトランザクションが待機していない間に受け入れられます */
+        BATCH
+    }
+
+    /**
+     * デフォルト値で<b>ConcurrencyLimiter</b>を構築します。
+     *
+     * @param supplier 制限するコネクション・サプライヤ
+     *
+     * @throws NullPointerException <b>supplier</b>が<b>null</b>の場合
+     */
+    public ConcurrencyLimiter(ConnectionSupplier supplier) {
+    }
+
+    /**
+     * <b>ConcurrencyLimiter</b>を構築します。
+     *
+     * @param supplier 制限するコネクション・サプライヤ
+     * @param initialLimit 初期の制限値
+     * @param maxLimit 最大の制限値
+     * @param maxQueue 優先度ごとの待機するトランザクションの最大数
+     * @param maxWait キューで待機する最大時間 (ミリ秒)
+     *
+     * @throws NullPointerException <b>supplier</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>initialLimit</b> &lt; 1、<b>maxLimit</b> &lt; <b>initialLimit</b>、
+     *         <b>maxQueue</b> &lt; 0または<b>maxWait</b> &lt; 0の場合
+     */
+    public ConcurrencyLimiter(ConnectionSupplier supplier, int initialLimit, int maxLimit, int maxQueue, long maxWait) {
+    }
+
+    /**
+     * 制限するコネクション・サプライヤを返します。
+     *
+     * @return 制限するコネクション・サプライヤ
+     */
+    public ConnectionSupplier getSupplier() {
+        return null;
+    }
+
+    /**
+     * 現在の制限値を返します。
+     *
+     * @return 現在の制限値
+     */
+    public int getLimit() {
+        return 0;
+    }
+
+    /**
+     * 使用中のコネクション数を返します。
+     *
+     * @return 使用中のコネクション数
+     */
+    public int getInFlight() {
+        return 0;
+    }
+
+    /**
+     * 優先度の待機しているトランザクション数を返します。
+     *
+     * @param priority 優先度
+     * @return 待機しているトランザクション数
+     *
+     * @throws NullPointerException <b>priority</b>が<b>null</b>の場合
+     */
+    public int getWaiting(Priority priority) {
+        return 0;
+    }
+
+    /**
+     * 拒否したトランザクション数を返します。
+     *
+     * @return 拒否したトランザクション数
+     */
+    public long getRejectedCount() {
+        return 0L;
+    }
+
+    /**
+     * 対話型のトランザクションのコネクションラッパーを返します。
+     *
+     * @return コネクションラッパー
+     *
+     * @throws org.lightsleep.RuntimeSQLException トランザクションが拒否されたか<b>SQLException</b>がスローされた場合
+     */
+    @Override
+    public ConnectionWrapper get() {
+        return null;
+    }
+
+    /**
+     * このオブジェクトと同じ制限値の範囲内で、バッチ・トランザクションのコネクションを供給するコネクション・サプライヤを返します。
+     *
+     * @return バッチ・トランザクションのコネクション・サプライヤ
+     */
+    public ConnectionSupplier forBatch() {
+        return null;
+    }
+
+    /**
+     * このオブジェクトと同じ制限値の範囲内で、<b>getSupplier().forReadOnly()</b>のコネクションを供給するコネクション・サプライヤを返します。
+     */
+    @Override
+    public ConnectionSupplier forReadOnly() {
+        return null;
+    }
+
+    @Override
+    public Database getDatabase() {
+        return null;
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return null;
+    }
+
+    @Override
+    public String getUrl() {
+        return null;
+    }
+}
@@ -44,6 +44,23 @@ public interface ConnectionSupplier extends Supplier<ConnectionWrapper> {
      */
     String getUrl();
 
+    /**
+     * 読み取り専用のトランザクションで使用するコネクション・サプライヤを返します。
+     *
+     * <p>
+     * デフォルトの実装は、このオブジェクトを返します。
+     * </p>
+     *
+     * @return 読み取り専用のトランザクションで使用するコネクション・サプライヤ
+     *
+     * @see ReplicaRouter
+     *
+     * @since 4.1.0
+     */
+    default ConnectionSupplier forReadOnly() {
+        return null;
+    }
+
     /**
      * <b>ConnectionSupplier</b>オブジェクトを作成します。
      *
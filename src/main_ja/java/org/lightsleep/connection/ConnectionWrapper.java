@@ -18,6 +18,7 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
@@ -123,6 +124,195 @@ public class ConnectionWrapper implements Connection {
     public void rollback() throws SQLException {
     }
 
+    /**
+     * 現在のトランザクションがコミットまたはロールバックされた後、
+     * またはコネクションがクローズされた後にコールされるアクションを追加します。
+     * 同じアクションは一度だけ追加されます。
+     *
+     * @param action アクション
+     *
+     * @throws NullPointerException <b>action</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     */
+    public void addCompletionAction(Runnable action) {
+    }
+
+    /**
+     * 現在のトランザクションが完了後にコールされるアクションを持つかどうかを返します。
+     *
+     * @return アクションを持つ場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @since 4.1.0
+     */
+    public boolean hasCompletionActions() {
+        return false;
+    }
+
+    /**
+     * 現在のトランザクションがデータベースを変更したことをマークします。
+     * マークは現在のトランザクションがコミットまたはロールバックされた後、
+     * またはコネクションがクローズされた後にクリアされます。
+     *
+     * @since 4.1.0
+     */
+    public void markChanged() {
+    }
+
+    /**
+     * 現在のトランザクションがデータベースを変更したかどうかを返します。
+     *
+     * @return {@link #markChanged()}でマークされている場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @since 4.1.0
+     */
+    public boolean hasChanges() {
+        return false;
+    }
+
+    /**
+     * 現在のトランザクションが完了するまで、エンティティのカラム値のスナップショットを格納します。
+     *
+     * @param entity エンティティ
+     * @param snapshot キー: プロパティ名、値: カラム値のマップ
+     *
+     * @throws NullPointerException <b>entity</b>または<b>snapshot</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     */
+    public void putSnapshot(Object entity, Map<String, Object> snapshot) {
+    }
+
+    /**
+     * {@link #putSnapshot(Object, Map)}で格納されたエンティティのカラム値のスナップショットを返します。
+     *
+     * @param entity エンティティ
+     * @return キー: プロパティ名、値: カラム値のマップ (格納されていない場合は<b>null</b>)
+     *
+     * @since 4.1.0
+     */
+    public Map<String, Object> getSnapshot(Object entity) {
+        return null;
+    }
+
+    /**
+     * アイデンティティ・マップを有効にするかどうかを指定します。
+     *
+     * <p>
+     * アイデンティティ・マップが有効な場合、現在のトランザクションで検索されたエンティティは
+     * トランザクションが完了するまでキーによって保持され、
+     * <b>Sql</b>オブジェクトは同じキーに対して同じエンティティのインスタンスを返します。
+     * エンティティ条件 (<b>where(entity)</b>) のみを持つ<b>Sql.select</b>メソッドは、
+     * データベースにアクセスせずに保持されたエンティティを返します。<br>
+     * デフォルト値は、lightsleep.propertiesの<b>identityMap</b> (デフォルト: <b>false</b>) です。
+     * </p>
+     *
+     * <div class="exampleTitle"><span>使用例/Java</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute(conn -&gt; {
+     *     conn.<b>setIdentityMapEnabled(true)</b>;
+     *     ...
+     * });
+     * </pre></div>
+     *
+     * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+     * <div class="exampleCode"><pre>
+     * Transaction.execute {
+     *     it.<b>identityMapEnabled = true</b>
+     *     ...
+     * }
+     * </pre></div>
+     *
+     * @param identityMapEnabled アイデンティティ・マップを有効にする場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @since 4.1.0
+     */
+    public void setIdentityMapEnabled(boolean identityMapEnabled) {
+    }
+
+    /**
+     * アイデンティティ・マップが有効かどうかを返します。
+     *
+     * @return アイデンティティ・マップが有効な場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @since 4.1.0
+     * @see #setIdentityMapEnabled(boolean)
+     */
+    public boolean isIdentityMapEnabled() {
+        return false;
+    }
+
+    /**
+     * このコネクションの取得にかかった時間を設定します。
+     *
+     * @param acquireNanos 時間 (ナノ秒)
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.ExecutionStats#connectionWaitNanos()
+     */
+    public void setAcquireNanos(long acquireNanos) {
+    }
+
+    /**
+     * このコネクションの取得にかかった時間を返します。
+     *
+     * @return 時間 (ナノ秒)。不明な場合は-1
+     *
+     * @since 4.1.0
+     */
+    public long getAcquireNanos() {
+        return 0L;
+    }
+
+    /**
+     * アイデンティティ・マップ内のキーのエンティティを返します。
+     *
+     * @param <E> エンティティの型
+     * @param entityClass エンティティ・クラス
+     * @param key キー・カラムの値のリスト
+     * @return エンティティ (見つからない場合は<b>null</b>)
+     *
+     * @since 4.1.0
+     */
+    public <E> E getIdentity(Class<E> entityClass, List<Object> key) {
+        return null;
+    }
+
+    /**
+     * アイデンティティ・マップが有効であれば、エンティティをアイデンティティ・マップに格納します。
+     *
+     * @param entityClass エンティティ・クラス
+     * @param key キー・カラムの値のリスト
+     * @param entity エンティティ
+     *
+     * @throws NullPointerException <b>entityClass</b>, <b>key</b>または<b>entity</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     */
+    public void putIdentity(Class<?> entityClass, List<Object> key, Object entity) {
+    }
+
+    /**
+     * キーのエンティティをアイデンティティ・マップから削除します。
+     *
+     * @param entityClass エンティティ・クラス
+     * @param key キー・カラムの値のリスト
+     *
+     * @since 4.1.0
+     */
+    public void removeIdentity(Class<?> entityClass, List<Object> key) {
+    }
+
+    /**
+     * エンティティ・クラスの全エンティティをアイデンティティ・マップから削除します。
+     *
+     * @param entityClass エンティティ・クラス
+     *
+     * @since 4.1.0
+     */
+    public void removeIdentities(Class<?> entityClass) {
+    }
+
     @Override
     public void close() throws SQLException {
     }
@@ -0,0 +1,123 @@
+// ReplicaRouter.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.lightsleep.database.Database;
+
+/**
+ * プライマリ・データベースとそのリードレプリカにコネクションを振り分けるコネクション・サプライヤです。
+ *
+ * <p>
+ * <b>get()</b>はプライマリ・データベースのコネクションを返します。
+ * <b>forReadOnly()</b>が返すコネクション・サプライヤはレプリカのいずれかのコネクションを返し、
+ * <b>Transaction.executeReadOnly</b>で使用されます。
+ * </p>
+ *
+ * <p>
+ * レプリカは、未クローズのコネクション数が最も少ないものを、コネクション取得時間の移動平均で重み付けして選択します。
+ * レプリカからのコネクションの取得に失敗した場合、そのレプリカを一定時間除外して別のレプリカを試します。
+ * 使用可能なレプリカがない場合は、プライマリ・データベースを使用します。
+ * </p>
+ *
+ * <p>
+ * lightsleep.properties ファイルの以下のプロパティを参照します。
+ * </p>
+ *
+ * <div class="BlankLine">&nbsp;</div>
+ *
+ * <table class="additional">
+ *   <caption><span>lightsleep.propertiesの参照</span></caption>
+ *   <tr><th>プロパティ名</th><th>内容</th></tr>
+ *   <tr><td>replicaUrls</td><td>(最初の)プライマリURLのレプリカのURL (カンマ区切り)</td></tr>
+ *   <tr><td>replicaEjectTime</td><td>失敗したレプリカを除外する時間 (ミリ秒、デフォルト: 30000)</td></tr>
+ * </table>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class ReplicaRouter implements ConnectionSupplier {
+    /** 失敗したレプリカを除外するデフォルトの時間 (ミリ秒) */
+    public static final long DEFAULT_EJECT_TIME = 30_000L;
+
+    /**
+     * <b>ReplicaRouter</b>を構築します。
+     *
+     * @param primary プライマリ・データベースのコネクション・サプライヤ
+     * @param replicas レプリカのコネクション・サプライヤ
+     *
+     * @throws NullPointerException <b>primary</b>, <b>replicas</b>または<b>replicas</b>の要素が<b>null</b>の場合
+     */
+    public ReplicaRouter(ConnectionSupplier primary, List<? extends ConnectionSupplier> replicas) {
+    }
+
+    /**
+     * <b>ReplicaRouter</b>を構築します。
+     *
+     * @param primary プライマリ・データベースのコネクション・サプライヤ
+     * @param replicas レプリカのコネクション・サプライヤ
+     * @param ejectTime 失敗したレプリカを除外する時間 (ミリ秒)
+     *
+     * @throws NullPointerException <b>primary</b>, <b>replicas</b>または<b>replicas</b>の要素が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>ejectTime</b>が負の場合
+     */
+    public ReplicaRouter(ConnectionSupplier primary, List<? extends ConnectionSupplier> replicas, long ejectTime) {
+    }
+
+    /**
+     * プライマリ・データベースのコネクション・サプライヤを返します。
+     *
+     * @return プライマリ・データベースのコネクション・サプライヤ
+     */
+    public ConnectionSupplier getPrimary() {
+        return null;
+    }
+
+    /**
+     * レプリカのコネクション・サプライヤを返します。
+     *
+     * @return レプリカのコネクション・サプライヤ
+     */
+    public List<ConnectionSupplier> getReplicas() {
+        return null;
+    }
+
+    /**
+     * プライマリ・データベースのコネクションラッパーを返します。
+     *
+     * @return プライマリ・データベースのコネクションラッパー
+     *
+     * @throws org.lightsleep.RuntimeSQLException <b>SQLException</b>がスローされた場合
+     */
+    @Override
+    public ConnectionWrapper get() {
+        return null;
+    }
+
+    /**
+     * レプリカのコネクションを供給するコネクション・サプライヤを返します。
+     */
+    @Override
+    public ConnectionSupplier forReadOnly() {
+        return null;
+    }
+
+    @Override
+    public Database getDatabase() {
+        return null;
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return null;
+    }
+
+    @Override
+    public String getUrl() {
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+// ShardStrategy.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * シャードキーをシャードに対応付ける戦略です。
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see ShardedSupplier
+ */
+@FunctionalInterface
+public interface ShardStrategy {
+    /**
+     * シャードキーに対応するシャードのインデックスを返します。
+     *
+     * @param shardKey シャードキー
+     * @param shardCount シャード数
+     * @return シャードのインデックス (0 &lt;= index &lt; <b>shardCount</b>)
+     *
+     * @throws IllegalArgumentException シャードキーをどのシャードにも対応付けられない場合
+     */
+    int shardIndex(Object shardKey, int shardCount);
+
+    /**
+     * シャードキーのハッシュコードでシャードに対応付ける戦略を返します。
+     *
+     * <p>
+     * シャードキーのハッシュコードは、<b>Integer</b>, <b>Long</b>, <b>String</b>のように
+     * どのJVMでも同じ値である必要があります。
+     * </p>
+     *
+     * @return <b>ShardStrategy</b>
+     */
+    static ShardStrategy hash() {
+        return null;
+    }
+
+    /**
+     * シャードキーの範囲でシャードに対応付ける戦略を返します。
+     *
+     * <p>
+     * シャード<b>i</b>は、<b>upperBounds.get(i)</b>未満かつ<b>upperBounds.get(i - 1)</b>以上のキーを保持します。
+     * 最後のシャードは最後の上限値以上のキーを保持するので、シャード数は<b>upperBounds.size() + 1</b>である必要があります。
+     * </p>
+     *
+     * @param <K> シャードキーの型
+     * @param upperBounds 昇順に並べたシャードの上限値 (その値を含まない)
+     * @return <b>ShardStrategy</b>
+     *
+     * @throws NullPointerException <b>upperBounds</b>または<b>upperBounds</b>の要素が<b>null</b>の場合
+     */
+    static <K extends Comparable<? super K>> ShardStrategy range(List<K> upperBounds) {
+        return null;
+    }
+
+    /**
+     * ルックアップテーブルでシャードキーをシャードに対応付ける戦略を返します。
+     *
+     * @param table キー: シャードキー、値: シャードのインデックスのマップ
+     * @return <b>ShardStrategy</b>
+     *
+     * @throws NullPointerException <b>table</b>が<b>null</b>の場合
+     */
+    static ShardStrategy lookup(Map<?, Integer> table) {
+        return null;
+    }
+}
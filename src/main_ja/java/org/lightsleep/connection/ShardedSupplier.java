@@ -0,0 +1,143 @@
+// ShardedSupplier.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.connection;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import org.lightsleep.Sql;
+
+/**
+ * シャードのコネクション・サプライヤの集合で、シャードキーをシャードのコネクション・サプライヤに対応付けます。
+ *
+ * <p>
+ * シャードキーに対応するシャードのコネクション・サプライヤを取得するには<b>forKey(shardKey)</b>を使用してください。
+ * <b>select</b>および<b>selectCount</b>メソッドは、同じクエリを全シャードで並列に実行し、結果をマージします。
+ * シャードキーなしではコネクションを供給できないため、このクラス自体はコネクション・サプライヤではありません。
+ * </p>
+ *
+ * <div class="exampleTitle"><span>使用例/Java</span></div>
+ * <div class="exampleCode"><pre>
+ * var shards = ShardedSupplier.find(ShardStrategy.hash(), "customer");
+ *
+ * Transaction.execute(shards.forKey(customerId), conn -&gt; ...);
+ *
+ * var contacts = new ArrayList&lt;Contact&gt;();
+ * shards.select(new Sql&lt;&gt;(Contact.class)
+ *     .where("{name.last}={}", "Apple")
+ *     .orderBy("{id}")
+ *     .limit(10),
+ *     contacts::add);
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see ShardStrategy
+ */
+public class ShardedSupplier {
+    /**
+     * <b>ShardedSupplier</b>を構築します。
+     *
+     * @param shards シャードのコネクション・サプライヤ
+     * @param strategy シャードキーをシャードに対応付ける戦略
+     *
+     * @throws NullPointerException <b>shards</b>, <b>shards</b>の要素または<b>strategy</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>shards</b>が空の場合
+     */
+    public ShardedSupplier(List<? extends ConnectionSupplier> shards, ShardStrategy strategy) {
+    }
+
+    /**
+     * <b>ShardedSupplier</b>を構築します。
+     *
+     * @param shards シャードのコネクション・サプライヤ
+     * @param strategy シャードキーをシャードに対応付ける戦略
+     * @param executor シャードでクエリを実行するエグゼキュータ
+     *
+     * @throws NullPointerException <b>shards</b>, <b>shards</b>の要素, <b>strategy</b>または<b>executor</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>shards</b>が空の場合
+     */
+    public ShardedSupplier(List<? extends ConnectionSupplier> shards, ShardStrategy strategy, Executor executor) {
+    }
+
+    /**
+     * lightsleep.propertiesのURLのうち<b>urlWords</b>をすべて含むURLのコネクション・サプライヤで
+     * 新しい<b>ShardedSupplier</b>を返します。
+     *
+     * <p>
+     * シャードの順序は、lightsleep.propertiesのURLの順序です。
+     * </p>
+     *
+     * @param strategy シャードキーをシャードに対応付ける戦略
+     * @param urlWords シャードのURLを検索するワード
+     * @return 新しい<b>ShardedSupplier</b>
+     *
+     * @throws NullPointerException <b>strategy</b>, <b>urlWords</b>または<b>urlWords</b>の要素が<b>null</b>の場合
+     * @throws IllegalArgumentException URLが見つからない場合
+     */
+    public static ShardedSupplier find(ShardStrategy strategy, String... urlWords) {
+        return null;
+    }
+
+    /**
+     * シャードのコネクション・サプライヤを返します。
+     *
+     * @return シャードのコネクション・サプライヤ
+     */
+    public List<ConnectionSupplier> getShards() {
+        return null;
+    }
+
+    /**
+     * シャードキーに対応するシャードのコネクション・サプライヤを返します。
+     *
+     * @param shardKey シャードキー
+     * @return シャードのコネクション・サプライヤ
+     *
+     * @throws IllegalArgumentException シャードキーをどのシャードにも対応付けられない場合
+     */
+    public ConnectionSupplier forKey(Object shardKey) {
+        return null;
+    }
+
+    /**
+     * SELECT SQLを全シャードで並列に実行し、マージした結果の各行ごとに<b>consumer.accept</b>をコールします。
+     *
+     * <p>
+     * <b>sql</b>にORDER BYがある場合、シャードの結果をその順序でマージします。
+     * ORDER BYの各要素は<b>{プロパティ名}</b>形式のプロパティ名である必要があります。
+     * <b>NULL</b>値はシャードのデータベースハンドラの{@link org.lightsleep.database.Database#nullsAreSortedLow()}に従った順序でマージします。
+     * <b>sql</b>にLIMITおよびOFFSETがある場合、マージした結果に適用します。
+     * 各シャードは読み取り専用のトランザクションで実行されます。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql <b>Sql</b>オブジェクト (そのコネクションは使用されません)
+     * @param consumer 取得したエンティティのコンシューマ
+     *
+     * @throws NullPointerException <b>sql</b>または<b>consumer</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException ORDER BYの要素がプロパティ名でない場合
+     * @throws org.lightsleep.RuntimeSQLException データベースのアクセス中に<b>SQLException</b>がスローされた場合
+     */
+    public <E> void select(Sql<E> sql, Consumer<? super E> consumer) {
+    }
+
+    /**
+     * 全シャードで並列に<b>sql.selectCount()</b>を実行し、行数の合計を返します。
+     *
+     * <p>
+     * 各シャードは読み取り専用のトランザクションで実行されます。
+     * </p>
+     *
+     * @param sql <b>Sql</b>オブジェクト (そのコネクションは使用されません)
+     * @return 行数の合計
+     *
+     * @throws NullPointerException <b>sql</b>が<b>null</b>の場合
+     * @throws org.lightsleep.RuntimeSQLException データベースのアクセス中に<b>SQLException</b>がスローされた場合
+     */
+    public int selectCount(Sql<?> sql) {
+        return 0;
+    }
+}
@@ -65,6 +65,14 @@ public class Db2 extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
     /**
      * @since 2.2.0
      */
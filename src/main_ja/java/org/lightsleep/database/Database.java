@@ -5,11 +5,15 @@ package org.lightsleep.database;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
 import org.lightsleep.Sql;
+import org.lightsleep.component.Condition;
+import org.lightsleep.component.SqlString;
+import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.TypeConverter;
 
 /**
@@ -28,6 +32,49 @@ public interface Database {
         return false;
     }
 
+    /**
+     * <b>IN</b>述語で<b>(a, b) IN ((1, 2), (3, 4))</b>のような行値構成子をサポートしているかどうかを返します。
+     *
+     * @return <b>IN</b>述語で行値構成子をサポートしている場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @since 4.1.0
+     */
+    default boolean supportsRowValueIn() {
+        return false;
+    }
+
+    /**
+     * 昇順では<b>NULL</b>値が他のどの値よりも前に、降順では後にソートされるかどうかを返します。
+     *
+     * <p>
+     * この実装は<b>false</b>を返します (<b>NULL</b>値は最大の値としてソートされます)。
+     * </p>
+     *
+     * @return <b>NULL</b>値が最小の値としてソートされる場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @since 4.1.0
+     * @see java.sql.DatabaseMetaData#nullsAreSortedLow()
+     */
+    default boolean nullsAreSortedLow() {
+        return false;
+    }
+
+    /**
+     * {@link #keysCondition(Sql, List)}で生成される条件に含めるキーの最大数を返します。
+     *
+     * <p>
+     * この実装は、Oracleの<b>IN</b>リストの式の最大数である1000を返します。
+     * </p>
+     *
+     * @param keyColumnCount キーカラムの数
+     * @return 条件に含めるキーの最大数
+     *
+     * @since 4.1.0
+     */
+    default int maxKeysPerCondition(int keyColumnCount) {
+        return 0;
+    }
+
     /**
      * SELECT SQLを作成して返します。
      *
@@ -80,6 +127,63 @@ public interface Database {
      */
     public <E> CharSequence insertSql(Sql<E> sql, List<Object> parameters);
 
+    /**
+     * エンティティを挿入するか、同じキーの行が存在する場合はその行を更新するUPSERT SQLを作成して返します。
+     *
+     * <p>
+     * キーカラムは<b>@Key</b>アノテーションが付加されたカラムです。
+     * 更新するカラムはキーカラム以外の更新可能なカラムです。
+     * </p>
+     *
+     * <p>
+     * この実装は<b>null</b>を返し、{@link org.lightsleep.Sql#upsert(Object)}は同じキーの行を更新し、
+     * 更新された行がなければエンティティを挿入します。
+     * {@link Standard}から派生したデータベース・ハンドラは<i>MERGE</i> SQLまたは方言固有のUPSERT SQLを返します。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @param parameters SQLのパラメータを格納するリスト
+     * @return UPSERT SQLを含む<b>CharSequence</b>、データベース・ハンドラがUPSERT SQLをサポートしていない場合は<b>null</b>
+     *
+     * @throws IllegalStateException エンティティ・クラスにキーカラムがない場合
+     *
+     * @since 4.1.0
+     */
+    default <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return null;
+    }
+
+    /**
+     * エンティティを<b>sql</b>のメイン・テーブルに一括挿入します。
+     *
+     * <p>
+     * この実装は、エンティティ毎に{@link #insertSql(Sql, List)}で<i>INSERT</i> SQLを生成し、
+     * lightsleep.propertiesの<b>bulkInsertBatchSize</b> (未定義の場合は1000) 件ずつバッチ実行します。
+     * パラメータを含むSQLは個別に実行します。<br>
+     * データベース・ハンドラは、このメソッドをオーバーライドしてドライバのネイティブな一括ロード機能を使用します。
+     * </p>
+     *
+     * <p>
+     * このメソッドは<b>PreInsert.preInsert</b>および<b>PostInsert.postInsert</b>メソッドを呼び出しません。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報とコネクションラッパーを含む<b>Sql</b>オブジェクト
+     * @param entities エンティティの<b>Iterable</b> (1回だけ反復されます)
+     * @return 挿入した行数
+     *
+     * @throws NullPointerException <b>sql</b>, <b>entities</b>または<b>entities</b>の要素のいずれかが<b>null</b>の場合
+     * @throws IllegalStateException <b>sql</b>に<b>ConnectionWrapper</b>が設定されていない場合
+     * @throws org.lightsleep.RuntimeSQLException データベースアクセスエラーが発生した場合
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#bulkInsert(Iterable)
+     */
+    default <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        return 0;
+    }
+
     /**
      * UPDATE SQLを作成して返します。
      *
@@ -100,6 +204,53 @@ public interface Database {
      */
     public <E> CharSequence deleteSql(Sql<E> sql, List<Object> parameters);
 
+    /**
+     * <b>{id} IN {}</b>のような<b>Iterable</b>の引数を持つ<b>IN</b>または<b>NOT IN</b>述語を置き換える<b>SqlString</b>を返します。
+     *
+     * <p>
+     * 返される<b>SqlString</b>の内容で演算子と引数を置き換えます。
+     * この実装は<b>IN (</b><i>値</i>, ...<b>)</b>を生成するために<b>null</b>を返します。
+     * </p>
+     *
+     * @param values 引数の値
+     * @param not <b>NOT IN</b>の場合は<b>true</b>、<b>IN</b>の場合は<b>false</b>
+     * @param columnInfo 左オペランドのカラム情報
+     * @return <b>SqlString</b>または<b>null</b>
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.component.Expression#toString(Database, Sql, List)
+     */
+    default SqlString inPredicateSqlString(Iterable<?> values, boolean not, ColumnInfo columnInfo) {
+        return null;
+    }
+
+    /**
+     * いずれかのキーを持つ行に一致する条件を作成して返します。
+     *
+     * <p>
+     * キーカラムが1つの場合は<b>{key} IN ({}, {}, ...)</b>を生成します。
+     * 複合キーの場合は、{@link #supportsRowValueIn()}が<b>true</b>を返すなら<b>({key1}, {key2}) IN (({}, {}), ...)</b>、
+     * そうでなければ<b>{key1}={} AND {key2}={} OR ...</b>を生成します。
+     * キーの値はキーカラムのカラムの型に変換されます。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @param keys キーカラムの順に並べたキーの値の配列のリスト
+     * @return 条件
+     *
+     * @throws NullPointerException <b>sql</b>, <b>keys</b>または<b>keys</b>の要素のいずれかが<b>null</b>の場合
+     * @throws IllegalArgumentException キーの値の配列の長さがキーカラムの数と異なる場合
+     * @throws IllegalStateException エンティティ・クラスにキーカラムがない場合
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#selectByKeys(java.util.Collection, java.util.function.Consumer)
+     * @see org.lightsleep.Sql#deleteByKeys(java.util.Collection)
+     */
+    default <E> Condition keysCondition(Sql<E> sql, List<Object[]> keys) {
+        return null;
+    }
+
     /**
      * <b>TypeConverter</b>マップを返します。
      *
@@ -117,6 +268,50 @@ public interface Database {
      */
     public <T> T convert(Object value, Class<T> type);
 
+    /**
+     * SQLの実行計画を取得するSQLを作成して返します。
+     *
+     * <p>
+     * SQLは順に実行されます。
+     * <b>sql</b>のパラメータは最初のSQLに設定され、
+     * 最後のSQLが返す行が実行計画です。
+     * </p>
+     *
+     * @param sql SQL
+     * @return 実行計画を取得するSQLのリスト
+     *
+     * @throws UnsupportedOperationException データベース・ハンドラが実行計画の取得をサポートしていない場合
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.Sql#explain()
+     */
+    default List<String> explainSqls(CharSequence sql) {
+        return null;
+    }
+
+    /**
+     * 例外で失敗したトランザクションがリトライ可能かどうかを返します。
+     *
+     * <p>
+     * この実装は、SQLSTATEが<b>40001</b> (シリアライゼーション失敗) または<b>40P01</b> (デッドロック検出) の場合、
+     * または例外が<b>SQLTransactionRollbackException</b>の場合、
+     * すなわちデータベースがトランザクションをロールバックした場合に<b>true</b>を返します。
+     * SQLSTATEが<b>40003</b> (文の完了が不明) の場合は、例外が<b>SQLTransactionRollbackException</b>であっても
+     * <b>false</b>を返します。トランザクションがコミットされている可能性があり、リトライにより変更が二重に適用されうるためです。
+     * </p>
+     *
+     * @param exception 例外
+     * @return リトライ可能な場合は<b>true</b>、そうでなければ<b>false</b>
+     *
+     * @throws NullPointerException <b>exception</b>が<b>null</b>の場合
+     *
+     * @since 4.1.0
+     * @see org.lightsleep.RetryPolicy
+     */
+    default boolean isRetryable(SQLException exception) {
+        return false;
+    }
+
     /**
      * JDBC URLのパスワードをマスクします。.
      *
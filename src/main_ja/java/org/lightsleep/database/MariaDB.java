@@ -5,6 +5,10 @@ package org.lightsleep.database;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.lightsleep.Sql;
 
 /**
  * <a href="https://mariadb.org/" target="MariaDB">MariaDB</a>
@@ -64,6 +68,60 @@ public class MariaDB extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean nullsAreSortedLow() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は<b>EXPLAIN FORMAT=JSON</b> <i>sql</i>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は、エラー・コードが<b>1213</b> (デッドロック検出) の場合も<b>true</b>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean isRetryable(SQLException exception) {
+        return false;
+    }
+
+    /**
+     * UPSERT SQLとして<i>INSERT ... ON DUPLICATE KEY UPDATE</i> SQLを作成して返します。
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return null;
+    }
+
     @Override
     public String maskPassword(String jdbcUrl) {
         return null;
@@ -73,4 +131,21 @@ public class MariaDB extends Standard {
     public Object getObject(Connection connection, ResultSet resultSet, String columnLabel) {
         return null;
     }
+
+    /**
+     * メモリから行をストリーミングして<i>LOAD DATA LOCAL INFILE</i>でエンティティを一括挿入します。
+     *
+     * <p>
+     * 値は<b>TypeConverter</b>マップで文字列に変換されます。<br>
+     * エンティティを<i>LOAD DATA</i>でロードできない場合({@link Standard#bulkLoadColumns(Sql)}を参照)、ドライバが入力ストリームをサポートしていない場合や
+     * サーバまたはコネクションでローカル・インファイルが無効な場合は、
+     * バッチ実行される<i>INSERT</i> SQLで挿入します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        return 0;
+    }
 }
@@ -5,6 +5,10 @@ package org.lightsleep.database;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.lightsleep.Sql;
 
 /**
  * <a href="http://www.mysql.com/" target="MySQL">MySQL</a>
@@ -68,6 +72,60 @@ public class MySQL extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean nullsAreSortedLow() {
+        return true;
+    }
+
+    /**
+     * UPSERT SQLとして<i>INSERT ... ON DUPLICATE KEY UPDATE</i> SQLを作成して返します。
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は<b>EXPLAIN FORMAT=JSON</b> <i>sql</i>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は、エラー・コードが<b>1213</b> (デッドロック検出) の場合も<b>true</b>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean isRetryable(SQLException exception) {
+        return false;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -83,4 +141,25 @@ public class MySQL extends Standard {
     public Object getObject(Connection connection, ResultSet resultSet, String columnLabel) {
         return null;
     }
+
+    /**
+     * メモリから行をストリーミングして<i>LOAD DATA LOCAL INFILE</i>でエンティティを一括挿入します。
+     *
+     * <p>
+     * 値は<b>TypeConverter</b>マップで文字列に変換されます。
+     * コネクションには<b>allowLoadLocalInfile=true</b>、サーバには<b>local_infile=ON</b>が必要です。<br>
+     * エンティティを<i>LOAD DATA</i>でロードできない場合({@link Standard#bulkLoadColumns(Sql)}を参照)、ドライバが入力ストリームをサポートしていない場合や
+     * サーバまたはコネクションでローカル・インファイルが無効な場合は、
+     * バッチ実行される<i>INSERT</i> SQLで挿入します。<br>
+     * <i>LOCAL</i>では、サーバはキーの重複や不正な値などのエラーを警告に変え、行をスキップまたは変換します。
+     * このため挿入された行数がエンティティ数と異なるか警告が報告された場合は、
+     * <b>insert(entities)</b>と同様に<b>RuntimeSQLException</b>をスローするので、トランザクションをロールバックしてください。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        return 0;
+    }
 }
@@ -5,6 +5,8 @@ package org.lightsleep.database;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
 
 import org.lightsleep.Sql;
 
@@ -57,6 +59,44 @@ public class Oracle extends Standard {
     protected Oracle() {
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は<b>EXPLAIN PLAN FOR</b> <i>sql</i>および
+     * <b>SELECT PLAN_TABLE_OUTPUT FROM TABLE(DBMS_XPLAN.DISPLAY())</b>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は、エラー・コードが<b>60</b> (ORA-00060: デッドロック検出)
+     * または<b>8177</b> (ORA-08177: シリアライズ・アクセス不可) の場合も<b>true</b>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean isRetryable(SQLException exception) {
+        return false;
+    }
+
     /**
      * @since 2.2.0
      */
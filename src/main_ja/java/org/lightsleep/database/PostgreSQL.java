@@ -5,6 +5,11 @@ package org.lightsleep.database;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.util.List;
+
+import org.lightsleep.Sql;
+import org.lightsleep.component.SqlString;
+import org.lightsleep.helper.ColumnInfo;
 
 /**
  * <a href="http://www.postgresql.org/" target="PostgreSQL">PostgreSQL</a>
@@ -71,6 +76,54 @@ public class PostgreSQL extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * 値の数に関わらず同じSQLになるように、<b>SqlArray</b>パラメータを使用した
+     * <b>= ANY(?)</b>または<b>&lt;&gt; ALL(?)</b>を返します。
+     *
+     * <p>
+     * 配列の要素の型は<b>columnInfo</b>のカラムの型またはプロパティの型から推定します。
+     * 要素の型にSQLの型名がない場合は、<b>IN (</b><i>値</i>, ...<b>)</b>を生成するために<b>null</b>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public SqlString inPredicateSqlString(Iterable<?> values, boolean not, ColumnInfo columnInfo) {
+        return null;
+    }
+
+    /**
+     * UPSERT SQLとして<i>INSERT ... ON CONFLICT (</i><i>キー</i>, ...<i>) DO UPDATE</i> SQLを作成して返します。
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は<b>EXPLAIN (FORMAT JSON)</b> <i>sql</i>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return null;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -86,4 +139,19 @@ public class PostgreSQL extends Standard {
     public Object getObject(Connection connection, ResultSet resultSet, String columnLabel) {
         return null;
     }
+
+    /**
+     * PostgreSQL JDBCドライバの<b>CopyManager</b>を使用して<i>COPY ... FROM STDIN</i>でエンティティを一括挿入します。
+     *
+     * <p>
+     * 値は<b>TypeConverter</b>マップで文字列に変換され、<i>COPY</i>のテキスト形式でストリーミングされます。<br>
+     * エンティティを<i>COPY</i>でロードできない場合({@link Standard#bulkLoadColumns(Sql)}を参照)は、バッチ実行される<i>INSERT</i> SQLで挿入します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        return 0;
+    }
 }
@@ -5,6 +5,7 @@ package org.lightsleep.database;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -110,6 +111,29 @@ public class SQLServer extends Standard {
     protected SQLServer() {
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は、SQL Serverのパラメータ数の上限2100を超えないように、
+     * 2000個のパラメータに収まるキーの数を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public int maxKeysPerCondition(int keyColumnCount) {
+        return 0;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean nullsAreSortedLow() {
+        return true;
+    }
+
     @Override
     public <E> CharSequence selectSql(Sql<E> sql, List<Object> parameters) {
         return null;
@@ -135,6 +159,30 @@ public class SQLServer extends Standard {
     protected <E> void appendForUpdate(StringBuilder buff, Sql<E> sql) {
     }
 
+    /**
+     * UPSERT SQLとしてセミコロンで終端した<i>MERGE</i> SQLを作成して返します。
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は、エラー・コードが<b>1205</b> (デッドロックの対象) の場合も<b>true</b>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public boolean isRetryable(SQLException exception) {
+        return false;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -150,4 +198,19 @@ public class SQLServer extends Standard {
     public Object getObject(Connection connection, ResultSet resultSet, String columnLabel) {
         return null;
     }
+
+    /**
+     * SQL Server JDBCドライバの<b>SQLServerBulkCopy</b>を使用してエンティティを一括挿入します。
+     *
+     * <p>
+     * 値は<b>TypeConverter</b>マップでテーブルのカラムの型に対応する型に変換されます。<br>
+     * エンティティを<b>SQLServerBulkCopy</b>でロードできない場合({@link Standard#bulkLoadColumns(Sql)}を参照)は、バッチ実行される<i>INSERT</i> SQLで挿入します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> int bulkInsert(Sql<E> sql, Iterable<? extends E> entities) {
+        return 0;
+    }
 }
@@ -3,6 +3,10 @@
 
 package org.lightsleep.database;
 
+import java.util.List;
+
+import org.lightsleep.Sql;
+
 /**
  * <a href="https://www.sqlite.org/index.html" target="SQLite">SQLite</a>
  * 用のデータベースハンドラです。<br>
@@ -91,6 +95,46 @@ public class SQLite extends Standard {
         return true;
     }
 
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    /**
+     * @since 4.1.0
+     */
+    @Override
+    public boolean nullsAreSortedLow() {
+        return true;
+    }
+
+    /**
+     * UPSERT SQLとして<i>INSERT ... ON CONFLICT (</i><i>キー</i>, ...<i>) DO UPDATE</i> SQLを作成して返します。
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は<b>EXPLAIN QUERY PLAN</b> <i>sql</i>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return null;
+    }
+
     /**
      * @since 2.2.0
      */
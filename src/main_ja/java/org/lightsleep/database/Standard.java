@@ -7,7 +7,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
+import org.lightsleep.component.Expression;
 import org.lightsleep.component.SqlString;
+import org.lightsleep.helper.ColumnInfo;
 import org.lightsleep.helper.TypeConverter;
 import org.lightsleep.Sql;
 
@@ -276,6 +278,165 @@ public class Standard implements Database {
         return null;
     }
 
+    /**
+     * エンティティをネイティブな一括ロード機能でロードできる場合、<b>sql</b>の挿入可能なカラムを返します。
+     *
+     * <p>
+     * FROM副問合せまたは挿入式が指定されている場合や、
+     * プロパティの型が<b>byte[]</b>以外の配列の場合は<b>null</b>を返します。
+     * この場合、エンティティはバッチ実行される<i>INSERT</i> SQLで挿入されます。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @return 挿入可能なカラムのリストまたは<b>null</b>
+     *
+     * @since 4.1.0
+     */
+    protected <E> List<ColumnInfo> bulkLoadColumns(Sql<E> sql) {
+        return null;
+    }
+
+    /**
+     * ネイティブな一括ロード機能でロードするエンティティのカラムの値を返します。
+     *
+     * <p>
+     * カラムの型が指定されている場合は、<i>INSERT</i> SQLと同様にカラムの型に変換します。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @param columnInfo カラム情報
+     * @param entity エンティティ
+     * @return 値 (nullの場合あり)
+     *
+     * @since 4.1.0
+     */
+    protected <E> Object bulkLoadValue(Sql<E> sql, ColumnInfo columnInfo, E entity) {
+        return null;
+    }
+
+    /**
+     * バイト配列の16進文字列を<b>buff</b>に追加します。
+     *
+     * @param buff 追加される文字列バッファ
+     * @param bytes バイト配列
+     *
+     * @since 4.1.0
+     */
+    protected static void appendHex(StringBuilder buff, byte[] bytes) {
+    }
+
+    /**
+     * UPSERT SQLとして<i>MERGE</i> SQLを作成して返します。
+     *
+     * <p>
+     * <b>MERGE INTO</b> <i>テーブル</i> <b>T USING</b> <i>ソース</i> <b>S ON (</b><i>T.キー=S.キー</i>, ...<b>)</b><br>
+     * <b>WHEN MATCHED THEN UPDATE SET</b> <i>カラム=S.カラム</i>, ...<br>
+     * <b>WHEN NOT MATCHED THEN INSERT (</b><i>カラム</i>, ...<b>) VALUES (</b><i>S.カラム</i>, ...<b>)</b>
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public <E> CharSequence upsertSql(Sql<E> sql, List<Object> parameters) {
+        return null;
+    }
+
+    /**
+     * <i>MERGE</i> SQLのソースを<b>buff</b>に追加します。
+     *
+     * <p>
+     * <b>(VALUES (</b><i>値</i>, ...<b>)) S (</b><i>カラム名</i>, ...<b>)</b>
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param buff 追加される文字列バッファ
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @param parameters SQLのパラメータを格納するリスト
+     *
+     * @since 4.1.0
+     */
+    protected <E> void appendMergeSource(StringBuilder buff, Sql<E> sql, List<Object> parameters) {
+    }
+
+    /**
+     * <i>MERGE</i> SQLのソースのカラム (キーカラムと挿入可能なカラム) を返します。
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @return ソースのカラム
+     *
+     * @since 4.1.0
+     */
+    protected <E> List<ColumnInfo> mergeSourceColumnInfos(Sql<E> sql) {
+        return null;
+    }
+
+    /**
+     * UPSERT SQLのキーカラムを返します。
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @return キーカラム
+     *
+     * @throws IllegalStateException エンティティ・クラスにキーカラムがない場合
+     *
+     * @since 4.1.0
+     */
+    protected <E> List<ColumnInfo> upsertKeyColumnInfos(Sql<E> sql) {
+        return null;
+    }
+
+    /**
+     * UPSERT SQLで更新するカラム (キーカラム以外の選択された更新可能なカラム) を返します。
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @return 更新するカラム
+     *
+     * @since 4.1.0
+     */
+    protected <E> List<ColumnInfo> upsertUpdateColumnInfos(Sql<E> sql) {
+        return null;
+    }
+
+    /**
+     * <b>sql</b>に指定された式またはカラムの更新式を返します。
+     *
+     * <p>
+     * どちらも指定されていない場合は空の式を返し、UPSERT SQLは挿入する値でカラムを更新します。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @param columnInfo カラム情報
+     * @return 式 (空の場合あり)
+     *
+     * @since 4.1.0
+     */
+    protected <E> Expression getUpsertUpdateExpression(Sql<E> sql, ColumnInfo columnInfo) {
+        return null;
+    }
+
+    /**
+     * UPSERT SQLで対象テーブルのカラムを区別するためのテーブル別名を持つ<b>Sql</b>オブジェクトを返します。
+     *
+     * <p>
+     * <b>sql</b>がすでにテーブル別名を持つ場合は<b>sql</b>自体を返します。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @param tableAlias テーブル別名
+     * @return テーブル別名を持つ<b>Sql</b>オブジェクト
+     *
+     * @since 4.1.0
+     */
+    protected <E> Sql<E> upsertTargetSql(Sql<E> sql, String tableAlias) {
+        return null;
+    }
+
     @Override
     public <E> CharSequence updateSql(Sql<E> sql, List<Object> parameters) {
         return null;
@@ -389,6 +550,24 @@ public class Standard implements Database {
     protected <E> void appendInsertValues(StringBuilder buff, Sql<E> sql, List<Object> parameters) {
     }
 
+    /**
+     * 挿入するカラムの値の式を返します。
+     *
+     * <p>
+     * <b>sql</b>に指定された式、カラムの挿入式またはエンティティのプロパティ値を参照する式を返します。
+     * </p>
+     *
+     * @param <E> エンティティの型
+     * @param sql SQLの生成情報を含む<b>Sql</b>オブジェクト
+     * @param columnInfo カラム情報
+     * @return 式
+     *
+     * @since 4.1.0
+     */
+    protected <E> Expression getInsertExpression(Sql<E> sql, ColumnInfo columnInfo) {
+        return null;
+    }
+
     /**
      * 更新するカラム名と値を<b>buff</b>に追加します。
      *
@@ -500,6 +679,20 @@ public class Standard implements Database {
         return null;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * この実装は<b>EXPLAIN</b> <i>sql</i>を返します。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    @Override
+    public List<String> explainSqls(CharSequence sql) {
+        return null;
+    }
+
     /**
      * @since 2.2.0
      */
@@ -0,0 +1,47 @@
+// Cacheable.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.entity;
+
+import java.lang.annotation.*;
+
+/**
+ * クラスのエンティティがキーによってキャッシュされる事を示します。
+ *
+ * <p>
+ * エンティティ条件 (<b>where(entity)</b>) のみを持つ<b>Sql.select</b>メソッドは、
+ * データベースにアクセスせずにキャッシュされたエンティティを返します。
+ * キャッシュされたエンティティは、<b>Sql</b>の<b>update</b>, <b>delete</b>および<b>upsert</b>メソッドによって無効化されます。<br>
+ * エンティティ・クラスは、lightsleep.propertiesの<b>cacheableEntities</b>で指定する事もできます。
+ * </p>
+ *
+ * <div class="exampleTitle"><span>使用例/Java</span></div>
+ * <div class="exampleCode"><pre>
+ * <b>{@literal @}Cacheable(maxSize=1000, expireSeconds=60)</b>
+ *  public class Product {
+ * </pre></div>
+ *
+ * <div class="exampleTitle"><span>使用例/Groovy</span></div>
+ * <div class="exampleCode"><pre>
+ * <b>{@literal @}Cacheable(maxSize=1000, expireSeconds=60)</b>
+ *  class Product {
+ * </pre></div>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see org.lightsleep.helper.EntityCache
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface Cacheable {
+    /**
+     * @return キャッシュするエンティティの最大数
+     */
+    int maxSize() default 10000;
+
+    /**
+     * @return キャッシュされたエンティティが期限切れになるまでの秒数
+     */
+    int expireSeconds() default 600;
+}
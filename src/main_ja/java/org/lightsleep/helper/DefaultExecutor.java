@@ -0,0 +1,32 @@
+// DefaultExecutor.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * トランザクションを非同期に実行するデフォルトのエグゼキュータを持ちます。
+ *
+ * <p>
+ * 仮想スレッドが使用可能 (Java 21以降) であれば、エグゼキュータはタスクごとに新しい仮想スレッドを開始します。
+ * そうでなければ、デーモンスレッドのキャッシュ・プールを使用します。
+ * エグゼキュータはJVM内で共有され、呼び出し元がシャットダウンできないように<b>Executor</b>として提供されます。
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ */
+public class DefaultExecutor {
+    /** デフォルトのエグゼキュータ */
+    public static final Executor instance = null;
+
+    /**
+     * デフォルトのエグゼキュータが仮想スレッドを使用するかどうかを返します。
+     *
+     * @return デフォルトのエグゼキュータが仮想スレッドを使用する場合は<b>true</b>、そうでなければ<b>false</b>
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+}
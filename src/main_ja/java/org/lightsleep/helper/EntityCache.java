@@ -0,0 +1,165 @@
+// EntityCache.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * キー・カラムの値をキーとするエンティティのキャッシュです。
+ *
+ * <p>
+ * キャッシュはキーのハッシュコードによってストライプに分割され、
+ * 各ストライプはセグメント化LRU
+ * (一度アクセスされたエンティティの試用セグメントと二度以上アクセスされたエンティティの保護セグメント)
+ * によってエンティティを追い出します。
+ * エンティティは指定された時間の経過後に期限切れになります。<br>
+ * 複数のスレッドが同時に同じ未キャッシュのキーを要求した場合、
+ * 1つのスレッドのみがエンティティをロードし、他のスレッドはそれを待ちます。
+ * </p>
+ *
+ * <p>
+ * キャッシュはエンティティのコピーを格納し、コピーを返します。
+ * コピーは<b>Accessor</b>でカラムの値をコピーして作成されます。
+ * 可変な型 (<b>java.util.Date</b>とそのサブクラス、<b>Calendar</b>および配列) の値もコピーされるため、
+ * 呼び出し元とキャッシュはそれらを共有しません。
+ * </p>
+ *
+ * <p>
+ * <b>Sql</b>は{@link #keyOf(String, Object)}が返すキーでエンティティをキャッシュするため、
+ * 異なるURLのデータベース (例えばシャードやレプリカ) の同じキー値のエンティティは別々にキャッシュされます。
+ * </p>
+ *
+ * @param <E> エンティティの型
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see org.lightsleep.entity.Cacheable
+ */
+public class EntityCache<E> {
+    /**
+     * <b>EntityCache</b>を構築します。
+     *
+     * @param entityInfo エンティティ情報
+     * @param maxSize キャッシュするエンティティの最大数
+     * @param expireSeconds キャッシュされたエンティティが期限切れになるまでの秒数
+     *
+     * @throws NullPointerException <b>entityInfo</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>maxSize</b>または<b>expireSeconds</b>が1未満の場合
+     */
+    public EntityCache(EntityInfo<E> entityInfo, int maxSize, int expireSeconds) {
+    }
+
+    /**
+     * クロックを指定して<b>EntityCache</b>を構築します。
+     *
+     * @param entityInfo エンティティ情報
+     * @param maxSize キャッシュするエンティティの最大数
+     * @param expireSeconds キャッシュされたエンティティが期限切れになるまでの秒数
+     * @param nanoClock <b>System.nanoTime()</b>のように現在時刻をナノ秒で返すクロック
+     *
+     * @throws NullPointerException <b>entityInfo</b>または<b>nanoClock</b>が<b>null</b>の場合
+     * @throws IllegalArgumentException <b>maxSize</b>または<b>expireSeconds</b>が1未満の場合
+     */
+    public EntityCache(EntityInfo<E> entityInfo, int maxSize, int expireSeconds, LongSupplier nanoClock) {
+    }
+
+    /**
+     * エンティティのキーを返します。
+     *
+     * @param entity エンティティ
+     * @return キー・カラムの値のリスト
+     *
+     * @throws NullPointerException <b>entity</b>が<b>null</b>の場合
+     */
+    public List<Object> keyOf(E entity) {
+        return null;
+    }
+
+    /**
+     * URLのデータベース内のエンティティのキーを返します。
+     *
+     * @param url コネクション・サプライヤのURL
+     * @param entity エンティティ
+     * @return URLとキー・カラムの値のリスト
+     *
+     * @throws NullPointerException <b>url</b>または<b>entity</b>が<b>null</b>の場合
+     */
+    public List<Object> keyOf(String url, E entity) {
+        return null;
+    }
+
+    /**
+     * キーのキャッシュされたエンティティのコピーを返します。
+     * エンティティがキャッシュされていなければ、<b>loader</b>でロードし、そのコピーをキャッシュして返します。
+     *
+     * <p>
+     * ロード中にキャッシュが無効化された場合、ロードされたエンティティはキャッシュされません。
+     * 他のスレッドが同じキーのエンティティをロード中であれば、それを待ってそのコピーを返します。
+     * </p>
+     *
+     * @param key キー
+     * @param loader データベースからエンティティをロードする関数 (見つからない場合は<b>null</b>を返す)
+     * @return エンティティ (見つからない場合は<b>null</b>)
+     *
+     * @throws NullPointerException <b>key</b>または<b>loader</b>が<b>null</b>の場合
+     */
+    public E get(List<Object> key, Supplier<? extends E> loader) {
+        return null;
+    }
+
+    /**
+     * キーのキャッシュされたエンティティを無効化します。
+     *
+     * @param key キー
+     *
+     * @throws NullPointerException <b>key</b>が<b>null</b>の場合
+     */
+    public void invalidate(List<Object> key) {
+    }
+
+    /**
+     * 全URLのデータベースのキーのキャッシュされたエンティティを無効化します。
+     *
+     * @param key {@link #keyOf(Object)}が返すキー
+     *
+     * @throws NullPointerException <b>key</b>が<b>null</b>の場合
+     */
+    public void invalidateAllUrls(List<Object> key) {
+    }
+
+    /**
+     * キャッシュされた全エンティティを無効化します。
+     */
+    public void invalidateAll() {
+    }
+
+    /**
+     * キャッシュされたエンティティの数を返します。
+     *
+     * @return キャッシュされたエンティティの数
+     */
+    public int size() {
+        return 0;
+    }
+
+    /**
+     * キャッシュされたエンティティが見つかった回数を返します。
+     *
+     * @return ヒット数
+     */
+    public long hitCount() {
+        return 0;
+    }
+
+    /**
+     * キャッシュされたエンティティが見つからなかった回数を返します。
+     *
+     * @return ミス数
+     */
+    public long missCount() {
+        return 0;
+    }
+}
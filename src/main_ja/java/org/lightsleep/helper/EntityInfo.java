@@ -81,4 +81,20 @@ public class EntityInfo<E> {
     public List<ColumnInfo> keyColumnInfos() {
         return null;
     }
+
+    /**
+     * エンティティ・キャッシュを返します。
+     *
+     * <p>
+     * エンティティ・クラスがキー・カラムを持ち、かつ
+     * <b>{@literal @}Cacheable</b>アノテーションを持つかlightsleep.propertiesの<b>cacheableEntities</b>で指定されている場合に、エンティティはキャッシュされます。
+     * </p>
+     *
+     * @return エンティティ・キャッシュ (エンティティがキャッシュされない場合は<b>null</b>)
+     *
+     * @since 4.1.0
+     */
+    public EntityCache<E> cache() {
+        return null;
+    }
 }
@@ -0,0 +1,147 @@
+// QueryCache.java
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.helper;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * コネクション・サプライヤのURL、SQLおよびパラメータをキーとする<i>SELECT</i> SQLの結果のキャッシュです。
+ *
+ * <p>
+ * 各結果は行のリストで、各行はカラム・ラベルと未変換のカラム値のマップです。
+ * 呼び出し元とキャッシュが共有しないように、<b>Sql</b>は可変の型の値を読み込む時にコピーします。
+ * 推定サイズがメモリ予算を超えると、予算の7/8になるまで結果は最も長く使用されていない順に追い出され、
+ * また格納時に指定された生存時間の経過後に期限切れになります。
+ * </p>
+ *
+ * <p>
+ * 結果はテーブル名によって無効化されます。
+ * 結果のテーブルはSQL内の識別子であるため、結合、サブクエリおよび<i>WITH</i>句のテーブルも含まれます。
+ * 各テーブルは無効化ごとにインクリメントされるバージョンを持ち、
+ * SQLの実行中にいずれかのテーブルが無効化された場合、結果はキャッシュされません。
+ * </p>
+ *
+ * <p>
+ * 追い出し以外のメソッドはロックしません。追い出しは一度に1スレッドが行います。
+ * </p>
+ *
+ * @since 4.1.0
+ * @author Masato Kokubo
+ * @see org.lightsleep.Sql#cached(Duration)
+ */
+public class QueryCache {
+    /**
+     * <b>Sql</b>が使用するクエリ・キャッシュ。
+     * メモリ予算はlightsleep.propertiesの<b>queryCacheMaxBytes</b> (デフォルト: 64MB)
+     */
+    public static final QueryCache instance = null;
+
+    /**
+     * <b>QueryCache</b>を構築します。
+     *
+     * @param maxBytes メモリ予算 (バイト)
+     *
+     * @throws IllegalArgumentException <b>maxBytes</b>が負の場合
+     */
+    public QueryCache(long maxBytes) {
+    }
+
+    /**
+     * キーのキャッシュされた結果を返します。
+     *
+     * @param key キー
+     * @return 変更不可の行のリスト (キャッシュされていないか期限切れの場合は<b>null</b>)
+     *
+     * @throws NullPointerException <b>key</b>が<b>null</b>の場合
+     */
+    public List<Map<String, Object>> get(Object key) {
+        return null;
+    }
+
+    /**
+     * SQLが参照するテーブルの現在のバージョンを返します。このバージョンはテーブルの無効化ごとに変わります。<br>
+     * SQLを実行する前にバージョンを取得し、{@link #put(Object, String, List, Duration, long)}に渡してください。
+     *
+     * @param sql SQL
+     * @return 現在のバージョン
+     *
+     * @throws NullPointerException <b>sql</b>が<b>null</b>の場合
+     */
+    public long version(String sql) {
+        return 0L;
+    }
+
+    /**
+     * SQLの結果をキャッシュします。
+     *
+     * <p>
+     * <b>loadVersion</b>の取得後にSQLが参照するいずれかのテーブルが無効化された場合、
+     * または結果の推定サイズがメモリ予算を超える場合は、結果をキャッシュしません。
+     * </p>
+     *
+     * @param key キー
+     * @param sql SQL
+     * @param rows 行のリスト
+     * @param timeToLive 結果の生存時間
+     * @param loadVersion SQLを実行する前に{@link #version(String)}で取得したバージョン
+     *
+     * @throws NullPointerException <b>key</b>, <b>sql</b>, <b>rows</b>または<b>timeToLive</b>が<b>null</b>の場合
+     */
+    public void put(Object key, String sql, List<Map<String, Object>> rows, Duration timeToLive, long loadVersion) {
+    }
+
+    /**
+     * SQLがテーブルを参照するキャッシュされた結果を無効化します。
+     *
+     * @param tableName テーブル名 (スキーマ名で修飾可)
+     *
+     * @throws NullPointerException <b>tableName</b>が<b>null</b>の場合
+     */
+    public void invalidate(String tableName) {
+    }
+
+    /**
+     * キャッシュされた全結果を無効化します。
+     */
+    public void invalidateAll() {
+    }
+
+    /**
+     * キャッシュされた結果の数を返します。
+     *
+     * @return キャッシュされた結果の数
+     */
+    public int size() {
+        return 0;
+    }
+
+    /**
+     * キャッシュされた結果の推定サイズを返します。
+     *
+     * @return 推定サイズ (バイト)
+     */
+    public long bytes() {
+        return 0L;
+    }
+
+    /**
+     * キャッシュされた結果が見つかった回数を返します。
+     *
+     * @return ヒット数
+     */
+    public long hitCount() {
+        return 0L;
+    }
+
+    /**
+     * キャッシュされた結果が見つからなかった回数を返します。
+     *
+     * @return ミス数
+     */
+    public long missCount() {
+        return 0L;
+    }
+}
@@ -83,6 +83,19 @@ public class Utils {
         return null;
     }
 
+    /**
+     * 値の型が可変の場合は値のコピーを、そうでなければ値そのものを返します。
+     * <b>java.util.Date</b>とそのサブクラス、<b>Calendar</b>および配列の値がコピーされます。
+     *
+     * @param value 値 (<b>null</b>可)
+     * @return 値のコピーまたは値
+     *
+     * @since 4.1.0
+     */
+    public static Object copyValue(Object value) {
+        return null;
+    }
+
     /**
      * 指定の値のログ出力用の文字列表現を返します。
      *
@@ -9,6 +9,20 @@ import java.util.function.Supplier;
 /**
  * 標準出力または標準エラー出力にログを出力します。
  *
+ * <p>
+ * <b>Std.Out</b>および<b>Std.Err</b>はログを出力するスレッドで出力します。
+ * <b>Std.AsyncOut</b>および<b>Std.AsyncErr</b> (4.1.0～) はバックグラウンド・スレッドから出力するため、
+ * ログを出力するスレッドがストリームのロックを競合しません。
+ * </p>
+ *
+ * <table class="additional">
+ *   <caption><span>関連するlightsleep.properties</span></caption>
+ *   <tr><th>プロパティ名</th><th>内容</th></tr>
+ *   <tr><td>stdLoggerBufferSize</td><td>出力を待つエントリの最大数 (デフォルト: 8192)</td></tr>
+ *   <tr><td>stdLoggerBufferFullPolicy</td><td><b>block</b> (デフォルト): バッファが満杯の場合、ログを出力するスレッドは空きができるまで待ちます。<br>
+ *     <b>drop</b>: バッファが満杯の場合、エントリは破棄され、その数が後で出力されます。</td></tr>
+ * </table>
+ *
  * @since 1.0.0
  * @author Masato Kokubo
  */
@@ -171,6 +185,180 @@ public abstract class Std implements Logger {
         }
     }
 
+    /**
+     * 標準出力にバックグラウンド・スレッドから非同期にログを出力します。
+     *
+     * <p>
+     * ログ・エントリは上限のあるバッファに格納され、デーモン・スレッドが出力するため、
+     * ログを出力するスレッドはストリームのロックを待ちません。
+     * 残っているエントリはJVMの終了時に出力されます。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    public static abstract class AsyncOut extends Std {
+        /**
+         * <b>Std.AsyncOut</b>を構築します。
+         * @param level ログレベル
+         */
+        public AsyncOut(Level level) {
+            super(System.out, level, true);
+        }
+
+        /**
+         * 標準出力にTRACEレベルで非同期にログを出力します。
+         */
+        public static class Trace extends AsyncOut {
+            /**
+             * <b>Std.AsyncOut.Trace</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Trace(String name) {super(Level.TRACE);}
+        }
+
+        /**
+         * 標準出力にDEBUGレベルで非同期にログを出力します。
+         */
+        public static class Debug extends AsyncOut {
+            /**
+             * <b>Std.AsyncOut.Debug</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Debug(String name) {super(Level.DEBUG);}
+        }
+
+        /**
+         * 標準出力にINFOレベルで非同期にログを出力します。
+         */
+        public static class Info extends AsyncOut {
+            /**
+             * <b>Std.AsyncOut.Info</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Info (String name) {super(Level.INFO);}
+        }
+
+        /**
+         * 標準出力にWARNレベルで非同期にログを出力します。
+         */
+        public static class Warn extends AsyncOut {
+            /**
+             * <b>Std.AsyncOut.Warn</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Warn (String name) {super(Level.WARN);}
+        }
+
+        /**
+         * 標準出力にERRORレベルで非同期にログを出力します。
+         */
+        public static class Error extends AsyncOut {
+            /**
+             * <b>Std.AsyncOut.Error</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Error(String name) {super(Level.ERROR);}
+        }
+
+        /**
+         * 標準出力にFATALレベルで非同期にログを出力します。
+         */
+        public static class Fatal extends AsyncOut {
+            /**
+             * <b>Std.AsyncOut.Fatal</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Fatal(String name) {super(Level.FATAL);}
+        }
+    }
+
+    /**
+     * 標準エラー出力にバックグラウンド・スレッドから非同期にログを出力します。
+     *
+     * <p>
+     * ログ・エントリは上限のあるバッファに格納され、デーモン・スレッドが出力するため、
+     * ログを出力するスレッドはストリームのロックを待ちません。
+     * 残っているエントリはJVMの終了時に出力されます。
+     * </p>
+     *
+     * @since 4.1.0
+     */
+    public static abstract class AsyncErr extends Std {
+        /**
+         * <b>Std.AsyncErr</b>を構築します。
+         * @param level ログレベル
+         */
+        public AsyncErr(Level level) {
+            super(System.err, level, true);
+        }
+
+        /**
+         * 標準エラー出力にTRACEレベルで非同期にログを出力します。
+         */
+        public static class Trace extends AsyncErr {
+            /**
+             * <b>Std.AsyncErr.Trace</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Trace(String name) {super(Level.TRACE);}
+        }
+
+        /**
+         * 標準エラー出力にDEBUGレベルで非同期にログを出力します。
+         */
+        public static class Debug extends AsyncErr {
+            /**
+             * <b>Std.AsyncErr.Debug</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Debug(String name) {super(Level.DEBUG);}
+        }
+
+        /**
+         * 標準エラー出力にINFOレベルで非同期にログを出力します。
+         */
+        public static class Info extends AsyncErr {
+            /**
+             * <b>Std.AsyncErr.Info</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Info (String name) {super(Level.INFO);}
+        }
+
+        /**
+         * 標準エラー出力にWARNレベルで非同期にログを出力します。
+         */
+        public static class Warn extends AsyncErr {
+            /**
+             * <b>Std.AsyncErr.Warn</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Warn (String name) {super(Level.WARN);}
+        }
+
+        /**
+         * 標準エラー出力にERRORレベルで非同期にログを出力します。
+         */
+        public static class Error extends AsyncErr {
+            /**
+             * <b>Std.AsyncErr.Error</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Error(String name) {super(Level.ERROR);}
+        }
+
+        /**
+         * 標準エラー出力にFATALレベルで非同期にログを出力します。
+         */
+        public static class Fatal extends AsyncErr {
+            /**
+             * <b>Std.AsyncErr.Fatal</b>を構築します。
+             * @param name 名前 (使用しない)
+             */
+            public Fatal(String name) {super(Level.FATAL);}
+        }
+    }
+
     /** ロガーレベル */
     protected enum Level {TRACE, DEBUG, INFO, WARN, ERROR, FATAL}
 
@@ -183,6 +371,18 @@ public abstract class Std implements Logger {
     protected Std(PrintStream stream, Level level) {
     }
 
+    /**
+     * <b>Std</b>を構築します。
+     *
+     * @param stream PrintStream
+     * @param level ログレベル
+     * @param async <b>true</b>の場合、バックグラウンド・スレッドから出力する
+     *
+     * @since 4.1.0
+     */
+    protected Std(PrintStream stream, Level level, boolean async) {
+    }
+
     @Override
     public void trace(String message) {
     }
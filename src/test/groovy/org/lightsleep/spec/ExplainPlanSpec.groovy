@@ -0,0 +1,50 @@
+// ExplainPlanSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import java.time.Instant
+import org.debugtrace.DebugTrace
+import org.lightsleep.*
+
+import spock.lang.*
+
+// ExplainPlanSpec
+@Unroll
+class ExplainPlanSpec extends Specification {
+    def "ExplainPlanSpec hasFullScan #database #detail"(String database, List<Map<String, Object>> rows, String detail, boolean hasFullScan) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def plan = new ExplainPlan('SELECT * FROM Contact WHERE id=1', rows, Instant.now())
+            DebugTrace.print('plan', plan.toString()) // for Debugging
+
+        expect:
+            plan.hasFullScan() == hasFullScan
+
+        DebugTrace.leave() // for Debugging
+        where:
+            database    |rows|detail|hasFullScan
+            'PostgreSQL'|[['QUERY PLAN': '[{"Plan": {"Node Type": "Seq Scan", "Relation Name": "contact", "Alias": "contact"}}]']]|'Seq Scan'  |true
+            'PostgreSQL'|[['QUERY PLAN': '[{"Plan": {"Node Type": "Index Scan", "Index Name": "contact_pkey", "Relation Name": "contact"}}]']]|'Index Scan'|false
+            'MySQL'     |[[EXPLAIN: '{"query_block": {"select_id": 1, "table": {"table_name": "Contact", "access_type": "ALL"}}}']]|'ALL'  |true
+            'MySQL'     |[[EXPLAIN: '{"query_block": {"select_id": 1, "table": {"table_name": "Contact", "access_type": "const"}}}']]|'const'|false
+            'SQLite'    |[[id: 2, parent: 0, notused: 0, detail: 'SCAN Contact']]                                       |'SCAN'        |true
+            'SQLite'    |[[id: 2, parent: 0, notused: 0, detail: 'SCAN TABLE Contact']]                                 |'SCAN TABLE'  |true
+            'SQLite'    |[[id: 2, parent: 0, notused: 0, detail: 'SEARCH Contact USING INTEGER PRIMARY KEY (rowid=?)']]|'SEARCH'      |false
+            'SQLite'    |[[id: 2, parent: 0, notused: 0, detail: 'SCAN Contact USING COVERING INDEX idx_name']]         |'COVERING'    |false
+    }
+
+    def "ExplainPlanSpec text"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def plan = new ExplainPlan('SELECT * FROM Contact',
+                [[id: 2, parent: 0, detail: 'SCAN Contact'], [id: 3, parent: 0, detail: 'USE TEMP B-TREE FOR ORDER BY']],
+                Instant.now())
+
+        expect:
+            plan.text() == '2\t0\tSCAN Contact\n3\t0\tUSE TEMP B-TREE FOR ORDER BY'
+            plan.rows().size() == 2
+
+        DebugTrace.leave() // for Debugging
+    }
+}
@@ -0,0 +1,63 @@
+// FlightRecorderEventsSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import org.debugtrace.DebugTrace
+import org.lightsleep.*
+
+import spock.lang.*
+
+// FlightRecorderEventsSpec
+@Unroll
+class FlightRecorderEventsSpec extends Specification {
+    def "FlightRecorderEventsSpec not recording"() {
+        DebugTrace.enter() // for Debugging
+        expect:
+            !FlightRecorderEvents.isRecording()
+            FlightRecorderEvents.begin(FlightRecorderEvents.STATEMENT_EXECUTE) == null
+
+        when:
+            FlightRecorderEvents.commit(null, 'connection', 'SELECT 1', 1, 0L, 0L, true)
+
+        then:
+            noExceptionThrown()
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    @IgnoreIf({!FlightRecorderEventsSpec.jfrAvailable()})
+    def "FlightRecorderEventsSpec recording"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def recording = Class.forName('jdk.jfr.Recording').newInstance()
+
+        when:
+            recording.start()
+            def event = FlightRecorderEvents.begin(FlightRecorderEvents.STATEMENT_EXECUTE)
+            FlightRecorderEvents.commit(event, 'connection', 'SELECT 1', 1, 10L, 20L, true)
+
+        then:
+            FlightRecorderEvents.isRecording()
+            event != null
+
+        when:
+            recording.stop()
+            recording.close()
+
+        then:
+            !FlightRecorderEvents.isRecording()
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    static boolean jfrAvailable() {
+        try {
+            Class.forName('jdk.jfr.Recording')
+            return true
+        }
+        catch (ClassNotFoundException e) {
+            return false
+        }
+    }
+}
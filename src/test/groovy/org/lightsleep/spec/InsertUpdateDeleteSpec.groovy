@@ -5,12 +5,16 @@ package org.lightsleep.spec
 
 
 import java.sql.Date
+import java.time.Duration
 
 import org.debugtrace.DebugTrace
 import org.lightsleep.*
 import org.lightsleep.component.*
 import org.lightsleep.connection.*
 import org.lightsleep.database.*
+import org.lightsleep.entity.Cacheable
+import org.lightsleep.entity.Table
+import org.lightsleep.helper.QueryCache
 import org.lightsleep.test.entity.*
 import org.lightsleep.test.exception.DeletedException
 import org.lightsleep.test.exception.UpdateException
@@ -19,6 +23,12 @@ import spock.lang.*
 // InsertUpdateDeleteSpec
 @Unroll
 class InsertUpdateDeleteSpec extends Base {
+    // SaleItem cached by the key @since 4.1.0
+    @Table('SaleItem')
+    @Cacheable
+    static class CachedSaleItem extends SaleItem {
+    }
+
     def setup() {
         deleteAllTables()
     }
@@ -175,6 +185,430 @@ class InsertUpdateDeleteSpec extends Base {
             connectionSupplier << connectionSuppliers
     }
 
+    /**
+     * Test methos.
+     *   Sql.bulkInsert(Iterable<? extends E> entities)
+     * Normal case
+     */
+    def "InsertUpdateDeleteSpec bulkInsert - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<ContactComposite> contacts2 = new ArrayList<>()
+            int count = 0
+
+        when:
+            // Make test data.
+            List<ContactComposite> contacts = makeTestData(null, 1, 4)
+
+            // Insert rows in bulk and gets rows.
+            Transaction.execute(connectionSupplier) {
+                count = new Sql<>(ContactComposite).connection(it).bulkInsert(contacts)
+
+                new Sql<>(ContactComposite).connection(it)
+                    .where('{name.last} LIKE {}', 'Last%')
+                    .orderBy('{id}')
+                    .select({contacts2 << it})
+            }
+
+        then:
+            // Confirm inserted result
+            count == contacts.size()
+            assertTestData(contacts2, contacts, 0, 0)
+
+        when:
+            // Insert rows in bulk from an Iterable that can be iterated only once.
+            deleteAllTables()
+            contacts2.clear()
+            def iterator = contacts.iterator()
+            Transaction.execute(connectionSupplier) {
+                count = new Sql<>(ContactComposite).connection(it).bulkInsert({iterator} as Iterable)
+
+                new Sql<>(ContactComposite).connection(it)
+                    .where('{name.last} LIKE {}', 'Last%')
+                    .orderBy('{id}')
+                    .select({contacts2 << it})
+            }
+
+        then:
+            count == contacts.size()
+            assertTestData(contacts2, contacts, 0, 0)
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    /**
+     * Test methos.
+     *   Sql.bulkInsert(Iterable<? extends E> entities)
+     * Error case (duplicate key)
+     */
+    def "InsertUpdateDeleteSpec bulkInsert - duplicate key - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).where(Condition.ALL).delete()
+            }
+            def saleItems = [
+                new SaleItem(saleId: 1, itemIndex: 1, productId: 11, quantity: 1 as short),
+                new SaleItem(saleId: 1, itemIndex: 2, productId: 12, quantity: 2 as short),
+                new SaleItem(saleId: 1, itemIndex: 1, productId: 13, quantity: 3 as short),
+            ]
+            int count = -1
+
+        when:
+            // LOAD DATA LOCAL INFILE reports the duplicate key as a warning
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).bulkInsert(saleItems)
+            }
+
+        then:
+            thrown RuntimeSQLException
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                count = new Sql<>(SaleItem).connection(it).selectCount()
+            }
+
+        then:
+            count == 0 // rolled back
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    /**
+     * Test methos.
+     *   Sql.upsert(E entity)
+     *   Sql.upsert(Iterable<? extends E> entities)
+     * Normal case
+     */
+    def "InsertUpdateDeleteSpec upsert - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<SaleItem> saleItems = []
+
+        when:
+            // Insert a row with upsert.
+            def saleItem1 = new SaleItem(saleId: 1, itemIndex: 1, productId: 11, quantity: 1 as short)
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).where(Condition.ALL).delete()
+                new Sql<>(SaleItem).connection(it).upsert(saleItem1)
+                new Sql<>(SaleItem).connection(it).orderBy('{itemIndex}').select({saleItems << it})
+            }
+
+        then:
+            saleItems.size() == 1
+            saleItems[0].productId == 11
+            saleItems[0].quantity == 1
+
+        when:
+            // Update a row and insert a row with upsert.
+            saleItem1.quantity = 2 as short
+            def saleItem2 = new SaleItem(saleId: 1, itemIndex: 2, productId: 12, quantity: 3 as short)
+            saleItems.clear()
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).upsert([saleItem1, saleItem2])
+                new Sql<>(SaleItem).connection(it).orderBy('{itemIndex}').select({saleItems << it})
+            }
+
+        then:
+            saleItems.size() == 2
+            saleItems[0].productId == 11
+            saleItems[0].quantity == 2
+            saleItems[1].productId == 12
+            saleItems[1].quantity == 3
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    /**
+     * Test methos.
+     *   Sql.upsert(E entity)
+     *   Sql.upsert(Iterable<? extends E> entities)
+     * The database handler does not support UPSERT SQLs
+     */
+    def "InsertUpdateDeleteSpec upsert - update or insert - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<SaleItem> saleItems = []
+
+            // A database handler that returns null from upsertSql
+            def database = connectionSupplier.database
+            def noUpsertDatabase = java.lang.reflect.Proxy.newProxyInstance(Database.classLoader, [Database] as Class[],
+                {proxy, method, args -> method.name == 'upsertSql' ? null : method.invoke(database, args)}
+                    as java.lang.reflect.InvocationHandler) as Database
+            def noUpsertSupplier = Stub(ConnectionSupplier)
+            noUpsertSupplier.database >> noUpsertDatabase
+
+        when:
+            def saleItem1 = new SaleItem(saleId: 1, itemIndex: 1, productId: 11, quantity: 1 as short)
+            Transaction.execute(connectionSupplier) {
+                def connection = new ConnectionWrapper(it, noUpsertSupplier)
+                new Sql<>(SaleItem).connection(connection).where(Condition.ALL).delete()
+                new Sql<>(SaleItem).connection(connection).upsert(saleItem1)
+                new Sql<>(SaleItem).connection(connection).orderBy('{itemIndex}').select({saleItems << it})
+            }
+
+        then:
+            saleItems.size() == 1
+            saleItems[0].productId == 11
+            saleItems[0].quantity == 1
+
+        when:
+            saleItem1.quantity = 2 as short
+            def saleItem2 = new SaleItem(saleId: 1, itemIndex: 2, productId: 12, quantity: 3 as short)
+            saleItems.clear()
+            Transaction.execute(connectionSupplier) {
+                def connection = new ConnectionWrapper(it, noUpsertSupplier)
+                new Sql<>(SaleItem).connection(connection).upsert([saleItem1, saleItem2])
+                new Sql<>(SaleItem).connection(connection).orderBy('{itemIndex}').select({saleItems << it})
+            }
+
+        then:
+            saleItems.size() == 2
+            saleItems[0].quantity == 2
+            saleItems[1].productId == 12
+            saleItems[1].quantity == 3
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    /**
+     * Test methos.
+     *   Sql.selectByKeys(Collection<?> keys, Consumer<? super E> consumer)
+     *   Sql.deleteByKeys(Collection<?> keys)
+     * Normal case
+     */
+    def "InsertUpdateDeleteSpec selectByKeys deleteByKeys - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            def saleItems = (1..5).collect {new SaleItem(saleId: 1, itemIndex: it, productId: 10 + it, quantity: it as short)}
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).where(Condition.ALL).delete()
+                new Sql<>(SaleItem).connection(it).insert(saleItems)
+            }
+            List<SaleItem> selectedItems = []
+            int count = 0
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it)
+                    .selectByKeys([[1, 2] as Object[], saleItems[3], [1, 9] as Object[]], {selectedItems << it})
+            }
+
+        then:
+            selectedItems*.itemIndex.sort() == [2, 4]
+
+        when:
+            selectedItems.clear()
+            Transaction.execute(connectionSupplier) {
+                count = new Sql<>(SaleItem).connection(it)
+                    .deleteByKeys([[1, 1] as Object[], [1, 3] as Object[], [1, 5] as Object[]])
+                new Sql<>(SaleItem).connection(it).where(Condition.ALL).select({selectedItems << it})
+            }
+
+        then:
+            count == 3
+            selectedItems*.itemIndex.sort() == [2, 4]
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    def "InsertUpdateDeleteSpec trackChanges update - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).where(Condition.ALL).delete()
+                new Sql<>(SaleItem).connection(it).insert(new SaleItem(saleId: 1, itemIndex: 1, productId: 11, quantity: 1 as short))
+            }
+            int count1 = -1
+            int count2 = -1
+            SaleItem selectedItem
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                SaleItem saleItem = new Sql<>(SaleItem).connection(it)
+                    .where('{saleId}={}', 1)
+                    .trackChanges()
+                    .select().get()
+                count1 = new Sql<>(SaleItem).connection(it).update(saleItem)
+                saleItem.quantity = 2 as short
+                count2 = new Sql<>(SaleItem).connection(it).update(saleItem)
+                selectedItem = new Sql<>(SaleItem).connection(it).where('{saleId}={}', 1).select().get()
+            }
+
+        then:
+            count1 == 0
+            count2 == 1
+            selectedItem.quantity == 2
+            selectedItem.productId == 11
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    def "InsertUpdateDeleteSpec identity map - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).where(Condition.ALL).delete()
+                new Sql<>(SaleItem).connection(it).insert(new SaleItem(saleId: 1, itemIndex: 1, productId: 11, quantity: 1 as short))
+            }
+            def keyItem = new SaleItem(saleId: 1, itemIndex: 1)
+            List<SaleItem> selectedItems = []
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                it.identityMapEnabled = true
+                selectedItems << new Sql<>(SaleItem).connection(it).where('{saleId}={}', 1).select().get()
+                selectedItems << new Sql<>(SaleItem).connection(it).where(keyItem).select().get()
+                new Sql<>(SaleItem).connection(it).where(keyItem).delete()
+                selectedItems << new Sql<>(SaleItem).connection(it).where(keyItem).select().orElse(null)
+            }
+
+        then:
+            selectedItems[0].is(selectedItems[1])
+            selectedItems[2] == null
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    def "InsertUpdateDeleteSpec entity cache - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            def cache = Sql.getEntityInfo(CachedSaleItem).cache()
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(CachedSaleItem).connection(it).where(Condition.ALL).delete()
+                new Sql<>(CachedSaleItem).connection(it).insert(new CachedSaleItem(saleId: 1, itemIndex: 1, productId: 11, quantity: 1 as short))
+            }
+            def keyItem = new CachedSaleItem(saleId: 1, itemIndex: 1)
+            def hitCount = cache.hitCount()
+            def missCount = cache.missCount()
+            List<CachedSaleItem> selectedItems = []
+
+        when:
+            // The second select is served from the cache
+            2.times {
+                Transaction.execute(connectionSupplier) {
+                    selectedItems << new Sql<>(CachedSaleItem).connection(it).where(keyItem).select().get()
+                }
+            }
+
+        then:
+            cache.missCount() == missCount + 1
+            cache.hitCount() == hitCount + 1
+            !selectedItems[0].is(selectedItems[1])
+            selectedItems[1].quantity == 1
+
+        when:
+            // update invalidates the cached entity
+            selectedItems[1].quantity = 2 as short
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(CachedSaleItem).connection(it).update(selectedItems[1])
+            }
+            Transaction.execute(connectionSupplier) {
+                selectedItems << new Sql<>(CachedSaleItem).connection(it).where(keyItem).select().get()
+            }
+
+        then:
+            cache.missCount() == missCount + 2
+            selectedItems[2].quantity == 2
+
+        when:
+            // delete invalidates the cached entity
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(CachedSaleItem).connection(it).where(keyItem).delete()
+            }
+            Transaction.execute(connectionSupplier) {
+                selectedItems << new Sql<>(CachedSaleItem).connection(it).where(keyItem).select().orElse(null)
+            }
+
+        then:
+            cache.missCount() == missCount + 3
+            selectedItems[3] == null
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    def "InsertUpdateDeleteSpec query cache - #connectionSupplier"(
+        ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            def cache = QueryCache.instance
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).where(Condition.ALL).delete()
+                new Sql<>(SaleItem).connection(it).insert(new SaleItem(saleId: 1, itemIndex: 1, productId: 11, quantity: 1 as short))
+            }
+            def hitCount = cache.hitCount()
+            def missCount = cache.missCount()
+            List<SaleItem> selectedItems = []
+
+        when:
+            // The second select is served from the cache
+            2.times {
+                Transaction.execute(connectionSupplier) {
+                    new Sql<>(SaleItem).connection(it).cached(Duration.ofMinutes(1))
+                        .where('{saleId}={}', 1).select({selectedItems << it})
+                }
+            }
+
+        then:
+            cache.missCount() == missCount + 1
+            cache.hitCount() == hitCount + 1
+            selectedItems.size() == 2
+            selectedItems[1].quantity == 1
+
+        when:
+            // update of the same table invalidates the cached result
+            selectedItems[1].quantity = 2 as short
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).update(selectedItems[1])
+            }
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(SaleItem).connection(it).cached(Duration.ofMinutes(1))
+                    .where('{saleId}={}', 1).select({selectedItems << it})
+            }
+
+        then:
+            cache.missCount() == missCount + 2
+            cache.hitCount() == hitCount + 1
+            selectedItems[2].quantity == 2
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
     /**
      * Test methos.
      *   Sql.update(Connection it)
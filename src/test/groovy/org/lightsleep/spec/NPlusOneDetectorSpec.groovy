@@ -0,0 +1,97 @@
+// NPlusOneDetectorSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import java.sql.Connection
+import org.debugtrace.DebugTrace
+import org.lightsleep.*
+import org.lightsleep.connection.*
+
+import spock.lang.*
+
+// NPlusOneDetectorSpec
+@Unroll
+class NPlusOneDetectorSpec extends Specification {
+    def "NPlusOneDetectorSpec record #throwing"(boolean throwing) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def detector = new NPlusOneDetector()
+            detector.threshold = 3
+            detector.throwing = throwing
+            def connection = new ConnectionWrapper(Stub(Connection), Stub(ConnectionSupplier))
+            detector.begin(connection)
+
+        when:
+            3.times {detector.record(connection, Contact, "SELECT * FROM Contact WHERE id=$it")}
+            detector.record(connection, Contact, "SELECT * FROM Phone WHERE contactId=1")
+
+        then:
+            notThrown Exception
+            !connection.hasChanges() // does not disable the caches
+
+        when:
+            detector.record(connection, Contact, "SELECT * FROM Contact WHERE id=9")
+
+        then:
+            if (throwing) thrown NPlusOneException
+            else notThrown Exception
+
+        DebugTrace.leave() // for Debugging
+        where:
+            throwing << [false, true]
+    }
+
+    def "NPlusOneDetectorSpec record - after completion"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def detector = new NPlusOneDetector()
+            detector.threshold = 1
+            detector.throwing = true
+            def connection = new ConnectionWrapper(Stub(Connection), Stub(ConnectionSupplier))
+            detector.begin(connection)
+            detector.record(connection, Contact, "SELECT * FROM Contact WHERE id=1")
+
+        when:
+            connection.commit()
+            detector.record(connection, Contact, "SELECT * FROM Contact WHERE id=2")
+            detector.record(connection, Contact, "SELECT * FROM Contact WHERE id=3")
+
+        then:
+            notThrown Exception
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    def "NPlusOneDetectorSpec record - with the fingerprint"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def detector = new NPlusOneDetector()
+            detector.threshold = 2
+            detector.throwing = true
+            def connection = new ConnectionWrapper(Stub(Connection), Stub(ConnectionSupplier))
+            def otherConnection = new ConnectionWrapper(Stub(Connection), Stub(ConnectionSupplier))
+
+        expect:
+            !detector.isCounting(connection)
+
+        when:
+            detector.begin(connection)
+            detector.record(connection, Contact, "SELECT * FROM Contact WHERE id=1", 'SELECT * FROM Contact WHERE id=?')
+            detector.record(connection, Contact, "SELECT * FROM Contact WHERE id=2")
+
+        then:
+            detector.isCounting(connection)
+            !detector.isCounting(otherConnection)
+
+        when:
+            detector.record(connection, Contact, "SELECT * FROM Contact WHERE id=3", 'SELECT * FROM Contact WHERE id=?')
+
+        then:
+            thrown NPlusOneException
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    static class Contact {}
+}
@@ -0,0 +1,136 @@
+// RetryPolicySpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import java.sql.Connection
+import java.sql.SQLException
+import java.sql.SQLTransactionRollbackException
+import java.time.Duration
+import org.debugtrace.DebugTrace
+import org.lightsleep.*
+import org.lightsleep.connection.*
+import org.lightsleep.database.*
+
+import spock.lang.*
+
+// RetryPolicySpec
+@Unroll
+class RetryPolicySpec extends Specification {
+    def "RetryPolicySpec isRetryable #database.class.simpleName #sqlState #errorCode"(
+        Database database, String sqlState, int errorCode, boolean retryable) {
+        DebugTrace.enter() // for Debugging
+        expect:
+            database.isRetryable(new SQLException('test', sqlState, errorCode)) == retryable
+            RetryPolicy.isRetryable(database, new RuntimeSQLException(new SQLException('test', sqlState, errorCode))) == retryable
+
+        DebugTrace.leave() // for Debugging
+        where:
+            database           |sqlState|errorCode|retryable
+            Standard  .instance|'40001' |    0    |true
+            Standard  .instance|'40002' |    0    |false
+            Standard  .instance|'40003' |    0    |false
+            PostgreSQL.instance|'40001' |    0    |true
+            PostgreSQL.instance|'40P01' |    0    |true
+            PostgreSQL.instance|'23505' |    0    |false
+            MySQL     .instance|'HY000' | 1213    |true
+            MariaDB   .instance|'HY000' | 1213    |true
+            MySQL     .instance|'23000' | 1062    |false
+            Oracle    .instance|'61000' |   60    |true
+            Oracle    .instance|'72000' | 8177    |true
+            Oracle    .instance|'23000' |    1    |false
+            SQLServer .instance|'S0001' | 1205    |true
+            SQLServer .instance|'23000' | 2627    |false
+            Standard  .instance|null    |    0    |false
+    }
+
+    def "RetryPolicySpec isRetryable SQLTransactionRollbackException"() {
+        DebugTrace.enter() // for Debugging
+        expect:
+            Standard.instance.isRetryable(new SQLTransactionRollbackException('test'))
+            Standard.instance.isRetryable(new SQLTransactionRollbackException('test', '40001'))
+            !Standard.instance.isRetryable(new SQLTransactionRollbackException('test', '40003')) // may have been committed
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    def "RetryPolicySpec new - exception #maxAttempts, #initialBackoff, #maxBackoff, #budgetRatio"(
+        int maxAttempts, Duration initialBackoff, Duration maxBackoff, double budgetRatio, Class<?> exceptionClass) {
+        DebugTrace.enter() // for Debugging
+        when:
+            new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, budgetRatio)
+
+        then:
+            thrown exceptionClass
+
+        DebugTrace.leave() // for Debugging
+        where:
+            maxAttempts|initialBackoff       |maxBackoff           |budgetRatio|exceptionClass
+            0          |Duration.ofMillis(10)|Duration.ofSeconds(1)| 0.1d      |IllegalArgumentException
+            3          |Duration.ofMillis(-1)|Duration.ofSeconds(1)| 0.1d      |IllegalArgumentException
+            3          |Duration.ofMillis(10)|Duration.ofSeconds(1)|-0.1d      |IllegalArgumentException
+            3          |null                 |Duration.ofSeconds(1)| 0.1d      |NullPointerException
+    }
+
+    def "RetryPolicySpec backoffNanos"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def retryPolicy = new RetryPolicy(5, Duration.ofMillis(10), Duration.ofMillis(30), 0.1d)
+
+        expect:
+            (0..<100).every {retryPolicy.backoffNanos(0) < 10_000_000L}
+            (0..<100).every {retryPolicy.backoffNanos(3) < 30_000_000L}
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    def "RetryPolicySpec spendBudget"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def retryPolicy = new RetryPolicy(3, Duration.ZERO, Duration.ZERO, 0.5d)
+
+        expect:
+            (0..<RetryPolicy.MAX_BUDGET).every {retryPolicy.spendBudget()}
+            !retryPolicy.spendBudget()
+
+        when:
+            2.times {retryPolicy.earnBudget()}
+
+        then:
+            retryPolicy.spendBudget()
+            !retryPolicy.spendBudget()
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    def "RetryPolicySpec Transaction.execute"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def connectionSupplier = Stub(ConnectionSupplier)
+            connectionSupplier.get() >> {new ConnectionWrapper(Stub(Connection), connectionSupplier)}
+            connectionSupplier.database >> Standard.instance
+            def retryPolicy = new RetryPolicy(3, Duration.ZERO, Duration.ZERO, 0.1d)
+            def count = 0
+
+        when:
+            Transaction.execute(connectionSupplier, retryPolicy) {
+                if (++count < 3) throw new SQLException('deadlock', '40001')
+            }
+
+        then:
+            count == 3
+
+        when:
+            count = 0
+            Transaction.execute(connectionSupplier, retryPolicy) {
+                ++count
+                throw new SQLException('duplicate', '23000')
+            }
+
+        then:
+            thrown RuntimeSQLException
+            count == 1
+
+        DebugTrace.leave() // for Debugging
+    }
+}
@@ -569,6 +569,65 @@ class SelectSpec extends Base {
             connectionSupplier << connectionSuppliers
     }
 
+    // publish() @since 4.1.0
+    def "SelectSpec publish #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('publish') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Contact> contacts = []
+            def completed = new java.util.concurrent.CompletableFuture<Boolean>()
+            Publisher.Subscription subscription = null
+
+        when:
+            new Sql<>(Contact)
+                .orderBy('{id}')
+                .publish(connectionSupplier, org.lightsleep.helper.DefaultExecutor.instance)
+                .subscribe(new Publisher.Subscriber<Contact>() {
+                    void onSubscribe(Publisher.Subscription s) {subscription = s; s.request(2)}
+                    void onNext(Contact contact) {
+                        contacts << contact
+                        if (contacts.size() == 2) subscription.request(3)
+                        if (contacts.size() == 5) {subscription.cancel(); completed.complete(false)}
+                    }
+                    void onError(Throwable t) {completed.completeExceptionally(t)}
+                    void onComplete() {completed.complete(true)}
+                })
+
+        then:
+            !completed.get()
+            contacts.size() == 5
+            contacts*.id == (contacts*.id).sort()
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // selectParallel() @since 4.1.0
+    def "SelectSpec selectParallel #connectionSupplier #partitions"(ConnectionSupplier connectionSupplier, int partitions) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('selectParallel') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            def contacts = new java.util.concurrent.ConcurrentLinkedQueue<Contact>()
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it)
+                    .where('{name.last} IN {}', ['Last0', 'Last1', 'Last2'])
+                    .selectParallel(partitions, {contacts << it})
+            }
+
+        then:
+            contacts.size() == 30
+            (contacts*.id as Set).size() == 30
+
+        DebugTrace.leave() // for Debugging
+        where:
+            [connectionSupplier, partitions] << [connectionSuppliers, [1, 3, 7, 200]].combinations()
+    }
+
     // select() / innerJoin
     def "SelectSpec innerJoin #connectionSupplier"(ConnectionSupplier connectionSupplier) {
         DebugTrace.enter() // for Debugging
@@ -618,6 +677,272 @@ class SelectSpec extends Base {
             connectionSupplier << connectionSuppliers
     }
 
+    // selectGrouped() / leftJoin
+    def "SelectSpec selectGrouped #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('selectGrouped') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            Map<Contact, List<Phone>> phonesMap = [:]
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact, 'C').connection(it)
+                    .leftJoin(Phone, 'P', '{P.contactId} = {C.id}')
+                    .where('{C.name.last} = {}', 'Last5')
+                    .orderBy('{C.name.first}')
+                    .<Phone>selectGrouped({contact, phones -> phonesMap[contact] = phones})
+            }
+            DebugTrace.print('phonesMap.size', phonesMap.size()) // for Debugging
+            def contacts = phonesMap.keySet() as List
+
+        then:
+            phonesMap.size() == 10 // First0, First1, ..., First9
+            contacts*.name*.first == (0..9).collect {'First' + it}
+            phonesMap.values()*.size() == (0..9)
+            phonesMap.every {contact, phones -> phones.every {it.contactId == contact.id}}
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // selectGrouped() / orderBy the key
+    def "SelectSpec selectGrouped - ordered by key #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('selectGrouped - ordered by key') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Contact> contacts = []
+            List<List<Phone>> phonesList = []
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact, 'C').connection(it)
+                    .leftJoin(Phone, 'P', '{P.contactId} = {C.id}')
+                    .where('{C.name.last} = {}', 'Last5')
+                    .orderBy('{C.id}').desc()
+                    .orderBy('{P.phoneNumber}')
+                    .<Phone>selectGrouped({contact, phones ->
+                        contacts << contact
+                        phonesList << phones
+                    })
+            }
+            DebugTrace.print('contacts.size', contacts.size()) // for Debugging
+
+        then:
+            contacts.size() == 10
+            contacts*.id == contacts*.id.sort(false).reverse()
+            (contacts*.id as Set).size() == 10
+            [contacts, phonesList].transpose().every {contact, phones -> phones.every {it.contactId == contact.id}}
+            phonesList*.size().sum() == (0..9).sum()
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // lastExecutionStats / addExecutionStatsListener
+    def "SelectSpec lastExecutionStats #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('lastExecutionStats') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Contact> contacts = []
+            List<ExecutionStats> statsList = []
+            def listener = {statsList << it} as java.util.function.Consumer
+            Sql.addExecutionStatsListener(listener)
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it)
+                    .where('{name.last} = {}', 'Last5')
+                    .select({
+                        contacts << it
+                        Thread.sleep(1)
+                    })
+            }
+            def stats = Sql.lastExecutionStats()
+            Sql.removeExecutionStatsListener(listener)
+            DebugTrace.print('stats', stats.toString()) // for Debugging
+
+        then:
+            statsList.size() == 1
+            statsList[0].is(stats)
+            stats.rowCount() == contacts.size()
+            stats.sql().startsWith('SELECT ')
+            stats.estimatedBytes() > 0
+            stats.connectionWaitNanos() >= 0
+            (stats.consumerNanos() > 0L) == !contacts.isEmpty()
+            stats.mappingNanos() >= 0
+            stats.libraryNanos() == stats.generateNanos() + stats.bindNanos() + stats.mappingNanos()
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // addStatementListener / removeStatementListener
+    def "SelectSpec statementListener #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('statementListener') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<Contact> contacts = []
+            List<String> events = []
+            def listener = new StatementListener() {
+                String beforePrepare(StatementContext context, String sql) {events << 'beforePrepare'; sql + ' /* listener */'}
+                void afterBind(StatementContext context) {events << 'afterBind'}
+                void afterExecute(StatementContext context) {events << 'afterExecute'}
+                void onRows(StatementContext context, int rowCount) {events << 'onRows:' + rowCount}
+                void onClose(StatementContext context) {events << 'onClose'}
+            }
+            Sql.addStatementListener(connectionSupplier, listener)
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it)
+                    .where('{name.last} = {}', 'Last5')
+                    .fetchSize(4)
+                    .select({contacts << it})
+            }
+            Sql.removeStatementListener(listener)
+            DebugTrace.print('events', events) // for Debugging
+
+        then:
+            contacts.size() == 10
+            events == ['beforePrepare', 'afterBind', 'afterExecute', 'onRows:4', 'onRows:4', 'onRows:2', 'onClose']
+
+        when:
+            events.clear()
+            Transaction.execute(connectionSupplier) {
+                new Sql<>(Contact).connection(it).where('{name.last} = {}', 'Last5').select({})
+            }
+
+        then:
+            events.isEmpty()
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // addStatementListener with a wrapped connection supplier
+    def "SelectSpec statementListener - wrapped supplier #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('statementListener - wrapped supplier') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            List<String> events = []
+            def listener = new StatementListener() {
+                void afterExecute(StatementContext context) {events << 'afterExecute'}
+            }
+            def wrappedSupplier = new ConcurrencyLimiter(new ReplicaRouter(connectionSupplier, [connectionSupplier]))
+            Sql.addStatementListener(wrappedSupplier, listener)
+
+        when:
+            Transaction.execute(wrappedSupplier) {
+                new Sql<>(Contact).connection(it).where('{name.last} = {}', 'Last5').select({})
+            }
+            Transaction.execute(wrappedSupplier.forReadOnly()) {
+                new Sql<>(Contact).connection(it).where('{name.last} = {}', 'Last5').select({})
+            }
+            Sql.removeStatementListener(listener)
+
+        then:
+            events == ['afterExecute', 'afterExecute']
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // explain
+    def "SelectSpec explain #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('explain') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            ExplainPlan plan = null
+            Exception exception = null
+
+        when:
+            Transaction.execute(connectionSupplier) {
+                try {
+                    plan = new Sql<>(Contact).connection(it)
+                        .where('{name.last} = {}', 'Last5')
+                        .explain()
+                }
+                catch (UnsupportedOperationException e) {
+                    exception = e
+                }
+            }
+            DebugTrace.print('plan', plan?.toString()) // for Debugging
+
+        then:
+            if (connectionSupplier.database instanceof SQLServer) {
+                assert exception instanceof UnsupportedOperationException
+            } else {
+                assert plan.sql().startsWith('SELECT ')
+                assert plan.rows().size() > 0
+                assert !plan.text().isEmpty()
+            }
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    // explain in SlowQueryLog
+    def "SelectSpec explain slow query #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        DebugTrace.print('explain slow query') // for Debugging
+        DebugTrace.print('connectionSupplier', connectionSupplier.toString()) // for Debugging
+        setup:
+            def slowQueryLog = SlowQueryLog.instance
+            slowQueryLog.setThresholds(Contact, new SlowQueryLog.Thresholds(null, null, java.time.Duration.ZERO))
+            slowQueryLog.explain = true
+            slowQueryLog.explainInterval = java.time.Duration.ZERO
+            def select = {
+                Transaction.execute(connectionSupplier) {
+                    new Sql<>(Contact).connection(it)
+                        .where('{name.last} = {}', 'Last5')
+                        .select({})
+                }
+                return Sql.lastExecutionStats().sql()
+            }
+
+        when:
+            def sql = select()
+            def plan = slowQueryLog.getPlan(sql)
+            DebugTrace.print('plan', plan?.toString()) // for Debugging
+
+        then:
+            if (connectionSupplier.database instanceof SQLServer) {
+                assert plan == null
+            } else {
+                assert plan.sql() == sql
+                assert plan.rows().size() > 0
+            }
+
+        when:
+            // The plan of the same fingerprint is not captured again within the interval
+            slowQueryLog.explainInterval = java.time.Duration.ofHours(1)
+            select()
+
+        then:
+            slowQueryLog.getPlan(sql).is(plan)
+
+        cleanup:
+            slowQueryLog.setThresholds(Contact, null)
+            slowQueryLog.explain = false
+            slowQueryLog.explainInterval = java.time.Duration.ofMinutes(1)
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
     // select() / innerJoin
     def "SelectSpec innerJoin2 #connectionSupplier"(ConnectionSupplier connectionSupplier) {
         DebugTrace.enter() // for Debugging
@@ -0,0 +1,161 @@
+// ShardedSupplierSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import org.debugtrace.DebugTrace
+import org.lightsleep.*
+import org.lightsleep.component.*
+import org.lightsleep.connection.*
+import org.lightsleep.test.entity.*
+
+import spock.lang.*
+
+// ShardedSupplierSpec
+// Each shard is the same database, so each row appears once per shard in the merged result.
+@Unroll
+class ShardedSupplierSpec extends Base {
+    def setupSpec() {
+        DebugTrace.enter() // for Debugging
+        deleteAllTables()
+
+        Transaction.execute(connectionSupplier) {
+            (0..<5).each {index ->
+                def contact = new Contact()
+                contact.name.last  = 'Shard'
+                contact.name.first = 'First' + index
+                new Sql<>(Contact).connection(it).insert(contact)
+            }
+
+            // Contacts with null birthdays
+            [null, java.sql.Date.valueOf('1990-01-01'), null, java.sql.Date.valueOf('1980-01-01')].eachWithIndex {birthday, index ->
+                def contact = new Contact()
+                contact.name.last  = 'ShardNull'
+                contact.name.first = 'First' + index
+                contact.birthday = birthday
+                new Sql<>(Contact).connection(it).insert(contact)
+            }
+        }
+        DebugTrace.leave() // for Debugging
+    }
+
+    def "ShardedSupplierSpec select k-way merge #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def shards = new ShardedSupplier([connectionSupplier] * 3, ShardStrategy.hash())
+            List<Contact> ascContacts = []
+            List<Contact> descContacts = []
+
+        when:
+            shards.select(new Sql<>(Contact)
+                .where('{name.last}={}', 'Shard')
+                .orderBy('{name.first}'),
+                {ascContacts << it})
+            shards.select(new Sql<>(Contact, 'C')
+                .where('{C.name.last}={}', 'Shard')
+                .orderBy('{C.name.first}').desc(),
+                {descContacts << it})
+
+        then:
+            ascContacts*.name*.first == (0..<5).collectMany {['First' + it] * 3}
+            descContacts*.name*.first == (0..<5).reverse().collectMany {['First' + it] * 3}
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    def "ShardedSupplierSpec select null order #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def shards = new ShardedSupplier([connectionSupplier] * 3, ShardStrategy.hash())
+            def ascSql  = {new Sql<>(Contact).where('{name.last}={}', 'ShardNull').orderBy('{birthday}').orderBy('{name.first}')}
+            def descSql = {new Sql<>(Contact).where('{name.last}={}', 'ShardNull').orderBy('{birthday}').desc().orderBy('{name.first}')}
+            List<Contact> ascContacts = []
+            List<Contact> descContacts = []
+            List<Contact> expectedAscContacts = []
+            List<Contact> expectedDescContacts = []
+
+        when:
+            shards.select(ascSql(), {ascContacts << it})
+            shards.select(descSql(), {descContacts << it})
+            Transaction.execute(connectionSupplier) {
+                ascSql().connection(it).select({expectedAscContacts << it})
+                descSql().connection(it).select({expectedDescContacts << it})
+            }
+
+        then:
+            // Merged in the same order as the database sorts NULL values
+            expectedAscContacts.size() == 4
+            ascContacts*.name*.first == expectedAscContacts.collectMany {[it.name.first] * 3}
+            descContacts*.name*.first == expectedDescContacts.collectMany {[it.name.first] * 3}
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    def "ShardedSupplierSpec select offset limit #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def shards = new ShardedSupplier([connectionSupplier] * 3, ShardStrategy.hash())
+            List<Contact> contacts = []
+            List<Contact> offsetContacts = []
+
+        when:
+            shards.select(new Sql<>(Contact)
+                .where('{name.last}={}', 'Shard')
+                .orderBy('{name.first}')
+                .offset(4).limit(5),
+                {contacts << it})
+            shards.select(new Sql<>(Contact)
+                .where('{name.last}={}', 'Shard')
+                .orderBy('{name.first}')
+                .offset(13),
+                {offsetContacts << it})
+
+        then:
+            // First0 x 3, First1 x 3, First2 x 3, ...
+            contacts*.name*.first == ['First1', 'First1', 'First2', 'First2', 'First2']
+            offsetContacts*.name*.first == ['First4', 'First4']
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    def "ShardedSupplierSpec selectCount #connectionSupplier"(ConnectionSupplier connectionSupplier) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def shards = new ShardedSupplier([connectionSupplier] * 3, ShardStrategy.hash())
+
+        expect:
+            shards.selectCount(new Sql<>(Contact).where('{name.last}={}', 'Shard')) == 15
+            shards.selectCount(new Sql<>(Contact).where('{name.first} IN {}', ['First0', 'First1'])) == 6
+            shards.forKey(123).is(connectionSupplier)
+
+        DebugTrace.leave() // for Debugging
+        where:
+            connectionSupplier << connectionSuppliers
+    }
+
+    def "ShardedSupplierSpec select exception"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def shards = new ShardedSupplier([connectionSupplier] * 2, ShardStrategy.hash())
+
+        when:
+            shards.select(new Sql<>(Contact).orderBy('{name.last} || {name.first}'), {})
+
+        then:
+            thrown IllegalArgumentException
+
+        when:
+            new ShardedSupplier([], ShardStrategy.hash())
+
+        then:
+            thrown IllegalArgumentException
+
+        DebugTrace.leave() // for Debugging
+    }
+}
@@ -0,0 +1,93 @@
+// SlowQueryLogSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import java.sql.Connection
+import java.time.Duration
+import org.debugtrace.DebugTrace
+import org.lightsleep.*
+import org.lightsleep.connection.*
+import org.lightsleep.logger.Logger
+
+import spock.lang.*
+
+// SlowQueryLogSpec
+@Unroll
+class SlowQueryLogSpec extends Specification {
+    def "SlowQueryLogSpec Thresholds exceeds #executeMillis, #fetchMillis"(long executeMillis, long fetchMillis, boolean exceeds) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def thresholds = new SlowQueryLog.Thresholds(Duration.ofMillis(100), null, Duration.ofMillis(150))
+
+        expect:
+            thresholds.exceeds(executeMillis * 1_000_000L, fetchMillis * 1_000_000L) == exceeds
+
+        DebugTrace.leave() // for Debugging
+        where:
+            executeMillis|fetchMillis|exceeds
+               99        |  0        |false
+              100        |  0        |true
+               10        |139        |false
+               10        |140        |true
+    }
+
+    def "SlowQueryLogSpec setSampleRate - exception #sampleRate"(double sampleRate) {
+        DebugTrace.enter() // for Debugging
+        when:
+            new SlowQueryLog().setSampleRate(sampleRate)
+
+        then:
+            thrown IllegalArgumentException
+
+        DebugTrace.leave() // for Debugging
+        where:
+            sampleRate << [-0.1d, 1.1d, Double.NaN]
+    }
+
+    def "SlowQueryLogSpec log"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def logger = Mock(Logger)
+            logger.isWarnEnabled() >> true
+            logger.isInfoEnabled() >> true
+            def slowQueryLog = new SlowQueryLog(logger)
+            slowQueryLog.thresholds = new SlowQueryLog.Thresholds(null, null, Duration.ZERO)
+            slowQueryLog.setThresholds(Phone, new SlowQueryLog.Thresholds(null, null, null))
+            slowQueryLog.sampleRate = 1.0d
+            def connection = new ConnectionWrapper(Stub(Connection), Stub(ConnectionSupplier))
+            List<String> warnEntries = []
+            List<String> infoEntries = []
+
+        when:
+            slowQueryLog.log(connection, Contact, "SELECT * FROM Contact WHERE name='Smith' AND age=30 AND id=?", ['secret'], 1000L, 2000L, 1)
+            slowQueryLog.log(connection, Phone  , "DELETE FROM Phone WHERE label='home'", [], 1000L, -1L, 0)
+            DebugTrace.print('warnEntries', warnEntries) // for Debugging
+            DebugTrace.print('infoEntries', infoEntries) // for Debugging
+
+        then:
+            1 * logger.warn(_ as String) >> {String entry -> warnEntries << entry}
+            1 * logger.info(_ as String) >> {String entry -> infoEntries << entry}
+            warnEntries[0].startsWith('slow query: exec: 0.001ms, get: 0.002ms, total: 0.003ms, rows: 1, connection: ')
+            warnEntries[0].contains(', caller: ')
+            warnEntries[0].endsWith(', sql: SELECT * FROM Contact WHERE name=? AND age=? AND id=?, parameters: [String(6)]')
+            !warnEntries[0].contains('Smith')
+            !warnEntries[0].contains('secret')
+            infoEntries[0].startsWith('sampled query: exec: 0.001ms, total: 0.001ms, rows: 0, connection: ')
+            infoEntries[0].endsWith(', sql: DELETE FROM Phone WHERE label=?')
+
+        when:
+            slowQueryLog.logParameters = true
+            slowQueryLog.log(connection, Contact, "SELECT * FROM Contact WHERE name='Smith' AND age=30 AND id=?", ['secret'], 1000L, 2000L, 1)
+
+        then:
+            1 * logger.warn(_ as String) >> {String entry -> warnEntries << entry}
+            warnEntries[1].contains(", sql: SELECT * FROM Contact WHERE name='Smith' AND age=30 AND id=?, parameters: [")
+            warnEntries[1].contains('secret')
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    static class Contact {}
+    static class Phone {}
+}
@@ -0,0 +1,88 @@
+// SqlMetricsSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import org.debugtrace.DebugTrace
+import org.lightsleep.*
+import org.lightsleep.connection.*
+
+import spock.lang.*
+
+// SqlMetricsSpec
+@Unroll
+class SqlMetricsSpec extends Specification {
+    def "SqlMetricsSpec fingerprint '#sql'"(String sql, String fingerprint) {
+        DebugTrace.enter() // for Debugging
+        expect:
+            SqlMetrics.fingerprint(sql) == fingerprint
+
+        DebugTrace.leave() // for Debugging
+        where:
+            sql                                                     |fingerprint
+            "SELECT id FROM Contact WHERE name='Mc''Donald'"        |"SELECT id FROM Contact WHERE name=?"
+            'SELECT id FROM Contact WHERE id IN (1, 2, 3)'          |'SELECT id FROM Contact WHERE id IN (?, ...)'
+            'SELECT C1.id FROM Contact C1 WHERE C1.amount > 12.5'   |'SELECT C1.id FROM Contact C1 WHERE C1.amount > ?'
+            "INSERT INTO Phone (a, b) VALUES (1, 'x'),\n (2, 'y')"  |'INSERT INTO Phone (a, b) VALUES (?, ...), ...'
+    }
+
+    def "SqlMetricsSpec LatencyHistogram"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def histogram = new LatencyHistogram()
+
+        when:
+            (1..1000).each {histogram.record(it * 1000L)}
+
+        then:
+            histogram.count() == 1000
+            histogram.max() == 1_000_000L
+            Math.abs(histogram.percentile(50.0) - 500_000L) <= 500_000L / 16
+            Math.abs(histogram.percentile(99.0) - 990_000L) <= 990_000L / 16
+            histogram.statistics().max == 1.0
+
+        when:
+            histogram.reset()
+
+        then:
+            histogram.count() == 0
+            histogram.percentile(50.0) == 0L
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    def "SqlMetricsSpec record"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def metrics = new SqlMetrics(2)
+            def supplier = Stub(ConnectionSupplier)
+
+        when:
+            metrics.recordExecution(supplier, 'SELECT * FROM Contact WHERE id=1', 1000L, 2000L, 1)
+            metrics.recordExecution(supplier, 'SELECT * FROM Contact WHERE id=2', 3000L, 4000L, 1)
+            metrics.recordError(supplier, 'UPDATE Contact SET id=3')
+            metrics.recordExecution(supplier, 'DELETE FROM Contact', 5000L, -1L, 10)
+            metrics.recordAcquire(supplier, 1_000_000L)
+            def statements = metrics.statements.collectEntries {[it.fingerprint, it]}
+            DebugTrace.print('statements', statements) // for Debugging
+
+        then:
+            statements.size() == 3
+            statements['SELECT * FROM Contact WHERE id=?'].count == 2
+            statements['SELECT * FROM Contact WHERE id=?'].rowCount == 2
+            statements['SELECT * FROM Contact WHERE id=?'].fetchTime.count == 2
+            statements['UPDATE Contact SET id=?'].errorCount == 1
+            statements[SqlMetrics.OTHERS].rowCount == 10
+            statements[SqlMetrics.OTHERS].fetchTime.count == 0
+            metrics.connectionSuppliers.size() == 1
+            metrics.connectionSuppliers[0].acquireTime.max == 1.0
+
+        when:
+            metrics.reset()
+
+        then:
+            metrics.statements.isEmpty()
+
+        DebugTrace.leave() // for Debugging
+    }
+}
@@ -1457,6 +1457,38 @@ class SqlSpec extends Specification {
         DebugTrace.leave() // for Debugging
     }
 
+    // Sql.trackChanges()
+    // Sql.isTrackChanges()
+    def "SqlSpec trackChanges isTrackChanges"() {
+        DebugTrace.enter() // for Debugging
+
+        expect:
+            !new Sql<>(Contact).trackChanges
+            new Sql<>(Contact).trackChanges().trackChanges
+            new Sql<>(Contact).trackChanges().clone().trackChanges
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    // Sql.cached(Duration)
+    // Sql.getCacheTimeToLive()
+    def "SqlSpec cached getCacheTimeToLive"() {
+        DebugTrace.enter() // for Debugging
+
+        expect:
+            new Sql<>(Contact).cacheTimeToLive == null
+            new Sql<>(Contact).cached(java.time.Duration.ofMinutes(1)).cacheTimeToLive == java.time.Duration.ofMinutes(1)
+            new Sql<>(Contact).cached(java.time.Duration.ofMinutes(1)).clone().cacheTimeToLive == java.time.Duration.ofMinutes(1)
+
+        when:
+            new Sql<>(Contact).cached(java.time.Duration.ZERO)
+
+        then:
+            thrown IllegalArgumentException
+
+        DebugTrace.leave() // for Debugging
+    }
+
     // Sql.forUpdate()
     // Sql.isForUpdate()
     // Sql.noWait()
@@ -0,0 +1,77 @@
+// TransactionSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec
+
+import java.sql.Connection
+import java.sql.SQLException
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ExecutorService
+import org.debugtrace.DebugTrace
+import org.lightsleep.*
+import org.lightsleep.connection.*
+import org.lightsleep.helper.*
+
+import spock.lang.*
+
+// TransactionSpec
+@Unroll
+class TransactionSpec extends Specification {
+    def "TransactionSpec executeReadOnly"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def connection = Mock(Connection)
+            def supplier = Stub(ConnectionSupplier)
+            supplier.get() >> {new ConnectionWrapper(connection, supplier)}
+            connection.getAutoCommit() >> false
+            def readOnlyInBody = false
+
+        when:
+            Transaction.executeReadOnly(supplier) {readOnlyInBody = it.readOnly}
+
+        then:
+            1 * connection.setReadOnly(true)
+
+        then:
+            1 * connection.commit()
+
+        then:
+            1 * connection.setReadOnly(false)
+
+        then:
+            1 * connection.close()
+            readOnlyInBody
+
+        DebugTrace.leave() // for Debugging
+    }
+
+    def "TransactionSpec executeAsync"() {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def connection = Mock(Connection)
+            def supplier = Stub(ConnectionSupplier)
+            supplier.get() >> {new ConnectionWrapper(connection, supplier)}
+            connection.getAutoCommit() >> false
+
+        when:
+            def future = Transaction.executeAsync(DefaultExecutor.instance, supplier) {}
+            future.join()
+
+        then:
+            1 * connection.commit()
+            1 * connection.close()
+
+        when:
+            future = Transaction.executeAsync(DefaultExecutor.instance, supplier) {throw new SQLException('test')}
+            future.join()
+
+        then:
+            def e = thrown CompletionException
+            e.cause instanceof RuntimeSQLException
+            1 * connection.rollback()
+            1 * connection.close()
+            !(DefaultExecutor.instance instanceof ExecutorService) // cannot be shut down by the callers
+
+        DebugTrace.leave() // for Debugging
+    }
+}
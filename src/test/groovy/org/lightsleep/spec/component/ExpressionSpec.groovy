@@ -175,6 +175,28 @@ class ExpressionSpec extends Specification {
 //            databaseName = database.getClass().simpleName
 //    }
 
+    def "ExpressionSpec IN Iterable argument - #database.class.simpleName"(Database database, String expectedString, int parameterCount) {
+        DebugTrace.enter() // for Debugging
+
+        when:
+            def parameters = new ArrayList<Object>()
+            def expression = new Expression('{id} IN {} AND {name.last} NOT IN {}', [1, 2, 3], ['Apple', 'Apricot'])
+            def string = expression.toString(database, new Sql<>(Contact), parameters)
+            DebugTrace.print('string', string) // for Debugging
+
+        then:
+            string == expectedString
+            parameters.size() == parameterCount
+            parameters.every {it instanceof SqlArray}
+
+        DebugTrace.leave() // for Debugging
+
+        where:
+            database           |expectedString                                               |parameterCount
+            Standard  .instance|"id IN (1,2,3) AND lastName NOT IN ('Apple','Apricot')"|0
+            PostgreSQL.instance|'id = ANY(?) AND lastName <> ALL(?)'                        |2
+    }
+
     def "ExpressionSpec property reference 1"() {
         DebugTrace.enter() // for Debugging
 
@@ -0,0 +1,182 @@
+// ConcurrencyLimiterSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.connection
+
+import java.sql.Connection
+import java.sql.SQLException
+import java.sql.SQLTransientConnectionException
+import java.util.concurrent.CompletableFuture
+import org.lightsleep.*
+import org.lightsleep.connection.*
+
+import spock.lang.*
+
+// ConcurrencyLimiterSpec
+@Unroll
+class ConcurrencyLimiterSpec extends Specification {
+    ConnectionSupplier newSupplier(boolean fails = false) {
+        def supplier = Stub(ConnectionSupplier)
+        supplier.get() >> {
+            if (fails) throw new RuntimeSQLException(new SQLException('failed'))
+            new ConnectionWrapper(Stub(Connection), supplier)
+        }
+        supplier.forReadOnly() >> supplier
+        return supplier
+    }
+
+    def "ConcurrencyLimiter get and close"() {
+        setup:
+            def limiter = new ConcurrencyLimiter(newSupplier(), 2, 10, 0, 0L)
+
+        when:
+            def connection1 = limiter.get()
+            def connection2 = limiter.forBatch().get()
+
+        then:
+            limiter.inFlight == 2
+
+        when:
+            limiter.get()
+
+        then:
+            def e = thrown RuntimeSQLException
+            e.cause instanceof SQLTransientConnectionException
+            limiter.rejectedCount == 1
+
+        when:
+            connection1.close()
+            connection2.close()
+
+        then:
+            limiter.inFlight == 0
+            limiter.forReadOnly().is(limiter)
+    }
+
+    def "ConcurrencyLimiter admits interactive transactions before batch ones"() {
+        setup:
+            def limiter = new ConcurrencyLimiter(newSupplier(), 1, 1, 10, 5_000L)
+            def connection = limiter.get()
+            def batch = CompletableFuture.supplyAsync {limiter.forBatch().get()}
+            while (limiter.getWaiting(ConcurrencyLimiter.Priority.BATCH) == 0) Thread.sleep(1)
+            def interactive = CompletableFuture.supplyAsync {limiter.get()}
+            while (limiter.getWaiting(ConcurrencyLimiter.Priority.INTERACTIVE) == 0) Thread.sleep(1)
+
+        when:
+            connection.close()
+            def interactiveConnection = interactive.get()
+
+        then:
+            !batch.done
+
+        when:
+            interactiveConnection.close()
+
+        then:
+            batch.get() != null
+    }
+
+    def "ConcurrencyLimiter decreases the limit when getting a connection fails"() {
+        setup:
+            def limiter = new ConcurrencyLimiter(newSupplier(true), 10, 10, 0, 0L)
+
+        when:
+            Thread.sleep(1)
+            limiter.get()
+
+        then:
+            thrown RuntimeSQLException
+            limiter.limit == 9
+            limiter.inFlight == 0
+    }
+
+    // Releases a transaction of the latency (ms) while the limit is in use
+    void release(ConcurrencyLimiter limiter, ConcurrencyLimiter.Priority priority, long latency) {
+        while (limiter.inFlight < limiter.limit)
+            limiter.acquire(priority)
+        limiter.release(priority, latency * 1_000_000L, false)
+    }
+
+    def "ConcurrencyLimiter adjusts the limit by the gradient of the latency"() {
+        setup:
+            def limiter = new ConcurrencyLimiter(newSupplier(), 10, 40, 0, 0L)
+            def limits = []
+
+        when: 'the latency is stable'
+            20.times {
+                release(limiter, ConcurrencyLimiter.Priority.INTERACTIVE, 10L)
+                limits << limiter.limit
+            }
+
+        then:
+            limits == [10, 11, 11, 12, 13, 14, 14, 15, 16, 17, 18, 18, 19, 20, 21, 22, 23, 24, 25, 26]
+
+        when: 'the latency triples'
+            limits.clear()
+            20.times {
+                release(limiter, ConcurrencyLimiter.Priority.INTERACTIVE, 30L)
+                limits << limiter.limit
+            }
+
+        then:
+            limits == [27, 27, 27, 27, 26, 25, 24, 23, 22, 21, 20, 20, 19, 18, 17, 17, 16, 16, 15, 15]
+
+        when: 'the latency recovers'
+            limits.clear()
+            20.times {
+                release(limiter, ConcurrencyLimiter.Priority.INTERACTIVE, 10L)
+                limits << limiter.limit
+            }
+
+        then:
+            limits == [15, 15, 15, 16, 17, 18, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31]
+    }
+
+    def "ConcurrencyLimiter does not decrease the limit by the different latencies of the priorities"() {
+        setup:
+            def limiter = new ConcurrencyLimiter(newSupplier(), 10, 40, 0, 0L)
+            def limits = []
+
+        when:
+            40.times {
+                release(limiter, ConcurrencyLimiter.Priority.INTERACTIVE, 1L)
+                release(limiter, ConcurrencyLimiter.Priority.BATCH, 50L)
+                limits << limiter.limit
+            }
+
+        then:
+            (1..<limits.size()).every {limits[it] >= limits[it - 1]}
+            limits.last() == 40
+    }
+
+    def "ConcurrencyLimiter does not increase the limit unless more than half of the limit is in use"() {
+        setup:
+            def limiter = new ConcurrencyLimiter(newSupplier(), 10, 40, 0, 0L)
+
+        when:
+            20.times {
+                limiter.acquire(ConcurrencyLimiter.Priority.INTERACTIVE)
+                limiter.release(ConcurrencyLimiter.Priority.INTERACTIVE, 10_000_000L, false)
+            }
+
+        then:
+            limiter.limit == 10
+            limiter.inFlight == 0
+    }
+
+    def "ConcurrencyLimiter new - exception #initialLimit, #maxLimit, #maxQueue, #maxWait"(
+        int initialLimit, int maxLimit, int maxQueue, long maxWait) {
+        when:
+            new ConcurrencyLimiter(newSupplier(), initialLimit, maxLimit, maxQueue, maxWait)
+
+        then:
+            thrown IllegalArgumentException
+
+        where:
+            initialLimit|maxLimit|maxQueue|maxWait
+            0           |10      |10      | 100L
+            10          | 9      |10      | 100L
+            10          |10      |-1      | 100L
+            10          |10      |10      |  -1L
+    }
+}
@@ -0,0 +1,124 @@
+// ConnectionWrapperSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.connection
+
+import java.sql.Connection
+import org.lightsleep.*
+import org.lightsleep.connection.*
+
+import spock.lang.*
+
+// ConnectionWrapperSpec
+@Unroll
+class ConnectionWrapperSpec extends Specification {
+    def "ConnectionWrapper autoCommit is cached"() {
+        setup:
+            def connection = Mock(Connection)
+            def wrapper = new ConnectionWrapper(connection, Stub(ConnectionSupplier))
+
+        when:
+            wrapper.autoCommit = false
+            def autoCommit1 = wrapper.autoCommit
+            def autoCommit2 = wrapper.autoCommit
+
+        then:
+            1 * connection.setAutoCommit(false)
+            0 * connection.getAutoCommit()
+            !autoCommit1
+            !autoCommit2
+    }
+
+    def "ConnectionWrapper close restores read-only mode"() {
+        setup:
+            def connection = Mock(Connection)
+            def wrapper = new ConnectionWrapper(connection, Stub(ConnectionSupplier))
+
+        when:
+            wrapper.readOnly = true
+            def readOnly = wrapper.readOnly
+            wrapper.close()
+
+        then:
+            readOnly
+            0 * connection.isReadOnly()
+            1 * connection.setReadOnly(true)
+
+        then:
+            1 * connection.setReadOnly(false)
+
+        then:
+            1 * connection.close()
+    }
+
+    def "ConnectionWrapper snapshots and completion actions are cleared on commit"() {
+        setup:
+            def connection = Mock(Connection)
+            def wrapper = new ConnectionWrapper(connection, Stub(ConnectionSupplier))
+            def entity = new Object()
+            def actionCount = 0
+            Runnable action = {++actionCount}
+
+        when:
+            wrapper.putSnapshot(entity, [value: 1])
+            wrapper.addCompletionAction(action)
+            wrapper.addCompletionAction(action)
+
+        then:
+            wrapper.getSnapshot(entity) == [value: 1]
+            wrapper.getSnapshot(new Object()) == null
+            wrapper.hasCompletionActions()
+            !wrapper.hasChanges()
+
+        when:
+            wrapper.markChanged()
+
+        then:
+            wrapper.hasChanges()
+
+        when:
+            wrapper.commit()
+
+        then:
+            1 * connection.commit()
+            actionCount == 1
+            wrapper.getSnapshot(entity) == null
+            !wrapper.hasCompletionActions()
+            !wrapper.hasChanges()
+    }
+
+    def "ConnectionWrapper identity map"() {
+        setup:
+            def connection = Mock(Connection)
+            def wrapper = new ConnectionWrapper(connection, Stub(ConnectionSupplier))
+            def entity = new Object()
+
+        when:
+            wrapper.putIdentity(Object, [1], entity)
+
+        then:
+            wrapper.getIdentity(Object, [1]) == null
+
+        when:
+            wrapper.identityMapEnabled = true
+            wrapper.putIdentity(Object, [1], entity)
+            wrapper.putIdentity(Object, [2], new Object())
+
+        then:
+            wrapper.getIdentity(Object, [1]).is(entity)
+
+        when:
+            wrapper.removeIdentity(Object, [1])
+
+        then:
+            wrapper.getIdentity(Object, [1]) == null
+            wrapper.getIdentity(Object, [2]) != null
+
+        when:
+            wrapper.rollback()
+
+        then:
+            1 * connection.rollback()
+            wrapper.getIdentity(Object, [2]) == null
+    }
+}
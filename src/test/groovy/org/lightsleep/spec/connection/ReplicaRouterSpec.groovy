@@ -0,0 +1,63 @@
+// ReplicaRouterSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.connection
+
+import java.sql.Connection
+import java.sql.SQLException
+import org.lightsleep.*
+import org.lightsleep.connection.*
+
+import spock.lang.*
+
+// ReplicaRouterSpec
+@Unroll
+class ReplicaRouterSpec extends Specification {
+    ConnectionSupplier newSupplier(String name, boolean fails = false) {
+        def supplier = Stub(ConnectionSupplier)
+        supplier.get() >> {
+            if (fails) throw new RuntimeSQLException(new SQLException(name))
+            new ConnectionWrapper(Stub(Connection), supplier)
+        }
+        return supplier
+    }
+
+    def "ReplicaRouter get returns the primary connection"() {
+        setup:
+            def primary = newSupplier('primary')
+            def replica1 = newSupplier('replica1')
+            def router = new ReplicaRouter(primary, [replica1])
+
+        expect:
+            router.get().supplier.is(primary)
+            router.forReadOnly().get().supplier.is(replica1)
+    }
+
+    def "ReplicaRouter selects the replica with the least outstanding connections"() {
+        setup:
+            def router = new ReplicaRouter(newSupplier('primary'), [newSupplier('replica1'), newSupplier('replica2')])
+
+        when:
+            def connection1 = router.forReadOnly().get()
+            def connection2 = router.forReadOnly().get()
+
+        then:
+            !connection1.supplier.is(connection2.supplier)
+    }
+
+    def "ReplicaRouter ejects a failed replica and falls back to the primary"() {
+        setup:
+            def primary = newSupplier('primary')
+            def replica2 = newSupplier('replica2')
+            def router = new ReplicaRouter(primary, [newSupplier('replica1', true), replica2])
+
+        expect:
+            (1..4).every {router.forReadOnly().get().supplier.is(replica2)}
+
+        when:
+            router = new ReplicaRouter(primary, [newSupplier('replica1', true)])
+
+        then:
+            router.forReadOnly().get().supplier.is(primary)
+    }
+}
@@ -0,0 +1,53 @@
+// ShardStrategySpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.connection
+
+import org.lightsleep.connection.*
+
+import spock.lang.*
+
+// ShardStrategySpec
+@Unroll
+class ShardStrategySpec extends Specification {
+    def "ShardStrategy hash #shardKey"(Object shardKey) {
+        expect:
+            def index = ShardStrategy.hash().shardIndex(shardKey, 4)
+            index >= 0 && index < 4
+            index == ShardStrategy.hash().shardIndex(shardKey, 4)
+
+        where:
+            shardKey << [0, 1, -1, Integer.MIN_VALUE, 123456789L, 'abc', null]
+    }
+
+    def "ShardStrategy range #shardKey -> #expectedIndex"(int shardKey, int expectedIndex) {
+        expect:
+            ShardStrategy.range([100, 200]).shardIndex(shardKey, 3) == expectedIndex
+
+        where:
+            shardKey | expectedIndex
+            -1       | 0
+            99       | 0
+            100      | 1
+            199      | 1
+            200      | 2
+            1000     | 2
+    }
+
+    def "ShardStrategy range exception"() {
+        when: ShardStrategy.range([100, 200]).shardIndex(200, 2)
+        then: thrown IllegalArgumentException
+    }
+
+    def "ShardStrategy lookup"() {
+        setup:
+            def strategy = ShardStrategy.lookup(['JP': 0, 'US': 1])
+
+        expect:
+            strategy.shardIndex('JP', 2) == 0
+            strategy.shardIndex('US', 2) == 1
+
+        when: strategy.shardIndex('FR', 2)
+        then: thrown IllegalArgumentException
+    }
+}
@@ -4,8 +4,10 @@
 package org.lightsleep.spec.database
 
 import org.debugtrace.DebugTrace
+import org.lightsleep.*
 import org.lightsleep.component.*
 import org.lightsleep.database.*
+import org.lightsleep.test.entity.*
 
 import spock.lang.*
 
@@ -43,4 +45,77 @@ class DatabaseSpec extends Specification {
                 'jdbc:SQLServer:'
             ]
     }
+
+    // upsertSql
+    def "Database.upsertSql #database.class.simpleName"(Database database, String expectedSql) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def saleItem = new SaleItem(saleId: 1, itemIndex: 2, productId: 11, quantity: 3 as short)
+            def sql = new Sql<>(SaleItem).setEntity(saleItem)
+            def parameters = []
+
+        when:
+            def upsertSql = database.upsertSql(sql, parameters).toString()
+            DebugTrace.print('upsertSql', upsertSql) // for Debugging
+
+        then:
+            upsertSql == expectedSql
+            parameters.isEmpty()
+        DebugTrace.leave() // for Debugging
+
+        where:
+            database           |expectedSql
+            Standard  .instance|MERGE_SQL
+            Db2       .instance|MERGE_SQL
+            SQLServer .instance|MERGE_SQL + ';'
+            Oracle    .instance|MERGE_SQL.replace('(VALUES (1, 2, 11, 3)) S (saleId, itemIndex, productId, quantity)',
+                                    '(SELECT 1 saleId, 2 itemIndex, 11 productId, 3 quantity FROM DUAL) S')
+            PostgreSQL.instance|ON_CONFLICT_SQL
+            SQLite    .instance|ON_CONFLICT_SQL
+            MySQL     .instance|ON_DUPLICATE_KEY_SQL
+            MariaDB   .instance|ON_DUPLICATE_KEY_SQL
+    }
+
+    // keysCondition
+    def "Database.keysCondition #database.class.simpleName"(Database database, String expectedSql) {
+        DebugTrace.enter() // for Debugging
+        setup:
+            def sql = new Sql<>(SaleItem).where('{quantity}>{}', 0)
+            sql.where(sql.where.and(database.keysCondition(sql, [[1, 2] as Object[], [3, 4] as Object[]])))
+            def parameters = []
+
+        when:
+            def selectSql = database.selectSql(sql, parameters).toString()
+            DebugTrace.print('selectSql', selectSql) // for Debugging
+
+        then:
+            selectSql == 'SELECT saleId, itemIndex, productId, quantity FROM SaleItem WHERE quantity>0 AND ' + expectedSql
+            parameters.isEmpty()
+        DebugTrace.leave() // for Debugging
+
+        where:
+            database           |expectedSql
+            Standard  .instance|'(saleId=1 AND itemIndex=2 OR saleId=3 AND itemIndex=4)'
+            SQLServer .instance|'(saleId=1 AND itemIndex=2 OR saleId=3 AND itemIndex=4)'
+            Db2       .instance|'(saleId, itemIndex) IN ((1, 2), (3, 4))'
+            Oracle    .instance|'(saleId, itemIndex) IN ((1, 2), (3, 4))'
+            PostgreSQL.instance|'(saleId, itemIndex) IN ((1, 2), (3, 4))'
+            SQLite    .instance|'(saleId, itemIndex) IN ((1, 2), (3, 4))'
+            MySQL     .instance|'(saleId, itemIndex) IN ((1, 2), (3, 4))'
+            MariaDB   .instance|'(saleId, itemIndex) IN ((1, 2), (3, 4))'
+    }
+
+    static final String MERGE_SQL =
+        'MERGE INTO SaleItem T USING (VALUES (1, 2, 11, 3)) S (saleId, itemIndex, productId, quantity)' +
+        ' ON (T.saleId=S.saleId AND T.itemIndex=S.itemIndex)' +
+        ' WHEN MATCHED THEN UPDATE SET productId=S.productId, quantity=S.quantity' +
+        ' WHEN NOT MATCHED THEN INSERT (saleId, itemIndex, productId, quantity) VALUES (S.saleId, S.itemIndex, S.productId, S.quantity)'
+
+    static final String ON_CONFLICT_SQL =
+        'INSERT INTO SaleItem AS T (saleId, itemIndex, productId, quantity) VALUES (1, 2, 11, 3)' +
+        ' ON CONFLICT (saleId, itemIndex) DO UPDATE SET productId=EXCLUDED.productId, quantity=EXCLUDED.quantity'
+
+    static final String ON_DUPLICATE_KEY_SQL =
+        'INSERT INTO SaleItem (saleId, itemIndex, productId, quantity) VALUES (1, 2, 11, 3)' +
+        ' ON DUPLICATE KEY UPDATE productId=VALUES(productId), quantity=VALUES(quantity)'
 }
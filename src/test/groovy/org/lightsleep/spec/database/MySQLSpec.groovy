@@ -59,4 +59,19 @@ class MySQLSpec extends Specification {
             '?password=;<=>?@[\\]^_`(|)~:'|'?password=' + Standard.PASSWORD_MASK + ':'
             '?password=a&password=a:bbb'  |'?password=' + Standard.PASSWORD_MASK + '&password=' + Standard.PASSWORD_MASK + ':bbb'
     }
+
+    // isLocalInfileDisabled @since 4.1.0
+    def "MySQL isLocalInfileDisabled #errorCode #message"(int errorCode, String message, boolean result) {
+        expect: MySQL.isLocalInfileDisabled(new java.sql.SQLException(message, 'HY000', errorCode)) == result
+
+        where:
+            errorCode|message                                                              |result
+            1148     |'The used command is not allowed with this MySQL version'            |true
+            3948     |'Loading local data is disabled; this must be enabled on both sides' |true
+            4166     |'The used command is not allowed because the client disabled it'     |true
+            0        |'Loading local data is disabled; this must be enabled on both sides' |true
+            0        |'Usage of LOCAL INFILE is disabled'                                  |true
+            1062     |'Duplicate entry'                                                    |false
+            0        |null                                                                 |false
+    }
 }
@@ -0,0 +1,197 @@
+// EntityCacheSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.helper
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.lightsleep.Sql
+import org.lightsleep.entity.*
+import org.lightsleep.helper.*
+
+import spock.lang.*
+
+// EntityCacheSpec
+@Unroll
+class EntityCacheSpec extends Specification {
+    @Cacheable(maxSize=64, expireSeconds=60)
+    static class Product {
+        @Key public int id
+        public String name
+    }
+
+    static class Product2 {
+        @Key public int id
+        public String name
+    }
+
+    @Cacheable
+    static class Product3 {
+        @Key public int id
+        public java.sql.Date date
+        public byte[] bytes
+    }
+
+    def "EntityCache EntityInfo.cache"() {
+        expect:
+            Sql.getEntityInfo(Product).cache() != null
+            Sql.getEntityInfo(Product2).cache() == null
+    }
+
+    def "EntityCache get loads once and returns copies"() {
+        setup:
+            def cache = new EntityCache<Product>(Sql.getEntityInfo(Product), 64, 60)
+            def loadCount = 0
+            def loader = {loadCount++; new Product(id: 1, name: 'A')}
+
+        when:
+            def product1 = cache.get([1], loader)
+            def product2 = cache.get([1], loader)
+            def product3 = cache.get([1], loader)
+
+        then:
+            loadCount == 1
+            cache.hitCount() == 2
+            cache.missCount() == 1
+            product2.name == 'A'
+            !product2.is(product3)
+
+        when:
+            product2.name = 'B'
+
+        then:
+            cache.get([1], loader).name == 'A'
+            cache.keyOf(product1) == [1]
+    }
+
+    def "EntityCache invalidate"() {
+        setup:
+            def cache = new EntityCache<Product>(Sql.getEntityInfo(Product), 64, 60)
+            def loadCount = 0
+            def loader = {loadCount++; new Product(id: it, name: 'A')}
+
+        when:
+            cache.get([1]) {loader(1)}
+            cache.get([2]) {loader(2)}
+            cache.invalidate([1])
+            cache.get([1]) {loader(1)}
+            cache.get([2]) {loader(2)}
+
+        then:
+            loadCount == 3
+            cache.size() == 2
+
+        when:
+            cache.invalidateAll()
+
+        then:
+            cache.size() == 0
+    }
+
+    def "EntityCache keyed by the URL"() {
+        setup:
+            def cache = new EntityCache<Product>(Sql.getEntityInfo(Product), 64, 60)
+            def key1 = cache.keyOf('jdbc:test:1', new Product(id: 1))
+            def key2 = cache.keyOf('jdbc:test:2', new Product(id: 1))
+
+        when:
+            def product1 = cache.get(key1) {new Product(id: 1, name: 'A')}
+            def product2 = cache.get(key2) {new Product(id: 1, name: 'B')}
+
+        then:
+            key1 == ['jdbc:test:1', 1]
+            cache.get(key1) {null}.name == 'A'
+            cache.get(key2) {null}.name == 'B'
+            cache.size() == 2
+
+        when:
+            cache.invalidateAllUrls([1])
+
+        then:
+            cache.size() == 0
+    }
+
+    def "EntityCache does not cache null and evicts over maxSize"() {
+        setup:
+            def cache = new EntityCache<Product>(Sql.getEntityInfo(Product), 64, 60)
+
+        when:
+            def product = cache.get([0]) {null}
+            (1..200).each {id -> cache.get([id]) {new Product(id: id)}}
+
+        then:
+            product == null
+            cache.size() <= 64
+    }
+
+    def "EntityCache loads once for concurrent requests"() {
+        setup:
+            def cache = new EntityCache<Product>(Sql.getEntityInfo(Product), 64, 60)
+            def loadCount = new AtomicInteger()
+            def latch = new CountDownLatch(1)
+            def executor = Executors.newFixedThreadPool(8)
+
+        when:
+            def futures = (1..8).collect {
+                executor.submit({
+                    cache.get([1]) {loadCount.incrementAndGet(); latch.await(); new Product(id: 1, name: 'A')}
+                } as java.util.concurrent.Callable)
+            }
+            // Each thread counts a miss after registering or finding the loading
+            while (cache.missCount() < 8) Thread.yield()
+            latch.countDown()
+            def products = futures.collect {it.get(10, TimeUnit.SECONDS)}
+            executor.shutdown()
+
+        then:
+            loadCount.get() == 1
+            products.every {it.name == 'A'}
+    }
+
+    def "EntityCache expires entities by the clock"() {
+        setup:
+            def now = 0L
+            def cache = new EntityCache<Product>(Sql.getEntityInfo(Product), 64, 60, {now})
+            def loadCount = 0
+            def loader = {loadCount++; new Product(id: 1, name: 'A')}
+
+        when:
+            cache.get([1], loader)
+            now += TimeUnit.SECONDS.toNanos(59)
+            cache.get([1], loader)
+
+        then:
+            loadCount == 1
+
+        when:
+            now += TimeUnit.SECONDS.toNanos(1)
+            cache.get([1], loader)
+
+        then:
+            loadCount == 2
+    }
+
+    def "EntityCache copies mutable values"() {
+        setup:
+            def cache = new EntityCache<Product3>(Sql.getEntityInfo(Product3), 64, 60)
+            def loaded = new Product3(id: 1, date: new java.sql.Date(0L), bytes: [1, 2] as byte[])
+
+        when:
+            def product1 = cache.get([1]) {loaded}
+            loaded.date.time = 1000L
+            loaded.bytes[0] = 9
+            def product2 = cache.get([1]) {null}
+            product2.date.time = 2000L
+            product2.bytes[1] = 9
+            def product3 = cache.get([1]) {null}
+
+        then:
+            product1.is(loaded)
+            product3.date.time == 0L
+            product3.bytes == [1, 2] as byte[]
+            product3.date instanceof java.sql.Date
+    }
+}
@@ -0,0 +1,216 @@
+// QueryCacheSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.helper
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.ResultSet
+import java.sql.ResultSetMetaData
+import java.sql.Timestamp
+import java.time.Duration
+
+import org.lightsleep.*
+import org.lightsleep.connection.*
+import org.lightsleep.database.*
+import org.lightsleep.helper.*
+import org.lightsleep.test.entity.*
+
+import spock.lang.*
+
+// QueryCacheSpec
+@Unroll
+class QueryCacheSpec extends Specification {
+    static Map<String, Object> row(Map<String, Object> values) {
+        def row = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER)
+        row.putAll(values)
+        return row
+    }
+
+    def "QueryCache get put"() {
+        setup:
+            def cache = new QueryCache(10000)
+            def rows = [row(id: 1, name: 'A'), row(id: 2, name: 'B')]
+            def sql = 'SELECT id, name FROM Contact'
+
+        when:
+            cache.put('key', sql, rows, Duration.ofMinutes(1), cache.version(sql))
+
+        then:
+            cache.get('key').size() == 2
+            cache.get('key')[1].NAME == 'B'
+            cache.get('key2') == null
+            cache.size() == 1
+            cache.bytes() > 0
+            cache.hitCount() == 2
+            cache.missCount() == 1
+    }
+
+    def "QueryCache invalidate by the table"() {
+        setup:
+            def cache = new QueryCache(10000)
+            def rows = [row(id: 1)]
+            [
+                key1: 'SELECT C.id FROM Contact C INNER JOIN Phone P ON P.contactId=C.id',
+                key2: 'SELECT id FROM Contact WHERE id IN (SELECT contactId FROM Address)',
+                key3: 'WITH T AS (SELECT id FROM Product) SELECT id FROM T'
+            ].each {key, sql -> cache.put(key, sql, rows, Duration.ofMinutes(1), cache.version(sql))}
+
+        when:
+            cache.invalidate('PHONE')
+
+        then:
+            cache.get('key1') == null
+            cache.get('key2') != null
+
+        when:
+            cache.invalidate('schema1.Address')
+
+        then:
+            cache.get('key2') == null
+            cache.get('key3') != null
+
+        when:
+            cache.invalidate('Product')
+
+        then:
+            cache.size() == 0
+            cache.bytes() == 0
+    }
+
+    def "QueryCache does not cache the result loaded before invalidation"() {
+        setup:
+            def cache = new QueryCache(10000)
+            def version = cache.version('SELECT id FROM Contact')
+
+        when:
+            cache.invalidate('Contact')
+            cache.put('key', 'SELECT id FROM Contact', [row(id: 1)], Duration.ofMinutes(1), version)
+
+        then:
+            cache.get('key') == null
+    }
+
+    def "QueryCache caches the result loaded before invalidation of the other table"() {
+        setup:
+            def cache = new QueryCache(10000)
+            def version = cache.version('SELECT id FROM Contact')
+
+        when:
+            cache.invalidate('Phone')
+            cache.put('key', 'SELECT id FROM Contact', [row(id: 1)], Duration.ofMinutes(1), version)
+
+        then:
+            cache.version('SELECT id FROM Contact') == version
+            cache.version('SELECT id FROM Phone') != cache.version('SELECT id FROM Address')
+            cache.get('key') != null
+
+        when:
+            version = cache.version('SELECT id FROM Contact')
+            cache.invalidateAll()
+            cache.put('key', 'SELECT id FROM Contact', [row(id: 1)], Duration.ofMinutes(1), version)
+
+        then:
+            cache.get('key') == null
+    }
+
+    def "QueryCache concurrent get put invalidate"() {
+        setup:
+            def cache = new QueryCache(100000)
+            def sql = 'SELECT id FROM Contact'
+            def threads = (1..8).collect {index ->
+                Thread.start {
+                    (1..500).each {
+                        def key = "key${it % 20}"
+                        if (cache.get(key) == null)
+                            cache.put(key, sql, [row(id: it)], Duration.ofMinutes(1), cache.version(sql))
+                        if (index == 1 && it % 50 == 0)
+                            cache.invalidate('Contact')
+                    }
+                }
+            }
+
+        when:
+            threads*.join()
+            cache.invalidate('Contact')
+
+        then:
+            cache.size() == 0
+            cache.bytes() == 0
+            cache.hitCount() + cache.missCount() == 8 * 500
+    }
+
+    def "QueryCache evicts the least recently used results over the memory budget"() {
+        setup:
+            def cache = new QueryCache(2000)
+
+        when:
+            (1..20).each {
+                def sql = "SELECT id FROM Table$it".toString()
+                cache.put("key$it", sql, [row(id: it, name: 'name' * 5)], Duration.ofMinutes(1), cache.version(sql))
+            }
+
+        then:
+            cache.size() < 20
+            cache.bytes() <= 2000
+            cache.get('key1') == null
+            cache.get('key20') != null
+    }
+
+    def "QueryCache expires the results"() {
+        setup:
+            def cache = new QueryCache(10000)
+
+        when:
+            def sql = 'SELECT id FROM Contact'
+            cache.put('key', sql, [row(id: 1)], Duration.ofMillis(1), cache.version(sql))
+            Thread.sleep(10)
+
+        then:
+            cache.get('key') == null
+            cache.size() == 0
+    }
+
+    // Returns a connection supplier of which database has a row of Product
+    ConnectionSupplier newSupplier(String url, String productName, Timestamp updated) {
+        def values = [id: 1, productName: productName, updated: updated]
+        def metaData = Stub(ResultSetMetaData)
+        metaData.getColumnCount() >> values.size()
+        metaData.getColumnLabel(_) >> {int index -> values.keySet()[index - 1]}
+        def resultSet = Stub(ResultSet)
+        resultSet.next() >>> [true, false]
+        resultSet.getMetaData() >> metaData
+        resultSet.getObject(_ as String) >> {String columnLabel -> values[columnLabel]}
+        def statement = Stub(PreparedStatement)
+        statement.executeQuery() >> resultSet
+        def connection = Stub(Connection)
+        connection.prepareStatement(_ as String) >> statement
+
+        def supplier = Stub(ConnectionSupplier)
+        supplier.get() >> {new ConnectionWrapper(connection, supplier)}
+        supplier.getDatabase() >> Standard.instance
+        supplier.getUrl() >> url
+        return supplier
+    }
+
+    def "QueryCache keyed by the URL of the connection supplier"() {
+        setup:
+            def supplier1 = newSupplier('jdbc:test:queryCache1', 'A', new Timestamp(1000L))
+            def supplier2 = newSupplier('jdbc:test:queryCache2', 'B', new Timestamp(2000L))
+            def hitCount = QueryCache.instance.hitCount()
+            def products = []
+
+        when:
+            [supplier1, supplier2, supplier1, supplier2].each {supplier ->
+                def connection = supplier.get()
+                def product = new Sql<>(Product).connection(connection).cached(Duration.ofMinutes(1))
+                    .where('{id}={}', 1).select().get()
+                products << [product.productName, product.updated.time]
+                product.updated.time = 9999L // does not change the cached value
+            }
+
+        then:
+            products == [['A', 1000L], ['B', 2000L], ['A', 1000L], ['B', 2000L]]
+            QueryCache.instance.hitCount() == hitCount + 2
+    }
+}
@@ -0,0 +1,119 @@
+// StdSpec.groovy
+// (C) 2016 Masato Kokubo
+
+package org.lightsleep.spec.logger
+
+import java.nio.charset.StandardCharsets
+
+import org.lightsleep.logger.*
+
+import spock.lang.*
+
+// StdSpec
+@Unroll
+class StdSpec extends Specification {
+    static class TestStd extends Std {
+        TestStd(PrintStream stream, Std.Level level, boolean async) {
+            super(stream, level, async)
+        }
+    }
+
+    static List<String> lines(ByteArrayOutputStream out) {
+        return out.toString(StandardCharsets.UTF_8.name()).readLines()
+    }
+
+    // Waits until the number of the output lines reaches the count
+    static List<String> awaitLines(ByteArrayOutputStream out, int count) {
+        long deadline = System.currentTimeMillis() + 10_000L
+        while (lines(out).size() < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10L)
+        return lines(out)
+    }
+
+    def "Std level checks #level"(Std.Level level) {
+        setup:
+            def out = new ByteArrayOutputStream()
+            def logger = new TestStd(new PrintStream(out, true, StandardCharsets.UTF_8.name()), level, false)
+            List<String> suppliedLevels = []
+
+        when:
+            logger.trace('trace message')
+            logger.debug('debug message')
+            logger.info ('info message' )
+            logger.warn ('warn message' )
+            logger.error('error message')
+            logger.fatal('fatal message')
+            logger.trace({suppliedLevels << 'TRACE'; 'trace supplied'})
+            logger.debug({suppliedLevels << 'DEBUG'; 'debug supplied'})
+            logger.info ({suppliedLevels << 'INFO' ; 'info supplied' })
+            logger.warn ({suppliedLevels << 'WARN' ; 'warn supplied' })
+            logger.error({suppliedLevels << 'ERROR'; 'error supplied'})
+            logger.fatal({suppliedLevels << 'FATAL'; 'fatal supplied'})
+            def enabledLevels = Std.Level.values().findAll {level <= it}*.name()
+
+        then:
+            logger.traceEnabled == (level <= Std.Level.TRACE)
+            logger.debugEnabled == (level <= Std.Level.DEBUG)
+            logger.infoEnabled  == (level <= Std.Level.INFO )
+            logger.warnEnabled  == (level <= Std.Level.WARN )
+            logger.errorEnabled == (level <= Std.Level.ERROR)
+            logger.fatalEnabled == true
+            suppliedLevels == enabledLevels
+            lines(out).collect {it.split(' ')[2]} == enabledLevels + enabledLevels
+            lines(out).every {it ==~ /\d{4}-\d\d-\d\d \d\d:\d\d:\d\d\.\d{3} [A-Z]+ [a-z]+ (message|supplied)/}
+
+        where:
+            level << Std.Level.values()
+    }
+
+    def "Std with a Throwable"() {
+        setup:
+            def out = new ByteArrayOutputStream()
+            def logger = new TestStd(new PrintStream(out, true, StandardCharsets.UTF_8.name()), Std.Level.INFO, false)
+
+        when:
+            logger.error('error message', new IllegalStateException('state', new IllegalArgumentException('argument')))
+
+        then:
+            lines(out)[0].endsWith(' ERROR error message')
+            lines(out)[1] == 'java.lang.IllegalStateException: state'
+            lines(out)[2].startsWith('    at ')
+            lines(out).contains('Caused by: java.lang.IllegalArgumentException: argument')
+    }
+
+    def "Std async loggers"() {
+        expect:
+            new Std.AsyncOut.Info('name').infoEnabled
+            !new Std.AsyncOut.Info('name').debugEnabled
+            new Std.AsyncErr.Warn('name').warnEnabled
+            !new Std.AsyncErr.Warn('name').infoEnabled
+    }
+
+    def "Std async output from threads"() {
+        setup:
+            def out = new ByteArrayOutputStream()
+            def logger = new TestStd(new PrintStream(out, true, StandardCharsets.UTF_8.name()), Std.Level.INFO, true)
+            int threadCount = 4
+            int messageCount = 5000 // more than the buffer size in total
+
+        when:
+            def threads = (1..threadCount).collect {threadIndex ->
+                Thread.start {
+                    (1..messageCount).each {
+                        logger.debug("thread$threadIndex debug $it")
+                        logger.info("thread$threadIndex info $it")
+                    }
+                }
+            }
+            threads*.join()
+            def lines = awaitLines(out, threadCount * messageCount)
+
+        then:
+            lines.size() == threadCount * messageCount
+            !lines.any {it.contains(' DEBUG ')}
+            (1..threadCount).every {threadIndex ->
+                lines.findAll {it.contains(" thread$threadIndex ")}
+                    .collect {it.substring(it.lastIndexOf(' ') + 1) as int} == (1..messageCount).toList()
+            }
+    }
+}